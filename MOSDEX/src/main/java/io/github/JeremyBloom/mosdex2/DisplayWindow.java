@@ -15,6 +15,7 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.print.PrinterException;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
@@ -38,6 +39,7 @@ import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JViewport;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.text.DefaultCaret;
 
 /**
@@ -59,6 +61,9 @@ public class DisplayWindow {
 	protected JTextArea lineNumbers;
 	private boolean isOpen;
 	
+	/**Text waiting to be appended on the event dispatch thread (see queue).*/
+	private final StringBuilder queued= new StringBuilder();
+	
 	/**
 	 * Creates a window to display text.
 	 * The window has a dropdown Edit menu that enables selecting all of the text 
@@ -203,11 +208,40 @@ public class DisplayWindow {
 	 */
 	public void print(String s) {
         this.text.append(s);
-		while(this.lineNumbers.getLineCount() < this.text.getLineCount()) {
-			this.lineNumbers.append(Integer.toString(this.lineNumbers.getLineCount()) + System.lineSeparator());
-		}		  	
+		int lineCount= this.text.getLineCount();
+		if(this.lineNumbers.getLineCount() < lineCount) {
+			StringBuilder numbers= new StringBuilder();
+			for(int line= this.lineNumbers.getLineCount(); line < lineCount; line++)
+				numbers.append(line).append(System.lineSeparator());
+			this.lineNumbers.append(numbers.toString());
+		}
 	}
 	
+	/**
+	 * Queues text to be appended on the event dispatch thread.
+	 * Text queued while an append is pending joins that append, 
+	 * so a burst of output costs one update of the text area and its line numbers.
+	 * 
+	 * @param s text to be appended
+	 */
+	protected void queue(String s) {
+		boolean schedule;
+		synchronized(queued) {
+			schedule= queued.length()==0;
+			queued.append(s);
+		}
+		if(schedule) {
+			SwingUtilities.invokeLater(() -> {
+				String batch;
+				synchronized(queued) {
+					batch= queued.toString();
+					queued.setLength(0);
+				}
+				print(batch);
+			});
+		}
+	}//queue
+	
 	/**
 	 * Appends the string representation of an object to the end of the document and updates the line numbers.
 	 * @param s text to be appended
@@ -263,19 +297,39 @@ public class DisplayWindow {
 	 * Creates an extended PrintStream instance that directs its output to this display window.
 	 * Enables using all of the PrintStream print(...) and println(...) methods 
 	 * for different types of arguments.
-	 * Note that using the PrintStream is possibly inefficient due to the need to check updates to the line numbers 
-	 * after writing each character.
+	 * The stream collects bytes until it is flushed, which it does automatically at the end of each line, 
+	 * and then queues the text for the display (see queue), 
+	 * so the caller never waits for the text area to repaint.
 	 * 
 	 * @return an ExtendedPrintStream instance
 	 */
 	public ExtendedPrintStream printStream() {
 		OutputStream out= new OutputStream(){
+			private final ByteArrayOutputStream pending= new ByteArrayOutputStream();
+			
+			@Override
+			public synchronized void write(int b) throws IOException {
+				pending.write(b);
+			}
+			
 			@Override
-			public void write(int b) throws IOException {
-				DisplayWindow.this.print(String.valueOf((char)b));
+			public synchronized void write(byte[] b, int off, int len) throws IOException {
+				pending.write(b, off, len);
+			}
+			
+			@Override
+			public void flush() throws IOException {
+				String batch;
+				synchronized(this) {
+					if(pending.size()==0)
+						return;
+					batch= pending.toString();
+					pending.reset();
+				}
+				DisplayWindow.this.queue(batch);
 			}
 		};
-		return new ExtendedPrintStream(out);
+		return new ExtendedPrintStream(out, true);
 	}
 	
 	/**
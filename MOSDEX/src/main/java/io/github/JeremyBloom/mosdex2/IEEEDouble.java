@@ -6,15 +6,19 @@
 package io.github.JeremyBloom.mosdex2;
 
 import java.util.regex.Pattern;
-
-import org.apache.commons.math3.util.Precision;
-
 /**
  * Represents a Double value by its IEEE 754 hex value. 
  * This class enables accessing values computed by a solver with no loss of precision.
  * This class uses the Apache Commons Math Precision class to implement equals and compareTo 
- * methods within a user-defined tolerance (default value 0.000001d).
+ * methods within a tolerance (default value 0.000001d).
  * In all other ways, IEEEDouble values behave like ordinary Java Doubles.
+ * <p>
+ * An IEEEDouble is immutable and holds only its raw value as a primitive double, so each value is a single small object. 
+ * It carries no tolerance: equals and compareTo use the default tolerance, 
+ * and a comparison with another tolerance is made by the application that holds it (see MsdxTolerance).
+ * Because values are immutable, valueOf shares one instance of the values that recur in models 
+ * (the small whole numbers, e.g. the 1 and -1 coefficients of flow balance rows, and the infinite bounds).
+ * The hexadecimal form is produced only when a value is written (toHexString and toJSON).
  *
  * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
  *
@@ -22,12 +26,12 @@ import org.apache.commons.math3.util.Precision;
 @SuppressWarnings("serial")
 public final class IEEEDouble extends Number {
 	
-	private Double value;
+	private final double value;
 	
 	/**
-	 * Comparison tolerance.
+	 * The default comparison tolerance.
 	 */
-	private double epsilon = 0.000001d;
+	public static final double DEFAULT_EPSILON= MsdxTolerance.DEFAULT_EPSILON;
 	
 	public static final Class<IEEEDouble> TYPE= IEEEDouble.class;
 	
@@ -41,43 +45,54 @@ public final class IEEEDouble extends Number {
 
 	public static final IEEEDouble NEGATIVE_INFINITY= new IEEEDouble(Double.NEGATIVE_INFINITY);
 
+	/**Lowest and highest whole numbers shared by valueOf.*/
+	private static final int CACHE_LOW= -128, CACHE_HIGH= 127;
+
+	private static final IEEEDouble[] CACHE= new IEEEDouble[CACHE_HIGH - CACHE_LOW + 1];
+	static {
+		for(int i= 0; i < CACHE.length; i++)
+			CACHE[i]= new IEEEDouble((double) (CACHE_LOW + i));
+	}
+
 	/**
-	 * 
+	 * Creates a zero value.
 	 */
 	public IEEEDouble() {
-		super();
+		this(0.0);
 	}
 	
 	public IEEEDouble(Double value) {
-		super();
-		this.value = value;
+		this(value.doubleValue());
 	}
 
 	public IEEEDouble(double v) {
 		super();
-		this.value = Double.valueOf(v);
+		this.value = v;
 	}
 
 	public IEEEDouble(String s) {
-		super();
-		this.value = Double.valueOf(s);
+		this(MsdxNumberScanner.parseDouble(s));
 	}
 
 	/**
-	 * @return the current value of the comparison tolerance.
+	 * @return the comparison tolerance of equals and compareTo.
 	 */
 	public double getEpsilon() {
-		return epsilon;
+		return DEFAULT_EPSILON;
 	}
 
 	/**
-	 * Set the comparison tolerance.
+	 * Formerly set the comparison tolerance of this value. 
+	 * An IEEEDouble no longer carries a tolerance, so this returns this value unchanged, 
+	 * and equals and compareTo still use the default tolerance.
 	 * 
-	 * @param epsilon
+	 * @param epsilon ignored
 	 * @return this IEEEDouble
+	 * @deprecated compare the values with an MsdxTolerance instead, 
+	 * e.g. MsdxTolerance.of(epsilon).equals(x.doubleValue(), y.doubleValue())
 	 */
+	@Deprecated
 	public IEEEDouble withEpsilon(double epsilon) {
-		this.epsilon = epsilon;
 		return this;
 	}
 
@@ -90,22 +105,22 @@ public final class IEEEDouble extends Number {
 
 	@Override
 	public int intValue() {
-		return value.intValue();
+		return (int) value;
 	}
 
 	@Override
 	public long longValue() {
-		return value.longValue();
+		return (long) value;
 	}
 
 	@Override
 	public float floatValue() {
-		return value.floatValue();
+		return (float) value;
 	}
 
 	@Override
 	public double doubleValue() {
-		return value.doubleValue();
+		return value;
 	}
 	
 	public Double exposeDoubleValue() {
@@ -120,18 +135,32 @@ public final class IEEEDouble extends Number {
 	 * @return an IEEEDouble
 	 */
 	public static IEEEDouble valueOf(String s) {
-		return new IEEEDouble(Double.valueOf(s));
+		return valueOf(MsdxNumberScanner.parseDouble(s));
 	}
 	
+	/**
+	 * Returns an IEEEDouble holding a double value, 
+	 * sharing one instance of each small whole number and of each infinity.
+	 * 
+	 * @param d
+	 * @return an IEEEDouble
+	 */
 	public static IEEEDouble valueOf(double d) {
-		return new IEEEDouble(Double.valueOf(d));
-	}
+		int i= (int) d;
+		if(i >= CACHE_LOW && i <= CACHE_HIGH && Double.doubleToRawLongBits(d)==Double.doubleToRawLongBits(i))	//not -0.0
+			return CACHE[i - CACHE_LOW];
+		if(d==Double.POSITIVE_INFINITY)
+			return POSITIVE_INFINITY;
+		if(d==Double.NEGATIVE_INFINITY)
+			return NEGATIVE_INFINITY;
+		return new IEEEDouble(d);
+	}//valueOf
 
 	/**
 	 * Tests the argument for equality with this number. 
 	 * Any type of argument except for Double or IEEE Double returns false.
-	 * A proper argument returns equality within the tolerance (epsilon) for this number.
-	 * Uses org.apache.commons.math3.util.Precision.equals(double, double, double);
+	 * A proper argument returns equality within the default tolerance (epsilon).
+	 * Uses org.apache.commons.math3.util.Precision.equals(double, double, double) through MsdxTolerance.
 	 */
 	@Override
 	public boolean equals(Object obj) {
@@ -139,17 +168,15 @@ public final class IEEEDouble extends Number {
 			return true;
 		if (!(obj instanceof IEEEDouble || obj instanceof Double))
 			return false;
-		if (this.isNaN() && (obj instanceof Double) ? ((Double) obj).isNaN() : ((IEEEDouble) obj).isNaN())
-			return true;	//conforms to Double.equals
-		if (this.isNaN() || (obj instanceof Double) ? ((Double) obj).isNaN() : ((IEEEDouble) obj).isNaN())
-			return false;	//conforms to Double.equals
-		double other = (obj instanceof Double) ? ((Double) obj).doubleValue() : ((IEEEDouble) obj).doubleValue() ;
-		return Precision.equals(this.doubleValue(), other, epsilon);
+		double other = ((Number) obj).doubleValue();
+		if (Double.isNaN(value) || Double.isNaN(other))
+			return Double.isNaN(value) && Double.isNaN(other);	//conforms to Double.equals
+		return MsdxTolerance.DEFAULT.equals(value, other);
 	}
 
 	/**
 	 * Compares this number to another.
-	 * Returns the comparison within the tolerance (epsilon) for this number.
+	 * Returns the comparison within the default tolerance (epsilon).
 	 * Uses org.apache.commons.math3.util.Precision.compareTo(double, double, double).
 	 * 
 	 * @param other
@@ -160,15 +187,15 @@ public final class IEEEDouble extends Number {
 	 * </ul>
 	 */
 	public int compareTo(IEEEDouble other) {
-		return Precision.compareTo(this.doubleValue(), other.doubleValue(), epsilon);
+		return MsdxTolerance.DEFAULT.compare(value, other.doubleValue());
 	}
 
 	public int compareTo(Double other) {
-		return Precision.compareTo(this.doubleValue(), other.doubleValue(), epsilon);
+		return MsdxTolerance.DEFAULT.compare(value, other.doubleValue());
 	}
 
 	public int compareTo(double other) {
-		return Precision.compareTo(this.doubleValue(), other, epsilon);
+		return MsdxTolerance.DEFAULT.compare(value, other);
 	}
 
 	public String toString() {
@@ -199,24 +226,24 @@ public final class IEEEDouble extends Number {
 	}
 
 	public boolean isNaN() {
-		return value.isNaN();
+		return Double.isNaN(value);
 	}
 
 	public boolean isInfinite() {
-		return value.isInfinite();
+		return Double.isInfinite(value);
 	}
 
 	public byte byteValue() {
-		return value.byteValue();
+		return (byte) value;
 	}
 
 	public short shortValue() {
-		return value.shortValue();
+		return (short) value;
 	}
 
 	@Override
 	public int hashCode() {
-		return value.hashCode();
+		return Double.hashCode(value);
 	}
 
 
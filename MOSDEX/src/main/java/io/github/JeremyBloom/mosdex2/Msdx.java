@@ -5,10 +5,15 @@
  */
 package io.github.JeremyBloom.mosdex2;
 
+import java.awt.GraphicsEnvironment;
+import java.io.OutputStream;
+
 import org.apache.spark.SparkConf;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
 
 import io.github.JeremyBloom.mosdex2.DisplayWindow.ExtendedPrintStream;
 
@@ -21,9 +26,10 @@ import io.github.JeremyBloom.mosdex2.DisplayWindow.ExtendedPrintStream;
  * generally, but not always, constants that do not change according to context.
  * The global objects include:
  * <ul>
- * <li>a Display Window to which supplementary output can be written using a
- * globally visible output stream;</li>
+ * <li>a globally visible output stream for supplementary output, 
+ * directed to a Display Window or to the console according to the Display mode;</li>
  * <li>the Jackson Object Mapper and its associated JSON Factory;</li>
+ * <li>the Jackson Object Mapper for the binary (Smile) encoding of MOSDEX;</li>
  * <li>the Apache Spark Configuration (other Spark objects reside in
  * MsdxSparkDataframe.Factory).
  * </ul>
@@ -31,6 +37,25 @@ import io.github.JeremyBloom.mosdex2.DisplayWindow.ExtendedPrintStream;
  * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
  */
 public class Msdx {
+	
+	/**
+	 * Where supplementary output written to Msdx.GLOBAL.out goes.
+	 */
+	public enum Display {
+		/**A DisplayWindow, which receives output in batches on the event dispatch thread.*/
+		WINDOW,
+		/**The console (System.out), written synchronously.*/
+		CONSOLE,
+		/**The console, written by a background thread through a ring buffer (see AsyncOutputStream).*/
+		ASYNC
+	}//enum Display
+	
+	/**
+	 * System property that selects the Display mode (window, console, or async).
+	 * If it is not set, the mode is ASYNC in a headless environment and WINDOW otherwise.
+	 * WINDOW is never used in a headless environment.
+	 */
+	public static final String DISPLAY_PROPERTY= "mosdex.display";
 		
 	/**
 	 * The sole instance of class Msdx. All global objects are accessed through this instance.
@@ -43,6 +68,13 @@ public class Msdx {
 	 */
 	public final ObjectMapper mapper;
 	
+	/**
+	 * Jackson Object Mapper for the binary (Smile) encoding of MOSDEX.
+	 * Shares repeated names and short string values, which are common in Instance data.
+	 * Predefined, constant attribute.
+	 */
+	public final ObjectMapper binaryMapper;
+	
 	/**
 	 * Configuration for Apache Spark applications using MOSDEX.
 	 * Predefined, constant attribute.
@@ -50,7 +82,13 @@ public class Msdx {
 	public final SparkConf sparkConfiguration;
 	
 	/**
-	 * Display window for supplementary output.
+	 * The Display mode in effect.
+	 * Predefined, constant attribute.
+	 */
+	public final Display display;
+	
+	/**
+	 * Display window for supplementary output; null unless the Display mode is WINDOW.
 	 * Predefined, constant attribute.
 	 */
 	public DisplayWindow window;
@@ -69,6 +107,11 @@ public class Msdx {
 
 		mapper= new ObjectMapper();
 		mapper.enable(SerializationFeature.INDENT_OUTPUT);
+		
+		binaryMapper= new ObjectMapper(SmileFactory.builder()
+			.enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+			.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+			.build());
 
 		sparkConfiguration = new SparkConf().setAppName("MOSDEX").setMaster("local[*]");
 		//The following now live in MsdxSparkDataframe.Factory
@@ -78,23 +121,77 @@ public class Msdx {
 				.config(sparkConfiguration)
 				.getOrCreate();
 */		
-		window= new DisplayWindow("");
-		out= window.printStream();
+		display= selectDisplay();
+		switch(display) {
+			case WINDOW:
+				window= new DisplayWindow("");
+				out= window.printStream();
+				break;
+			case CONSOLE:
+				window= null;
+				out= consoleStream(display, System.out);
+				break;
+			default: /*ASYNC*/
+				window= null;
+				out= consoleStream(display, System.out);
+				Runtime.getRuntime().addShutdownHook(new Thread(out::close));	//drains the buffered output
+				break;
+		}//switch
 	}
 	
 	/**
-	 * Sets the display title.
+	 * Creates the output stream of a console Display mode.
+	 * 
+	 * @param display CONSOLE or ASYNC
+	 * @param console receives the output, usually System.out
+	 * @return a print stream that flushes on every line, 
+	 * writing to the console directly for CONSOLE and through an AsyncOutputStream for ASYNC
+	 */
+	static ExtendedPrintStream consoleStream(Display display, OutputStream console) {
+		switch(display) {
+			case CONSOLE:
+				return new ExtendedPrintStream(console, true);
+			case ASYNC:
+				return new ExtendedPrintStream(new AsyncOutputStream(console), true);
+			default:
+				throw new IllegalArgumentException("Not a console display " + display);
+		}//switch
+	}//consoleStream
+	
+	/**
+	 * @return the Display mode named by the DISPLAY_PROPERTY system property, 
+	 * or by default (or if the property names no Display mode), ASYNC in a headless environment and WINDOW otherwise
+	 */
+	private static Display selectDisplay() {
+		boolean headless= GraphicsEnvironment.isHeadless();
+		String property= System.getProperty(DISPLAY_PROPERTY);
+		if(property==null || property.isBlank())
+			return headless ? Display.ASYNC : Display.WINDOW;
+		Display selected;
+		try {
+			selected= Display.valueOf(property.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {	//must not fail the static initializer
+			System.err.println("Unknown " + DISPLAY_PROPERTY + " \"" + property + "\", using the default display");
+			return headless ? Display.ASYNC : Display.WINDOW;
+		}
+		return selected==Display.WINDOW && headless ? Display.ASYNC : selected;
+	}//selectDisplay
+	
+	/**
+	 * Sets the display title. Has no effect unless the Display mode is WINDOW.
 	 * @param title
 	 */
 	public void setDisplayTitle(String title) {
-		window.setTitle(title);
+		if(window!=null)
+			window.setTitle(title);
 	}
 	
 	/**
-	 * Shows the display window.
+	 * Shows the display window. Has no effect unless the Display mode is WINDOW.
 	 */
 	public void showDisplay() {
-		window.show();
+		if(window!=null)
+			window.show();
 	}
 	
 	
@@ -10,28 +10,36 @@ import java.io.PrintStream;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
-import org.json.JSONException;
-import org.skyscreamer.jsonassert.JSONCompare;
-import org.skyscreamer.jsonassert.JSONCompareMode;
-import org.skyscreamer.jsonassert.JSONCompareResult;
-
 import ilog.concert.IloException;
 import ilog.cplex.IloCplex;
 import io.github.JeremyBloom.mosdex2.dataframe.MsdxDataframe;
 import io.github.JeremyBloom.mosdex2.dataframe.MsdxSparkDataframe;
+import io.github.JeremyBloom.mosdex2.json.MsdxComparator;
+import io.github.JeremyBloom.mosdex2.modeling.MsdxColumnPruner;
 import io.github.JeremyBloom.mosdex2.modeling.MsdxCplexModelingFactory;
 import io.github.JeremyBloom.mosdex2.modeling.MsdxLpTextModelingFactory;
 import io.github.JeremyBloom.mosdex2.modeling.MsdxModel;
 import io.github.JeremyBloom.mosdex2.modeling.MsdxMpsTextModelingFactory;
 import io.github.JeremyBloom.mosdex2.modeling.MsdxSolverModelingFactory;
 import io.github.JeremyBloom.mosdex2.objectModel.MsdxFile;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxInstanceStream;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxModule;
 import io.github.JeremyBloom.mosdex2.objectModel.MsdxObject;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxQuery;
 import io.github.JeremyBloom.mosdex2.objectModel.MsdxTable;
 import io.github.JeremyBloom.mosdex2.span.MsdxJavaSpan;
 import io.github.JeremyBloom.mosdex2.span.MsdxSpan;
@@ -119,6 +127,21 @@ public class MsdxApplication implements Runnable {
 	/**The collector holds all the tables from all the Modules in all the Files.*/
 	Map<String, MsdxTable> collector;
 	
+	/**True if the Instances are read with only the fields the model uses (see pruneColumns).*/
+	protected boolean pruneColumns;
+	
+	/**Number of Records buffered for each streamed table, or 0 if the Instances are not streamed (see streamInstances).*/
+	protected int streamCapacity;
+	
+	/**True if the Instances are decoded only when they are used (see lazyInstances).*/
+	protected boolean lazyInstances;
+	
+	/**The tolerance within which the Checker matches the numbers of the expected and actual outputs (see withTolerance).*/
+	protected MsdxTolerance tolerance;
+	
+	/**The model of the current run, whose released tables release deletes; null between runs.*/
+	private MsdxModel model;
+	
 	/**
 	 * Constructs a new application instance.
 	 * 
@@ -139,6 +162,10 @@ public class MsdxApplication implements Runnable {
 		this.dataframeFactory= null;
 		this.objectFactory= null;	//set in the use...Dataframes configuration method, since it depends on the dataframe factory
 		this.collector= new LinkedHashMap<String, MsdxTable>();	//collects all the tables in the application, used by MsdxModel
+		this.pruneColumns= false;
+		this.streamCapacity= 0;
+		this.lazyInstances= false;
+		this.tolerance= MsdxTolerance.DEFAULT;
 	}
 	
 	/**
@@ -203,6 +230,84 @@ public class MsdxApplication implements Runnable {
 		return this;
 	}
 	
+	/**
+	 * Reads only the fields of each Table that the model uses. 
+	 * Before the Files are read, each is scanned for its Schemas and Queries (see MsdxObject.Factory.readSchemas), 
+	 * and MsdxColumnPruner finds the fields needed by the Queries and the modeling factory; 
+	 * the other fields are skipped as the Instances are read. 
+	 * The Tables to be shown are read in full. 
+	 * Columns are pruned only if every input source can be reopened (see MsdxInputSource.isReopenable) 
+	 * and the object factory does not validate the Instances.
+	 * Specify the solver modeling factory and the tables to show before calling run.
+	 * 
+	 * @return this application instance
+	 */
+	public MsdxApplication pruneColumns() {
+		this.pruneColumns= true;
+		return this;
+	}
+	
+	/**
+	 * Builds the model while the Files are being read, for a model whose modeling tables have Instances rather than Queries. 
+	 * Each File is scanned for its Schemas first (see MsdxObject.Factory.readSchemas); 
+	 * then the Files are read on another thread, and the Records of the VARIABLE, CONSTRAINT, OBJECTIVE and TERM tables 
+	 * are handed to the modeling factory's bridges as they are decoded (see MsdxInstanceStream), 
+	 * with at most capacity Records buffered for a table the model is ready to read. 
+	 * The Instances of these tables are not kept, except those to be shown, 
+	 * those with function call fields, and those that the output Queries read. 
+	 * Instances are streamed only if every input source can be reopened, the object factory does not validate the Instances, 
+	 * and no table other than an output table has a Query. 
+	 * Specify the solver modeling factory and the tables to show before calling run.
+	 * 
+	 * @param capacity the number of Records buffered for each table (see MsdxInstanceStream.Registry)
+	 * @return this application instance
+	 * @throws IllegalArgumentException if capacity is not positive
+	 */
+	public MsdxApplication streamInstances(int capacity) {
+		if(capacity<1)
+			throw new IllegalArgumentException("Capacity must be positive");
+		this.streamCapacity= capacity;
+		return this;
+	}
+	
+	/**
+	 * Builds the model while the Files are being read, buffering the default number of Records for each table 
+	 * (see streamInstances(int)).
+	 * 
+	 * @return this application instance
+	 */
+	public MsdxApplication streamInstances() {
+		return streamInstances(MsdxInstanceStream.Registry.DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Decodes only the Instances that are used. 
+	 * Each File is read in one pass that indexes its Instances (see MsdxObject.Factory.withLazyInstances); 
+	 * an Instance is decoded when a Query that depends on it runs, when the model builds its solver objects from it, 
+	 * or when it is shown, so the tables that neither the model nor the output reads are never decoded. 
+	 * Instances are decoded as the Files are read if an input source cannot be reopened (see MsdxInputSource.isReopenable) 
+	 * or the object factory validates the Instances.
+	 * 
+	 * @return this application instance
+	 */
+	public MsdxApplication lazyInstances() {
+		this.lazyInstances= true;
+		return this;
+	}
+	
+	/**
+	 * Sets the tolerance within which the numbers of the actual output match those of the expected output. 
+	 * The Records hold the raw values; the tolerance is applied only when the outputs are compared. 
+	 * 
+	 * @param epsilon (default MsdxTolerance.DEFAULT_EPSILON)
+	 * @return this application instance
+	 * @throws IllegalArgumentException if epsilon is negative or NaN
+	 */
+	public MsdxApplication withTolerance(double epsilon) {
+		this.tolerance= MsdxTolerance.of(epsilon);
+		return this;
+	}
+	
 	/**
 	 * Sets a destination for the native output of the solver.
 	 * 
@@ -311,11 +416,22 @@ public class MsdxApplication implements Runnable {
 	/**
 	 * Executes the application.
 	 * If expected outputs are defined for the destinations, checks that they match the actual outputs. 
+	 * When the run ends, stops any Spark session it started.
 	 * <p>
 	 * Throws JSONException if there is a parsing error in the checker (failing the checker test does not generate an exception)
 	 */
 	@Override
 	public void run() {
+		boolean sparkWasStarted= this.dataframeFactory instanceof MsdxSparkDataframe.Factory && MsdxSparkDataframe.Sessions.isStarted();
+		try {
+			execute();
+		} finally {
+			release(sparkWasStarted);
+		}
+	}//run
+	
+	/**Reads, solves and writes the MOSDEX Files (see run).*/
+	private void execute() {
 		
 		//Check that all required fields have been set
 		if(this.mosdexOutputs.keySet().isEmpty())
@@ -330,27 +446,72 @@ public class MsdxApplication implements Runnable {
 			throw new IllegalArgumentException("MsdxApplication: Span Factory is not defined");
 		if(this.solver==null)
 			throw new IllegalArgumentException("MsdxApplication: Solver Modeling Factory is not defined");
+		if(this.lazyInstances)
+			this.objectFactory.withLazyInstances(true);
 		
-		Map<MsdxInputSource, MsdxFile> mosdexFiles= new IdentityHashMap<MsdxInputSource, MsdxFile>();
-		MsdxFile msdx;
-		for(MsdxInputSource src: this.mosdexOutputs.keySet()) {
-			msdx= objectFactory.readFile(src);
-			mosdexFiles.put(src, msdx);
+		//Scan the Files for their Schemas and Queries, if they are to be pruned or streamed
+		List<MsdxFile> scannedFiles= null;
+		if((this.pruneColumns || this.streamCapacity>0) && this.objectFactory.getValidator()==null
+			&& this.mosdexOutputs.keySet().stream().allMatch(MsdxInputSource::isReopenable))
+		{
+			scannedFiles= new ArrayList<MsdxFile>();
+			for(MsdxInputSource src: this.mosdexOutputs.keySet())
+				scannedFiles.add(objectFactory.readSchemas(src.reopen()));
+			if(this.pruneColumns)
+				objectFactory.withRequiredFields(new MsdxColumnPruner(this.solver, this.objectsToShow).requiredFields(scannedFiles));
 		}
 		
-		//Populate the collector with all tables from all modules
-		this.collector= mosdexFiles.values().stream()
-			.flatMap(mosdex -> mosdex.getModules().values().stream())
-			.flatMap(module -> module.getTables().values().stream())
-			.collect(Collectors.toMap(
-				table -> table.getName(), 
-				table -> table, 
-				(name1, name2) -> {throw new IllegalArgumentException("Duplicate table names " + name1);}, 
-				LinkedHashMap<String, MsdxTable>::new));
-		
-		//Create the model and all solver-specific objects
 		MsdxModel model= new MsdxModel(this.title, solver, spans, this.dataframeFactory);
-		model.createModelingObjects(this.collector);
+		this.model= model;
+		Map<MsdxInputSource, MsdxFile> mosdexFiles;
+		Map<String, MsdxTable> scannedTables= scannedFiles!=null ? collect(scannedFiles) : null;
+		if(this.streamCapacity>0 && scannedTables!=null && isInstanceForm(scannedTables)) {
+			//Create the model and all solver-specific objects while the Files are read
+			MsdxInstanceStream.Registry streams= new MsdxInstanceStream.Registry(
+				model.getCreationSequence(scannedTables), 
+				retainedTables(scannedFiles, scannedTables), 
+				this.streamCapacity);
+			objectFactory.withInstanceStreams(streams);
+			ExecutorService reader= Executors.newSingleThreadExecutor();
+			try {
+				Future<Map<MsdxInputSource, MsdxFile>> reading= reader.submit(() -> {
+					try {
+						return readFiles();
+					} catch (RuntimeException | Error e) {
+						streams.cancel(e);
+						throw e;
+					}
+				});
+				try {
+					model.withInstanceStreams(streams).createModelingObjects(scannedTables);
+				} catch (RuntimeException e) {
+					streams.cancel(e);
+					throw e;
+				}
+				mosdexFiles= reading.get();
+			} catch (InterruptedException e) {
+				streams.cancel(e);
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("MsdxApplication: interrupted while reading", e);
+			} catch (ExecutionException e) {
+				if(e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				throw new IllegalStateException("MsdxApplication: reading failed", e.getCause());
+			} finally {
+				reader.shutdown();
+				objectFactory.withInstanceStreams(null);
+			}
+			this.collector= collect(mosdexFiles.values());
+		}
+		else {
+			mosdexFiles= readFiles();
+			
+			//Populate the collector with all tables from all modules
+			this.collector= collect(mosdexFiles.values());
+			
+			//Create the model and all solver-specific objects
+			model.createModelingObjects(this.collector);
+		}
 		
 		this.solver.withName(model.getModelName());	
 		if(includeGeneratedModel)
@@ -388,7 +549,86 @@ public class MsdxApplication implements Runnable {
 				checker.test(dst, this.expectedOutputs.get(dst));
 			}
 		}//for each src
-	}//run
+	}//execute
+	
+	/**
+	 * Releases the resources held for a run: deletes the spill files of the model's released tables (see MsdxTableLifecycle), 
+	 * clears the dataframe factory's string pool and Function Call templates, drops its tables 
+	 * and stops Spark, unless Spark was already running before the run (in which case its owner stops it).
+	 * A run that failed before its dataframe factory was created has nothing to clear.
+	 * 
+	 * @param sparkWasStarted true if Spark was running when the run began
+	 */
+	private void release(boolean sparkWasStarted) {
+		if(this.model!=null && this.model.getLifecycle()!=null)
+			this.model.getLifecycle().close();
+		this.model= null;
+		if(this.dataframeFactory!=null) {
+			this.dataframeFactory.getStringPool().clear();
+			this.dataframeFactory.getFunctionCalls().clear();
+		}
+		if(this.dataframeFactory instanceof MsdxSparkDataframe.Factory) {
+			((MsdxSparkDataframe.Factory) this.dataframeFactory).close();
+			if(!sparkWasStarted)
+				MsdxSparkDataframe.Sessions.stop();
+		}
+	}//release
+
+	/**@return the MOSDEX Files read from each input source*/
+	private Map<MsdxInputSource, MsdxFile> readFiles() {
+		Map<MsdxInputSource, MsdxFile> mosdexFiles= new IdentityHashMap<MsdxInputSource, MsdxFile>();
+		MsdxFile msdx;
+		for(MsdxInputSource src: this.mosdexOutputs.keySet()) {
+			msdx= objectFactory.readFile(src);
+			mosdexFiles.put(src, msdx);
+		}
+		return mosdexFiles;
+	}//readFiles
+	
+	/**
+	 * @param mosdexFiles
+	 * @return all tables from all modules of the Files
+	 * @throws IllegalArgumentException if there is any duplicate table name
+	 */
+	private static Map<String, MsdxTable> collect(Collection<MsdxFile> mosdexFiles) {
+		return mosdexFiles.stream()
+			.flatMap(mosdex -> mosdex.getModules().values().stream())
+			.flatMap(module -> module.getTables().values().stream())
+			.collect(Collectors.toMap(
+				table -> table.getName(), 
+				table -> table, 
+				(name1, name2) -> {throw new IllegalArgumentException("Duplicate table names " + name1);}, 
+				LinkedHashMap<String, MsdxTable>::new));
+	}//collect
+	
+	/**@return true if no table other than an output table has a Query, so that the model can be built from the Instances as they are read*/
+	private static boolean isInstanceForm(Map<String, MsdxTable> tables) {
+		return tables.values().stream()
+			.filter(table -> !(table.getTableClass().equals("DATA") && table.getTableType().equals("OUTPUT")))
+			.noneMatch(table -> table.hasField("QUERY") || table.hasField("INITIALIZE"));
+	}
+	
+	/**
+	 * @param scannedFiles
+	 * @param scannedTables
+	 * @return the tables whose Instances are read after the model is built: 
+	 * those to be shown, those with function call fields, and those the output Queries read
+	 */
+	private Set<String> retainedTables(List<MsdxFile> scannedFiles, Map<String, MsdxTable> scannedTables) {
+		Set<String> retained= new LinkedHashSet<String>();
+		MsdxColumnPruner pruner= new MsdxColumnPruner(this.solver, this.objectsToShow);
+		for(MsdxFile file: scannedFiles)
+			for(MsdxModule module: file.getModules().values())
+				for(MsdxTable table: module.getTables().values())
+					if(pruner.isShown(module.getName(), table.getName()))
+						retained.add(table.getName());
+		new MsdxQuery.Resolver(scannedTables).findDependencies().getTableDependencies()
+			.values().forEach(retained::addAll);
+		for(MsdxTable table: scannedTables.values())
+			if(table.getSchema()!=null && !MsdxFunctionCall.findFunctionFieldsIn(table.getSchema().asContainer()).isEmpty())
+				retained.add(table.getName());
+		return retained;
+	}//retainedTables
 
 	/**@return the status returned by the solver (e.g. Infeasible, Optimal, etc.);
 	 * typically this will be a string representing the solver's native status indicator.
@@ -531,8 +771,7 @@ public class MsdxApplication implements Runnable {
 		 * @param dst
 		 * @param expected
 		 * @return though void, prints a message about success or failure to the solver results destination, 
-		 * and if failure, indicates where the mismatches occur.
-		 * @throws JSONException if the actual output is not parsable as JSON
+		 * and if failure, indicates where the first mismatches occur (see MsdxComparator).
 		 */
 		void test(MsdxOutputDestination dst, String expected) {
 			if(expected==null) 
@@ -542,21 +781,11 @@ public class MsdxApplication implements Runnable {
 			String actualOutput= redirects.get(dst).getStream().toString();
 			((PrintStream) dst.getStream()).println(actualOutput);	
 			
-			JSONCompareResult result= null;
-			try {
-				result=  JSONCompare.compareJSON(expected, actualOutput, JSONCompareMode.LENIENT);
-			} catch (JSONException e) {
-				System.err.println(e.getMessage());
-				e.printStackTrace();
-			}
-			if(result.failed()) {
+			MsdxComparator comparator= new MsdxComparator(tolerance.getEpsilon(), MsdxComparator.DEFAULT_LIMIT);
+			if(!comparator.compare(expected, actualOutput)) {
 				((PrintStream) solverResults.getStream()).println("MOSDEX output does not match expected");
-				result.getFieldFailures().stream()
-					.forEach(failure -> ((PrintStream) solverResults.getStream()).println("Failure on " + failure.getField() + ": expected= " + failure.getExpected().toString() + " actual= " + failure.getActual().toString()));
-				result.getFieldMissing().stream()
-					.forEach(failure -> ((PrintStream) solverResults.getStream()).println("Missing " + failure.getField()));
-				result.getFieldUnexpected().stream()
-					.forEach(failure -> ((PrintStream) solverResults.getStream()).println("Unexpected " + failure.getField()));
+				comparator.getDifferences().stream()
+					.forEach(difference -> ((PrintStream) solverResults.getStream()).println(difference));
 			}
 			else
 				((PrintStream) solverResults.getStream()).println("MOSDEX output matches expected");
@@ -7,10 +7,13 @@ package io.github.JeremyBloom.mosdex2;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -38,16 +41,16 @@ public class MsdxFunctionCall implements Serializable {
 	
 	private static final long serialVersionUID = 674809908386084840L;
 	
-	protected String functionName;
+	protected final String functionName;
 	
 	/**the names of the fields in the current record where the arguments are found.*/
-	protected List<String> argumentFields;
-	
-	/**The value returned by the function. Null before the call has been executed.*/
-	protected Object value;
+	protected final List<String> argumentFields;
 	
 	/**The type of the result value.*/
-	protected Class<?> resultType;
+	protected final Class<?> resultType;
+	
+	/**The call string in canonical form, made once.*/
+	private final String callString;
 	
 	/**
 	 * Used to find identifiers in the parse method.
@@ -63,19 +66,21 @@ public class MsdxFunctionCall implements Serializable {
 	 */
 	private static final Pattern FUNCTION_CALL= Pattern.compile("\\s*" +  IDENTIFIER.toString() + "\\s*[<\\(]?" + IDENTIFIER.toString() + "(\\s*,\\s*" + IDENTIFIER.toString() + "\\s*)*" + "[>\\)]?");
 	
-	/**Used to find integer values.*/
-	private static final Pattern INTEGER = Pattern.compile("[1-9][0-9]*");
-
 	/**
 	 * Creates a new instance from a call string. The preferred way to create an
-	 * instance is to use the static factory method create.. The format of the call
-	 * string is 
+	 * instance is to use the create method of the Templates of a dataframe factory, 
+	 * which parses each distinct call string only once.
+	 * The format of the call string is 
 	 * <br>
 	 * <code>functionName(argumentField1, ... argumentFieldN)</code> 
 	 * <br>where
 	 * the function name is any legal Java identifier and the argument fields are
 	 * legal Java identifiers. The opening parentheses separates the two; spaces or
 	 * &lt and &gt are acceptable alternatives to ( and ).
+	 * <p>
+	 * A Function Call is immutable.
+	 * The values returned by the solver are not kept in the Function Call but in the fields of the solution Records
+	 * (see MsdxSolverModelingFactory.retrieveSolution).
 	 * 
 	 * @param callString
 	 * 
@@ -83,15 +88,21 @@ public class MsdxFunctionCall implements Serializable {
 	 */
 	public MsdxFunctionCall(String callString, Class<?> resultType) {
 		super();
-		this.functionName = null;
-		this.argumentFields= new ArrayList<String>();
+		List<String> identifiers= parse(callString);
+		this.functionName = identifiers.get(0);
+		this.argumentFields= Collections.unmodifiableList(new ArrayList<String>(identifiers.subList(1, identifiers.size())));
 		this.resultType = resultType;
-		this.value = null;	
-		parse(callString);		
+		this.callString= new StringBuilder(functionName)
+			.append("(")
+			.append(String.join(", ", argumentFields))
+			.append(")")
+			.toString();
 	}//Msdx2FunctionCall
 	
 	/**
-	 * Creates a FunctionCall instance from a call string.
+	 * Creates a FunctionCall instance of the subclass for a result type. 
+	 * Each call parses the call string; to share one instance among the Records with the same call string, 
+	 * use the Templates of the dataframe factory that reads the Records (see MsdxDataframe.Factory.getFunctionCalls).
 	 * 
 	 * @param callString
 	 * @param resultType (must be Double, IEEEDouble, Integer, or String)
@@ -111,17 +122,15 @@ public class MsdxFunctionCall implements Serializable {
 	
 	/**
 	 * Parses the call string to find the function name and the argument field
-	 * names. Normally, parsing occurs automatically when the Function Call object
+	 * names. Parsing occurs automatically when the Function Call object
 	 * is created, and the parse method should not be called directly.
 	 * 
 	 * @param callString has the format
 	 *  <br><code>functionName(argumentField1, ... argumentFieldN)</code>
 	 *  <br>where parentheses are ( and ), spaces, or &lt and &gt.
+	 * @return the function name followed by the argument field names
 	 */
-	protected void parse(String callString) {
-		if(this.functionName!=null || /*this.argument!=null*/ !this.argumentFields.isEmpty())
-			throw new IllegalArgumentException("Function has already been defined");
-		
+	protected static List<String> parse(String callString) {
 		Matcher function= FUNCTION_CALL.matcher(callString);
 		if(!function.matches()) {
 			Matcher region;
@@ -135,15 +144,16 @@ public class MsdxFunctionCall implements Serializable {
 	        }
 		}
 	        
+		List<String> identifiers= new ArrayList<String>();
 		Matcher tokens= IDENTIFIER.matcher(callString);
 		if(!tokens.find())
 			throw new IllegalArgumentException("Function name not found: " + callString);
-		this.functionName= tokens.group();
+		identifiers.add(tokens.group());
 		while(tokens.find()) { //collect arguments
-	        argumentFields.add(tokens.group());
+	        identifiers.add(tokens.group());
 		}
 		
-		return;
+		return identifiers;
 	}//parse
 
 	/**@return the function name*/
@@ -199,30 +209,6 @@ public class MsdxFunctionCall implements Serializable {
 		throw new IllegalArgumentException("Not a function call");
 	}//getResultTypeFor
 
-	/**
-	 * @return the value of this Function Call (usually set by the solver)
-	 */
-	public Object getValue() {
-		return this.value;
-	}
-	
-	/**@return true if the solver has set a value for this Function Call, false otherwise*/
-	public boolean hasValue() {
-		return value!=null;
-	}
-
-	/**
-	 * @param value to set
-	 * @return this Function Call
-	 * @throws IllegalArgumentException if the value has already been set
-	 */
-	public MsdxFunctionCall setValue(Object value) {
-		if(this.value!=null)
-			throw new IllegalArgumentException("Value has already been set");
-		this.value = value;
-		return this;
-	}
-	
 	/**
 	 * Finds the fields in the given schema corresponding to Function Calls.
 	 * @param recordSchema
@@ -241,14 +227,7 @@ public class MsdxFunctionCall implements Serializable {
 
 	/**@return the call string of this Function Call*/
 	public String getCallString() {
-		StringBuilder result= new StringBuilder();
-		result
-			.append(functionName)
-			.append("(");
-		this.argumentFields.forEach(argument -> result.append(String.valueOf(argument) + ", "));
-		result.deleteCharAt(result.length()-1);	//final space
-		result.setCharAt(result.length()-1, ')');	//final comma
-		return result.toString();
+		return this.callString;
 	}
 	
 	/**
@@ -277,6 +256,116 @@ public class MsdxFunctionCall implements Serializable {
 		return this.getCallString();
 	}
 
+	@Override
+	public int hashCode() {
+		return 31 * this.resultType.hashCode() + this.callString.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj)
+			return true;
+		if(obj == null || this.getClass() != obj.getClass())
+			return false;
+		MsdxFunctionCall other= (MsdxFunctionCall) obj;
+		return this.resultType.equals(other.resultType) && this.callString.equals(other.callString);
+	}
+
+	/**
+	 * Binds this Function Call to a function table and a schema: 
+	 * checks the call once and resolves the function,
+	 * so that applying the call to each solution element needs no further lookups.
+	 * 
+	 * @param <F> type of the functions in the table
+	 * @param functionTable functions by name (usually defined in the Solver Modeling Factory)
+	 * @param schema of the solution element for which the Function Calls apply
+	 * @return the binding
+	 * @throws IllegalArgumentException if the call is not valid (see validate)
+	 */
+	public <F> Binding<F> bind(Map<String, F> functionTable, MsdxContainer<Class<?>> schema) {
+		this.validate(functionTable.keySet(), schema);
+		return new Binding<F>(this, functionTable.get(this.functionName));
+	}//bind
+
+	/**
+	 * A Function Call resolved against a function table and the schema of a solution element.
+	 *
+	 * @param <F> type of the function
+	 */
+	public static final class Binding<F> {
+		
+		private final MsdxFunctionCall functionCall;
+		private final F function;
+		
+		private Binding(MsdxFunctionCall functionCall, F function) {
+			super();
+			this.functionCall= functionCall;
+			this.function= function;
+		}
+
+		/**@return the bound Function Call*/
+		public MsdxFunctionCall getFunctionCall() {
+			return functionCall;
+		}
+
+		/**@return the function from the function table*/
+		public F getFunction() {
+			return function;
+		}
+		
+	}//class MsdxFunctionCall.Binding
+
+	/**
+	 * The canonical Function Calls of the Records read by one dataframe factory, by result type and call string.
+	 * Function Calls are immutable, so every Record with the same call string in a field of the same type
+	 * shares one instance, parsed the first time the call string is seen.
+	 * The application clears the Templates of its dataframe factory at the end of its run.
+	 */
+	public static final class Templates {
+		
+		private final Map<Class<?>, Map<String, MsdxFunctionCall>> templates;
+		
+		public Templates() {
+			super();
+			this.templates= new ConcurrentHashMap<Class<?>, Map<String, MsdxFunctionCall>>();
+		}
+		
+		/**
+		 * Returns the shared FunctionCall instance for a call string.
+		 * 
+		 * @param callString
+		 * @param resultType (must be Double, IEEEDouble, Integer, or String)
+		 * @return the FunctionCall instance
+		 */
+		public MsdxFunctionCall create(String callString, Class<?> resultType) {
+			Map<String, MsdxFunctionCall> calls= templates.get(resultType);
+			if(calls==null)
+				calls= templates.computeIfAbsent(resultType, type -> new ConcurrentHashMap<String, MsdxFunctionCall>());
+			MsdxFunctionCall template= calls.get(callString);
+			if(template==null) {	//first time: parse, and share with any other spelling of the same call
+				MsdxFunctionCall parsed= MsdxFunctionCall.create(callString, resultType);
+				MsdxFunctionCall canonical= calls.putIfAbsent(parsed.getCallString(), parsed);
+				if(canonical==null)
+					canonical= parsed;
+				template= calls.putIfAbsent(callString, canonical);
+				if(template==null)
+					template= canonical;
+			}
+			return template;
+		}//create
+		
+		/**@return the number of distinct call strings, over all result types*/
+		public int size() {
+			return templates.values().stream().mapToInt(Map::size).sum();
+		}
+		
+		/**Forgets all Function Calls; the instances already in use are not affected.*/
+		public void clear() {
+			templates.clear();
+		}
+		
+	}//class MsdxFunctionCall.Templates
+
 	/**
 	 * This class represents a Function Call that returns a Double value.
 	 */
@@ -0,0 +1,241 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Assigns dense integer ids to row and column names.
+ * A name is the composite key made by joining the key fields with underscores,
+ * as the IDn functions do (e.g. "ship_PITT_NE");
+ * the first name seen gets id 0, the next 1, and so on, and a name keeps its id until the dictionary is closed.
+ * <p>
+ * Integer ids are cheaper than strings as keys in the Span joins and reductions that build a model,
+ * so a MOSDEX query may make its Row and Column ids with the integer functions I_IDn
+ * (see MsdxDataframe.Factory.registerIntegerIDFunction) instead of IDn, in fields of type ID.
+ * The items of an ID field are Id objects rather than Integers,
+ * so an id is never confused with the item of an ordinary INTEGER field.
+ * The modeling factories key on the Ids and call name to recover the string name
+ * only when they write or name a solver object.
+ * <p>
+ * Each dataframe factory owns a dictionary and closes it when the factory is closed, at the end of an application's run.
+ * While a dictionary is open the dataframe functions find it by its key in the JVM they run in;
+ * integer ids are therefore supported only when Spark runs in the same JVM as MOSDEX (a local master).
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxIdDictionary implements AutoCloseable {
+
+	/**The source of dictionary keys.*/
+	private static final AtomicLong KEYS= new AtomicLong();
+
+	/**The open dictionaries by key.*/
+	private static final Map<Long, MsdxIdDictionary> OPEN= new ConcurrentHashMap<Long, MsdxIdDictionary>();
+
+	private final long key;
+
+	/**Ids by name.*/
+	private final Map<String, Id> ids;
+
+	/**Ids by number.*/
+	private final List<Id> names;
+
+	/**
+	 * Creates an empty, open dictionary.
+	 */
+	public MsdxIdDictionary() {
+		super();
+		this.key= KEYS.incrementAndGet();
+		this.ids= new ConcurrentHashMap<String, Id>();
+		this.names= new ArrayList<Id>();
+		OPEN.put(key, this);
+	}
+
+	/**
+	 * @param key
+	 * @return the open dictionary with this key
+	 * @throws IllegalStateException if the dictionary has been closed
+	 */
+	public static MsdxIdDictionary forKey(long key) {
+		MsdxIdDictionary dictionary= OPEN.get(key);
+		if(dictionary==null)
+			throw new IllegalStateException("Id dictionary " + key + " is closed");
+		return dictionary;
+	}
+
+	/**@return the key by which this dictionary can be found while it is open*/
+	public long getKey() {
+		return key;
+	}
+
+	/**
+	 * Returns the id of a name, assigning the next id if the name is new.
+	 *
+	 * @param name
+	 * @return the id
+	 * @throws IllegalArgumentException if name is null
+	 * @throws IllegalStateException if the dictionary has been closed
+	 */
+	public Id idOf(String name) {
+		if(name==null)
+			throw new IllegalArgumentException("Null name");
+		Id id= ids.get(name);
+		if(id!=null)
+			return id;
+		synchronized(this) {
+			if(isClosed())
+				throw new IllegalStateException("Id dictionary " + key + " is closed");
+			id= ids.get(name);
+			if(id==null) {
+				id= new Id(key, names.size(), name);
+				names.add(id);
+				ids.put(name, id);
+			}
+			return id;
+		}
+	}//idOf
+
+	/**
+	 * Returns the id of a composite key, assigning the next id if the key is new.
+	 *
+	 * @param keys
+	 * @return the id of the name made by joining the keys with underscores
+	 */
+	public Id idOf(String... keys) {
+		return idOf(String.join("_", keys));
+	}
+
+	/**
+	 * @param value
+	 * @return the id with this number
+	 * @throws IllegalArgumentException if no name has this id
+	 */
+	public synchronized Id id(int value) {
+		if(value<0 || value>=names.size())
+			throw new IllegalArgumentException("Unknown id " + value);
+		return names.get(value);
+	}
+
+	/**
+	 * @param name
+	 * @return true if the name has an id
+	 */
+	public boolean contains(String name) {
+		return ids.containsKey(name);
+	}
+
+	/**
+	 * @param value
+	 * @return the name with this id
+	 * @throws IllegalArgumentException if no name has this id
+	 */
+	public String nameOf(int value) {
+		return id(value).getName();
+	}
+
+	/**@return the number of names*/
+	public synchronized int size() {
+		return names.size();
+	}
+
+	/**@return true if this dictionary has been closed*/
+	public boolean isClosed() {
+		return !OPEN.containsKey(key);
+	}
+
+	/**
+	 * Forgets all names and ids. The Ids already handed out keep their names,
+	 * but the dictionary can no longer be found by its key or assign ids.
+	 */
+	@Override
+	public synchronized void close() {
+		OPEN.remove(key);
+		ids.clear();
+		names.clear();
+	}//close
+
+	/**
+	 * Returns the string name of a row or column id item.
+	 * An Id gives its name; any other item (usually already a String name,
+	 * or the Integer of an ordinary INTEGER field) is converted by toString.
+	 *
+	 * @param id a Row or Column item
+	 * @return its name
+	 */
+	public static String name(Object id) {
+		if(id instanceof Id)
+			return ((Id) id).getName();
+		return id.toString();
+	}//name
+
+	/**
+	 * The item of an ID field: the dense integer id of a name in a dictionary, which also carries the name.
+	 * Ids are equal if they have the same number in the same dictionary,
+	 * and they are ordered by their numbers.
+	 *
+	 * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+	 *
+	 */
+	public static final class Id implements Comparable<Id>, Serializable {
+
+		private static final long serialVersionUID = 4133125640458924567L;
+
+		private final long dictionaryKey;
+		private final int value;
+		private final String name;
+
+		private Id(long dictionaryKey, int value, String name) {
+			super();
+			this.dictionaryKey= dictionaryKey;
+			this.value= value;
+			this.name= name;
+		}
+
+		/**@return the number of this id*/
+		public int intValue() {
+			return value;
+		}
+
+		/**@return the name this id stands for*/
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public int compareTo(Id other) {
+			return Integer.compare(this.value, other.value);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if(this==other)
+				return true;
+			if(!(other instanceof Id))
+				return false;
+			Id id= (Id) other;
+			return this.value==id.value && this.dictionaryKey==id.dictionaryKey;
+		}
+
+		@Override
+		public int hashCode() {
+			return value;
+		}
+
+		/**@return the name*/
+		@Override
+		public String toString() {
+			return name;
+		}
+
+	}//class MsdxIdDictionary.Id
+
+}//class MsdxIdDictionary
@@ -62,22 +62,22 @@ public class MsdxOutputDestination extends OutputStream {
 		destinationStream.write(b);
 	}//write
 
-	/**Writes a character to the destination.*/
+	/**Writes an array of characters to the destination.*/
 	@Override
 	public void write(byte[] b) throws IOException {
-		super.write(b);
+		destinationStream.write(b, 0, b.length);
 	}
 
 	/**Writes an array of characters to the destination.*/
 	@Override
 	public void write(byte[] b, int off, int len) throws IOException {
-		super.write(b, off, len);
+		destinationStream.write(b, off, len);
 	}
 
 	/**Flushes this Output Destination and forces any buffered output bytes to be written out.*/
 	@Override
 	public void flush() throws IOException {
-		super.flush();
+		destinationStream.flush();
 	}
 
 	/**Closes this Output Destination and releases any associated system resources.*/
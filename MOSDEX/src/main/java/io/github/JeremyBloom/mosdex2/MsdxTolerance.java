@@ -0,0 +1,82 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2;
+
+import org.apache.commons.math3.util.Precision;
+
+/**
+ * The tolerance within which numeric values compare as equal.
+ * <p>
+ * A tolerance is a policy of the application that compares the values, not a property of each value:
+ * the Records hold only the raw values (IEEEDouble holds nothing but its double), 
+ * and a tolerance is applied when two values are compared, e.g. by the Checker of an application 
+ * (see MsdxApplication.withTolerance) through MsdxComparator.
+ * The equals and compareTo methods of IEEEDouble itself use the DEFAULT tolerance.
+ * <p>
+ * Comparisons use the Apache Commons Math Precision class.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public final class MsdxTolerance {
+
+	/**
+	 * The default comparison tolerance.
+	 */
+	public static final double DEFAULT_EPSILON= 0.000001d;
+
+	/**The tolerance used unless an application sets its own.*/
+	public static final MsdxTolerance DEFAULT= new MsdxTolerance(DEFAULT_EPSILON);
+
+	private final double epsilon;
+
+	private MsdxTolerance(double epsilon) {
+		super();
+		this.epsilon= epsilon;
+	}
+
+	/**
+	 * Returns the tolerance for an epsilon.
+	 *
+	 * @param epsilon
+	 * @return the tolerance
+	 * @throws IllegalArgumentException if epsilon is negative or NaN
+	 */
+	public static MsdxTolerance of(double epsilon) {
+		if(!(epsilon >= 0.0))
+			throw new IllegalArgumentException("Invalid tolerance " + epsilon);
+		return epsilon==DEFAULT_EPSILON ? DEFAULT : new MsdxTolerance(epsilon);
+	}
+
+	/**@return the comparison tolerance*/
+	public double getEpsilon() {
+		return epsilon;
+	}
+
+	/**
+	 * @param x
+	 * @param y
+	 * @return true if x and y are equal within this tolerance
+	 */
+	public boolean equals(double x, double y) {
+		return Precision.equals(x, y, epsilon);
+	}
+
+	/**
+	 * @param x
+	 * @param y
+	 * @return 0 if x and y are equal within this tolerance, otherwise a negative number if x &lt; y or a positive number if x &gt; y
+	 */
+	public int compare(double x, double y) {
+		return Precision.compareTo(x, y, epsilon);
+	}
+
+	@Override
+	public String toString() {
+		return "tolerance " + epsilon;
+	}
+
+}//class MsdxTolerance
@@ -16,7 +16,9 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import io.github.JeremyBloom.mosdex2.Msdx;
 import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.MsdxFunctionCall;
 import io.github.JeremyBloom.mosdex2.MsdxOutputDestination;
+import io.github.JeremyBloom.mosdex2.MsdxStringPool;
 import io.github.JeremyBloom.mosdex2.json.MsdxReader;
 import io.github.JeremyBloom.mosdex2.json.MsdxWriter;
 import io.github.JeremyBloom.mosdex2.objectModel.MsdxObject;
@@ -210,27 +212,47 @@ public interface MsdxDataframe {
 		 */
 		public MsdxDataframe create(String tableName, MsdxQuery query, MsdxContainer<Class<?>> schema);
 
+		/**
+		 * Returns the pool in which the readers intern the key and identifier items of the Records of this Factory's Dataframes. 
+		 * The pool lives as long as the Factory; the application clears it at the end of its run.
+		 * 
+		 * @return the string pool of this Factory
+		 */
+		public MsdxStringPool getStringPool();
+
+		/**
+		 * Returns the canonical Function Calls of the Records of this Factory's Dataframes. 
+		 * The Templates live as long as the Factory; the application clears them at the end of its run.
+		 * 
+		 * @return the Function Call templates of this Factory
+		 */
+		public MsdxFunctionCall.Templates getFunctionCalls();
+
 		/**
 		 * Creates set of functions <code>IDn</code> that make a row or column Id string of the form "tableName_key", 
 		 * and registers it with the Dataframe Factory for use in queries as an SQL user-defined function.
 		 * The functions created replace the calls to <code>"CONCAT('tableName', '_', key)"</code> in MOSDEX queries.
 		 * Note, n, the number of keys specifies the corresponding function to be called 
-		 * (currently it is restricted to between 2 and 5).
+		 * (any n of at least 1; a Factory may restrict it).
 		 * 
 		 * This method would be used in the MsdxDataframe.Factory. 
 		 * Notice that the database-specific classes that implement the actual SQL calls 
 		 * are not exposed.
 		 * 
-		 * @param numberOfKeyFields = n creates ID2,..., IDn
+		 * @param numberOfKeyFields = n creates IDn
 		 */
 		public void registerStringIDFunction(int numberOfKeyFields);
 
 		/**
-		 * Currently unsupported. 
-		 * Intended to create and register a set of functions IDn that make a row or column Id number.
-		 * To be used with solvers that do not accept strings as row or column Ids.
+		 * Creates a function <code>I_IDn</code> that makes an integer row or column Id 
+		 * from the same keys as the corresponding IDn function, 
+		 * and registers it with the Dataframe Factory for use in queries as an SQL user-defined function.
+		 * The ids are dense (0, 1, 2, ...) and are assigned by the Factory's MsdxIdDictionary; 
+		 * a field made by I_IDn has type ID, and its items carry the string names 
+		 * that the modeling factories use when they write or name solver objects. 
+		 * Integer ids make cheaper keys than strings for the joins and reductions that build a model.
 		 * 
-		 * @param numberOfKeyFields
+		 * @param numberOfKeyFields = n creates I_IDn
 		 */
 		public void registerIntegerIDFunction(int numberOfKeyFields);
 		
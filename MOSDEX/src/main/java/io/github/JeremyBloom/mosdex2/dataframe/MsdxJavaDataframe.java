@@ -12,6 +12,8 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.MsdxFunctionCall;
+import io.github.JeremyBloom.mosdex2.MsdxStringPool;
 import io.github.JeremyBloom.mosdex2.objectModel.MsdxQuery;
 
 /**
@@ -90,8 +92,13 @@ public class MsdxJavaDataframe implements MsdxDataframe {
 	 */
 	public static class Factory implements MsdxDataframe.Factory {
 	
+		private final MsdxStringPool strings;
+		private final MsdxFunctionCall.Templates functionCalls;
+	
 		public Factory() {
 			super();
+			this.strings= new MsdxStringPool();
+			this.functionCalls= new MsdxFunctionCall.Templates();
 		}
 	
 		@Override
@@ -107,6 +114,16 @@ public class MsdxJavaDataframe implements MsdxDataframe {
 			throw new UnsupportedOperationException();
 		}
 
+		@Override
+		public MsdxStringPool getStringPool() {
+			return strings;
+		}
+
+		@Override
+		public MsdxFunctionCall.Templates getFunctionCalls() {
+			return functionCalls;
+		}
+
 		/**
 		 * Not supported.
 		 */
@@ -0,0 +1,480 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ * 
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.math3.util.Precision;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+
+import io.github.JeremyBloom.mosdex2.IEEEDouble;
+import io.github.JeremyBloom.mosdex2.Msdx;
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.MsdxTolerance;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxSchema;
+
+/**
+ * Compares an actual MOSDEX JSON document against an expected one,
+ * using MOSDEX semantics rather than plain JSON equality:
+ * <ul style="list-style-type:bullet">
+ * <li> Modules and tables are matched by NAME, so their order does not matter.</li>
+ * <li> Numbers, and strings holding IEEE hex or decimal values, are equal within
+ * a tolerance that defaults to the IEEEDouble comparison tolerance.</li>
+ * <li> INSTANCE records, and the elements of other arrays, are compared without regard to their order.</li>
+ * <li> Like a lenient JSON comparison, fields present in the actual output but not in the expected are ignored.</li>
+ * </ul>
+ * <p>
+ * The comparison is done with Jackson parsers rather than by building complete trees of both documents.
+ * A first pass over each document builds a skeleton tree in which every INSTANCE array is replaced
+ * by its position in the text. INSTANCE arrays, which hold nearly all of the data,
+ * are then streamed record by record from both documents in step.
+ * Records that match their counterpart in the same position are discarded immediately;
+ * the rest are held in hash buckets keyed on their non-numeric items until a match turns up on the other side.
+ * Memory therefore grows with the number of out-of-order records, not with the size of the documents.
+ * The comparison stops once the difference limit is reached, so only the first differences are reported.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxComparator {
+
+	/**
+	 * The default number of differences reported before the comparison stops.
+	 */
+	public static final int DEFAULT_LIMIT= 20;
+
+	private final double epsilon;
+	private final int limit;
+	private final List<String> differences;
+
+	/**
+	 * Creates a comparator with the default IEEEDouble comparison tolerance and the default limit.
+	 */
+	public MsdxComparator() {
+		this(MsdxTolerance.DEFAULT.getEpsilon(), DEFAULT_LIMIT);
+	}
+
+	/**
+	 * @param epsilon the numeric comparison tolerance
+	 * @param limit the number of differences reported before the comparison stops
+	 */
+	public MsdxComparator(double epsilon, int limit) {
+		super();
+		if(limit<1)
+			throw new IllegalArgumentException("Limit must be positive");
+		this.epsilon= epsilon;
+		this.limit= limit;
+		this.differences= new ArrayList<String>();
+	}
+
+	/**
+	 * Compares an actual MOSDEX document against the expected one.
+	 * A document that cannot be parsed is reported as a difference.
+	 *
+	 * @param expected
+	 * @param actual
+	 * @return true if the documents match
+	 */
+	public boolean compare(String expected, String actual) {
+		differences.clear();
+		Document expectedDocument= null;
+		Document actualDocument= null;
+		try {
+			expectedDocument= new Document(expected);
+		} catch (IOException e) {
+			report("Expected output is not valid JSON: " + e.getMessage());
+		}
+		try {
+			actualDocument= new Document(actual);
+		} catch (IOException e) {
+			report("Actual output is not valid JSON: " + e.getMessage());
+		}
+		if(expectedDocument!=null && actualDocument!=null) {
+			try {
+				compareNodes("", expectedDocument.root, actualDocument.root, expectedDocument, actualDocument, null);
+			} catch (IOException e) {
+				report("Output is not valid JSON: " + e.getMessage());
+			}
+		}
+		return differences.isEmpty();
+	}//compare
+
+	/**
+	 * @return the differences found by the last comparison, at most limit of them
+	 */
+	public List<String> getDifferences() {
+		return Collections.unmodifiableList(differences);
+	}
+
+	private void report(String difference) {
+		if(differences.size()<limit)
+			differences.add(difference);
+	}
+
+	private boolean isFull() {
+		return differences.size()>=limit;
+	}
+
+	private void compareNodes(String path, JsonNode expected, JsonNode actual,
+			Document expectedDocument, Document actualDocument, MsdxContainer<Class<?>> schema) throws IOException {
+		if(isFull())
+			return;
+		if(expected instanceof POJONode && actual instanceof POJONode) {
+			compareInstances(path,
+				expectedDocument.instance((POJONode) expected),
+				actualDocument.instance((POJONode) actual),
+				schema);
+		}
+		else if(expected.isObject() && actual.isObject()) {
+			MsdxContainer<Class<?>> tableSchema= null;
+			if(expected.has("INSTANCE") && expected.has("SCHEMA")) {
+				try {
+					tableSchema= MsdxSchema.fromNode(expected.get("SCHEMA"));
+				} catch (IllegalArgumentException | NullPointerException e) {
+					tableSchema= null;
+				}
+			}
+			Iterator<Entry<String, JsonNode>> fields= expected.fields();
+			while(fields.hasNext() && !isFull()) {
+				Entry<String, JsonNode> field= fields.next();
+				String fieldPath= path.isEmpty() ? field.getKey() : path + "." + field.getKey();
+				JsonNode actualField= actual.get(field.getKey());
+				if(actualField==null)
+					report("Missing " + fieldPath);
+				else if((field.getKey().equals("MODULES") || field.getKey().equals("TABLES")) &&
+						field.getValue().isArray() && actualField.isArray())
+					compareByName(fieldPath, field.getValue(), actualField, expectedDocument, actualDocument);
+				else
+					compareNodes(fieldPath, field.getValue(), actualField, expectedDocument, actualDocument, tableSchema);
+			}//while fields
+		}
+		else if(expected.isArray() && actual.isArray())
+			compareUnordered(path, expected, actual, expectedDocument, actualDocument);
+		else if(!valuesMatch(expected, actual, null))
+			report("Failure on " + path + ": expected= " + text(expected) + " actual= " + text(actual));
+	}//compareNodes
+
+	/**
+	 * Compares arrays of modules or tables, matching elements by their NAME fields.
+	 */
+	private void compareByName(String path, JsonNode expected, JsonNode actual,
+			Document expectedDocument, Document actualDocument) throws IOException {
+		Map<String, JsonNode> actualByName= new LinkedHashMap<String, JsonNode>();
+		for(JsonNode element: actual) {
+			if(element.hasNonNull("NAME"))
+				actualByName.put(element.get("NAME").asText(), element);
+		}
+		int i= 0;
+		for(JsonNode element: expected) {
+			if(isFull())
+				return;
+			if(element.hasNonNull("NAME")) {
+				String name= element.get("NAME").asText();
+				JsonNode match= actualByName.remove(name);
+				if(match==null)
+					report("Missing " + path + "[" + name + "]");
+				else
+					compareNodes(path + "[" + name + "]", element, match, expectedDocument, actualDocument, null);
+			}
+			else if(i<actual.size())
+				compareNodes(path + "[" + i + "]", element, actual.get(i), expectedDocument, actualDocument, null);
+			else
+				report("Missing " + path + "[" + i + "]");
+			i++;
+		}//for element
+		for(String name: actualByName.keySet()) {
+			if(isFull())
+				return;
+			report("Unexpected " + path + "[" + name + "]");
+		}
+	}//compareByName
+
+	/**
+	 * Compares arrays other than modules, tables and INSTANCEs without regard to the order of their elements.
+	 * Each expected element is matched first against the actual element in the same position 
+	 * and then against the remaining actual elements, so arrays in the same order are compared in one pass.
+	 * Elements left unmatched are compared pairwise in their order, to report where they differ.
+	 */
+	private void compareUnordered(String path, JsonNode expected, JsonNode actual,
+			Document expectedDocument, Document actualDocument) throws IOException {
+		boolean[] used= new boolean[actual.size()];
+		List<Integer> unmatched= new ArrayList<Integer>();
+		for(int i= 0; i<expected.size(); i++) {
+			int match= -1;
+			if(i<actual.size() && matches(expected.get(i), actual.get(i), expectedDocument, actualDocument))
+				match= i;
+			for(int j= 0; j<actual.size() && match<0; j++) {
+				if(!used[j] && j!=i && matches(expected.get(i), actual.get(j), expectedDocument, actualDocument))
+					match= j;
+			}
+			if(match<0)
+				unmatched.add(Integer.valueOf(i));
+			else
+				used[match]= true;
+		}//for i
+		int j= 0;
+		for(Integer i: unmatched) {
+			while(j<actual.size() && used[j])
+				j++;
+			if(isFull())
+				return;
+			String elementPath= path + "[" + i + "]";
+			if(j<actual.size()) {
+				used[j]= true;
+				compareNodes(elementPath, expected.get(i), actual.get(j), expectedDocument, actualDocument, null);
+			}
+			else
+				report("Missing " + elementPath);
+		}//for unmatched
+		for(j= 0; j<actual.size(); j++) {
+			if(isFull())
+				return;
+			if(!used[j])
+				report("Unexpected " + path + "[" + j + "]");
+		}
+	}//compareUnordered
+	
+	/**
+	 * @return true if the two nodes match, without reporting their differences
+	 */
+	private boolean matches(JsonNode expected, JsonNode actual, 
+			Document expectedDocument, Document actualDocument) throws IOException {
+		if(expected.isValueNode() && actual.isValueNode() && !(expected instanceof POJONode))
+			return valuesMatch(expected, actual, null);
+		List<String> reported= new ArrayList<String>(differences);
+		differences.clear();
+		try {
+			compareNodes("", expected, actual, expectedDocument, actualDocument, null);
+			return differences.isEmpty();
+		} finally {
+			differences.clear();
+			differences.addAll(reported);
+		}
+	}//matches
+
+	/**
+	 * Compares two INSTANCE arrays record by record, without regard to the order of the records.
+	 * Each parser is positioned at the START_ARRAY token of its instance.
+	 */
+	private void compareInstances(String path, JsonParser expected, JsonParser actual,
+			MsdxContainer<Class<?>> schema) throws IOException {
+		List<Class<?>> types= schema==null ? null : new ArrayList<Class<?>>(schema.getContent());
+		Map<Long, List<JsonNode>> expectedPending= new HashMap<Long, List<JsonNode>>();
+		Map<Long, List<JsonNode>> actualPending= new HashMap<Long, List<JsonNode>>();
+		try {
+			boolean expectedDone= false;
+			boolean actualDone= false;
+			while(!(expectedDone && actualDone)) {
+				JsonNode expectedRecord= expectedDone ? null : nextRecord(expected);
+				JsonNode actualRecord= actualDone ? null : nextRecord(actual);
+				expectedDone= expectedRecord==null;
+				actualDone= actualRecord==null;
+				if(expectedRecord!=null && actualRecord!=null && recordsMatch(expectedRecord, actualRecord, types))
+					continue;
+				if(expectedRecord!=null && !takeMatch(actualPending, expectedRecord, types))
+					addPending(expectedPending, expectedRecord, types);
+				if(actualRecord!=null && !takeMatch(expectedPending, actualRecord, types))
+					addPending(actualPending, actualRecord, types);
+			}//while
+		} finally {
+			expected.close();
+			actual.close();
+		}
+		for(List<JsonNode> bucket: expectedPending.values()) {
+			for(JsonNode record: bucket) {
+				if(isFull())
+					return;
+				report("Missing " + path + text(record));
+			}
+		}
+		for(List<JsonNode> bucket: actualPending.values()) {
+			for(JsonNode record: bucket) {
+				if(isFull())
+					return;
+				report("Unexpected " + path + text(record));
+			}
+		}
+	}//compareInstances
+
+	/**
+	 * @return the next record of an INSTANCE array, or null at the end of the array
+	 */
+	private JsonNode nextRecord(JsonParser parser) throws IOException {
+		JsonToken token= parser.nextToken();
+		if(token==null || token==JsonToken.END_ARRAY)
+			return null;
+		return Msdx.GLOBAL.mapper.readTree(parser);
+	}
+
+	private boolean takeMatch(Map<Long, List<JsonNode>> pending, JsonNode record, List<Class<?>> types) {
+		Long key= bucketKey(record, types);
+		List<JsonNode> bucket= pending.get(key);
+		if(bucket==null)
+			return false;
+		Iterator<JsonNode> candidates= bucket.iterator();
+		while(candidates.hasNext()) {
+			if(recordsMatch(candidates.next(), record, types)) {
+				candidates.remove();
+				if(bucket.isEmpty())
+					pending.remove(key);
+				return true;
+			}
+		}
+		return false;
+	}//takeMatch
+
+	private void addPending(Map<Long, List<JsonNode>> pending, JsonNode record, List<Class<?>> types) {
+		pending.computeIfAbsent(bucketKey(record, types), key -> new LinkedList<JsonNode>()).add(record);
+	}
+
+	/**
+	 * Hashes the items of a record that must match exactly.
+	 * Numeric items, which match within a tolerance, do not contribute,
+	 * so records that match within the tolerance always share a bucket.
+	 */
+	private long bucketKey(JsonNode record, List<Class<?>> types) {
+		long key= record.size();
+		int i= 0;
+		for(JsonNode item: record) {
+			key= 31*key + (isNumeric(item, typeAt(types, i)) ? 0 : item.asText().hashCode() + (item.isNull() ? 1 : 0));
+			i++;
+		}
+		return key;
+	}//bucketKey
+
+	private boolean recordsMatch(JsonNode expected, JsonNode actual, List<Class<?>> types) {
+		if(!expected.isArray() || !actual.isArray())
+			return valuesMatch(expected, actual, null);
+		if(expected.size()!=actual.size())
+			return false;
+		for(int i= 0; i<expected.size(); i++) {
+			if(!valuesMatch(expected.get(i), actual.get(i), typeAt(types, i)))
+				return false;
+		}
+		return true;
+	}//recordsMatch
+
+	private boolean valuesMatch(JsonNode expected, JsonNode actual, Class<?> type) {
+		if(isNumeric(expected, type) && isNumeric(actual, type))
+			return Precision.equals(numericValue(expected), numericValue(actual), epsilon);
+		return expected.equals(actual);
+	}
+
+	private static Class<?> typeAt(List<Class<?>> types, int i) {
+		return types==null || i>=types.size() ? null : types.get(i);
+	}
+
+	/**
+	 * @param item
+	 * @param type the schema type of the item, or null if unknown
+	 * @return true if the item should be compared numerically
+	 */
+	private static boolean isNumeric(JsonNode item, Class<?> type) {
+		if(item.isNumber())
+			return true;
+		if(!item.isTextual())
+			return false;
+		if(type!=null && !Number.class.isAssignableFrom(type))
+			return false;
+		return IEEEDouble.isValid(item.textValue());
+	}//isNumeric
+
+	private static double numericValue(JsonNode item) {
+		return item.isNumber() ? item.doubleValue() : Double.parseDouble(item.textValue());
+	}
+
+	private static String text(JsonNode node) {
+		return node instanceof POJONode ? "INSTANCE" : node.toString();
+	}
+
+	/**
+	 * A parsed document: a skeleton tree of everything but the INSTANCE arrays,
+	 * which are represented by POJONodes holding their character offsets in the text.
+	 */
+	private static final class Document {
+
+		final String text;
+		final JsonNode root;
+
+		Document(String text) throws IOException {
+			this.text= text;
+			try(JsonParser parser= Msdx.GLOBAL.mapper.getFactory().createParser(text)) {
+				if(parser.nextToken()==null)
+					throw new JsonParseException(parser, "Empty document");
+				this.root= readSkeleton(parser, null);
+			}
+		}//constructor
+
+		private JsonNode readSkeleton(JsonParser parser, String fieldName) throws IOException {
+			JsonNodeFactory nodes= JsonNodeFactory.instance;
+			switch(parser.currentToken()) {
+				case START_OBJECT:
+					ObjectNode object= nodes.objectNode();
+					while(parser.nextToken()==JsonToken.FIELD_NAME) {
+						String name= parser.getCurrentName();
+						parser.nextToken();
+						object.set(name, readSkeleton(parser, name));
+					}
+					return object;
+				case START_ARRAY:
+					if("INSTANCE".equals(fieldName)) {
+						long offset= parser.getTokenLocation().getCharOffset();
+						parser.skipChildren();
+						return nodes.pojoNode(Long.valueOf(offset));
+					}
+					ArrayNode array= nodes.arrayNode();
+					while(parser.nextToken()!=JsonToken.END_ARRAY)
+						array.add(readSkeleton(parser, null));
+					return array;
+				case VALUE_STRING:
+					return nodes.textNode(parser.getText());
+				case VALUE_NUMBER_INT:
+					return nodes.numberNode(parser.getLongValue());
+				case VALUE_NUMBER_FLOAT:
+					return nodes.numberNode(parser.getDoubleValue());
+				case VALUE_TRUE:
+				case VALUE_FALSE:
+					return nodes.booleanNode(parser.getBooleanValue());
+				case VALUE_NULL:
+					return nodes.nullNode();
+				default:
+					throw new JsonParseException(parser, "Unexpected token " + parser.currentToken());
+			}//switch
+		}//readSkeleton
+
+		/**
+		 * @return a parser positioned at the START_ARRAY token of the INSTANCE at the node's offset
+		 */
+		JsonParser instance(POJONode node) throws IOException {
+			Reader reader= new StringReader(text);
+			reader.skip(((Long) node.getPojo()).longValue());
+			JsonParser parser= Msdx.GLOBAL.mapper.getFactory().createParser(reader);
+			parser.nextToken();
+			return parser;
+		}//instance
+
+	}//class MsdxComparator.Document
+
+}//class MsdxComparator
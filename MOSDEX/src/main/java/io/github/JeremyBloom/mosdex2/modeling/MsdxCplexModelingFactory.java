@@ -9,12 +9,15 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -28,8 +31,10 @@ import ilog.concert.IloRange;
 import ilog.cplex.IloCplex;
 import io.github.JeremyBloom.mosdex2.MsdxContainer;
 import io.github.JeremyBloom.mosdex2.MsdxFunctionCall;
+import io.github.JeremyBloom.mosdex2.MsdxIdDictionary;
 import io.github.JeremyBloom.mosdex2.dataframe.MsdxDataframe;
 import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
+import io.github.JeremyBloom.mosdex2.span.OperatorWithAccumulator;
 import io.github.JeremyBloom.mosdex2.span.OperatorWithOneArgument;
 import io.github.JeremyBloom.mosdex2.span.OperatorWithTwoArguments;
 
@@ -127,7 +132,7 @@ public class MsdxCplexModelingFactory implements MsdxSolverModelingFactory {
 
 			@Override
 			public MsdxContainer<Object> apply(MsdxContainer<Object> parameter) {
-				String columnId= parameter.get("Column").toString();	
+				String columnId= MsdxIdDictionary.name(parameter.get("Column"));	
 				IloNumVar variable= null;
 				try {
 					if(tableType.equals("CONTINUOUS")) {
@@ -184,7 +189,7 @@ public class MsdxCplexModelingFactory implements MsdxSolverModelingFactory {
 
 			@Override
 			public MsdxContainer<Object> apply(MsdxContainer<Object> parameter) {
-				String rowId= parameter.get("Row").toString();
+				String rowId= MsdxIdDictionary.name(parameter.get("Row"));
 				IloRange constraint= null;	
 				IloNumExpr expression= null;
 				String sense= (String) parameter.get("Sense");
@@ -237,7 +242,7 @@ public class MsdxCplexModelingFactory implements MsdxSolverModelingFactory {
 
 			@Override
 			public MsdxContainer<Object> apply(MsdxContainer<Object> parameter) {
-				String rowId= parameter.get("Row").toString();
+				String rowId= MsdxIdDictionary.name(parameter.get("Row"));
 				IloObjective objective= null;	
 				IloNumExpr expression= null;
 				String sense= (String) parameter.get("Sense");
@@ -418,6 +423,92 @@ public class MsdxCplexModelingFactory implements MsdxSolverModelingFactory {
 		}/*OperatorWithTwoArguments*/;//return		
 	}//add
 
+	@Override
+	public OperatorWithAccumulator<Sum> sum(String tableClass, String tableType) {
+		if(!this.orientation().equals("Row"))
+			throw new UnsupportedOperationException();	//must override this method for column orientation
+		if(!tableClass.equals("TERM"))
+			throw new IllegalArgumentException("Illegal table class");
+		if(!(tableType.equals("LINEAR")))
+			throw new IllegalArgumentException("Illegal table type");
+		
+		return new OperatorWithAccumulator<Sum>() {
+			@Override
+			public OperatorWithAccumulator<Sum> withResultSchema(
+				MsdxContainer<Class<?>> termSchema,
+				String keyFieldName) 
+			{
+			    if(this.resultSchema!=null)
+			        return this;
+				this.inputSchema= termSchema;
+				this.keyFieldName= keyFieldName;	//should be "Row"
+			    
+				this.resultSchema= MsdxContainer.<Class<?>>builder()
+					.addItem(keyFieldName/*=="Row"*/, termSchema.get(keyFieldName))
+					.copyItem(termSchema, "Expression")
+					.build();
+					//expressionSchema= {Row, Expression}
+				return this;
+			}//withResultSchema
+
+			@Override
+			public Sum supply() {
+				return new Sum();
+			}
+
+			@Override
+			public void accumulate(Sum sum, MsdxContainer<Object> term) {
+				if(sum.key==null)
+					sum.key= term.get(this.keyFieldName/*=="Row"*/);
+				sum.terms.add((IloNumExpr) term.get("Expression"));
+			}//accumulate
+
+			@Override
+			public Sum combine(Sum sum1, Sum sum2) {
+				if(sum1.key==null)
+					sum1.key= sum2.key;
+				sum1.terms.addAll(sum2.terms);
+				return sum1;
+			}//combine
+
+			@Override
+			public MsdxContainer<Object> finish(Sum sum) {
+				IloNumExpr expression= null;
+				try {
+					//one call to the modeler per row, instead of one per term
+					expression= MsdxCplexModelingFactory.this.modeler.sum(sum.terms.toArray(new IloNumExpr[sum.terms.size()]));
+				} catch (IloException e) {
+					System.err.println(e.getMessage());
+					e.printStackTrace();
+				}			
+				return MsdxRecord.builder(this.getResultSchema())
+					.addItem(this.keyFieldName/*=="Row"*/, sum.key)
+					.addItem("Expression", expression)
+					.build();
+			}//finish
+
+			@Override
+			public boolean isSplittable() {
+				return true;	//combine appends the terms of the later part, so the parts collect the terms of the whole row
+			}
+
+			@Override
+			public boolean isConcurrent() {
+				return true;	//the sums only collect terms; the modeler is called by finish
+			}
+		}/*OperatorWithAccumulator*/;//return		
+	}//sum
+	
+	/**
+	 * The accumulation of the sum operator: the terms of a row and the row id.
+	 */
+	public static final class Sum {
+		
+		Object key;
+		final List<IloNumExpr> terms= new ArrayList<IloNumExpr>();
+		
+	}//class Sum
+
 	@Override
 	public OperatorWithTwoArguments attach() {
 		if(!this.orientation().equals("Row"))
@@ -738,6 +829,17 @@ public class MsdxCplexModelingFactory implements MsdxSolverModelingFactory {
 			
 			Set<String> functionFields;
 			Set<String> otherFields;
+			/**Function Calls bound to the function table and the solution element schema, one per distinct call.*/
+			final Map<MsdxFunctionCall, MsdxFunctionCall.Binding<Function<MsdxContainer<Object>, ?>>> bindings= 
+				new ConcurrentHashMap<MsdxFunctionCall, MsdxFunctionCall.Binding<Function<MsdxContainer<Object>, ?>>>();
+			
+			/**@return the binding of a Function Call, made and validated the first time the call is seen*/
+			MsdxFunctionCall.Binding<Function<MsdxContainer<Object>, ?>> bind(MsdxFunctionCall functionCall) {
+				MsdxFunctionCall.Binding<Function<MsdxContainer<Object>, ?>> binding= bindings.get(functionCall);
+				if(binding==null)
+					binding= bindings.computeIfAbsent(functionCall, call -> call.bind(functionTable, leftInputSchema /*solutionElementSchema*/));
+				return binding;
+			}//bind
 
 			@Override
 			public OperatorWithTwoArguments withResultSchema(
@@ -785,12 +887,8 @@ public class MsdxCplexModelingFactory implements MsdxSolverModelingFactory {
 				recordBuilder.copyItems(record, this.otherFields);						
 				for(String fieldName: this.functionFields) {
 					functionCall= (MsdxFunctionCall) record.get(fieldName);
-					functionCall.validate(
-						functionTable.keySet(), 
-						leftInputSchema /*solutionElementSchema*/);
-					solutionItem= functionTable.get(functionCall.getFunctionName()).apply(element);
-					functionCall.setValue(solutionItem);
-					recordBuilder.addItem(fieldName, solutionItem);					
+					solutionItem= bind(functionCall).getFunction().apply(element);
+					recordBuilder.addItem(fieldName, solutionItem);		//the value goes in the field, typed by the result schema
 				}//for functionName
 				return recordBuilder.build();
 			}//onKeyMatch
@@ -810,11 +908,8 @@ public class MsdxCplexModelingFactory implements MsdxSolverModelingFactory {
 				recordBuilder.copyItems(record.get(), this.otherFields);
 				for(String fieldName: this.functionFields) {
 					functionCall= (MsdxFunctionCall) record.get().get(fieldName);
-					functionCall.validate(
-						functionTable.keySet(), 
-						leftInputSchema /*solutionElementSchema*/);
+					bind(functionCall);	//validates the call
 					recordBuilder.addItem(fieldName, null);
-					//Note FunctionCall value field is null when created.
 				}//for functionName
 				return recordBuilder.build();
 			}//noKeyMatch	
@@ -11,11 +11,12 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
-import io.github.JeremyBloom.mosdex2.IEEEDouble;
 import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.MsdxIdDictionary;
 import io.github.JeremyBloom.mosdex2.dataframe.MsdxDataframe;
 import io.github.JeremyBloom.mosdex2.dataframe.MsdxDataframe.Factory;
 import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
+import io.github.JeremyBloom.mosdex2.span.OperatorWithAccumulator;
 import io.github.JeremyBloom.mosdex2.span.OperatorWithOneArgument;
 import io.github.JeremyBloom.mosdex2.span.OperatorWithTwoArguments;
 
@@ -50,6 +51,9 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 	 * when a MOSDEX File is used with other solvers,
 	 */
 	protected Map<String, Function<MsdxContainer<Object>, ?>> functionTable;
+	
+	/**The ids of the column names in the Expressions of this model.*/
+	private final MsdxSparseExpression.Names names;
 
 	/**
 	 * Creates a new lp factory instance.
@@ -61,6 +65,7 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 		this.modelName= null;
 		this.dataframeFactory= dataframeFactory;
 		this.functionTable= initializeFunctionTable(this.dataframeFactory);
+		this.names= new MsdxSparseExpression.Names();
 	}
 
 	@Override
@@ -106,7 +111,7 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 
 			@Override
 			public MsdxContainer<Object> apply(MsdxContainer<Object> parameter) {
-				Variable variable= new Variable((String) parameter.get("Column"), "");
+				Variable variable= new Variable(parameter.get("Column"), "", names);
 				variable.setBounds(
 					parameter.get("LowerBound").toString(), 
 					parameter.get("UpperBound").toString());;
@@ -146,7 +151,7 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 
 			@Override
 			public MsdxContainer<Object> apply(MsdxContainer<Object> parameter) {
-				Constraint constraint= new Constraint((String) parameter.get("Row"), "");
+				Constraint constraint= new Constraint(parameter.get("Row"), "");
 				constraint.setSenseAndRHS(
 					(String) parameter.get("Sense"), 
 					parameter.get("RHS").toString());
@@ -155,7 +160,7 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 					.copyItem(parameter, "Name")
 					.copyItem(parameter, "Row")
 					.addItem("Constraint", constraint)
-					.addItem("Expression", new Expression())
+					.addItem("Expression", new Expression(names))
 					.build();		
 			}//apply		
 		}/*OperatorWithOneArgument*/;//return
@@ -188,7 +193,7 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 			@Override
 			public MsdxContainer<Object> apply(MsdxContainer<Object> parameter) {
 				Objective objective= new Objective(
-					(String) parameter.get("Row"),
+					parameter.get("Row"),
 					(String) parameter.get("Sense"), 
 					(Double) parameter.get("Constant"));
 	
@@ -196,7 +201,7 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 					.copyItem(parameter, "Name")
 					.copyItem(parameter, "Row")
 					.addItem("Objective", objective)
-					.addItem("Expression", new Expression())
+					.addItem("Expression", new Expression(names))
 					.build();		
 			}//apply	
 		}/*OperatorWithOneArgument*/;//return
@@ -245,11 +250,11 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 				Expression product;
 				if (tableType.equals("LINEAR"))
 					product= Expression.multiply(
-						left.get("Coefficient").toString(), 
+						left.get("Coefficient"), 
 						(Variable) variable.get("Variable"));
 				else //tableType.equals("QUADRATIC")
 					product= Expression.multiply(
-						left.get("Coefficient").toString(),
+						left.get("Coefficient"),
 						(Variable) left.get("Variable"),
 						(Variable) variable.get("Variable"));	//Variable2
 				
@@ -344,6 +349,78 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 		}/*OperatorWithTwoArguments*/;//return
 	}//add
 
+	@Override
+	public OperatorWithAccumulator<Sum> sum(
+		final String tableClass, 
+		final String tableType) 
+	{
+		
+		if(!this.orientation().equals("Row"))
+			throw new UnsupportedOperationException();	//must override this method for column orientation
+		if(!tableClass.equals("TERM"))
+			throw new IllegalArgumentException("Illegal table class");
+		if(!(tableType.equals("LINEAR") || tableType.equals("QUADRATIC")))
+			throw new IllegalArgumentException("Illegal table type");
+		
+		return new OperatorWithAccumulator<Sum>() {
+			@Override
+			public OperatorWithAccumulator<Sum> withResultSchema(
+				MsdxContainer<Class<?>> termSchema,
+				String keyFieldName) 
+			{
+			    if(this.resultSchema!=null)
+			        return this;
+				this.inputSchema= termSchema;
+				this.keyFieldName= keyFieldName;	//should be "Row"
+				
+				this.resultSchema= MsdxContainer.<Class<?>>builder()
+					.addItem(keyFieldName/*=="Row"*/, termSchema.get(keyFieldName))
+					.copyItem(termSchema, "Expression")
+					.build();
+					//expressionSchema= {Row, Expression}
+				return this;
+			}//withResultSchema
+
+			@Override
+			public Sum supply() {
+				return new Sum();
+			}
+
+			@Override
+			public void accumulate(Sum sum, MsdxContainer<Object> term) {
+				if(sum.key==null)
+					sum.key= term.get(this.keyFieldName/*=="Row"*/);
+				sum.expression.accumulate((Expression) term.get("Expression"));
+			}//accumulate
+
+			@Override
+			public Sum combine(Sum sum1, Sum sum2) {
+				if(sum1.key==null)
+					sum1.key= sum2.key;
+				sum1.expression.accumulate(sum2.expression);
+				return sum1;
+			}//combine
+
+			@Override
+			public MsdxContainer<Object> finish(Sum sum) {
+				return MsdxRecord.builder(this.getResultSchema())
+					.addItem(this.keyFieldName/*=="Row"*/, sum.key)
+					.addItem("Expression", sum.expression)
+					.build();
+			}//finish
+
+			@Override
+			public boolean isSplittable() {
+				return true;	//the terms of two parts of a row, added in order, make the expression of the whole row
+			}
+
+			@Override
+			public boolean isConcurrent() {
+				return true;	//the sums only add the terms of the row to their own expressions
+			}
+		}/*OperatorWithAccumulator*/;//return
+	}//sum
+
 	@Override
 	public OperatorWithTwoArguments attach() {
 		
@@ -473,7 +550,7 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 			out.println("General");
 			model.getSolverObjects("VARIABLE", "INTEGER")
 				.flatMap(modelingObject -> modelingObject.getBridge().apply())
-				.forEach(item -> out.print((String)item.get("Column") + " "));					
+				.forEach(item -> out.print(MsdxIdDictionary.name(item.get("Column")) + " "));					
 			out.println();
 		}
 		
@@ -481,7 +558,7 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 			out.println("Binary");
 			model.getSolverObjects("VARIABLE", "BINARY")
 				.flatMap(modelingObject -> modelingObject.getBridge().apply())
-				.forEach(item -> out.print((String)item.get("Column") + " "));					
+				.forEach(item -> out.print(MsdxIdDictionary.name(item.get("Column")) + " "));					
 			out.println();
 		}
 		
@@ -535,11 +612,16 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 	public static class Variable {
 		
 		Object columnId;
+		/**The integer id of the column in Expressions.*/
+		int column;
 		String bounds;
+		/**The names of the column ids.*/
+		final MsdxSparseExpression.Names names;
 	
-		Variable(Object columnId, String bounds) {
+		Variable(Object columnId, String bounds, MsdxSparseExpression.Names names) {
 			super();
-			this.columnId = columnId;
+			this.names = names;
+			this.setColumnId(columnId);
 			this.bounds = bounds;
 		}
 
@@ -549,6 +631,11 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 
 		void setColumnId(Object name) {
 			this.columnId = name;
+			this.column = names.idOf(name);
+		}
+
+		int getColumn() {
+			return column;
 		}
 
 		String getBounds() {
@@ -559,7 +646,7 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 			StringBuffer bnds= new StringBuffer();
 			bnds.append(lb);
 			bnds.append(" <= ");
-			bnds.append(this.getColumnId());
+			bnds.append(MsdxIdDictionary.name(this.getColumnId()));
 			bnds.append(" <= ");
 			bnds.append(ub); 
 			this.bounds = bnds.toString();
@@ -619,8 +706,8 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 		 */
 		public static String format(MsdxContainer<Object> item) {
 			return new StringBuilder()
-				.append(item.get("Row")).append(": ")
-				.append(trim(((Expression) item.get("Expression")).get()))
+				.append(MsdxIdDictionary.name(item.get("Row"))).append(": ")
+				.append(((Expression) item.get("Expression")).render())
 				.append(' ')
 				.append(((Constraint)item.get("Constraint")).getSenseAndRHS())
 				.toString();
@@ -691,8 +778,8 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 			return new StringBuilder()
 				.append(((Objective)item.get("Objective")).getSense())
 				.append(System.lineSeparator())
-				.append(item.get("Row")).append(": ")
-				.append(trim(((Expression) item.get("Expression")).get()))
+				.append(MsdxIdDictionary.name(item.get("Row"))).append(": ")
+				.append(((Expression) item.get("Expression")).render())
 				.append(' ')
 				.append(((Objective)item.get("Objective")).getConstant())
 				.toString();
@@ -710,21 +797,21 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 		String columnId;
 		String columnId1;
 		String columnId2;
-		String coefficient;
+		double coefficient;
 		
-		Term(String type, String row, String column, String coefficient) {
+		Term(String type, String row, String column, Object coefficient) {
 			super();
 			if(!type.equals("LINEAR"))
 				throw new IllegalArgumentException("Not a linear term");
 			this.type = type;
 			this.rowId = row;
 			this.columnId = column;
-			this.coefficient = coefficient;
+			this.coefficient = MsdxSparseExpression.valueOf(coefficient);
 			this.columnId1= "";
 			this.columnId2= "";
 		} 
 		
-		Term(String type, String row, String column1, String column2, String coefficient) {
+		Term(String type, String row, String column1, String column2, Object coefficient) {
 			super();
 			if(!type.equals("QUADRATIC"))
 				throw new IllegalArgumentException("Not a quadratic term");
@@ -732,7 +819,7 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 			this.rowId = row;
 			this.columnId1= column1;
 			this.columnId2= column2;
-			this.coefficient = coefficient;
+			this.coefficient = MsdxSparseExpression.valueOf(coefficient);
 			this.columnId = "";
 		}
 
@@ -768,24 +855,12 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 			this.columnId2 = column2;
 		}
 
-		String getCoefficient() {
+		double getCoefficient() {
 			return coefficient;
 		}
 
-		void setCoefficient(String coefficient) {
-			this.coefficient = coefficient;
-		}
-
-		void setCoefficient(Integer coefficient) {
-			this.coefficient = coefficient.toString();
-		}
-
-		void setCoefficient(Double coefficient) {
-			this.coefficient = coefficient.toString();
-		}
-
-		void setCoefficient(IEEEDouble coefficient) {
-			this.coefficient = coefficient.toString();
+		void setCoefficient(Object coefficient) {
+			this.coefficient = MsdxSparseExpression.valueOf(coefficient);
 		}
 
 		String getType() {
@@ -798,89 +873,105 @@ public class MsdxLpTextModelingFactory implements MsdxSolverModelingFactory{
 	}//class Term
 
 	/**
-	 * This class is part of the API for the .lp "solver"
+	 * The accumulation of the sum operator: the Expression of a row, built in place, and the row id.
 	 */
-	public static class Expression {
+	public static final class Sum {
+		
+		Object key;
+		final Expression expression= Expression.empty();
 		
-		StringBuilder contents;
+	}//class Sum
+	
+	/**
+	 * This class is part of the API for the .lp "solver".
+	 * The terms are held as numbers and rendered as .lp text only when the model is written.
+	 */
+	public static class Expression extends MsdxSparseExpression {
 	
-		public Expression(StringBuilder contents) {
-			this.contents= contents;
-		}
-
 		public Expression() {
-			this(new StringBuilder());
+			super();
 		}
 
-		public Expression(Expression expression) {
-			this(expression.get());
+		public Expression(MsdxSparseExpression.Names names) {
+			super(names);
 		}
 
-		public Expression(String contents) {
-			this(new StringBuilder(contents));
+		public Expression(Expression expression) {
+			super(expression);
 		}
 		
 		public static Expression empty() {
 			return new Expression();
 		}
-
-		public Expression append(String str) {
-			return new Expression(contents.append(str));
-		}
-		
-		public Expression append(Expression expr) {
-			return new Expression(contents.append(expr.get()));
-		}
-		
-		public Expression append(StringBuilder str) {
-			return new Expression(contents.append(str));
-		}
 		
 		public static Expression multiply(Object coefficient, Variable variable) {
-			StringBuilder product= new StringBuilder();
-			return new Expression(product
-				.append(coefficient.toString())
-				.append('*')
-				.append(variable.getColumnId()));	
+			Expression product= new Expression(variable.names);
+			product.addTerm(MsdxSparseExpression.valueOf(coefficient), variable.getColumn());
+			return product;
 		}
 
 		public static Expression multiply(Object coefficient, Variable variable, Variable variable2) {
-			StringBuilder product= new StringBuilder();
-			if(variable.getColumnId().equals(variable2.getColumnId())) //it's a square
-				return new Expression(product
-				.append(coefficient.toString())
-				.append("*(")
-				.append(variable.getColumnId())
-				.append(")^2"));
-			//else it's a product
-			return new Expression(product
-				.append(coefficient.toString())
-				.append('*')
-				.append(variable.getColumnId())
-				.append('*')
-				.append(variable2.getColumnId()));	
+			if(variable.names!=variable2.names)
+				throw new IllegalArgumentException("Variables of different models");
+			Expression product= new Expression(variable.names);
+			product.addTerm(MsdxSparseExpression.valueOf(coefficient), variable.getColumn(), variable2.getColumn());
+			return product;
 		}
 
-		public Expression add(Expression terms) {
-			return new Expression(this
-				.append((this.length()==0 || terms.length()==0 || terms.get().charAt(0)=='-') ? "" : " + ")
-				.append(terms.get()));
-		}
-
-		public int length() {
-			return contents.length();
+		@Override
+		public Expression add(MsdxSparseExpression terms) {
+			super.add(terms);
+			return this;
 		}
 
-		StringBuilder get() {
-			return contents;
+		/**
+		 * Adds the terms to this Expression in place, as add does.
+		 * @param terms
+		 * @return this Expression
+		 */
+		public Expression accumulate(Expression terms) {
+			return add(terms);
 		}
 
-		void set(StringBuilder contents) {
-			this.contents = contents;
-		}
+		/**
+		 * Creates the .lp text of this Expression, after merging its duplicate terms and dropping its zero terms,
+		 * e.g. 2*x - 3.5*y + (z)^2. This Expression is not changed.
+		 * An Expression with no terms left is written as a zero term, 0*x with the first column of the model,
+		 * since an .lp row needs at least one variable; it is written as 0 only if the model has no columns.
+		 * 
+		 * @return the text
+		 */
+		public String render() {
+			MsdxSparseExpression terms= this.compacted();
+			if(terms.isEmpty()) {
+				MsdxSparseExpression.Names names= this.getNames();
+				return names!=null && names.size() > 0 ? "0*" + names.nameOf(0) : "0";
+			}
+			StringBuilder result= new StringBuilder();
+			for(int i= 0; i < terms.size(); i++) {
+				double coefficient= terms.getCoefficient(i);
+				if(result.length()==0) {
+					if(coefficient < 0)
+						result.append('-');
+				}
+				else
+					result.append(coefficient < 0 ? " - " : " + ");
+				result.append(format(Math.abs(coefficient)));
+				
+				String name= nameOf(terms.getId(i));
+				if(!terms.isQuadratic(i))
+					result.append('*').append(name);
+				else if(terms.getId2(i)==terms.getId(i))	//it's a square
+					result.append("*(").append(name).append(")^2");
+				else									//it's a product
+					result.append('*').append(name).append('*').append(nameOf(terms.getId2(i)));
+			}
+			return result.toString();
+		}//render
 
+		@Override
 		public String toString() {
-			return contents.length()>0 ? contents.toString() : "empty";
+			return !this.isEmpty() ? this.render() : "empty";
 		}
 	
 	}//class Expression
@@ -6,7 +6,10 @@
 package io.github.JeremyBloom.mosdex2.modeling;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
@@ -18,6 +21,9 @@ import io.github.JeremyBloom.mosdex2.MsdxContainer;
 import io.github.JeremyBloom.mosdex2.MsdxFunctionCall;
 
 import io.github.JeremyBloom.mosdex2.dataframe.MsdxDataframe;
+import io.github.JeremyBloom.mosdex2.dataframe.MsdxJavaDataframe;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxInstance;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxInstanceStream;
 import io.github.JeremyBloom.mosdex2.objectModel.MsdxQuery;
 import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
 import io.github.JeremyBloom.mosdex2.objectModel.MsdxTable;
@@ -81,6 +87,12 @@ public class MsdxModel implements Serializable {
 	/**Resolves dependencies among the tables in this model.*/
 	private MsdxQuery.Resolver resolver;
 
+	/**Releases the Instances of the tables in this model once they have been used.*/
+	private MsdxTableLifecycle lifecycle;
+
+	/**The tables whose Records are read as they are parsed (see withInstanceStreams); null if none.*/
+	private transient MsdxInstanceStream.Registry instanceStreams;
+
 	/**
 	 * The sole constructor for a Model.
 	 * 
@@ -101,13 +113,48 @@ public class MsdxModel implements Serializable {
 		this.spanFactory = spanFactory;
 		this.dataframeFactory = dataframeFactory;
 		this.solverObjects= new LinkedHashMap<String, MsdxSolverModelingObject>(); 
+		this.instanceStreams= null;
 	}//MsdxModel
 	
+	/**
+	 * Builds the solver objects of some tables from their Records as they are parsed, 
+	 * rather than from their Instances. 
+	 * The File is then read on another thread by an MsdxObject.Factory with the same Registry 
+	 * (see MsdxObject.Factory.withInstanceStreams), 
+	 * and the collector given to createModelingObjects need only hold the tables' Schemas (see MsdxObject.Factory.readSchemas). 
+	 * The Registry must read the tables in the order of getCreationSequence.
+	 * 
+	 * @param instanceStreams the streamed tables, or null to read every table from its Instance
+	 * @return this model
+	 */
+	public MsdxModel withInstanceStreams(MsdxInstanceStream.Registry instanceStreams) {
+		this.instanceStreams= instanceStreams;
+		return this;
+	}
+	
+	/**
+	 * Returns the modeling tables in the order in which createModelingObjects creates their solver objects: 
+	 * by table class in the modeling factory's creationOrder, and then in the order of the collector.
+	 * 
+	 * @param collector
+	 * @return the names of the tables
+	 */
+	public List<String> getCreationSequence(Map<String, MsdxTable> collector) {
+		List<String> sequence= new ArrayList<String>();
+		for(String tableClass: this.modelingFactory.creationOrder())
+			for(MsdxTable table: collector.values())
+				if(table.getTableClass().equals(tableClass))
+					sequence.add(table.getName());
+		return sequence;
+	}//getCreationSequence
+	
 	/**
 	 * The main method for reading the MOSDEX Tables constituting an optimization problem 
 	 * and generating the solver-specific modeling objects. 
 	 * Calls specific CreateXx methods to create the different types of objects.
 	 * Uses a Resolver to manage query tables and their dependencies. 
+	 * Uses a lifecycle (see MsdxTableLifecycle) to release each table's Instance once its last consumer has run. 
+	 * Deferred Instances (see MsdxObject.Factory.withLazyInstances) are decoded just before the Queries that read them run. 
 	 * 
 	 * @param collector the MOSDEX data for the problem in Dataframes derived from the problem's Tables 
 	 * (Assumes all Tables have unique names among all the Files and their Modules)
@@ -116,6 +163,7 @@ public class MsdxModel implements Serializable {
 		this.resolver= new MsdxQuery.Resolver(collector);
 		this.resolver.findDependencies();	
 		this.resolver.resolveDependencies();
+		this.lifecycle= new MsdxTableLifecycle(collector, this.resolver, this.modelingFactory.creationOrder());
 
 		MsdxTable table;
 		for(String tableName: this.resolver.getResolutionOrder()) {
@@ -124,27 +172,27 @@ public class MsdxModel implements Serializable {
 				continue;	//skip output data tables for now, 
 							//since they depend on solution values yet to be computed
 			if(table.hasField("QUERY") || table.hasField("INITIALIZE")) {
+				this.resolver.loadDependenciesOf(table);
 				table.createInstance();
+				this.lifecycle.instantiated(tableName);
 			}
 		}//for tableName
 		//at this point, all input data and modeling object tables have been resolved
+		this.lifecycle.releaseUnused();
 
 		//Create the solver objects in the order specified by the factory
-		for(String tableClass: this.modelingFactory.creationOrder()) {
-			for(String tableName: collector.keySet()) {
-				table= collector.get(tableName);
-				if(!table.getTableClass().equals(tableClass))
-					continue;	//skip for now
-				if(table.getTableClass().equals("VARIABLE"))
-					this.solverObjects.put(tableName, this.createVariable(table));
-				else if(table.getTableClass().equals("CONSTRAINT"))
-					this.solverObjects.put(tableName, this.createConstraint(table));
-				else if(table.getTableClass().equals("OBJECTIVE"))
-					this.solverObjects.put(tableName, this.createObjective(table));
-				else if(table.getTableClass().equals("TERM"))
-					this.createTerm(table);
-			}//for tableName
-		}//for tableClass	
+		for(String tableName: this.getCreationSequence(collector)) {
+			table= collector.get(tableName);
+			if(table.getTableClass().equals("VARIABLE"))
+				this.solverObjects.put(tableName, this.createVariable(table));
+			else if(table.getTableClass().equals("CONSTRAINT"))
+				this.solverObjects.put(tableName, this.createConstraint(table));
+			else if(table.getTableClass().equals("OBJECTIVE"))
+				this.solverObjects.put(tableName, this.createObjective(table));
+			else if(table.getTableClass().equals("TERM"))
+				this.createTerm(table);
+			this.lifecycle.modeled(tableName);
+		}//for tableName
 	}//createModelingObjects
 	
 	/**
@@ -167,7 +215,7 @@ public class MsdxModel implements Serializable {
 		if(!table.getTableClass().equals("VARIABLE"))
 			throw new IllegalArgumentException(table.getName() + " is not a variable");
 
-		MsdxSpan parameters= spanFactory.wrap(table.getInstance().asContainers(), table.getSchema().asContainer())
+		MsdxSpan parameters= instanceOf(table)
 			.map(modelingFactory.extractParameters(table.getName(), table.getTableClass(), table.getTableType(), table.getSchema().asContainer()));
 		MsdxSpan variable= parameters
 			.map(modelingFactory.makeVariable(table.getTableClass(), table.getTableType()));
@@ -195,7 +243,7 @@ public class MsdxModel implements Serializable {
 		if(!table.getTableClass().equals("CONSTRAINT"))
 			throw new IllegalArgumentException(table.getName() + " is not a constraint");
 
-		MsdxSpan parameters= spanFactory.wrap(table.getInstance().asContainers(), table.getSchema().asContainer())
+		MsdxSpan parameters= instanceOf(table)
 			.map(modelingFactory.extractParameters(table.getName(), table.getTableClass(), table.getTableType(), table.getSchema().asContainer()));
 		MsdxSpan constraint= parameters
 			.map(modelingFactory.makeConstraint(table.getTableClass(), table.getTableType()));
@@ -223,7 +271,7 @@ public class MsdxModel implements Serializable {
 		if(!table.getTableClass().equals("OBJECTIVE"))
 			throw new IllegalArgumentException(table.getName() + " is not an objective");
 
-		MsdxSpan parameters= spanFactory.wrap(table.getInstance().asContainers(), table.getSchema().asContainer())
+		MsdxSpan parameters= instanceOf(table)
 			.map(modelingFactory.extractParameters(table.getName(), table.getTableClass(), table.getTableType(), table.getSchema().asContainer()));
 		MsdxSpan objective= parameters
 			.map(modelingFactory.makeObjective(table.getTableClass(), table.getTableType()));
@@ -289,7 +337,7 @@ public class MsdxModel implements Serializable {
 
 		MsdxSpan allVariables= this.all("VARIABLE");
 
-		MsdxSpan termParameters= spanFactory.wrap(table.getInstance().asContainers(), table.getSchema().asContainer())
+		MsdxSpan termParameters= instanceOf(table)
 			.map(modelingFactory.extractParameters(table.getName(), table.getTableClass(), table.getTableType(), table.getSchema().asContainer()));
 		
 		MsdxSpan terms;
@@ -315,11 +363,19 @@ public class MsdxModel implements Serializable {
 				.map(multiply.unmatchedKeys(missingColumns));		
 		}
 
-		MsdxSpan expressions= terms.reduceByKey("Row", modelingFactory.add(table.getTableClass(), table.getTableType()));
+		//an objective row has a term for every variable in it, so its accumulation is split from the start
+		MsdxSpan objectives= this.all("OBJECTIVE");
+		Set<Object> objectiveRows= objectives.isPersistent() ? 
+			objectives.getAsCollection().stream()
+				.map(objective -> objective.get("Row"))
+				.collect(Collectors.toSet()) :
+			Collections.emptySet();
+		MsdxSpan expressions= terms.reduceByKey("Row", 
+			modelingFactory.sum(table.getTableClass(), table.getTableType()).withHotKeys(objectiveRows));
 		if(!missingColumns.get("left").isEmpty())
 			Msdx.GLOBAL.out.println("In MsdxModel.createTermByRows: missing columns  " + missingColumns.get("left").toString());
 
-		MsdxSpan allRows= this.all("CONSTRAINT").outerJoin(this.all("OBJECTIVE"), "Row", MsdxSpan.merge());
+		MsdxSpan allRows= this.all("CONSTRAINT").outerJoin(objectives, "Row", MsdxSpan.merge());
 
 		OperatorWithTwoArguments attacher= modelingFactory.attach();
 		Map<String, Set<Object>> missingRows= new LinkedHashMap<String, Set<Object>>();
@@ -377,7 +433,7 @@ public class MsdxModel implements Serializable {
 		if(!table.getTableType().equals("LINEAR"))
 			throw new IllegalArgumentException(table.getName() + " is not a linear term");
 
-		MsdxSpan termParameters= spanFactory.wrap(table.getInstance().asContainers(), table.getSchema().asContainer())
+		MsdxSpan termParameters= instanceOf(table)
 			.map(modelingFactory.extractParameters(table.getName(), table.getTableClass(), table.getTableType(), table.getSchema().asContainer()));
 
 		MsdxSpan allRows= this.all("CONSTRAINT").outerJoin(this.all("OBJECTIVE"), "Row", MsdxSpan.merge());
@@ -387,7 +443,7 @@ public class MsdxModel implements Serializable {
 		MsdxSpan terms= termParameters.leftJoin(allRows, "Row", multiply)
 			.map(multiply.unmatchedKeys(missingRows));								
 			
-		MsdxSpan expressions= terms.reduceByKey("Column", modelingFactory.add(table.getTableClass(), table.getTableType()));
+		MsdxSpan expressions= terms.reduceByKey("Column", modelingFactory.sum(table.getTableClass(), table.getTableType()));
 		if(!missingRows.get("left").isEmpty())
 			Msdx.GLOBAL.out.println("In MsdxModel.createTermByColumns: missing rows  " + missingRows.get("left").toString());
 
@@ -515,18 +571,32 @@ public class MsdxModel implements Serializable {
 		if(collector.values().stream().allMatch(tbl -> !(tbl.getTableClass().equals("DATA") && tbl.getTableType().equals("OUTPUT"))))
 			return;
 		
-		//Resolve the output data tables
-		for(String tableName: this.resolver.getResolutionOrder()) {
+		//Resolve the output data tables, 
+		//against these Tables rather than those the model was built from if they differ (e.g. Schemas only, with instance streams), 
+		//so that their deferred Instances are loaded
+		MsdxQuery.Resolver resolver= this.resolver;
+		if(resolver.getCollector()!=collector) {
+			resolver= new MsdxQuery.Resolver(collector);
+			resolver.findDependencies();
+			resolver.resolveDependencies();
+		}
+		for(String tableName: resolver.getResolutionOrder()) {
 			table=collector.get(tableName);			
 			if(!(table.getTableClass().equals("DATA") && table.getTableType().equals("OUTPUT")))
 				continue;	//skip all but output data tables
 			if(table.hasField("QUERY") || table.hasField("INITIALIZE")) {
+				resolver.loadDependenciesOf(table);
 				table.createInstance();
 			}
 		}//for tableName
 		//at this point, all tables for  input data, solver objects, and output data have been resolved
 	}//createSolutionObjects	
 
+	/**@return the lifecycle of the tables in this model, or null before createModelingObjects is called*/
+	public MsdxTableLifecycle getLifecycle() {
+		return lifecycle;
+	}
+	
 	/**@return the model name*/
 	public String getModelName() {
 		return modelName;
@@ -563,6 +633,29 @@ public class MsdxModel implements Serializable {
 			.collect(Collectors.toSet());
 	}
 
+	/**
+	 * Returns the Records of a Table's Instance as a replayable Span (see MsdxSpan.Factory.lazy),
+	 * which reads the Instance's dataframe again rather than copying it when the Span is consumed more than once.
+	 * The size of a Java dataframe is passed as the Span's size;
+	 * the size of a Spark dataframe is not, since counting its rows runs a job.
+	 * The Records of a streamed Table are read once, as they are parsed (see withInstanceStreams).
+	 * 
+	 * @param table
+	 * @return a Span of the Table's Records
+	 */
+	private MsdxSpan instanceOf(MsdxTable table) {
+		if(this.instanceStreams!=null && this.instanceStreams.contains(table.getName())) {
+			MsdxInstanceStream stream= this.instanceStreams.get(table.getName());
+			return this.spanFactory.wrap(stream.stream(), stream.getSchema());
+		}
+		MsdxInstance instance= table.getInstance();
+		MsdxDataframe dataframe= instance.getDataframe();
+		return this.spanFactory.lazy(
+			instance::asContainers, 
+			instance.getRecordSchema(), 
+			dataframe instanceof MsdxJavaDataframe ? dataframe.size() : -1);
+	}//instanceOf
+
 	/**
 	 * Returns a stream of all the solver objects of a particular class 
 	 * (i.e. Variables, Constraints, or Objectives) defined so far.
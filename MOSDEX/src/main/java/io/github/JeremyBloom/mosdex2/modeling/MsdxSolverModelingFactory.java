@@ -21,6 +21,7 @@ import io.github.JeremyBloom.mosdex2.MsdxContainer;
 import io.github.JeremyBloom.mosdex2.MsdxOutputDestination;
 import io.github.JeremyBloom.mosdex2.dataframe.MsdxDataframe;
 import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
+import io.github.JeremyBloom.mosdex2.span.OperatorWithAccumulator;
 import io.github.JeremyBloom.mosdex2.span.OperatorWithOneArgument;
 import io.github.JeremyBloom.mosdex2.span.OperatorWithTwoArguments;
 
@@ -340,6 +341,28 @@ public interface MsdxSolverModelingFactory {
 	 */
 	OperatorWithTwoArguments add(String tableClass, String tableType);
 	
+	/**
+	 * Creates the sum expressions of rows (or columns) as the add operator does, but with a mutable accumulation:
+	 * reduceByKey creates one accumulation per row id (or column id), 
+	 * adds each term to it in place, and builds the result container 
+	 * <pre><code>
+	 * {key field name, accumulation field(s)}
+	 * </code></pre>
+	 * only once per key, instead of building a new container for every term.
+	 * <p>
+	 * The default method wraps the add operator, so it builds a container per term;
+	 * a solver-specific factory should override it with an accumulation that sums the terms in place.
+	 * This method is called by the MsdxModel.createTermsByRows and 
+	 * MsdxModel.createTermsByColumns methods in place of add.
+	 * 
+	 * @param tableClass
+	 * @param tableType
+	 * @return an operator that is used by the Span to accumulate the terms of each key into its sum expression
+	 */
+	default OperatorWithAccumulator<?> sum(String tableClass, String tableType) {
+		return OperatorWithAccumulator.folding(this.add(tableClass, tableType));
+	}
+	
 	/**
 	 * Attaches sum expressions to constraints and objectives in row orientation or
 	 * to variables in column orientation. Called by a join method, it provides
@@ -524,9 +547,11 @@ public interface MsdxSolverModelingFactory {
 	 * solver-specific components of the element (i.e. variable, constraint, or
 	 * objective). It then gets the function that retrieves the solution item from
 	 * the function table using the function name that is part of the
-	 * Msdx2FunctionCall object of the function field in the table record. It
-	 * applies that function and returns the value of the solution item, which is
-	 * stored in the function field's Msdx2FunctionCall object. It then returns the
+	 * MsdxFunctionCall object of the function field in the table record. 
+	 * Function Calls are shared and immutable, so each distinct call should be bound 
+	 * (see MsdxFunctionCall.bind) only once per table rather than looked up and validated for every record.
+	 * It applies that function and stores the value of the solution item in the function field 
+	 * of the result record, whose type is the result type of the function. It then returns the
 	 * updated table record.
 	 * <p>
 	 * Optimization solvers can produce a plethora of information about the
@@ -65,6 +65,22 @@ public class MsdxFile extends MsdxObject {
 	public void write(MsdxOutputDestination dst) {
 		this.getFactory().writeFile(this, dst);
 	}
+	
+	/**
+	 * Calls the Factory readBinaryFile method.
+	 * 
+	 * @param src
+	 * @param factory 
+	 * @return a new MOSDEX File object
+	 */
+	public static MsdxFile readBinary(MsdxInputSource src, MsdxObject.Factory factory) {
+		return factory.readBinaryFile(src);
+	}
+	
+	/**Calls the Factory writeBinaryFile method.*/
+	public void writeBinary(MsdxOutputDestination dst) {
+		this.getFactory().writeBinaryFile(this, dst);
+	}
 
 	/**@return the SYNTAX field of this FILE*/
 	public URI getSyntax() {
@@ -104,6 +120,23 @@ public class MsdxFile extends MsdxObject {
 				LinkedHashMap<String, MsdxTable>::new));	
 	}
 	
+	/**
+	 * Returns the index built when this FILE was read with lazy Instances (see MsdxObject.Factory.withLazyInstances): 
+	 * the byte offset of the INSTANCE array of each TABLE whose Instance was indexed rather than decoded, 
+	 * by MODULE and TABLE name. 
+	 * 
+	 * @return the offsets of the indexed Instances; empty if none were indexed
+	 */
+	public Map<String, Map<String, Long>> getInstanceIndex() {
+		Map<String, Map<String, Long>> index= new LinkedHashMap<String, Map<String, Long>>();
+		for(MsdxModule module: modules.values())
+			for(MsdxTable table: module.getTables().values())
+				if(table.getInstance()!=null && table.getInstance().getFileOffset()>=0)
+					index.computeIfAbsent(module.getName(), name -> new LinkedHashMap<String, Long>())
+						.put(table.getName(), table.getInstance().getFileOffset());
+		return index;
+	}//getInstanceIndex
+	
 	/**@return returns the TABLE object of the given name if it is present among the MODULES of this FILE, null otherwise*/
 	public MsdxTable getTable(String name) {
 		MsdxTable table= null;
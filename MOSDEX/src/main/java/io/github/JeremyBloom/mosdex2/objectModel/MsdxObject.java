@@ -5,14 +5,20 @@
  */
 package io.github.JeremyBloom.mosdex2.objectModel;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -21,6 +27,7 @@ import java.util.stream.StreamSupport;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -31,8 +38,10 @@ import io.github.JeremyBloom.mosdex2.IEEEDouble;
 import io.github.JeremyBloom.mosdex2.Msdx;
 import io.github.JeremyBloom.mosdex2.MsdxContainer;
 import io.github.JeremyBloom.mosdex2.MsdxFunctionCall;
+import io.github.JeremyBloom.mosdex2.MsdxIdDictionary;
 import io.github.JeremyBloom.mosdex2.MsdxInputSource;
 import io.github.JeremyBloom.mosdex2.MsdxOutputDestination;
+import io.github.JeremyBloom.mosdex2.MsdxValidator;
 import io.github.JeremyBloom.mosdex2.dataframe.MsdxDataframe;
 import io.github.JeremyBloom.mosdex2.json.MsdxReader;
 import io.github.JeremyBloom.mosdex2.json.MsdxWriter;
@@ -51,7 +60,8 @@ import io.github.JeremyBloom.mosdex2.json.MsdxWriter.Generator;
  * The objects represented by Java classes provide alternative access to certain fields 
  * of their parent objects.
  * <p>
- * The static member class Factory provides methods to read and write MOSDEX JSON.
+ * The static member class Factory provides methods to read and write MOSDEX JSON, 
+ * as well as a binary encoding of MOSDEX for fast save and load of intermediate files.
  *
  * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
  *
@@ -210,17 +220,54 @@ public class MsdxObject {
 		/**Provides the basic functionality for reading and writing MOSDEX as JSON.*/
 		private ObjectMapper mapper;
 		
+		/**Validates MOSDEX as it is read; null if validation is turned off.*/
+		private MsdxValidator validator;
+		
+		/**
+		 * The fields read from the Instance of each Table, by Table name (see withRequiredFields); 
+		 * the Instances of Tables that are not in the map are read in full.
+		 */
+		private Map<String, Set<String>> requiredFields;
+		
+		/**True if this factory skips Instances (see readSchemas).*/
+		private boolean schemasOnly;
+		
+		/**The Tables whose Records are handed to the model as they are read (see withInstanceStreams); null if none.*/
+		private MsdxInstanceStream.Registry instanceStreams;
+		
+		/**True if Instances are indexed as a File is read and decoded when first read (see withLazyInstances).*/
+		private boolean lazyInstances;
+		
+		/**The source of the File being read, while its Instances are indexed; null otherwise.*/
+		private MsdxInputSource lazySource;
+		
 		/**
 		 * Creates a new MsdxObject.Factory instance.
 		 * @param dataframeFactory creates representations of Instance data
 		 * @param mapper used for reading and writing MOSDEX as JSON
-		 * @param validate True if the MOSDEX File is to be validated against the MOSDEX schema;
-		 * false otherwise (not implemented yet)
+		 * @param validate True if the MOSDEX File is to be validated against the MOSDEX schema 
+		 * (using the default validator); false otherwise
 		 */
 		public Factory(MsdxDataframe.Factory dataframeFactory, ObjectMapper mapper, boolean validate) {
+			this(dataframeFactory, mapper, validate ? MsdxValidator.getDefault() : null);
+		}
+	
+		/**
+		 * Creates a new MsdxObject.Factory instance.
+		 * @param dataframeFactory creates representations of Instance data
+		 * @param mapper used for reading and writing MOSDEX as JSON
+		 * @param validator validates each section of a MOSDEX File as it is read; null for no validation
+		 */
+		public Factory(MsdxDataframe.Factory dataframeFactory, ObjectMapper mapper, MsdxValidator validator) {
 			super();
 			this.dataframeFactory = dataframeFactory;
 			this.mapper = mapper;	
+			this.validator = validator;
+			this.requiredFields = Collections.emptyMap();
+			this.schemasOnly = false;
+			this.instanceStreams = null;
+			this.lazyInstances = false;
+			this.lazySource = null;
 		}
 	
 		/**@return the dataframe factory*/
@@ -228,6 +275,100 @@ public class MsdxObject {
 			return dataframeFactory;
 		}
 
+		/**@return the validator, or null if validation is turned off*/
+		public MsdxValidator getValidator() {
+			return validator;
+		}
+
+		/**
+		 * Restricts the fields read from the Instances of some Tables (column pruning). 
+		 * The items of the other fields are skipped in the parser without being decoded, 
+		 * and the Dataframe of such an Instance has only the required fields in its Schema 
+		 * (see MsdxInstance.getRecordSchema and getPrunedFields), while the Table's Schema is unchanged. 
+		 * The required fields are usually computed by MsdxColumnPruner from the Schemas and Queries read by readSchemas.
+		 * <p>
+		 * Instances are read in full while this factory has a validator, since validation checks every item.
+		 * 
+		 * @param requiredFields the fields to read from each Table, by Table name; 
+		 * Tables that are not in the map are read in full
+		 * @return this factory
+		 */
+		public MsdxObject.Factory withRequiredFields(Map<String, Set<String>> requiredFields) {
+			this.requiredFields= Collections.unmodifiableMap(new LinkedHashMap<String, Set<String>>(requiredFields));
+			return this;
+		}
+
+		/**@return the fields read from the Instance of each Table, by Table name*/
+		public Map<String, Set<String>> getRequiredFields() {
+			return requiredFields;
+		}
+
+		/**
+		 * Streams the Records of some Tables to the model as they are read. 
+		 * The Records of each Table in the Registry are put into its MsdxInstanceStream as they are decoded, 
+		 * so that the model (running on another thread) can build its solver objects while the File is still being read. 
+		 * The Instance of such a Table keeps a Dataframe only if the Registry retains it; 
+		 * otherwise the Instance is left released, and reading it afterwards throws IllegalStateException. 
+		 * A retained Instance's Dataframe is created from the same Records, 
+		 * so the Dataframe factory must read the Records before its create method returns, as the Java and Spark factories do.
+		 * 
+		 * @param instanceStreams the Tables to stream, or null to stream none
+		 * @return this factory
+		 */
+		public MsdxObject.Factory withInstanceStreams(MsdxInstanceStream.Registry instanceStreams) {
+			this.instanceStreams= instanceStreams;
+			return this;
+		}
+
+		/**@return the Tables whose Records are streamed to the model, or null if none*/
+		public MsdxInstanceStream.Registry getInstanceStreams() {
+			return instanceStreams;
+		}
+
+		/**
+		 * Defers decoding Instances until they are used. 
+		 * In this mode readFile makes a single pass over the File that reads its Modules, Tables, Schemas and Queries as usual, 
+		 * but only indexes each Instance: it keeps the byte offset of the Instance array and its first record 
+		 * (as the representative node), and skips the other records without decoding them. 
+		 * An indexed Instance is decoded by readInstance, from the source reopened at its offset, 
+		 * when it is first read (see MsdxInstance.isDeferred and load) 
+		 * or when MsdxQuery.Resolver.loadDependenciesOf prepares a Query that depends on it, 
+		 * so the Instances of Tables that neither the model nor the output reads are never decoded. 
+		 * <p>
+		 * Instances are decoded as the File is read 
+		 * if the source cannot be reopened (see MsdxInputSource.isReopenable), this factory has a validator, 
+		 * the File is in the binary encoding, or the Table's Records are streamed (see withInstanceStreams).
+		 * The Dataframe factory must read the Records before its create method returns, as the Java and Spark factories do.
+		 * 
+		 * @param lazyInstances true to index the Instances, false to decode them as the File is read
+		 * @return this factory
+		 */
+		public MsdxObject.Factory withLazyInstances(boolean lazyInstances) {
+			this.lazyInstances= lazyInstances;
+			return this;
+		}
+
+		/**@return true if Instances are decoded when they are first read*/
+		public boolean hasLazyInstances() {
+			return lazyInstances;
+		}
+		
+		/**
+		 * Reads the Modules and Tables of a MOSDEX JSON file with their Schemas and Queries, 
+		 * skipping the Instance arrays without decoding them. 
+		 * The Tables read have no Instance objects and are not validated. 
+		 * Used for a first pass over a file that can be reopened (see MsdxInputSource.reopen), 
+		 * e.g. to find the fields that the model needs from each Table.
+		 * 
+		 * @param src
+		 * @return a new instance of the MsdxFile class, whose Tables have no Instances
+		 */
+		public MsdxFile readSchemas(MsdxInputSource src) {
+			MsdxObject.Factory scanner= new MsdxObject.Factory(this.dataframeFactory, this.mapper, (MsdxValidator) null);
+			scanner.schemasOnly= true;
+			return scanner.readFile(src);
+		}//readSchemas
+
 		/**
 		 * Creates a JSON parser for reading from an input source.
 		 * Uses the Jackson parser.
@@ -258,17 +399,71 @@ public class MsdxObject {
 		 * customization through the specialHandling method, to deal with JSON fields that create Java objects 
 		 * in addition to nodes of the tree model,
 		 * in particular INSTANCE arrays that are read directly into Dataframes.
+		 * <p>
+		 * If this factory has a validator, each table, module, and the file itself are validated 
+		 * as soon as they have been read, and Instance records are checked as they stream into Dataframes, 
+		 * so a complete tree of the file is never needed for validation.
+		 * <p>
+		 * If this factory has lazy Instances (see withLazyInstances), the Instances are indexed rather than decoded.
 		 * 
 		 * @param src a MsdxInputSource wraps various kinds of sources 
 		 * (file system Files, input streams, urls) in a uniform way.
 		 * @return a new instance of the MsdxFile class
 		 */
 		public MsdxFile readFile(MsdxInputSource src) {
+			if(!lazyInstances || validator!=null || !src.isReopenable())
+				return readFile(this.createParser(src));
+			this.lazySource= src;
+			try {
+				return readFile(this.createParser(src));
+			} finally {
+				this.lazySource= null;
+			}
+		}//readFile
+
+		/**
+		 * Creates a parser for reading the binary encoding of MOSDEX from an input source.
+		 * Uses the Jackson Smile parser.
+		 * 
+		 * @param src
+		 * @return a parser
+		 */
+		public JsonParser createBinaryParser(MsdxInputSource src) {
+			JsonParser parser= null;
+			try {
+				parser = Msdx.GLOBAL.binaryMapper.getFactory().createParser(src.getStream());
+				parser.nextToken();
+			} catch (IOException e) {
+				System.err.println(e.getMessage());
+				e.printStackTrace();
+			}
+			return parser;
+		}//createBinaryParser
+
+		/**
+		 * Reads a MOSDEX file in the binary encoding written by writeBinaryFile.
+		 * The binary encoding has the same structure as MOSDEX JSON, except that 
+		 * Instances are held in columnar blocks (see writeInstanceBlock).
+		 * The result is identical to reading the JSON form of the same file.
+		 * 
+		 * @param src
+		 * @return a new instance of the MsdxFile class
+		 */
+		public MsdxFile readBinaryFile(MsdxInputSource src) {
+			return readFile(this.createBinaryParser(src));
+		}//readBinaryFile
+
+		/**
+		 * Reads a MOSDEX file from a parser positioned at its first token.
+		 * Used for both the JSON and binary encodings.
+		 * 
+		 * @param parser
+		 * @return a new instance of the MsdxFile class
+		 */
+		protected MsdxFile readFile(JsonParser parser) {
 	     	MsdxFile file= new MsdxFile();
 	     	file.factory= this;    	
 	     	file.modules= new LinkedHashMap<String, MsdxModule>();
-
-		    JsonParser parser= this.createParser(src);
 		    	
 	    	MsdxReader reader= new MsdxReader(parser) {
 				/**
@@ -298,6 +493,8 @@ public class MsdxObject {
 		    	
  			try {
 				file.thisNode= reader.objectFromJson(); //Captures the JSON nodes
+				if(validator!=null)
+					validator.validateFile(file.getAsNode());
 			} catch (IOException e) {
 				System.err.println(e.getMessage());
 				e.printStackTrace();
@@ -348,6 +545,8 @@ public class MsdxObject {
 	 			module.thisNode= reader.objectFromJson();
 	 			if(!module.getAsNode().has("NAME") || module.getAsNode().get("NAME").asText().isBlank())
 	 				throw new JsonParseException(parser, "Missing module name", parser.getCurrentLocation());
+	 			if(validator!=null)
+	 				validator.validateModule(module.getAsNode());
 			} catch (IOException e) {
 				System.err.println(e.getMessage());
 				e.printStackTrace();
@@ -395,7 +594,17 @@ public class MsdxObject {
 						return schema.getAsNode();
 					}
 					else if(keyword.equals("INSTANCE")) {
-						instance= readInstance(table.getName(), table.getSchema(), parser);
+						if(schemasOnly) {
+							parser.skipChildren();
+							return MsdxReader.createArrayNode();
+						}
+						if(parser.getCurrentToken().equals(JsonToken.START_OBJECT))	//binary encoding
+							instance= readInstanceBlock(table.getName(), table.getSchema(), parser);
+						else if(lazySource!=null && table.getSchema()!=null 
+							&& !(instanceStreams!=null && instanceStreams.contains(table.getName())))
+							instance= indexInstance(table.getName(), table.getSchema(), lazySource, parser);
+						else
+							instance= readInstance(table.getName(), table.getSchema(), parser);
 						instance.parent= table;
 						table.instance = instance;
 						//need to set instance.thisNode as representative record
@@ -428,6 +637,8 @@ public class MsdxObject {
 	 			table.thisNode= reader.objectFromJson();		
 	 			if(!table.getAsNode().has("NAME") || table.getAsNode().get("NAME").asText().isBlank())
 	 				throw new JsonParseException(parser, "Missing table name", parser.getCurrentLocation());
+	 			if(validator!=null)
+	 				validator.validateTable(table.getAsNode());
 			} catch (IOException e) {
 				System.err.println(e.getMessage());
 				e.printStackTrace();
@@ -484,6 +695,10 @@ public class MsdxObject {
 		 * This method creates a stream of Records which are used to populate a Dataframe. 
 		 * In order to maintain consistency with the Tree Model, this method creates a representative node 
 		 * consisting of a single record, which is used when validating MOSDEX against its JSON schema.
+		 * If this factory has a validator, each record is also checked as it is read (see MsdxValidator.validateRecord).
+		 * <p>
+		 * If the Table has required fields (see withRequiredFields), the other items of each record 
+		 * are skipped as tokens, and the records and the representative node hold only the required fields.
 		 * 
 		 * @param tableName
 		 * @param tableSchema
@@ -499,26 +714,202 @@ public class MsdxObject {
 				throw new IllegalArgumentException("Undefined table schema");
 			instance.tableSchema = tableSchema;
 			
-			MsdxReader reader= new MsdxReader(parser);
+			MsdxContainer<Class<?>> recordSchema= this.recordSchemaOf(tableName, tableSchema);
+			boolean[] kept= recordSchema==tableSchema.asContainer() ? null : keptFields(tableSchema.asContainer(), recordSchema);
+			MsdxReader reader= new MsdxReader(parser) {
+				@Override 
+				protected JsonNode specialHandling(String keyword) throws IOException {
+					if(keyword!=null && keyword.equals("RECORD"))
+						return readPrunedRecord(kept, this, parser);
+					return null;
+				}
+			}/*MsdxReader*/;
 			Stream<MsdxRecord> records= null;
+			AtomicLong index= new AtomicLong();
 			try {
-				records= reader.streamFromJson(null)
+				records= reader.streamFromJson(kept==null ? null : "RECORD")
 					.peek(node -> {
 						if(instance.getAsNode().size()==0)
 							((ArrayNode) instance.getAsNode()).add(node);  //Add a representative record for validation against the MOSDEX Schema
+						if(validator!=null)
+							validator.validateRecord(index.getAndIncrement(), node, tableSchema.asContainer());
 					})
-					.map(node -> readRecord(node, tableSchema, parser));		
+					.map(node -> kept==null ? readRecord(node, tableSchema, parser) : MsdxRecord.fromNode(node, recordSchema, dataframeFactory));		
 			} catch (IOException e) {
 				System.err.println(e.getMessage());
 				e.printStackTrace();
 			}
+			if(instanceStreams!=null && instanceStreams.contains(tableName)) {
+				MsdxInstanceStream stream= instanceStreams.get(tableName);
+				stream.open(recordSchema);
+				streamRecords(stream, instance, records.map(record -> (MsdxContainer<Object>)record), recordSchema);
+				stream.close();
+				return instance;
+			}
 			instance.dataframe= this.dataframeFactory.create(
 				tableName, 
 				records.map(record -> (MsdxContainer<Object>)record), 
-				tableSchema.asContainer());			
+				recordSchema);			
  			return instance;
 		}//readInstance
 		
+		/**
+		 * Indexes a MOSDEX Instance array without decoding its records (see withLazyInstances). 
+		 * Keeps the byte offset of the array and reads its first record as the representative node, 
+		 * then skips the other records as tokens. 
+		 * The Instance is decoded by readInstance when it is first read. 
+		 * If the parser does not report byte offsets, the Instance is decoded at once.
+		 * 
+		 * @param tableName
+		 * @param tableSchema
+		 * @param src the source of the File, which can be reopened
+		 * @param parser positioned at the start of the array
+		 * @return a new, deferred Instance object
+		 */
+		protected MsdxInstance indexInstance(String tableName, MsdxSchema tableSchema, MsdxInputSource src, JsonParser parser) {
+			long offset= parser.getTokenLocation().getByteOffset();
+			if(offset<0)
+				return readInstance(tableName, tableSchema, parser);
+			
+			MsdxInstance instance = new MsdxInstance();		//parent object is set by caller
+			instance.factory= this;
+			instance.thisNode= MsdxReader.createArrayNode();
+			instance.tableSchema = tableSchema;
+			
+			MsdxContainer<Class<?>> recordSchema= this.recordSchemaOf(tableName, tableSchema);
+			boolean[] kept= recordSchema==tableSchema.asContainer() ? null : keptFields(tableSchema.asContainer(), recordSchema);
+			MsdxReader reader= new MsdxReader(parser);
+			try {
+				reader.getCurrentToken(JsonToken.START_ARRAY);
+				JsonToken token= parser.nextToken();
+				if(token!=null && token.equals(JsonToken.START_ARRAY)) {	//a representative record, as readInstance keeps
+					((ArrayNode) instance.getAsNode()).add(kept==null ? reader.arrayFromJson(null) : readPrunedRecord(kept, reader, parser));
+					token= parser.nextToken();
+				}
+				for( ; token!=null && !token.equals(JsonToken.END_ARRAY); token= parser.nextToken())
+					parser.skipChildren();
+			} catch (IOException e) {
+				System.err.println(e.getMessage());
+				e.printStackTrace();
+			}
+			instance.defer(offset, recordSchema, () -> decodeInstance(tableName, tableSchema, src, offset));
+			return instance;
+		}//indexInstance
+		
+		/**
+		 * Decodes an indexed Instance from its File, reopened at the byte offset of its array.
+		 * Each Instance is decoded on its own, when it is first read, so the File is reopened once for each Instance decoded. 
+		 * Reaching the offset is a seek for a file or a string, but reads the bytes before the Instance for a URL or a resource, 
+		 * so decoding most of the Instances of such a File in this way reads it about once for each of them; 
+		 * an application that reads most of the Instances of a large remote File should not index them (see withLazyInstances).
+		 * 
+		 * @param tableName
+		 * @param tableSchema
+		 * @param src the source of the File
+		 * @param offset of the Instance array
+		 * @return a new Instance object holding the decoded Dataframe
+		 * @throws IllegalStateException if the File cannot be read
+		 */
+		private MsdxInstance decodeInstance(String tableName, MsdxSchema tableSchema, MsdxInputSource src, long offset) {
+			try(JsonParser parser= this.mapper.getFactory().createParser(skipTo(src.reopen().getStream(), offset))) {
+				parser.nextToken();
+				return readInstance(tableName, tableSchema, parser);
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot decode the instance of " + tableName + ": " + e.getMessage(), e);
+			}
+		}//decodeInstance
+		
+		/**@return the stream, after skipping offset bytes*/
+		private static InputStream skipTo(InputStream stream, long offset) throws IOException {
+			for(long remaining= offset; remaining>0; ) {
+				long skipped= stream.skip(remaining);
+				if(skipped<=0) {
+					if(stream.read()<0)
+						throw new EOFException("File ends before offset " + offset);
+					skipped= 1;
+				}
+				remaining-= skipped;
+			}
+			return stream;
+		}//skipTo
+		
+		/**
+		 * Puts Records into an Instance stream, 
+		 * also creating the Instance's Dataframe from them if the stream is retained.
+		 * 
+		 * @param stream open
+		 * @param instance
+		 * @param records
+		 * @param recordSchema
+		 */
+		private void streamRecords(
+			MsdxInstanceStream stream, 
+			MsdxInstance instance, 
+			Stream<MsdxContainer<Object>> records, 
+			MsdxContainer<Class<?>> recordSchema) 
+		{
+			if(stream.isRetained())
+				instance.dataframe= this.dataframeFactory.create(stream.getTableName(), records.peek(stream::put), recordSchema);
+			else {
+				records.forEachOrdered(stream::put);
+				instance.streamed(stream.getTableName(), this.dataframeFactory, recordSchema);
+			}
+		}//streamRecords
+		
+		/**
+		 * @param tableName
+		 * @param tableSchema
+		 * @return the Schema of the records read from the Table's Instance: 
+		 * the Table's Schema restricted to its required fields, or the Table's Schema itself if the Table is read in full
+		 */
+		protected MsdxContainer<Class<?>> recordSchemaOf(String tableName, MsdxSchema tableSchema) {
+			MsdxContainer<Class<?>> schema= tableSchema.asContainer();
+			Set<String> required= requiredFields.get(tableName);
+			if(required==null || validator!=null || required.containsAll(schema.itemNames()))
+				return schema;
+			MsdxContainer<Class<?>> recordSchema= schema.select(required);
+			if(recordSchema.isEmpty())
+				return schema;
+			return recordSchema;
+		}//recordSchemaOf
+		
+		/**@return for each field of the Table's Schema, true if it is in the record Schema*/
+		private static boolean[] keptFields(MsdxContainer<Class<?>> tableSchema, MsdxContainer<Class<?>> recordSchema) {
+			boolean[] kept= new boolean[tableSchema.size()];
+			int i= 0;
+			for(String fieldName: tableSchema.itemNames())
+				kept[i++]= recordSchema.containsField(fieldName);
+			return kept;
+		}//keptFields
+		
+		/**
+		 * Reads the kept items of a record, skipping the others without decoding them.
+		 * 
+		 * @param kept for each field of the Table's Schema, true if its item is read
+		 * @param reader
+		 * @param parser positioned at the start of the record
+		 * @return an array node of the kept items
+		 * @throws IOException
+		 */
+		private static ArrayNode readPrunedRecord(boolean[] kept, MsdxReader reader, JsonParser parser) throws IOException {
+			ArrayNode node= MsdxReader.createArrayNode();
+			reader.getCurrentToken(JsonToken.START_ARRAY);
+			int item= 0;
+			for(JsonToken token= parser.nextToken(); token!=null && !token.equals(JsonToken.END_ARRAY); token= parser.nextToken(), item++) {
+				if(!(item < kept.length && kept[item]))
+					parser.skipChildren();
+				else if(token.equals(JsonToken.START_OBJECT))
+					node.add(reader.objectFromJson());
+				else if(token.equals(JsonToken.START_ARRAY))
+					node.add(reader.arrayFromJson(null));
+				else
+					node.add(reader.valueFromJson(token, null));
+			}
+			if(item!=kept.length && item!=0)
+				throw new JsonParseException(parser, "Record has " + item + " items but its schema has " + kept.length + " fields", parser.getCurrentLocation());
+			return node;
+		}//readPrunedRecord
+		
 		/**
 		 * Reads a MOSDEX Record as a JSON array. 
 		 * 
@@ -528,9 +919,224 @@ public class MsdxObject {
 		 * @return a new Record object
 		 */
 		protected MsdxRecord readRecord(JsonNode node, MsdxSchema tableSchema, JsonParser parser) {
-			return MsdxRecord.fromNode(node, tableSchema.asContainer());
+			return MsdxRecord.fromNode(node, tableSchema.asContainer(), dataframeFactory);
 		}//readRecord
 
+		/**
+		 * Reads a MOSDEX Instance from a columnar block of the binary encoding.
+		 * The block holds a representative record (SAMPLE) and a sequence of CHUNKS, 
+		 * each of which holds a number of ROWS and one column per schema field.
+		 * Numeric columns are packed as raw binary values, so IEEEDouble items are recovered exactly; 
+		 * string and function call columns are arrays of strings.
+		 * 
+		 * @param tableName
+		 * @param tableSchema
+		 * @param parser positioned at the start of the block
+		 * @return a new Instance object
+		 */
+		protected MsdxInstance readInstanceBlock(String tableName, MsdxSchema tableSchema, JsonParser parser) {
+			MsdxInstance instance = new MsdxInstance();		//parent object is set by caller
+			instance.factory= this;
+			instance.thisNode= MsdxReader.createArrayNode();
+			
+			if(tableSchema==null)
+				throw new IllegalArgumentException("Undefined table schema");
+			instance.tableSchema = tableSchema;
+			
+			MsdxContainer<Class<?>> tableFields= tableSchema.asContainer();
+			MsdxContainer<Class<?>> recordSchema= this.recordSchemaOf(tableName, tableSchema);
+			List<MsdxContainer<Object>> records= new ArrayList<MsdxContainer<Object>>();
+			MsdxInstanceStream stream= instanceStreams!=null && instanceStreams.contains(tableName) ? instanceStreams.get(tableName) : null;
+			if(stream!=null)
+				stream.open(recordSchema);
+			int streamed= 0;
+			MsdxReader reader= new MsdxReader(parser);
+			String fieldName;
+			try {
+				reader.getCurrentToken(JsonToken.START_OBJECT);
+				while(reader.nextToken(JsonToken.FIELD_NAME, JsonToken.END_OBJECT).equals(JsonToken.FIELD_NAME)) {
+					fieldName= parser.getCurrentName();
+					parser.nextToken();
+					if(fieldName.equals("SAMPLE"))
+						instance.thisNode= reader.arrayFromJson(null);
+					else if(fieldName.equals("CHUNKS")) {
+						reader.getCurrentToken(JsonToken.START_ARRAY);
+						while(reader.nextToken(JsonToken.START_OBJECT, JsonToken.END_ARRAY).equals(JsonToken.START_OBJECT)) {
+							readChunk(tableFields, recordSchema, reader, parser, records);
+							if(stream!=null) {	//hand over each chunk as soon as it is decoded
+								records.subList(streamed, records.size()).forEach(stream::put);
+								if(stream.isRetained())
+									streamed= records.size();
+								else
+									records.clear();
+							}
+						}
+					}
+					else
+						parser.skipChildren();	//ENCODING
+				}//while
+			} catch (IOException e) {
+				System.err.println(e.getMessage());
+				e.printStackTrace();
+			}
+			if(stream!=null) {
+				if(stream.isRetained())
+					instance.dataframe= this.dataframeFactory.create(tableName, records.stream(), recordSchema);
+				else
+					instance.streamed(tableName, this.dataframeFactory, recordSchema);
+				stream.close();
+				return instance;
+			}
+			instance.dataframe= this.dataframeFactory.create(
+				tableName, 
+				records.stream(), 
+				recordSchema);			
+ 			return instance;
+		}//readInstanceBlock
+		
+		/**
+		 * Reads one chunk of a columnar block and appends its records.
+		 * 
+		 * @param recordSchema
+		 * @param reader
+		 * @param parser positioned at the start of the chunk
+		 * @param records collects the records
+		 * @throws IOException
+		 */
+		protected void readChunk(
+			MsdxContainer<Class<?>> recordSchema, 
+			MsdxReader reader, 
+			JsonParser parser, 
+			List<MsdxContainer<Object>> records) 
+			throws IOException 
+		{
+			readChunk(recordSchema, recordSchema, reader, parser, records);
+		}//readChunk
+		
+		/**
+		 * Reads one chunk of a columnar block and appends its records, 
+		 * skipping the columns of the fields that are not in the record Schema.
+		 * 
+		 * @param tableSchema Schema of the columns of the chunk
+		 * @param recordSchema Schema of the records, whose fields are a subset of those of the table Schema
+		 * @param reader
+		 * @param parser positioned at the start of the chunk
+		 * @param records collects the records
+		 * @throws IOException
+		 */
+		protected void readChunk(
+			MsdxContainer<Class<?>> tableSchema, 
+			MsdxContainer<Class<?>> recordSchema, 
+			MsdxReader reader, 
+			JsonParser parser, 
+			List<MsdxContainer<Object>> records) 
+			throws IOException 
+		{
+			List<String> fieldNames= new ArrayList<String>(tableSchema.itemNames());
+			Object[][] columns= new Object[fieldNames.size()][];
+			int rows= -1;
+			int column;
+			String fieldName;
+			while(reader.nextToken(JsonToken.FIELD_NAME, JsonToken.END_OBJECT).equals(JsonToken.FIELD_NAME)) {
+				fieldName= parser.getCurrentName();
+				parser.nextToken();
+				if(fieldName.equals("ROWS"))
+					rows= parser.getIntValue();
+				else if(fieldName.equals("COLUMNS")) {
+					if(rows<0)
+						throw new JsonParseException(parser, "Chunk is missing ROWS", parser.getCurrentLocation());
+					reader.getCurrentToken(JsonToken.START_ARRAY);
+					column= 0;
+					while(reader.nextToken(JsonToken.START_OBJECT, JsonToken.END_ARRAY).equals(JsonToken.START_OBJECT)) {
+						if(column >= columns.length)
+							throw new JsonParseException(parser, "Chunk has more columns than its schema has fields", parser.getCurrentLocation());
+						if(recordSchema.containsField(fieldNames.get(column)))
+							columns[column]= readColumn(tableSchema.get(fieldNames.get(column)), rows, reader, parser);
+						else
+							parser.skipChildren();
+						column++;
+					}
+					if(column < columns.length)
+						throw new JsonParseException(parser, "Schema has more fields than chunk has columns", parser.getCurrentLocation());
+				}
+				else
+					parser.skipChildren();
+			}//while
+			
+			MsdxRecord.Builder record;
+			for(int row= 0; row < rows; row++) {
+				record= MsdxRecord.builder(recordSchema);
+				for(column= 0; column < columns.length; column++)
+					if(columns[column]!=null)
+						record.addItem(fieldNames.get(column), columns[column][row]);
+				records.add(record.build());
+			}
+		}//readChunk
+		
+		/**
+		 * Reads one column of a chunk.
+		 * 
+		 * @param fieldType
+		 * @param rows number of items in the column
+		 * @param reader
+		 * @param parser positioned at the start of the column
+		 * @return the items of the column
+		 * @throws IOException
+		 */
+		protected Object[] readColumn(Class<?> fieldType, int rows, MsdxReader reader, JsonParser parser) 
+			throws IOException 
+		{
+			Object[] items= new Object[rows];
+			byte[] nulls= null;
+			ByteBuffer values;
+			String fieldName;
+			int row;
+			while(reader.nextToken(JsonToken.FIELD_NAME, JsonToken.END_OBJECT).equals(JsonToken.FIELD_NAME)) {
+				fieldName= parser.getCurrentName();
+				parser.nextToken();
+				if(fieldName.equals("NULLS"))
+					nulls= parser.getBinaryValue();
+				else if(fieldName.equals("VALUES") && parser.getCurrentToken().equals(JsonToken.START_ARRAY)) {
+					row= 0;
+					for(JsonToken token= reader.nextToken(JsonToken.VALUE_STRING, JsonToken.VALUE_NULL, JsonToken.END_ARRAY); 
+						!token.equals(JsonToken.END_ARRAY); 
+						token= reader.nextToken(JsonToken.VALUE_STRING, JsonToken.VALUE_NULL, JsonToken.END_ARRAY)) 
+					{
+						if(row >= rows)
+							throw new JsonParseException(parser, "Column has more items than chunk has rows", parser.getCurrentLocation());
+						if(token.equals(JsonToken.VALUE_STRING)) {
+							if(MsdxFunctionCall.isFunctionCall(fieldType))
+								items[row]= dataframeFactory.getFunctionCalls().create(parser.getText(), MsdxFunctionCall.getResultTypeFor(fieldType));
+							else
+								items[row]= parser.getText();
+						}
+						row++;
+					}
+				}
+				else if(fieldName.equals("VALUES")) {
+					values= ByteBuffer.wrap(parser.getBinaryValue());
+					for(row= 0; row < rows; row++) {
+						if(fieldType.equals(Integer.class))
+							items[row]= Integer.valueOf(values.getInt());
+						else if(fieldType.equals(IEEEDouble.class))
+							items[row]= IEEEDouble.valueOf(Double.longBitsToDouble(values.getLong()));
+						else if(fieldType.equals(Double.class))
+							items[row]= Double.valueOf(Double.longBitsToDouble(values.getLong()));
+						else
+							throw new JsonParseException(parser, "Unexpected binary column of type " + fieldType.getSimpleName(), parser.getCurrentLocation());
+					}
+				}
+				else
+					parser.skipChildren();
+			}//while
+			
+			if(nulls!=null)
+				for(row= 0; row < rows; row++)
+					if((nulls[row >>> 3] & (1 << (row & 7))) != 0)
+						items[row]= null;
+			return items;
+		}//readColumn
+
 		/**
 		 * Creates a JSON generator for writing to an output destination.
 		 * Does not use the Jackson generator, due to restrictions on output format.
@@ -719,7 +1325,7 @@ public class MsdxObject {
 					}
 					else if(keyword.equals("INSTANCE")) {
 						writeRecords(
-							table.instance.getDataframe().toStream().map(record -> (MsdxContainer<Object>)record), 
+							table.instance.asContainers(), 
 							table.getSchema().asContainer()/*fields*/, 
 							generator);
 						return true;
@@ -861,7 +1467,7 @@ public class MsdxObject {
 			else if(MsdxFunctionCall.class.isAssignableFrom(fieldType))
 				generator.writeString(((MsdxFunctionCall)item).getCallString());		
 			else if (item instanceof IEEEDouble)
-				generator.writeString(((IEEEDouble)item).toHexString());
+				generator.writeHexDouble(((IEEEDouble)item).doubleValue());
 			else if(item instanceof Double) {
 				if(!((Double) item).isInfinite())
 					generator.writeNumber((Double)item);
@@ -884,6 +1490,242 @@ public class MsdxObject {
 			else
 				generator.writeString(String.valueOf(item));
 		}//writeItem
+		
+		/**The number of records in each chunk of a columnar Instance block.*/
+		public static final int CHUNK_SIZE= 4096;
+
+		/**
+		 * Creates a generator for writing the binary encoding of MOSDEX to an output destination.
+		 * Uses the Jackson Smile generator.
+		 * 
+		 * @param dst
+		 * @return a new generator
+		 */
+		public JsonGenerator createBinaryGenerator(MsdxOutputDestination dst) {
+			JsonGenerator generator=null;
+			try {
+				generator= Msdx.GLOBAL.binaryMapper.getFactory()
+					.createGenerator(dst.getStream());
+			} catch (IOException e) {
+				System.err.println(e.getMessage());
+				e.printStackTrace();
+			}
+			return generator;
+		}//createBinaryGenerator
+		
+		/**
+		 * Writes a MOSDEX File in the binary encoding, for intermediate files passed between applications. 
+		 * The structure is encoded with Jackson Smile and mirrors the JSON form of the File, 
+		 * except that each Instance is written as a columnar block (see writeInstanceBlock).
+		 * Reading the result with readBinaryFile gives the same objects as reading the JSON form.
+		 * 
+		 * @param file the MOSDEX Object to be written
+		 * @param dst
+		 */
+		public void writeBinaryFile(MsdxFile file, MsdxOutputDestination dst) {
+			if(file==null)
+				throw new IllegalArgumentException("A MOSDEX File has not been created");
+			JsonGenerator generator= this.createBinaryGenerator(dst);
+			try {
+				generator.writeStartObject();
+				for(Iterator<Entry<String, JsonNode>> fields= file.fields(); fields.hasNext(); ) {
+					Entry<String, JsonNode> field= fields.next();
+					generator.writeFieldName(field.getKey());
+					if(field.getKey().equals("MODULES")) {
+						generator.writeStartArray();
+						for(JsonNode moduleNode: field.getValue())
+							writeBinaryModule(file.getModule(moduleNode.get("NAME").asText()), generator);
+						generator.writeEndArray();
+					}
+					else
+						generator.writeTree(field.getValue());
+				}
+				generator.writeEndObject();
+				generator.flush();
+			} catch (IOException e) {
+				System.err.println(e.getMessage());
+				e.printStackTrace();
+			}
+		}//writeBinaryFile
+		
+		/**
+		 * Writes a MOSDEX Module in the binary encoding.
+		 * 
+		 * @param module
+		 * @param generator
+		 * @throws IOException
+		 */
+		protected void writeBinaryModule(MsdxModule module, JsonGenerator generator) throws IOException {
+			generator.writeStartObject();
+			for(Iterator<Entry<String, JsonNode>> fields= module.fields(); fields.hasNext(); ) {
+				Entry<String, JsonNode> field= fields.next();
+				generator.writeFieldName(field.getKey());
+				if(field.getKey().equals("TABLES")) {
+					generator.writeStartArray();
+					for(JsonNode tableNode: field.getValue())
+						writeBinaryTable(module.getTable(tableNode.get("NAME").asText()), generator);
+					generator.writeEndArray();
+				}
+				else
+					generator.writeTree(field.getValue());
+			}
+			generator.writeEndObject();
+		}//writeBinaryModule
+		
+		/**
+		 * Writes a MOSDEX Table in the binary encoding.
+		 * 
+		 * @param table
+		 * @param generator
+		 * @throws IOException
+		 */
+		protected void writeBinaryTable(MsdxTable table, JsonGenerator generator) throws IOException {
+			generator.writeStartObject();
+			for(Iterator<Entry<String, JsonNode>> fields= table.fields(); fields.hasNext(); ) {
+				Entry<String, JsonNode> field= fields.next();
+				generator.writeFieldName(field.getKey());
+				if(field.getKey().equals("SCHEMA"))
+					generator.writeTree(MsdxSchema.toNode(table.getSchema().asContainer()));
+				else if(field.getKey().equals("INSTANCE"))
+					writeInstanceBlock(
+						table.instance.asContainers(), 
+						table.getSchema().asContainer(), 
+						field.getValue(), 
+						generator);
+				else
+					generator.writeTree(field.getValue());
+			}
+			generator.writeEndObject();
+		}//writeBinaryTable
+		
+		/**
+		 * Writes a MOSDEX Instance as a columnar block of the binary encoding.
+		 * The records are written in chunks of CHUNK_SIZE rows, so the whole Instance 
+		 * is never held in memory at once. Each chunk has one column per schema field: 
+		 * <ul>
+		 * <li>INTEGER columns are packed as 4-byte binary values;</li>
+		 * <li>DOUBLE and IEEEDOUBLE columns are packed as the raw 8-byte IEEE bits, which preserves them exactly;</li>
+		 * <li>STRING and function call columns are arrays of strings (function calls by their call strings).</li>
+		 * </ul>
+		 * Null items in numeric columns are marked in a NULLS bitmap.
+		 * 
+		 * @param records
+		 * @param recordSchema
+		 * @param sample the representative record of the Instance
+		 * @param generator
+		 * @throws IOException
+		 */
+		public void writeInstanceBlock(
+			Stream<MsdxContainer<Object>> records, 
+			MsdxContainer<Class<?>> recordSchema, 
+			JsonNode sample, 
+			JsonGenerator generator) 
+			throws IOException 
+		{
+			generator.writeStartObject();
+			generator.writeStringField("ENCODING", "COLUMNAR");
+			generator.writeFieldName("SAMPLE");
+			generator.writeTree(sample);
+			generator.writeFieldName("CHUNKS");
+			generator.writeStartArray();
+			
+			List<MsdxContainer<Object>> chunk= new ArrayList<MsdxContainer<Object>>(CHUNK_SIZE);
+			for(Iterator<MsdxContainer<Object>> containers= records.iterator(); containers.hasNext(); ) {
+				chunk.add(containers.next());
+				if(chunk.size()==CHUNK_SIZE || !containers.hasNext()) {
+					writeChunk(chunk, recordSchema, generator);
+					chunk.clear();
+				}
+			}//for containers
+			
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}//writeInstanceBlock
+		
+		/**
+		 * Writes one chunk of a columnar block.
+		 * 
+		 * @param chunk
+		 * @param recordSchema
+		 * @param generator
+		 * @throws IOException
+		 */
+		protected void writeChunk(
+			List<MsdxContainer<Object>> chunk, 
+			MsdxContainer<Class<?>> recordSchema, 
+			JsonGenerator generator) 
+			throws IOException 
+		{
+			generator.writeStartObject();
+			generator.writeNumberField("ROWS", chunk.size());
+			generator.writeFieldName("COLUMNS");
+			generator.writeStartArray();
+			for(String fieldName: recordSchema.itemNames())
+				writeColumn(chunk, fieldName, recordSchema.get(fieldName), generator);
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}//writeChunk
+		
+		/**
+		 * Writes one column of a chunk.
+		 * 
+		 * @param chunk
+		 * @param fieldName
+		 * @param fieldType
+		 * @param generator
+		 * @throws IOException
+		 */
+		protected void writeColumn(
+			List<MsdxContainer<Object>> chunk, 
+			String fieldName, 
+			Class<?> fieldType, 
+			JsonGenerator generator) 
+			throws IOException 
+		{
+			generator.writeStartObject();
+			if(fieldType.equals(String.class) || fieldType.equals(MsdxIdDictionary.Id.class) || MsdxFunctionCall.isFunctionCall(fieldType)) {
+				generator.writeFieldName("VALUES");
+				generator.writeStartArray();
+				for(MsdxContainer<Object> record: chunk) {
+					Object item= record.get(fieldName);
+					if(item==null)
+						generator.writeNull();
+					else if(item instanceof MsdxFunctionCall)
+						generator.writeString(((MsdxFunctionCall)item).getCallString());
+					else
+						generator.writeString(MsdxIdDictionary.name(item));	//an Id is written as its name, like a String
+				}
+				generator.writeEndArray();
+			}
+			else {
+				int width= fieldType.equals(Integer.class) ? Integer.BYTES : Long.BYTES;
+				ByteBuffer values= ByteBuffer.allocate(width * chunk.size());
+				byte[] nulls= null;
+				Object item;
+				for(int row= 0; row < chunk.size(); row++) {
+					item= chunk.get(row).get(fieldName);
+					if(item==null) {
+						if(nulls==null)
+							nulls= new byte[(chunk.size() + 7) >>> 3];
+						nulls[row >>> 3]|= (byte)(1 << (row & 7));
+						values.position(values.position() + width);
+					}
+					else if(fieldType.equals(Integer.class))
+						values.putInt(((Integer)item).intValue());
+					else if(fieldType.equals(IEEEDouble.class) || fieldType.equals(Double.class))
+						values.putLong(Double.doubleToRawLongBits(((Number)item).doubleValue()));
+					else
+						throw new IllegalArgumentException(fieldType.getSimpleName() + " is not a supported type");
+				}
+				if(nulls!=null) {
+					generator.writeFieldName("NULLS");
+					generator.writeBinary(nulls);
+				}
+				generator.writeFieldName("VALUES");
+				generator.writeBinary(values.array());
+			}
+			generator.writeEndObject();
+		}//writeColumn
 				
 	}//class MsdxObject.Factory
 
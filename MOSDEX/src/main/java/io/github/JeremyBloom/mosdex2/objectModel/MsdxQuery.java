@@ -475,6 +475,29 @@ public class MsdxQuery extends MsdxObject {
 			this.unresolved.remove(table.getName());		
 		}//resolveDependenciesFor
 
+		/**
+		 * Decodes the deferred Instances (see MsdxInstance.isDeferred) of the Tables on which a Table's Query depends, 
+		 * so that the Dataframe factory can read them when the Query is executed. 
+		 * Called just before the Query is executed; the Instances of Tables that no Query depends on are left deferred.
+		 * 
+		 * @param table whose Query is about to be executed
+		 */
+		public void loadDependenciesOf(MsdxTable table) {
+			if(!table.hasField("QUERY"))
+				return;
+			MsdxTable dependency;
+			for(String dependentTable: table.getQuery().getDependencies()) {
+				dependency= collector.get(dependentTable);
+				if(dependency!=null && dependency.getInstance()!=null)
+					dependency.getInstance().load();
+			}//for dependentTable
+		}//loadDependenciesOf
+
+		/**@return the Tables this Resolver resolves*/
+		public Map<String, MsdxTable> getCollector() {
+			return collector;
+		}
+
 		/**
 		 * @return the resolution order of the tables in the collector. 
 		 * Used by the createModelingObjects and createSolutionObjects methods in MsdxModel 
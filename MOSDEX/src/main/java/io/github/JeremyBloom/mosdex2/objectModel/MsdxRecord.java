@@ -14,7 +14,6 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -23,8 +22,11 @@ import com.fasterxml.jackson.databind.node.JsonNodeType;
 
 import io.github.JeremyBloom.mosdex2.MsdxContainer;
 import io.github.JeremyBloom.mosdex2.MsdxFunctionCall;
+import io.github.JeremyBloom.mosdex2.MsdxIdDictionary;
+import io.github.JeremyBloom.mosdex2.MsdxNumberScanner;
 import io.github.JeremyBloom.mosdex2.MsdxOutputDestination;
 import io.github.JeremyBloom.mosdex2.IEEEDouble;
+import io.github.JeremyBloom.mosdex2.dataframe.MsdxDataframe;
 import io.github.JeremyBloom.mosdex2.json.MsdxReader;
 import io.github.JeremyBloom.mosdex2.json.MsdxWriter;
 
@@ -107,6 +109,20 @@ public class MsdxRecord extends MsdxContainer<Object> {
 	
 	/**@return a new Record from the given JSON node using the given Schema*/
 	public static MsdxRecord fromNode(JsonNode recordNode, MsdxContainer<Class<?>> recordSchema) {
+		return fromNode(recordNode, recordSchema, null);
+	}
+
+	/**
+	 * Creates a Record from its JSON node for the Dataframes of a dataframe factory, 
+	 * interning the String items of the key and identifier fields in the factory's string pool 
+	 * and sharing the factory's Function Call templates.
+	 * 
+	 * @param recordNode
+	 * @param recordSchema
+	 * @param dataframeFactory the factory that holds the Records, or null to share nothing
+	 * @return a new Record
+	 */
+	public static MsdxRecord fromNode(JsonNode recordNode, MsdxContainer<Class<?>> recordSchema, MsdxDataframe.Factory dataframeFactory) {
 		if(!recordNode.getNodeType().equals(JsonNodeType.ARRAY))
 			throw new IllegalArgumentException("Expected array node but got " + recordNode.getNodeType().name());
 		if(recordNode.size()==0) {
@@ -115,36 +131,63 @@ public class MsdxRecord extends MsdxContainer<Object> {
 	 	
 		MsdxRecord.Builder record= MsdxRecord.builder(recordSchema);
 		String fieldName;
+		Class<?> fieldType;
+		JsonNode itemNode;
+		Object item;
 		Iterator<String> fieldNames= recordSchema.itemNames().iterator();
 		Iterator<JsonNode> items= recordNode.elements();
 		while(items.hasNext()) {
 			if(!fieldNames.hasNext())
 				throw new IllegalArgumentException("Record has more items than its schema has fields");
 			fieldName= fieldNames.next();
-			record.addItem(fieldName, MsdxRecord.readItem(items.next(), recordSchema.get(fieldName)));			
+			fieldType= recordSchema.get(fieldName);
+			itemNode= items.next();
+			if(dataframeFactory!=null && !itemNode.isNull() && MsdxFunctionCall.isFunctionCall(fieldType))
+				item= dataframeFactory.getFunctionCalls().create(itemNode.asText(), MsdxFunctionCall.getResultTypeFor(fieldType));
+			else
+				item= MsdxRecord.readItem(itemNode, fieldType);
+			if(dataframeFactory!=null && item instanceof String)
+				item= dataframeFactory.getStringPool().intern(fieldName, (String) item);	//identifiers repeat in every term
+			record.addItem(fieldName, item);			
 		}
 		if(fieldNames.hasNext())
 			throw new IllegalArgumentException("Schema has more fields than record has items");
 		return record.build();
 	}//fromNode
-	
+
 	/**
-	 * Matches a valid double as a string.
-	 * Used in the readItem method.
+	 * A fast check that a JSON record conforms to its schema,
+	 * used in place of JSON Schema validation for records that are not sampled (see MsdxValidator).
+	 * Checks that the record is an array with one item per field,
+	 * that every item is a string, a number, or null,
+	 * and that Integer items are integral or one of the infinity strings.
+	 * Numeric strings in Double and IEEEDouble fields are checked when the items are read (see readItem).
+	 *
+	 * @param recordNode
+	 * @param recordSchema
+	 * @throws IllegalArgumentException if the record does not conform
 	 */
-	protected static final Pattern DOUBLE_PATTERN = Pattern.compile(
-	    "[\\x00-\\x20]*[+-]?(NaN|Infinity|((((\\p{Digit}+)(\\.)?((\\p{Digit}+)?)" +
-	    "([eE][+-]?(\\p{Digit}+))?)|(\\.((\\p{Digit}+))([eE][+-]?(\\p{Digit}+))?)|" +
-	    "(((0[xX](\\p{XDigit}+)(\\.)?)|(0[xX](\\p{XDigit}+)?(\\.)(\\p{XDigit}+)))" +
-	    "[pP][+-]?(\\p{Digit}+)))[fFdD]?))[\\x00-\\x20]*"
-	    );
+	public static void checkTypes(JsonNode recordNode, MsdxContainer<Class<?>> recordSchema) {
+		if(!recordNode.isArray())
+			throw new IllegalArgumentException("Expected array node but got " + recordNode.getNodeType().name());
+		if(recordNode.size()==0)
+			return; //empty record
+		if(recordNode.size()!=recordSchema.size())
+			throw new IllegalArgumentException("Record has " + recordNode.size() + " items but its schema has " + recordSchema.size() + " fields");
+		Iterator<Class<?>> fieldTypes= recordSchema.getContent().iterator();
+		for(JsonNode itemNode: recordNode) {
+			Class<?> fieldType= fieldTypes.next();
+			if(itemNode.isNull())
+				continue;
+			if(!itemNode.isTextual() && !itemNode.isNumber())
+				throw new IllegalArgumentException("Invalid item " + itemNode.toString() + " for " + fieldType.getSimpleName());
+			if(fieldType.equals(Integer.class) &&
+					!itemNode.isIntegralNumber() &&
+					MsdxNumberScanner.infinity(itemNode.asText())==0)
+				throw new IllegalArgumentException("Invalid as integer " + itemNode.toString());
+		}//for itemNode
+	}//checkTypes
 	
-	/**Defines various ways to represent infinity as a string; used in the readItem method.*/
-	protected static final Set<String> INFINITY= Set.of("Infinity", "INFINITY", "infinity");
-
-	/**Defines various ways to represent -infinity as a string; used in the readItem method.*/
-	protected static final Set<String> NEGATIVE_INFINITY= Set.of("-Infinity", "-INFINITY", "-infinity");
-
 	/**
 	 * Parses the items comprising a Record from JSON.
 	 * Assigns each item to its appropriate type according to the schema.
@@ -171,48 +214,54 @@ public class MsdxRecord extends MsdxContainer<Object> {
 		if(itemNode.isNull())
 			item= null;			
 		else if(fieldType.equals(Integer.class)) {
-			if(INFINITY.contains(itemNode.asText()))
-				item= Integer.MAX_VALUE; 
-			else if(NEGATIVE_INFINITY.contains(itemNode.asText()))
-				item= Integer.MIN_VALUE;		
-			else	
-				item= Integer.valueOf(itemNode.asInt());
+			if(itemNode.isIntegralNumber())
+				item= Integer.valueOf(itemNode.intValue());
+			else {
+				int infinity= MsdxNumberScanner.infinity(itemNode.asText());
+				item= infinity > 0 ? Integer.MAX_VALUE : 
+					infinity < 0 ? Integer.MIN_VALUE : 
+					Integer.valueOf(itemNode.asInt());
+			}
 		}
 		//Note: IEEEDouble is a convenience class that is identical to ordinary Double 
 		//but which on output is formatted as hexadecimal in conformance with IEEE Standard
 		else if(fieldType.equals(IEEEDouble.class)) {
-			if(INFINITY.contains(itemNode.asText()))
-				item= Double.POSITIVE_INFINITY; 
-			else if(NEGATIVE_INFINITY.contains(itemNode.asText()))
-				item= Double.NEGATIVE_INFINITY;		
-			else if(DOUBLE_PATTERN.matcher(itemNode.asText()).matches()) {
-				item= IEEEDouble.valueOf(itemNode.asText());	//correctly parses Infinity and -Infinity without enclosing quotes
-			}
-			else
-				throw new NumberFormatException("Invalid as IEEE double " + itemNode.asText());
+			item= IEEEDouble.valueOf(readDouble(itemNode, "IEEE double"));	//parses hex, decimal, and the infinity spellings
 		}
 		else if(fieldType.equals(Double.class)) {
-			if(INFINITY.contains(itemNode.asText()))
-				item= Double.POSITIVE_INFINITY; 
-			else if(NEGATIVE_INFINITY.contains(itemNode.asText()))
-				item= Double.NEGATIVE_INFINITY;		
-			else if(DOUBLE_PATTERN.matcher(itemNode.asText()).matches()) {
-				item= Double.valueOf(itemNode.asText());	//correctly parses Infinity and -Infinity
-			}
-			else
-				throw new NumberFormatException("Invalid as double " + itemNode.asText());
+			item= Double.valueOf(readDouble(itemNode, "double"));
 		}
 		else if(fieldType.equals(String.class)) { 
-			item= new String(itemNode.asText());						
+			item= itemNode.asText();
 		}
 		else if(MsdxFunctionCall.class.isAssignableFrom(fieldType)) {
 			item= MsdxFunctionCall.create(itemNode.asText(), MsdxFunctionCall.getResultTypeFor(fieldType));
 		}
+		else if(fieldType.equals(MsdxIdDictionary.Id.class))
+			throw new IllegalArgumentException("ID items are made by the I_IDn query functions and cannot be read: " + itemNode.asText());
 		else
 			throw new IllegalArgumentException("Unsupported type " + itemNode.asText());
 		return item; 
 	}//readItem
 
+	/**
+	 * Reads a JSON number as is, or parses a string in one pass with MsdxNumberScanner.
+	 * 
+	 * @param itemNode
+	 * @param typeName for the error message
+	 * @return the value
+	 * @throws NumberFormatException if the item string is not valid
+	 */
+	private static double readDouble(JsonNode itemNode, String typeName) {
+		if(itemNode.isNumber())
+			return itemNode.doubleValue();
+		try {
+			return MsdxNumberScanner.parseDouble(itemNode.asText());
+		} catch (NumberFormatException e) {
+			throw new NumberFormatException("Invalid as " + typeName + " " + itemNode.asText());
+		}
+	}//readDouble
+
 	/**@return a JSON Tree model node representation of the given record Container with the given Schema*/
 	public static ArrayNode toNode(MsdxContainer<Object> record, MsdxContainer<Class<?>> recordSchema) {
 		ArrayNode recordNode= MsdxReader.createArrayNode();
@@ -227,6 +276,8 @@ public class MsdxRecord extends MsdxContainer<Object> {
 				recordNode.add((Double)record.get(fieldName));		
 			else if(fieldType.equals(IEEEDouble.class))	
 				recordNode.add((String)((IEEEDouble)record.get(fieldName)).toHexString());
+			else if(fieldType.equals(MsdxIdDictionary.Id.class))	//written as the name it stands for
+				recordNode.add(record.get(fieldName)==null ? null : ((MsdxIdDictionary.Id)record.get(fieldName)).getName());
 			else if(MsdxFunctionCall.class.isAssignableFrom(fieldType)) {
 				MsdxFunctionCall functionCall= (MsdxFunctionCall) record.get(fieldName);
 				recordNode.add((String)functionCall.getCallString());
@@ -288,6 +339,7 @@ public class MsdxRecord extends MsdxContainer<Object> {
 			generator.writeStartArray(content.isEmpty());
 			writer.arrayToJson(MsdxRecord.toNode(content, schema), null);
 			generator.writeEndArray(content.isEmpty());
+			generator.flush();
 			out.println();
 		} catch (IOException e) {
 			System.err.println(e.getMessage());
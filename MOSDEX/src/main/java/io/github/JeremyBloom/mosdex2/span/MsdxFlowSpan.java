@@ -0,0 +1,593 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.span;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+
+/**
+ * A reactive Span: the Records of a Span published with java.util.concurrent.Flow,
+ * so that a fast producer (e.g. the parser or a Spark dataframe) and a slow consumer
+ * (e.g. a solver API or a file writer) work at the same time with bounded memory.
+ * <p>
+ * A Flow Span describes a pipeline; nothing runs until a Subscriber subscribes,
+ * and each subscription runs the pipeline again from its source.
+ * Each operator (map, filter, leftJoin, reduceByKey, union) adds an asynchronous stage:
+ * the stage requests Records from the stage before it, transforms them,
+ * and publishes the results with a SubmissionPublisher on the Span's executor.
+ * A stage holds at most bufferSize Records for the stage after it, and waits (without requesting more)
+ * while that buffer is full, so demand flows back from the final Subscriber to the source.
+ * The buffer size of the stages that follow can be changed with withBufferSize.
+ * <p>
+ * The operators take the same Operators as MsdxSpan and set their result Schemas in the same way.
+ * leftJoin joins against a Span that fits in memory, which is keyed when the stage is created,
+ * as the broadcast hash join of MsdxJoinPlanner does; the Records of this Span are streamed through it.
+ * reduceByKey holds one accumulation per key and publishes the results when its source completes.
+ * <p>
+ * A Flow Span is created from an MsdxSpan (or Records and their Schema) by a Factory,
+ * and is turned back into an MsdxSpan by toSpan, which passes its Records to an MsdxSpan.Factory's create method.
+ * A failure in any stage cancels the stages before it and is signalled to the Subscriber (see Flow.Subscriber.onError);
+ * toSpan and iterator rethrow it.
+ * A Subscriber that cancels its subscription, or closes the Records returned by iterator,
+ * likewise cancels the stages before it, which stop as soon as they next publish.
+ * <p>
+ * Stages wait while their buffers are full, so the executor must be able to run a task for each stage at once.
+ * The default executor is the common ForkJoinPool (whose waiting threads are compensated),
+ * or a new thread for each task if the pool has fewer than two threads, as SubmissionPublisher does.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxFlowSpan implements Flow.Publisher<MsdxContainer<Object>> {
+
+	/**Publishes the Records to each Subscriber.*/
+	private final Flow.Publisher<MsdxContainer<Object>> source;
+
+	private final MsdxContainer<Class<?>> schema;
+	private final Executor executor;
+	private final int bufferSize;
+
+	private MsdxFlowSpan(Flow.Publisher<MsdxContainer<Object>> source, MsdxContainer<Class<?>> schema, Executor executor, int bufferSize) {
+		super();
+		this.source= source;
+		this.schema= schema;
+		this.executor= executor;
+		this.bufferSize= bufferSize;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super MsdxContainer<Object>> subscriber) {
+		source.subscribe(subscriber);
+	}
+
+	/**@return the Schema of the Records*/
+	public MsdxContainer<Class<?>> getSchema() {
+		return schema;
+	}
+
+	/**@return the executor on which the stages publish*/
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**@return the number of Records each stage holds for the stage after it*/
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * @param bufferSize the number of Records each of the stages added after this one holds
+	 * @return a Flow Span with the same Records
+	 * @throws IllegalArgumentException if bufferSize is not positive
+	 */
+	public MsdxFlowSpan withBufferSize(int bufferSize) {
+		if(bufferSize<1)
+			throw new IllegalArgumentException("Buffer size must be positive");
+		return new MsdxFlowSpan(this.source, this.schema, this.executor, bufferSize);
+	}
+
+	/**
+	 * Transforms each Record, as MsdxSpan.map.
+	 *
+	 * @param mapper
+	 * @return a new Flow Span
+	 */
+	public MsdxFlowSpan map(OperatorWithOneArgument mapper) {
+		mapper.withResultSchema(this.getSchema());
+		MsdxContainer<Class<?>> recordSchema= mapper.getResultSchema();
+		return stage(() -> (record, emit) -> emit.accept(mapper.apply(record).verify(recordSchema)), recordSchema);
+	}//map
+
+	/**
+	 * Keeps the Records that satisfy a predicate, as MsdxSpan.filter.
+	 *
+	 * @param predicate
+	 * @return a new Flow Span
+	 */
+	public MsdxFlowSpan filter(Predicate<MsdxContainer<Object>> predicate) {
+		return stage(() -> (record, emit) -> {
+			if(predicate.test(record))
+				emit.accept(record);
+		}, this.getSchema());
+	}//filter
+
+	/**
+	 * Joins each Record with the Record of the other Span that has the same key, as MsdxSpan.leftJoin.
+	 * The other Span is keyed (if it is not already) when this method is called, and must fit in memory.
+	 *
+	 * @param other Span
+	 * @param keyFieldName key field in this Span; if the other Span is keyed, its key field may have another name
+	 * @param joiner
+	 * @return a new Flow Span
+	 * @throws IllegalArgumentException if this Span has no key field, or the key fields have incompatible types
+	 */
+	public MsdxFlowSpan leftJoin(MsdxSpan other, String keyFieldName, OperatorWithTwoArguments joiner) {
+		if(!this.getSchema().containsField(keyFieldName))
+			throw new IllegalArgumentException("Missing key field");
+		String otherKeyFieldName= other.isKeyed() ? other.getKeyFieldName() : keyFieldName;
+		if(!other.containsField(otherKeyFieldName))
+			throw new IllegalArgumentException("Missing key field");
+		if(!this.getSchema().get(keyFieldName).isAssignableFrom(other.getFieldType(otherKeyFieldName)))
+			throw new IllegalArgumentException("Incompatible key field type" + otherKeyFieldName);
+
+		joiner.withResultSchema(this.getSchema(), keyFieldName, other.getSchema(), otherKeyFieldName);
+		Map<Object, MsdxContainer<Object>> otherByKey= other.isKeyed() ?
+			other.getAsMap() :
+			other.key(otherKeyFieldName).getAsMap();
+		return stage(() -> (record, emit) ->
+			emit.accept(joiner.apply(Optional.of(record), Optional.ofNullable(otherByKey.get(record.get(keyFieldName))))),
+			joiner.getResultSchema());
+	}//leftJoin
+
+	/**
+	 * Accumulates the Records of each key into a single Record, as MsdxSpan.reduceByKey.
+	 *
+	 * @param keyFieldName
+	 * @param accumulator
+	 * @return a new Flow Span
+	 */
+	public MsdxFlowSpan reduceByKey(String keyFieldName, OperatorWithTwoArguments accumulator) {
+		return this.reduceByKey(keyFieldName, OperatorWithAccumulator.folding(accumulator));
+	}
+
+	/**
+	 * Accumulates the Records of each key into a single Record, as MsdxSpan.reduceByKey.
+	 * The results are published, in the order their keys first occur, when the Records are complete.
+	 *
+	 * @param <A> the type of the accumulation
+	 * @param keyFieldName
+	 * @param combiner
+	 * @return a new Flow Span
+	 * @throws IllegalArgumentException if this Span has no key field
+	 */
+	public <A> MsdxFlowSpan reduceByKey(String keyFieldName, OperatorWithAccumulator<A> combiner) {
+		if(!this.getSchema().containsField(keyFieldName))
+			throw new IllegalArgumentException("Missing key field");
+		combiner.withResultSchema(this.getSchema(), keyFieldName);
+		return stage(() -> new Step() {
+			final Map<Object, A> accumulations= new MsdxKeyMap<A>();
+
+			@Override
+			public void onNext(MsdxContainer<Object> record, Consumer<MsdxContainer<Object>> emit) {
+				Object key= record.get(keyFieldName);
+				A accumulation= accumulations.get(key);
+				if(accumulation==null) {
+					accumulation= combiner.supply();
+					accumulations.put(key, accumulation);
+				}
+				combiner.accumulate(accumulation, record);
+			}
+
+			@Override
+			public void onComplete(Consumer<MsdxContainer<Object>> emit) {
+				for(A accumulation: accumulations.values())
+					emit.accept(combiner.finish(accumulation));
+				accumulations.clear();
+			}
+		}/*Step*/, combiner.getResultSchema());
+	}//reduceByKey
+
+	/**
+	 * Publishes the Records of this Span and the other Span as they arrive, as MsdxSpan.union.
+	 * The union completes when both Spans have completed.
+	 *
+	 * @param other
+	 * @return a new Flow Span
+	 * @throws IllegalArgumentException if the Schemas are both non-empty and are not equal
+	 */
+	public MsdxFlowSpan union(MsdxFlowSpan other) {
+		if( !this.getSchema().isEmpty() && !other.getSchema().isEmpty() &&
+			!MsdxContainer.sameSchema(this.getSchema(), other.getSchema()))
+			throw new IllegalArgumentException("Schemas do not match");
+		MsdxContainer<Class<?>> resultSchema= !this.getSchema().isEmpty() ?
+			this.getSchema() :
+			other.getSchema();
+		return new MsdxFlowSpan(subscriber -> {
+			SubmissionPublisher<MsdxContainer<Object>> publisher= new SubmissionPublisher<MsdxContainer<Object>>(executor, bufferSize);
+			publisher.subscribe(subscriber);
+			AtomicInteger remaining= new AtomicInteger(2);
+			Step forward= (record, emit) -> emit.accept(record);
+			this.subscribe(new Stage(forward, publisher, bufferSize, remaining));
+			other.subscribe(new Stage(forward, publisher, bufferSize, remaining));
+		}, resultSchema, executor, bufferSize);
+	}//union
+
+	/**
+	 * Creates an MsdxSpan from the Records of this Span with the create method of a Span factory.
+	 * Waits until the factory has read the Records, if its create method reads them.
+	 *
+	 * @param spanFactory
+	 * @return a new Span
+	 */
+	public MsdxSpan toSpan(MsdxSpan.Factory spanFactory) {
+		Records records= this.iterator();
+		try {
+			return spanFactory.create(records, this.getSchema());
+		} catch (RuntimeException e) {
+			records.close();
+			throw e;
+		}
+	}//toSpan
+
+	/**
+	 * Subscribes to this Span and returns its Records as they are published.
+	 * The iterator requests Records as it is read, holding at most bufferSize of them,
+	 * and waits for the next Record when it has none.
+	 * A consumer that stops reading before the end must close the iterator, 
+	 * so that the stages before it do not wait for it.
+	 *
+	 * @return an iterator over the Records
+	 */
+	public Records iterator() {
+		Sink sink= new Sink(bufferSize);
+		this.subscribe(sink);
+		return sink;
+	}//iterator
+
+	@Override
+	public String toString() {
+		return "MsdxFlowSpan " + schema.itemNames();
+	}
+
+	private MsdxFlowSpan stage(Supplier<Step> steps, MsdxContainer<Class<?>> resultSchema) {
+		return new MsdxFlowSpan(subscriber -> {
+			SubmissionPublisher<MsdxContainer<Object>> publisher= new SubmissionPublisher<MsdxContainer<Object>>(executor, bufferSize);
+			publisher.subscribe(subscriber);
+			this.subscribe(new Stage(steps.get(), publisher, bufferSize, new AtomicInteger(1)));
+		}, resultSchema, executor, bufferSize);
+	}//stage
+
+	/**
+	 * @return the common ForkJoinPool if it has at least two threads, otherwise an executor that starts a new thread for each task
+	 */
+	static Executor defaultExecutor() {
+		if(ForkJoinPool.getCommonPoolParallelism() > 1)
+			return ForkJoinPool.commonPool();
+		return task -> new Thread(task).start();
+	}
+
+	/**
+	 * The Records of a subscription to a Flow Span, read as an iterator (see MsdxFlowSpan.iterator).
+	 * Closing it cancels the subscription; it then has no more Records.
+	 */
+	public interface Records extends Iterator<MsdxContainer<Object>>, AutoCloseable {
+
+		@Override
+		void close();
+
+	}//interface MsdxFlowSpan.Records
+
+	/**The work of one stage of one subscription.*/
+	private interface Step {
+
+		/**
+		 * Processes a Record.
+		 * @param record
+		 * @param emit publishes a result
+		 */
+		void onNext(MsdxContainer<Object> record, Consumer<MsdxContainer<Object>> emit);
+
+		/**
+		 * Called when the Records are complete.
+		 * @param emit publishes a result
+		 */
+		default void onComplete(Consumer<MsdxContainer<Object>> emit) {
+		}
+
+	}//interface MsdxFlowSpan.Step
+
+	/**
+	 * Subscribes to the stage before it and publishes the results of its Step.
+	 * Several Stages (of a union) may publish to the same publisher, which closes when all of them have completed.
+	 */
+	private static final class Stage implements Flow.Subscriber<MsdxContainer<Object>> {
+
+		private final Step step;
+		private final SubmissionPublisher<MsdxContainer<Object>> publisher;
+		private final int bufferSize;
+
+		/**Stages publishing to the same publisher that have yet to complete.*/
+		private final AtomicInteger remaining;
+
+		private final Consumer<MsdxContainer<Object>> emit;
+		private Flow.Subscription subscription;
+
+		Stage(Step step, SubmissionPublisher<MsdxContainer<Object>> publisher, int bufferSize, AtomicInteger remaining) {
+			super();
+			this.step= step;
+			this.publisher= publisher;
+			this.bufferSize= bufferSize;
+			this.remaining= remaining;
+			this.emit= remaining.get() > 1 ?
+				result -> {
+					synchronized(publisher) {
+						publisher.submit(result);
+					}
+				} :
+				publisher::submit;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription= subscription;
+			subscription.request(bufferSize);
+		}
+
+		@Override
+		public void onNext(MsdxContainer<Object> record) {
+			if(publisher.isClosed() || !publisher.hasSubscribers()) {
+				subscription.cancel();	//the Subscriber has cancelled or another stage has failed
+				return;
+			}
+			try {
+				step.onNext(record, emit);
+			} catch (RuntimeException e) {
+				subscription.cancel();
+				publisher.closeExceptionally(e);
+				return;
+			}
+			subscription.request(1);
+		}//onNext
+
+		@Override
+		public void onError(Throwable throwable) {
+			publisher.closeExceptionally(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			try {
+				step.onComplete(emit);
+			} catch (RuntimeException e) {
+				publisher.closeExceptionally(e);
+				return;
+			}
+			if(remaining.decrementAndGet()==0)
+				publisher.close();
+		}//onComplete
+
+	}//class MsdxFlowSpan.Stage
+
+	/**Receives the Records for iterator, requesting one more for each one read.*/
+	private static final class Sink implements Flow.Subscriber<MsdxContainer<Object>>, Records {
+
+		/**Marks the end of the Records.*/
+		private static final Object END= new Object();
+
+		private final int bufferSize;
+		private final BlockingQueue<Object> received;
+		private volatile Flow.Subscription subscription;
+		private volatile boolean closed;
+		private Object next;
+
+		Sink(int bufferSize) {
+			super();
+			this.bufferSize= bufferSize;
+			this.received= new LinkedBlockingQueue<Object>();
+			this.closed= false;
+			this.next= null;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription= subscription;
+			if(closed)		//closed before the subscription arrived
+				subscription.cancel();
+			else
+				subscription.request(bufferSize);
+		}
+
+		@Override
+		public void onNext(MsdxContainer<Object> record) {
+			if(!closed)
+				received.add(record);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			received.add(new Failure(throwable));
+		}
+
+		@Override
+		public void onComplete() {
+			received.add(END);
+		}
+
+		@Override
+		public boolean hasNext() {
+			if(closed)
+				return false;
+			if(next==null) {
+				try {
+					next= received.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					if(subscription!=null)
+						subscription.cancel();
+					throw new IllegalStateException("Interrupted while waiting for a Record", e);
+				}
+			}
+			if(next instanceof Failure) {
+				Throwable cause= ((Failure) next).cause;
+				if(cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				throw new IllegalStateException(cause);
+			}
+			return next!=END;
+		}//hasNext
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public MsdxContainer<Object> next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			MsdxContainer<Object> record= (MsdxContainer<Object>) next;
+			next= null;
+			subscription.request(1);
+			return record;
+		}//next
+
+		/**Cancels the subscription, unless the Records are complete, and drops the Records not yet read.*/
+		@Override
+		public void close() {
+			if(closed)
+				return;
+			closed= true;
+			Flow.Subscription subscription= this.subscription;
+			if(subscription!=null)
+				subscription.cancel();
+			received.clear();
+			next= null;
+		}//close
+
+	}//class MsdxFlowSpan.Sink
+
+	/**A failure signalled to a Sink.*/
+	private static final class Failure {
+		final Throwable cause;
+
+		Failure(Throwable cause) {
+			this.cause= cause;
+		}
+	}//class MsdxFlowSpan.Failure
+
+	/**
+	 * Creates Flow Spans, publishing on its executor with its buffer size.
+	 */
+	public static class Factory {
+
+		private final Executor executor;
+		private final int bufferSize;
+
+		/**
+		 * Creates a factory with the default executor and Flow.defaultBufferSize.
+		 */
+		public Factory() {
+			this(defaultExecutor(), Flow.defaultBufferSize());
+		}
+
+		/**
+		 * Creates a factory.
+		 *
+		 * @param executor on which the stages publish
+		 * @param bufferSize the number of Records each stage holds for the stage after it
+		 * @throws IllegalArgumentException if executor is null or bufferSize is not positive
+		 */
+		public Factory(Executor executor, int bufferSize) {
+			super();
+			if(executor==null)
+				throw new IllegalArgumentException("Null executor");
+			if(bufferSize<1)
+				throw new IllegalArgumentException("Buffer size must be positive");
+			this.executor= executor;
+			this.bufferSize= bufferSize;
+		}
+
+		/**@return the executor on which the stages publish*/
+		public Executor getExecutor() {
+			return executor;
+		}
+
+		/**@return the number of Records each stage holds for the stage after it*/
+		public int getBufferSize() {
+			return bufferSize;
+		}
+
+		/**
+		 * Publishes the Records of a Span. Each subscription iterates over the Span again (see MsdxSpan.iterator),
+		 * so a Span that is not persistent can be subscribed to only once.
+		 *
+		 * @param records
+		 * @return a new Flow Span
+		 */
+		public MsdxFlowSpan create(MsdxSpan records) {
+			return create(records::iterator, records.getSchema());
+		}
+
+		/**
+		 * Publishes a Collection of Records.
+		 *
+		 * @param records
+		 * @param recordSchema
+		 * @return a new Flow Span
+		 */
+		public MsdxFlowSpan create(Collection<MsdxContainer<Object>> records, MsdxContainer<Class<?>> recordSchema) {
+			return create(records::iterator, recordSchema);
+		}
+
+		/**
+		 * Publishes the Records of an iterator created for each subscription.
+		 * The iterator is read on the executor, one Record at a time as the first stage has room for it.
+		 *
+		 * @param records creates an iterator for each subscription
+		 * @param recordSchema
+		 * @return a new Flow Span
+		 */
+		public MsdxFlowSpan create(Supplier<Iterator<MsdxContainer<Object>>> records, MsdxContainer<Class<?>> recordSchema) {
+			return new MsdxFlowSpan(subscriber -> {
+				SubmissionPublisher<MsdxContainer<Object>> publisher= new SubmissionPublisher<MsdxContainer<Object>>(executor, bufferSize);
+				publisher.subscribe(subscriber);
+				executor.execute(() -> {
+					try {
+						for(Iterator<MsdxContainer<Object>> iterator= records.get(); iterator.hasNext() && publisher.hasSubscribers(); )
+							publisher.submit(iterator.next());
+						publisher.close();
+					} catch (RuntimeException e) {
+						publisher.closeExceptionally(e);
+					}
+				});
+			}, recordSchema, executor, bufferSize);
+		}//create
+
+		/**
+		 * Adopts a publisher of Records, e.g. one that reads them from a parser or a database.
+		 *
+		 * @param records
+		 * @param recordSchema
+		 * @return a new Flow Span
+		 */
+		public MsdxFlowSpan create(Flow.Publisher<MsdxContainer<Object>> records, MsdxContainer<Class<?>> recordSchema) {
+			return new MsdxFlowSpan(records, recordSchema, executor, bufferSize);
+		}
+
+	}//class MsdxFlowSpan.Factory
+
+}//class MsdxFlowSpan
@@ -5,13 +5,13 @@
  */
 package io.github.JeremyBloom.mosdex2.span;
 
-import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -20,6 +20,7 @@ import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -67,8 +68,8 @@ public class MsdxJavaSpan implements MsdxSpan {
 		super();
 		if(recordSchema.isEmpty())
 			throw new IllegalArgumentException("Empty record schema");
-		this.recordSchema = recordSchema;
-		this.recordStream = records.map(record -> record.verify(recordSchema));
+		this.recordSchema = MsdxContainer.canonicalSchema(recordSchema);
+		this.recordStream = records.map(record -> record.verify(this.recordSchema));
 	}
 
 	/**
@@ -124,6 +125,45 @@ public class MsdxJavaSpan implements MsdxSpan {
 		return this instanceof MsdxJavaSpan.Keyed;
 	}
 
+	/**
+	 * Saves a Span for reuse, as persist does, but holds at most workingSetSize Records in memory
+	 * and spills the rest to temporary files (see MsdxSpillStore).
+	 * If the Records cannot be encoded (e.g. they hold solver objects), the Span is persisted in memory instead.
+	 * The Span owns its spill files; close it to delete them once it is no longer used.
+	 *
+	 * @param workingSetSize largest number of Records held in memory
+	 * @return a persistent Span
+	 */
+	public MsdxJavaSpan.Persistent spill(int workingSetSize) {
+		if(!MsdxRecordCodec.isSupported(this.getSchema()))
+			return new MsdxJavaSpan.Persistent(this.apply(), this.getSchema());
+		return new MsdxJavaSpan.Persistent(
+			new MsdxSpillStore(this.apply(), this.getSchema(), "", workingSetSize, null),
+			new MsdxContainer<Class<?>>(this.getSchema()));
+	}
+
+	/**
+	 * Saves a Span for reuse by key, as key does, but holds at most workingSetSize Records in memory
+	 * and spills the rest to temporary files sorted by key (see MsdxSpillStore).
+	 * Lookups by key, and therefore joins with the keyed Span, read the spilled Records from disk.
+	 * If the Records cannot be encoded (e.g. they hold solver objects), the Span is keyed in memory instead.
+	 * The Span owns its spill files; close it to delete them once it is no longer used.
+	 *
+	 * @param keyFieldName
+	 * @param workingSetSize largest number of Records held in memory
+	 * @return a keyed Span
+	 */
+	public MsdxJavaSpan.Keyed spill(String keyFieldName, int workingSetSize) {
+		if(!MsdxRecordCodec.isSupported(this.getSchema()))
+			return new MsdxJavaSpan.Keyed(this.apply(), keyFieldName, this.getSchema());
+		if(keyFieldName==null || keyFieldName.isEmpty())
+			throw new IllegalArgumentException("Invalid key field");
+		return new MsdxJavaSpan.Keyed(
+			new MsdxSpillStore(this.apply(), this.getSchema(), keyFieldName, workingSetSize, null),
+			keyFieldName,
+			new MsdxContainer<Class<?>>(this.getSchema()));
+	}
+
 	@Override
 	public Collection<MsdxContainer<Object>> getAsCollection() {
 		throw new UnsupportedOperationException("Not valid for a stream span");
@@ -176,19 +216,21 @@ public class MsdxJavaSpan implements MsdxSpan {
 
 	@Override
 	public MsdxSpan select(Collection<String> fieldNames) {
+		MsdxContainer.Plan plan= MsdxContainer.Plan.select(this.recordSchema, fieldNames);
 		return new MsdxJavaSpan(
 			this.apply()
-				.map(record -> record.select(fieldNames)),
-			this.recordSchema.select(fieldNames)
+				.map(plan::apply),
+			plan.getResultSchema()
 		);
 	}
 
 	@Override
 	public MsdxSpan delete(Collection<String> fieldNames) {
+		MsdxContainer.Plan plan= MsdxContainer.Plan.delete(this.recordSchema, fieldNames);
 		return new MsdxJavaSpan(
 				this.apply()
-					.map(record -> record.delete(fieldNames)),
-				this.recordSchema.delete(fieldNames)
+					.map(plan::apply),
+				plan.getResultSchema()
 			);
 	}
 
@@ -211,6 +253,13 @@ public class MsdxJavaSpan implements MsdxSpan {
 		this.apply().forEach(action);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The default MsdxJoinPlanner chooses how to join the Spans: 
+	 * by a hash map of the other Span, by merging the two Spans when both are persistent and sorted by key,
+	 * or, when the other Span is a large stream, by spilling both Spans to disk in partitions.
+	 */
 	@Override
 	public MsdxSpan leftJoin(MsdxSpan other, final String keyFieldName, OperatorWithTwoArguments joiner) {
 		
@@ -219,20 +268,13 @@ public class MsdxJavaSpan implements MsdxSpan {
 		if(other.isKeyed() && !this.getFieldType(keyFieldName).isAssignableFrom(other.getFieldType(other.getKeyFieldName())))
 			throw new IllegalArgumentException("Incompatible key field type" + other.getKeyFieldName());
 		
-		final MsdxJavaSpan.Keyed otherByKey;
-		if(other.isKeyed()) 
-			otherByKey= (Keyed) other;	//note: the key field name in this case does not have to be the same as 
-										//as the given key field name, as long as the data in the key fields are compatible;
-										//e.g. the given key field name might be "Column1" but the key field in other might be "Column"
-		else
-			otherByKey= (Keyed) other.key(keyFieldName);
+		//note: if other is keyed, its key field name does not have to be the same as 
+		//as the given key field name, as long as the data in the key fields are compatible;
+		//e.g. the given key field name might be "Column1" but the key field in other might be "Column"
+		String otherKeyFieldName= other.isKeyed() ? other.getKeyFieldName() : keyFieldName;
 		
-		joiner.withResultSchema(this.getSchema(), keyFieldName, otherByKey.getSchema(), otherByKey.getKeyFieldName());
-		Stream<MsdxContainer<Object>> joined=
-			this.apply().map(left -> 
-				joiner.apply(Optional.ofNullable(left), Optional.ofNullable(otherByKey.recordMap.get(left.get(keyFieldName)))));
-			
-		return new MsdxJavaSpan(joined, joiner.getResultSchema());
+		joiner.withResultSchema(this.getSchema(), keyFieldName, other.getSchema(), otherKeyFieldName);
+		return MsdxJoinPlanner.getDefault().leftJoin(this, keyFieldName, other, otherKeyFieldName, joiner);
 	}//join
 
 	@Override
@@ -241,6 +283,13 @@ public class MsdxJavaSpan implements MsdxSpan {
 			.filter(joiner.inner());
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The default MsdxJoinPlanner chooses how to join the Spans. 
+	 * The result is a keyed Span, whichever way the Spans are joined; 
+	 * when the joined Records are spilled to disk, the keyed Span reads them back by key.
+	 */
 	@Override
 	public MsdxSpan outerJoin(MsdxSpan other, String keyFieldName, OperatorWithTwoArguments joiner) {
 		if(!this.fieldNames().contains(keyFieldName))
@@ -253,56 +302,41 @@ public class MsdxJavaSpan implements MsdxSpan {
 			throw new IllegalArgumentException("Incompatible key field type" + other.getKeyFieldName());
 		
 		joiner.withResultSchema(this.getSchema(), keyFieldName, other.getSchema(), otherKeyFieldName);
-
-		Stream<Map.Entry<Object, MsdxContainer<Object>>> widened= this.apply()
-		//include the fields of the other span that are not in this span
-			.map(record -> new AbstractMap.SimpleEntry<Object, MsdxContainer<Object>>(
-				record.get(keyFieldName), 										//key 
-				joiner.apply(Optional.ofNullable(record), Optional.empty()))	//record value
-			);
-		
-		Stream<Map.Entry<Object, MsdxContainer<Object>>> otherWidened= other.apply()
-		//include the fields of this span that are not in the other span
-			.map(record -> new AbstractMap.SimpleEntry<Object, MsdxContainer<Object>>(
-				record.get(otherKeyFieldName), 									//key
-				joiner.apply(Optional.empty(), Optional.ofNullable(record)))	//record value
-				);
-			
-		Map<Object, MsdxContainer<Object>> result= Stream.concat(widened, otherWidened)
-			.collect(Collectors.toMap(
-				entry -> entry.getKey(), 
-				entry -> entry.getValue(), 
-				(left, right) ->joiner.apply(Optional.ofNullable(left), Optional.ofNullable(right)),
-				LinkedHashMap::new));
-		
-		return new MsdxJavaSpan.Keyed(result, keyFieldName,joiner.getResultSchema());
+		return MsdxJoinPlanner.getDefault().outerJoin(this, keyFieldName, other, otherKeyFieldName, joiner);
 	}//outerJoin
 
 	@Override
 	public MsdxSpan reduceByKey(
 		String keyFieldName, 
 		OperatorWithTwoArguments accumulator) 
+	{
+		return this.reduceByKey(keyFieldName, OperatorWithAccumulator.folding(accumulator));
+	}//reduceByKey
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The default MsdxKeyReducer accumulates the Records of a hot key (e.g. an objective row) in chunks 
+	 * and combines the chunks in a balanced tree.
+	 */
+	@Override
+	public <A> MsdxSpan reduceByKey(
+		String keyFieldName, 
+		OperatorWithAccumulator<A> combiner) 
 	{
 		if(!this.fieldNames().contains(keyFieldName))
 			throw new IllegalArgumentException("Missing key field");
 		
-		Function<MsdxContainer<Object>, Object> keySelector= (MsdxContainer<Object> record) -> record.get(keyFieldName);
-		
-		accumulator.withResultSchema(MsdxContainer.<Class<?>>empty(), keyFieldName, this.getSchema(), keyFieldName);
-		Map<Object, MsdxContainer<Object>> reduced= this.apply()
-			.collect(Collectors.toMap(
-				record -> keySelector.apply(record), 
-				record -> record.select(accumulator.getResultSchema().itemNames()),
-				(accumulation, value) -> accumulator.apply(Optional.ofNullable(accumulation), Optional.ofNullable(value)), 
-				LinkedHashMap<Object, MsdxContainer<Object>>::new));
+		combiner.withResultSchema(this.getSchema(), keyFieldName);
+		Map<Object, MsdxContainer<Object>> reduced= MsdxKeyReducer.getDefault().reduceByKey(this.apply(), keyFieldName, combiner);
 		
-		return new MsdxJavaSpan.Keyed(reduced, keyFieldName, accumulator.getResultSchema());
+		return new MsdxJavaSpan.Keyed(reduced, keyFieldName, combiner.getResultSchema());
 	}//reduceByKey
 	
 	@Override
 	public MsdxSpan union(MsdxSpan other) {
 		if( !this.getSchema().isEmpty() && !other.getSchema().isEmpty() &&
-			!this.getSchema().equals(other.getSchema()))
+			!MsdxContainer.sameSchema(this.getSchema(), other.getSchema()))
 			throw new IllegalArgumentException("Schemas do not match");
 		MsdxContainer<Class<?>> resultSchema= !this.getSchema().isEmpty() ? 
 			this.getSchema() : 
@@ -357,13 +391,16 @@ public class MsdxJavaSpan implements MsdxSpan {
 	 * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
 	 *
 	 */
-	public static class Persistent extends MsdxJavaSpan {
+	public static class Persistent extends MsdxJavaSpan implements AutoCloseable {
 	
 		private static final long serialVersionUID = 3977590996669739363L;
 	
 		/**The content of the Span is a Java collection of Records*/
 		private Collection<MsdxContainer<Object>> recordCollection;
 		
+		/**The store holding the Records of a Span made by spill, which the Span deletes when it is closed; otherwise null.*/
+		transient MsdxSpillStore spillStore;
+		
 		/**
 		 * Creates a new Span instance from a collection of Records. Wraps the
 		 * collection as a Span; does not copy the collection nor the record Schema, and
@@ -436,6 +473,27 @@ public class MsdxJavaSpan implements MsdxSpan {
 			this(span.apply(), new MsdxContainer<Class<?>>(span.getSchema()));
 		}
 
+		/**
+		 * Creates a persistent Span over a spill store, which the Span owns and deletes when it is closed.
+		 * 
+		 * @param store
+		 * @param recordSchema
+		 */
+		Persistent(MsdxSpillStore store, MsdxContainer<Class<?>> recordSchema) {
+			this((Collection<MsdxContainer<Object>>) store, recordSchema);		//wraps the store as a collection
+			this.spillStore= store;
+		}
+
+		/**
+		 * Deletes the spill files of a Span made by spill, which must not be used afterward; 
+		 * does nothing for a Span held in memory.
+		 */
+		@Override
+		public void close() {
+			if(this.spillStore!=null)
+				this.spillStore.delete();
+		}
+
 		@Override 
 		public Stream<MsdxContainer<Object>> apply() {
 			return this.recordCollection.stream();
@@ -480,6 +538,9 @@ public class MsdxJavaSpan implements MsdxSpan {
 	 * <p>
 	 * This class also includes a number of supplemental methods that cannot be 
 	 * executed on a stream.
+	 * <p>
+	 * Keyed Spans created from streams (and by the joins and reductions) hold their Records in an MsdxKeyMap, 
+	 * which stores Integer keys as primitive ints and caches the hashes of other keys.
 	 *
 	 * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
 	 *
@@ -515,7 +576,7 @@ public class MsdxJavaSpan implements MsdxSpan {
 		 *                               is empty, null, or not found in the schema.
 		 */
 		public Keyed(Map<Object, MsdxContainer<Object>> records, String keyFieldName, MsdxContainer<Class<?>> recordSchema) {
-			super(records.values().stream(), recordSchema);
+			super(records.values(), recordSchema);	//wraps the values view; does not copy the map into a list
 			if(keyFieldName==null || keyFieldName.isEmpty() || !recordSchema.containsField(keyFieldName))
 				throw new IllegalArgumentException("Invalid key field");
 			this.recordMap= records;
@@ -528,7 +589,7 @@ public class MsdxJavaSpan implements MsdxSpan {
 		 */
 		public Keyed() {
 			super();
-			this.recordMap= new LinkedHashMap<Object, MsdxContainer<Object>>();
+			this.recordMap= new MsdxKeyMap<MsdxContainer<Object>>();
 			this.keyFieldName= "";
 		}
 	
@@ -563,7 +624,7 @@ public class MsdxJavaSpan implements MsdxSpan {
 						else
 							throw new IllegalArgumentException("Duplicate records");
 					},
-					LinkedHashMap::new)),
+					MsdxKeyMap::new)),
 				keyFieldName, 
 				new MsdxContainer<Class<?>>(recordSchema));
 		}
@@ -589,6 +650,18 @@ public class MsdxJavaSpan implements MsdxSpan {
 		public Keyed(MsdxSpan span, String keyFieldName) {
 			this(span.apply(), keyFieldName, span.getSchema());
 		}
+
+		/**
+		 * Creates a keyed Span over a keyed spill store, which the Span owns and deletes when it is closed.
+		 * 
+		 * @param store
+		 * @param keyFieldName the key field of the store
+		 * @param recordSchema
+		 */
+		Keyed(MsdxSpillStore store, String keyFieldName, MsdxContainer<Class<?>> recordSchema) {
+			this(store.asMap(), keyFieldName, recordSchema);
+			this.spillStore= store;
+		}
 	
 		@Override
 		public Stream<MsdxContainer<Object>> apply() {
@@ -632,6 +705,162 @@ public class MsdxJavaSpan implements MsdxSpan {
 	
 	}//class MsdxJavaSpan.Keyed
 
+	/**
+	 * This class realizes a Span by its lineage: a source that can supply the Records again 
+	 * (e.g. the collection of an Instance) and the chain of operators applied to it since.
+	 * Unlike a plain stream Span, a replayable Span can be consumed more than once, 
+	 * and it does not hold its Records in memory until it is:
+	 * the first apply evaluates the lineage, and a second apply evaluates it once more and keeps the Records, 
+	 * so that later uses read them from memory. 
+	 * Only the Spans that are actually reused are realized in memory, and only when they are reused.
+	 * <p>
+	 * map, filter, select and delete return replayable Spans, whose lineage extends this Span's lineage 
+	 * (or reads this Span's Records if it has kept them) without counting as a use of this Span. 
+	 * The other methods (e.g. the joins) consume the Span with apply. 
+	 * <p>
+	 * count and isEmpty are answered from the size of the source when the lineage keeps it 
+	 * (map, select and delete do; filter does not), and otherwise by evaluating the lineage. 
+	 * estimateSize returns the size of the source, which for a filtered Span is only an upper bound.
+	 * <p>
+	 * Replayable Spans are created by MsdxJavaSpan.Factory.lazy.
+	 *
+	 * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+	 *
+	 */
+	public static class Replayable extends MsdxJavaSpan {
+
+		private static final long serialVersionUID = 3409257136527705734L;
+
+		/**Supplies a new stream of the Records each time it is called.*/
+		private final transient Supplier<Stream<MsdxContainer<Object>>> lineage;
+
+		/**The size of the source, or -1 if not known.*/
+		private final long estimatedSize;
+
+		/**True if estimatedSize is the number of Records in this Span.*/
+		private final boolean exactSize;
+
+		/**Number of times this Span has been consumed.*/
+		private int uses;
+
+		/**The Records, once this Span has been consumed twice; otherwise null.*/
+		private List<MsdxContainer<Object>> records;
+
+		/**
+		 * Creates a replayable Span.
+		 *
+		 * @param lineage supplies a new stream of the Records each time it is called
+		 * @param recordSchema
+		 * @param estimatedSize size of the source, or -1 if not known
+		 * @param exactSize true if estimatedSize is the number of Records
+		 */
+		protected Replayable(Supplier<Stream<MsdxContainer<Object>>> lineage, MsdxContainer<Class<?>> recordSchema, 
+			long estimatedSize, boolean exactSize) 
+		{
+			super(Stream.empty(), recordSchema);
+			this.lineage= lineage;
+			this.estimatedSize= estimatedSize;
+			this.exactSize= exactSize && estimatedSize >= 0;
+			this.uses= 0;
+			this.records= null;
+		}
+
+		/**
+		 * Consumes this Span: evaluates its lineage the first time, 
+		 * and keeps the Records the second time.
+		 */
+		@Override
+		public Stream<MsdxContainer<Object>> apply() {
+			uses++;
+			if(records==null && uses > 1)
+				records= lineage.get().collect(Collectors.toCollection(ArrayList::new));
+			return replay();
+		}
+
+		/**@return the Records kept, or else a new evaluation of the lineage, without counting a use*/
+		protected Stream<MsdxContainer<Object>> replay() {
+			return records!=null ? records.stream() : lineage.get();
+		}
+
+		/**@return the number of times this Span has been consumed*/
+		public int getUses() {
+			return uses;
+		}
+
+		/**@return true if this Span holds its Records in memory*/
+		public boolean isMemoized() {
+			return records!=null;
+		}
+
+		@Override
+		public long estimateSize() {
+			return records!=null ? records.size() : estimatedSize;
+		}
+
+		@Override
+		public long count() {
+			if(records!=null)
+				return records.size();
+			if(exactSize)
+				return estimatedSize;
+			return this.apply().count();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			if(records!=null)
+				return records.isEmpty();
+			if(exactSize)
+				return estimatedSize==0;
+			return !this.replay().findAny().isPresent();
+		}
+
+		@Override
+		public Iterator<MsdxContainer<Object>> iterator() {
+			return this.apply().iterator();
+		}
+
+		@Override
+		public MsdxSpan map(OperatorWithOneArgument mapper) {
+			mapper.withResultSchema(this.getSchema());
+			MsdxContainer<Class<?>> recordSchema= mapper.getResultSchema();
+			UnaryOperator<MsdxContainer<Object>> operator= wrapOperator(mapper);
+			return new MsdxJavaSpan.Replayable(
+				() -> this.replay().map(operator).map(record -> record.verify(recordSchema)),
+				recordSchema, this.estimatedSize, this.exactSize);
+		}//map
+
+		@Override
+		public MsdxSpan filter(Predicate<MsdxContainer<Object>> predicate) {
+			return new MsdxJavaSpan.Replayable(
+				() -> this.replay().filter(predicate),
+				this.getSchema(), this.estimatedSize, false);
+		}
+
+		@Override
+		public MsdxSpan select(Collection<String> fieldNames) {
+			MsdxContainer.Plan plan= MsdxContainer.Plan.select(this.getSchema(), fieldNames);
+			return new MsdxJavaSpan.Replayable(
+				() -> this.replay().map(plan::apply),
+				plan.getResultSchema(), this.estimatedSize, this.exactSize);
+		}
+
+		@Override
+		public MsdxSpan delete(Collection<String> fieldNames) {
+			MsdxContainer.Plan plan= MsdxContainer.Plan.delete(this.getSchema(), fieldNames);
+			return new MsdxJavaSpan.Replayable(
+				() -> this.replay().map(plan::apply),
+				plan.getResultSchema(), this.estimatedSize, this.exactSize);
+		}
+
+		@Override
+		public String toString() {
+			return "Replayable span of " + (exactSize ? "" : "at most ") + estimatedSize + " records, used " + uses + " times" + 
+				(records!=null ? ", memoized" : "");
+		}
+
+	}//class MsdxJavaSpan.Replayable
+
 	/**
 	 * The Span Factory class provides a number of utility methods that create and manipulate Spans. 
 	 * The wrap method puts a Span facade around a Record stream or collection.
@@ -656,7 +885,7 @@ public class MsdxJavaSpan implements MsdxSpan {
 			String keyFieldName,
 			MsdxContainer<Class<?>> recordSchema) 
 		{
-			return new MsdxJavaSpan.Keyed(new LinkedHashMap<Object, MsdxContainer<Object>>(records), keyFieldName, recordSchema);
+			return new MsdxJavaSpan.Keyed(new MsdxKeyMap<MsdxContainer<Object>>(records), keyFieldName, recordSchema);
 		}
 
 		@Override
@@ -723,18 +952,38 @@ public class MsdxJavaSpan implements MsdxSpan {
 			return new MsdxJavaSpan.Persistent(records, recordSchema);
 		}
 
+		/**
+		 * Creates a replayable Span (see MsdxJavaSpan.Replayable), 
+		 * which evaluates the source again each time it is consumed until it is consumed twice, 
+		 * and then keeps its Records.
+		 * 
+		 * @param source supplies a new stream of the Records each time it is called
+		 * @param recordSchema
+		 * @param estimatedSize number of Records the source supplies, or -1 if not known
+		 * @return a replayable Span
+		 */
+		@Override
+		public MsdxSpan lazy(Supplier<Stream<MsdxContainer<Object>>> source, MsdxContainer<Class<?>> recordSchema, long estimatedSize) {
+			if(recordSchema.isEmpty())
+				throw new IllegalArgumentException("Empty record schema");
+			MsdxContainer<Class<?>> schema= MsdxContainer.canonicalSchema(recordSchema);
+			return new MsdxJavaSpan.Replayable(
+				() -> source.get().map(record -> record.verify(schema)), 
+				schema, estimatedSize, estimatedSize >= 0);
+		}
+
 		@Override
 		public MsdxSpan union(Collection<MsdxSpan> spans) {
 			MsdxSpan first= spans.iterator().next();
 			AtomicReference<MsdxContainer<Class<?>>> recordSchema= new AtomicReference<MsdxContainer<Class<?>>>(first.getSchema());
 			AtomicReference<String> keyFieldName= new AtomicReference<String>(first.getKeyFieldName());
 			if(!spans.stream().allMatch(span -> 
-					span.getSchema().equals(recordSchema.get()) && 
+					MsdxContainer.sameSchema(span.getSchema(), recordSchema.get()) && 
 					span.getKeyFieldName().equals(keyFieldName.get())))
 				throw new IllegalArgumentException("Schema or key field names do not match");
 				
 			if(spans.stream().allMatch(span -> span.isKeyed())) {
-				Map<Object, MsdxContainer<Object>> records= new LinkedHashMap<Object, MsdxContainer<Object>>();
+				Map<Object, MsdxContainer<Object>> records= new MsdxKeyMap<MsdxContainer<Object>>();
 				spans.iterator().forEachRemaining(span -> records.putAll(span.getAsMap()));
 				return this.wrap(records, keyFieldName.get(), recordSchema.get());
 			}
@@ -0,0 +1,540 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.span;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.MsdxStringPool;
+
+/**
+ * Chooses and carries out the strategy for the joins of MsdxJavaSpan.
+ * There are three strategies:
+ * <ul style="list-style-type:bullet;">
+ * <li> BROADCAST_HASH builds an in-memory map of the other Span by key and looks up each Record of this Span in it.
+ * It is used when the other Span is keyed (its map is reused),
+ * when the other Span is persistent (so that the map only indexes Records that are already in memory),
+ * and whenever the Records cannot be spilled.</li>
+ * <li> SORT_MERGE is used for a left join when both Spans are persistent, the other Span has more than broadcastLimit Records
+ * that can be spilled, and the first SORT_SAMPLE_SIZE Records of this Span are sorted by key.
+ * It sorts the other Span by key into an MsdxSpillStore, holding at most broadcastLimit Records in memory,
+ * and looks up the Records of this Span in it; since the lookups come in key order, each block of the sorted file is read once.
+ * The sample only predicts that the lookups are in key order: if the rest of this Span is not sorted, the result is the same,
+ * but the lookups read the blocks out of order.</li>
+ * <li> PARTITIONED_HASH (a grace hash join) is used when the other Span is a stream, whose size is not known in advance.
+ * The other Span is hashed in memory as for BROADCAST_HASH until it has more than broadcastLimit keys;
+ * then its Records, and those of this Span, are spilled by the hash of their keys to numberOfPartitions files
+ * and each partition is joined in memory in turn.
+ * If the other Span never passes the limit, the join is a broadcast hash join.
+ * A stream whose size is known in advance (see MsdxSpan.estimateSize) and is at most broadcastLimit is joined by BROADCAST_HASH.</li>
+ * </ul>
+ * The planner reads the sizes of the Spans from MsdxSpan.estimateSize and never counts or scans a whole Span to choose.
+ * An outer join is not merged, since this Span is not looked up in the other but folded together with it.
+ * Spilling writes the Records with an MsdxRecordCodec, so the planner spills only when
+ * the codec can encode the Schemas of the spilled Records (see MsdxRecordCodec.isSupported);
+ * Spans carrying solver objects (e.g. the Variable of a Column) are always joined with BROADCAST_HASH.
+ * <p>
+ * The strategies differ in the order of their results. A left (or inner) join by BROADCAST_HASH or SORT_MERGE
+ * keeps the order of this Span, while PARTITIONED_HASH returns the Records of one partition after another.
+ * An outer join always returns a keyed Span: by BROADCAST_HASH, in the order the keys first occur, as before;
+ * by PARTITIONED_HASH, held in an MsdxSpillStore by key, in key order, which is deleted when the Span is closed.
+ * The spill files of a left join are deleted once it has been read to the end or closed.
+ * <p>
+ * The planner used by MsdxJavaSpan is the default planner, which can be replaced with setDefault.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxJoinPlanner {
+
+	/**
+	 * The join strategies.
+	 */
+	public enum Strategy {BROADCAST_HASH, SORT_MERGE, PARTITIONED_HASH}
+
+	/**Default largest number of keys held in memory by a hash join over a stream.*/
+	public static final int DEFAULT_BROADCAST_LIMIT= 1_000_000;
+
+	/**Default number of spill partitions.*/
+	public static final int DEFAULT_NUMBER_OF_PARTITIONS= 16;
+
+	/**Number of leading Records of a persistent Span read to judge whether it is sorted by key.*/
+	public static final int SORT_SAMPLE_SIZE= 1024;
+
+	private static volatile MsdxJoinPlanner defaultPlanner=
+		new MsdxJoinPlanner(DEFAULT_BROADCAST_LIMIT, DEFAULT_NUMBER_OF_PARTITIONS, null);
+
+	private final int broadcastLimit;
+	private final int numberOfPartitions;
+	private final Path spillDirectory;
+
+	/**
+	 * Creates a planner.
+	 *
+	 * @param broadcastLimit largest number of keys held in memory by a hash join over a stream,
+	 * and the number of Records above which sorted persistent Spans are merged
+	 * @param numberOfPartitions number of spill files per side of a partitioned join
+	 * @param spillDirectory directory for the spill files, or null for the system temporary directory
+	 * @throws IllegalArgumentException if the limit or the number of partitions is not positive
+	 */
+	public MsdxJoinPlanner(int broadcastLimit, int numberOfPartitions, Path spillDirectory) {
+		super();
+		if(broadcastLimit<1)
+			throw new IllegalArgumentException("Broadcast limit must be positive");
+		if(numberOfPartitions<1)
+			throw new IllegalArgumentException("Number of partitions must be positive");
+		this.broadcastLimit= broadcastLimit;
+		this.numberOfPartitions= numberOfPartitions;
+		this.spillDirectory= spillDirectory;
+	}
+
+	/**@return the planner used by MsdxJavaSpan*/
+	public static MsdxJoinPlanner getDefault() {
+		return defaultPlanner;
+	}
+
+	/**
+	 * Replaces the planner used by MsdxJavaSpan.
+	 * @param planner
+	 */
+	public static void setDefault(MsdxJoinPlanner planner) {
+		defaultPlanner= Objects.requireNonNull(planner);
+	}
+
+	/**@return the largest number of keys held in memory by a hash join over a stream*/
+	public int getBroadcastLimit() {
+		return broadcastLimit;
+	}
+
+	/**@return the number of spill files per side of a partitioned join*/
+	public int getNumberOfPartitions() {
+		return numberOfPartitions;
+	}
+
+	/**
+	 * Chooses the strategy for a left (or inner) join.
+	 *
+	 * @param left this Span
+	 * @param keyFieldName key field in this Span
+	 * @param right the other Span
+	 * @param rightKeyFieldName key field in the other Span
+	 * @return the strategy
+	 */
+	public Strategy planLeftJoin(MsdxSpan left, String keyFieldName, MsdxSpan right, String rightKeyFieldName) {
+		if(right.isKeyed())
+			return Strategy.BROADCAST_HASH;
+		if(right.isPersistent()) {
+			//the other Span is keyed in an MsdxSpillStore, which requires Comparable keys
+			if(left.isPersistent() && right.estimateSize() > broadcastLimit && isSpillable(right.getSchema())
+				&& Comparable.class.isAssignableFrom(right.getFieldType(rightKeyFieldName))
+				&& isSampleSorted(left, keyFieldName))
+				return Strategy.SORT_MERGE;
+			return Strategy.BROADCAST_HASH;
+		}
+		if(isSmall(right.estimateSize()))
+			return Strategy.BROADCAST_HASH;
+		if(isSpillable(left.getSchema()) && isSpillable(right.getSchema()))
+			return Strategy.PARTITIONED_HASH;
+		return Strategy.BROADCAST_HASH;
+	}//planLeftJoin
+
+	/**
+	 * Chooses the strategy for an outer join, which is BROADCAST_HASH or PARTITIONED_HASH.
+	 *
+	 * @param left this Span
+	 * @param keyFieldName key field in this Span
+	 * @param right the other Span
+	 * @param rightKeyFieldName key field in the other Span
+	 * @param resultSchema Schema of the joined Records
+	 * @return the strategy
+	 */
+	public Strategy planOuterJoin(MsdxSpan left, String keyFieldName, MsdxSpan right, String rightKeyFieldName,
+		MsdxContainer<Class<?>> resultSchema)
+	{
+		if(isSmall(left.estimateSize()) && isSmall(right.estimateSize()))
+			return Strategy.BROADCAST_HASH;
+		//the result is keyed in an MsdxSpillStore, which requires Comparable keys
+		if(isSpillable(resultSchema) && Comparable.class.isAssignableFrom(left.getFieldType(keyFieldName)))
+			return Strategy.PARTITIONED_HASH;
+		return Strategy.BROADCAST_HASH;
+	}//planOuterJoin
+
+	/**
+	 * Joins two Spans with a left outer join, as MsdxSpan.leftJoin.
+	 * The caller has validated the key fields and set the result Schema of the joiner.
+	 *
+	 * @param left this Span
+	 * @param keyFieldName key field in this Span
+	 * @param right the other Span
+	 * @param rightKeyFieldName key field in the other Span
+	 * @param joiner
+	 * @return the joined Span
+	 * @throws IllegalArgumentException if the other Span has different Records with the same key
+	 */
+	public MsdxSpan leftJoin(MsdxSpan left, String keyFieldName, MsdxSpan right, String rightKeyFieldName,
+		OperatorWithTwoArguments joiner)
+	{
+		Stream<MsdxContainer<Object>> joined;
+		switch(planLeftJoin(left, keyFieldName, right, rightKeyFieldName)) {
+			case SORT_MERGE:
+				joined= sortMergeLeftJoin(left, keyFieldName, right, rightKeyFieldName, joiner);
+				break;
+			case PARTITIONED_HASH:
+				joined= partitionedLeftJoin(left, keyFieldName, right, rightKeyFieldName, joiner);
+				break;
+			default: /*BROADCAST_HASH*/
+				Map<Object, MsdxContainer<Object>> rightByKey= right.isKeyed() ?
+					right.getAsMap() :
+					right.key(rightKeyFieldName).getAsMap();
+				joined= broadcastLeftJoin(left, keyFieldName, rightByKey, joiner);
+				break;
+		}//switch
+		return new MsdxJavaSpan(joined, joiner.getResultSchema());
+	}//leftJoin
+
+	/**
+	 * Joins two Spans with a full outer join, as MsdxSpan.outerJoin.
+	 * The caller has validated the key fields and set the result Schema of the joiner.
+	 *
+	 * @param left this Span
+	 * @param keyFieldName key field in this Span
+	 * @param right the other Span
+	 * @param rightKeyFieldName key field in the other Span
+	 * @param joiner
+	 * @return the joined Span, keyed by the key field in this Span
+	 */
+	public MsdxSpan outerJoin(MsdxSpan left, String keyFieldName, MsdxSpan right, String rightKeyFieldName,
+		OperatorWithTwoArguments joiner)
+	{
+		MsdxContainer<Class<?>> resultSchema= joiner.getResultSchema();
+		BinaryOperator<MsdxContainer<Object>> merger=
+			(accumulation, record) -> joiner.apply(Optional.ofNullable(accumulation), Optional.ofNullable(record));
+
+		Strategy strategy= planOuterJoin(left, keyFieldName, right, rightKeyFieldName, resultSchema);
+		Stream<Map.Entry<Object, MsdxContainer<Object>>> widened= Stream.concat(
+			left.apply()
+			//include the fields of the other span that are not in this span
+				.map(record -> entry(record.get(keyFieldName), joiner.apply(Optional.ofNullable(record), Optional.empty()))),
+			right.apply()
+			//include the fields of this span that are not in the other span
+				.map(record -> entry(record.get(rightKeyFieldName), joiner.apply(Optional.empty(), Optional.ofNullable(record)))));
+
+		Object hashed= hash(widened.iterator(), merger, strategy==Strategy.PARTITIONED_HASH ?
+			() -> new Partitions(resultSchema, left.getFieldType(keyFieldName)) :
+			null);
+		if(hashed instanceof Partitions) {
+			Partitions partitions= (Partitions) hashed;
+			MsdxSpillStore store= new MsdxSpillStore(
+				IntStream.range(0, numberOfPartitions).boxed()
+					.flatMap(partition -> partitions.load(partition, merger).values().stream()),
+				resultSchema, keyFieldName, broadcastLimit, spillDirectory);
+			return new MsdxJavaSpan.Keyed(store, keyFieldName, resultSchema);		//closing the Span deletes the store
+		}
+		@SuppressWarnings("unchecked")
+		Map<Object, MsdxContainer<Object>> result= (Map<Object, MsdxContainer<Object>>) hashed;
+		return new MsdxJavaSpan.Keyed(result, keyFieldName, resultSchema);
+	}//outerJoin
+
+	private static Stream<MsdxContainer<Object>> broadcastLeftJoin(MsdxSpan left, String keyFieldName,
+		Map<Object, MsdxContainer<Object>> rightByKey, OperatorWithTwoArguments joiner)
+	{
+		return left.apply().map(record ->
+			joiner.apply(Optional.ofNullable(record), Optional.ofNullable(rightByKey.get(record.get(keyFieldName)))));
+	}//broadcastLeftJoin
+
+	private Stream<MsdxContainer<Object>> sortMergeLeftJoin(MsdxSpan left, String keyFieldName,
+		MsdxSpan right, String rightKeyFieldName, OperatorWithTwoArguments joiner)
+	{
+		MsdxSpillStore rightByKey= new MsdxSpillStore(right.apply(), right.getSchema(), rightKeyFieldName, broadcastLimit, spillDirectory);
+		Stream<MsdxContainer<Object>> joined= broadcastLeftJoin(left, keyFieldName, rightByKey.asMap(), joiner);
+		Iterator<MsdxContainer<Object>> records= joined.iterator();
+		//deletes the store once the join has been read to the end, or when it is closed, whichever comes first
+		Iterator<MsdxContainer<Object>> deleting= new Iterator<MsdxContainer<Object>>() {
+
+			@Override
+			public boolean hasNext() {
+				if(records.hasNext())
+					return true;
+				rightByKey.delete();
+				return false;
+			}
+
+			@Override
+			public MsdxContainer<Object> next() {
+				return records.next();
+			}
+		}/*Iterator*/;
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(deleting, Spliterator.ORDERED), false)
+			.onClose(joined::close)
+			.onClose(rightByKey::delete);
+	}//sortMergeLeftJoin
+
+	private Stream<MsdxContainer<Object>> partitionedLeftJoin(MsdxSpan left, String keyFieldName,
+		MsdxSpan right, String rightKeyFieldName, OperatorWithTwoArguments joiner)
+	{
+		Object hashed= hash(
+			right.apply().map(record -> entry(record.get(rightKeyFieldName), record)).iterator(),
+			MsdxJoinPlanner::distinct,
+			() -> new Partitions(right.getSchema(), right.getFieldType(rightKeyFieldName)));
+		if(!(hashed instanceof Partitions)) {
+			@SuppressWarnings("unchecked")
+			Map<Object, MsdxContainer<Object>> rightByKey= (Map<Object, MsdxContainer<Object>>) hashed;
+			return broadcastLeftJoin(left, keyFieldName, rightByKey, joiner);
+		}
+		Partitions rightPartitions= (Partitions) hashed;
+		Partitions leftPartitions= new Partitions(left.getSchema(), left.getFieldType(keyFieldName));
+		left.apply().forEach(record -> leftPartitions.write(record.get(keyFieldName), record));
+		leftPartitions.finish();
+
+		return IntStream.range(0, numberOfPartitions).boxed()
+			.flatMap(partition -> {
+				Map<Object, MsdxContainer<Object>> rightByKey= rightPartitions.load(partition, MsdxJoinPlanner::distinct);
+				return leftPartitions.read(partition)
+					.map(entry ->
+						joiner.apply(Optional.of(entry.getValue()), Optional.ofNullable(rightByKey.get(entry.getKey()))));
+			});
+	}//partitionedLeftJoin
+
+	/**
+	 * Hashes a stream of keyed Records into a map, merging Records with the same key.
+	 * If spilling is allowed and the map grows past the broadcast limit,
+	 * spills the map and the rest of the Records to partition files instead.
+	 *
+	 * @param entries Records with their keys
+	 * @param merger merges two Records with the same key
+	 * @param spill creates the Partitions to spill to, or null if spilling is not allowed
+	 * @return the map, or the Partitions if the Records were spilled
+	 */
+	private Object hash(Iterator<Map.Entry<Object, MsdxContainer<Object>>> entries,
+		BinaryOperator<MsdxContainer<Object>> merger, Supplier<Partitions> spill)
+	{
+		MsdxKeyMap<MsdxContainer<Object>> map= new MsdxKeyMap<MsdxContainer<Object>>();
+		while(entries.hasNext()) {
+			Map.Entry<Object, MsdxContainer<Object>> entry= entries.next();
+			map.merge(entry.getKey(), entry.getValue(), merger);
+			if(spill!=null && map.size() > broadcastLimit) {
+				Partitions partitions= spill.get();
+				map.forEach(partitions::write);
+				map= null;
+				entries.forEachRemaining(remaining -> partitions.write(remaining.getKey(), remaining.getValue()));
+				partitions.finish();
+				return partitions;
+			}
+		}
+		return map;
+	}//hash
+
+	/**
+	 * Requires two Records with the same key in the other Span of a left join to be equal, as MsdxJavaSpan.Keyed does.
+	 * @throws IllegalArgumentException if they are not equal
+	 */
+	private static MsdxContainer<Object> distinct(MsdxContainer<Object> record1, MsdxContainer<Object> record2) {
+		if(record1.equals(record2))
+			return record1;
+		else
+			throw new IllegalArgumentException("Duplicate records");
+	}//distinct
+
+	private static Map.Entry<Object, MsdxContainer<Object>> entry(Object key, MsdxContainer<Object> record) {
+		return new AbstractMap.SimpleImmutableEntry<Object, MsdxContainer<Object>>(key, record);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static int compareKeys(Object key1, Object key2) {
+		return ((Comparable<Object>) key1).compareTo(key2);
+	}
+
+	/**
+	 * Reads the first SORT_SAMPLE_SIZE Records of a persistent Span to judge whether it is sorted by key.
+	 *
+	 * @param span
+	 * @param keyFieldName
+	 * @return true if the keys of the sample are Comparable and in ascending order
+	 */
+	static boolean isSampleSorted(MsdxSpan span, String keyFieldName) {
+		Object previous= null;
+		try {
+			for(Iterator<MsdxContainer<Object>> records= span.apply().limit(SORT_SAMPLE_SIZE).iterator(); records.hasNext(); ) {
+				Object key= records.next().get(keyFieldName);
+				if(!(key instanceof Comparable))
+					return false;
+				if(previous!=null && compareKeys(previous, key) > 0)
+					return false;
+				previous= key;
+			}
+		} catch (ClassCastException e) {	//keys of different types
+			return false;
+		}
+		return true;
+	}//isSampleSorted
+
+	/**@return true if an estimated number of Records is known and within the broadcast limit*/
+	private boolean isSmall(long estimatedSize) {
+		return estimatedSize >= 0 && estimatedSize <= broadcastLimit;
+	}
+
+	/**
+	 * @param schema
+	 * @return true if the Records of the Schema can be spilled with an MsdxRecordCodec
+	 */
+	static boolean isSpillable(MsdxContainer<Class<?>> schema) {
+		return MsdxRecordCodec.isSupported(schema);
+	}
+
+	/**
+	 * Spill files holding keyed Records, one per partition.
+	 * A Record goes to the partition given by the hash of its key, so Records with equal keys share a partition.
+	 * The keys and the Records are written with MsdxRecordCodecs for the key type and the Schema of the Records;
+	 * the identifiers read back are interned in a string pool of the Partitions.
+	 * Each file is deleted once it has been read, and the directory once every partition has been read;
+	 * any that remain are deleted when the JVM exits (see MsdxSpillStore.createDirectory).
+	 */
+	private final class Partitions {
+
+		/**Field name of the key in the Schema of the key codec.*/
+		private static final String KEY= "Key";
+
+		private final MsdxRecordCodec keyCodec;
+		private final MsdxRecordCodec codec;
+		private final Path directory;
+		private final Path[] files;
+		private final DataOutputStream[] writers;
+		private final int[] counts;
+
+		/**Number of partitions not yet read.*/
+		private int unread;
+
+		/**
+		 * @param recordSchema Schema of the Records
+		 * @param keyType type of the keys
+		 * @throws IllegalArgumentException if the Records or the keys cannot be encoded
+		 */
+		Partitions(MsdxContainer<Class<?>> recordSchema, Class<?> keyType) {
+			super();
+			MsdxStringPool strings= new MsdxStringPool();
+			this.keyCodec= new MsdxRecordCodec(MsdxContainer.<Class<?>>builder().addItem(KEY, keyType).build(), strings);
+			this.codec= new MsdxRecordCodec(recordSchema, strings);
+			this.files= new Path[numberOfPartitions];
+			this.writers= new DataOutputStream[numberOfPartitions];
+			this.counts= new int[numberOfPartitions];
+			this.unread= numberOfPartitions;
+			try {
+				this.directory= MsdxSpillStore.createDirectory(spillDirectory, "mosdex-join");
+				for(int i= 0; i < numberOfPartitions; i++) {
+					files[i]= directory.resolve("partition" + i);
+					writers[i]= new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(files[i])));
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot create join spill files", e);
+			}
+		}
+
+		void write(Object key, MsdxContainer<Object> record) {
+			//uses the high bits of the spread hash, since MsdxKeyMap probes with the low bits when a partition is loaded
+			int partition= Math.floorMod((Objects.hashCode(key) * 0x9E3779B9) >>> 16, numberOfPartitions);
+			try {
+				keyCodec.write(writers[partition], new MsdxContainer<Object>(Collections.singletonMap(KEY, key)));
+				codec.write(writers[partition], record);
+				counts[partition]++;
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot spill join records", e);
+			}
+		}//write
+
+		/**Closes the files for writing.*/
+		void finish() {
+			try {
+				for(DataOutputStream writer: writers)
+					writer.close();
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot spill join records", e);
+			}
+		}//finish
+
+		/**
+		 * Reads a partition in the order it was written, then deletes its file.
+		 * @param partition
+		 * @return the Records with their keys
+		 */
+		Stream<Map.Entry<Object, MsdxContainer<Object>>> read(int partition) {
+			final DataInputStream reader;
+			try {
+				reader= new DataInputStream(new BufferedInputStream(Files.newInputStream(files[partition])));
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot read join spill file", e);
+			}
+			Iterator<Map.Entry<Object, MsdxContainer<Object>>> entries= new Iterator<Map.Entry<Object, MsdxContainer<Object>>>() {
+				int remaining= counts[partition];
+
+				@Override
+				public boolean hasNext() {
+					return remaining > 0;
+				}
+
+				@Override
+				public Map.Entry<Object, MsdxContainer<Object>> next() {
+					if(remaining==0)
+						throw new NoSuchElementException();
+					remaining--;
+					try {
+						Object key= keyCodec.read(reader).get(KEY);
+						return entry(key, codec.read(reader));
+					} catch (IOException e) {
+						throw new IllegalStateException("Cannot read join spill file", e);
+					}
+				}//next
+			}/*Iterator*/;
+			return StreamSupport.stream(Spliterators.spliterator(entries, counts[partition], Spliterator.ORDERED), false)
+				.onClose(() -> {
+					try {
+						reader.close();
+						Files.deleteIfExists(files[partition]);
+					} catch (IOException e) {
+						System.err.println(e.getMessage());
+						e.printStackTrace();
+					}
+					if(--unread==0)
+						MsdxSpillStore.deleteDirectory(directory);
+				});
+		}//read
+
+		/**
+		 * Reads a partition into a map, merging Records with the same key in the order they were written.
+		 * @param partition
+		 * @param merger
+		 * @return the map
+		 */
+		Map<Object, MsdxContainer<Object>> load(int partition, BinaryOperator<MsdxContainer<Object>> merger) {
+			MsdxKeyMap<MsdxContainer<Object>> map= new MsdxKeyMap<MsdxContainer<Object>>();
+			try(Stream<Map.Entry<Object, MsdxContainer<Object>>> entries= read(partition)) {
+				entries.forEach(entry -> map.merge(entry.getKey(), entry.getValue(), merger));
+			}
+			return map;
+		}//load
+
+	}//class MsdxJoinPlanner.Partitions
+
+}//class MsdxJoinPlanner
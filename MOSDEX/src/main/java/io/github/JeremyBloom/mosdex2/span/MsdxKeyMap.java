@@ -0,0 +1,423 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.span;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * An insertion-ordered hash map for the record indexes of keyed Spans
+ * (the Column index of Variables, the Row index of Constraints, and so on),
+ * which can hold millions of entries.
+ * <p>
+ * Entries are kept in parallel arrays in insertion order, and an open-addressing table
+ * (linear probing) holds the positions of the entries,
+ * so an entry costs a few array slots instead of a linked node per entry as in LinkedHashMap.
+ * While every key is an Integer (e.g. the values of an INTEGER key field),
+ * the keys are stored as primitive ints and probes compare ints without calling equals;
+ * the first key of another type converts the map to object keys,
+ * for which the hash of each key is cached, so that a probe calls equals (e.g. String.equals)
+ * only on a key with the same hash.
+ * The dense ids of an ID field (MsdxIdDictionary.Id) are object keys, but since the hash of an Id is its number,
+ * distinct Ids have distinct hashes and a probe calls equals only on the matching key.
+ * <p>
+ * Iteration follows insertion order, and replacing the value of a key does not change its position.
+ * Null keys are allowed; null values are not.
+ * The map does not support removing individual entries.
+ * It is serialized as its entries in insertion order, and the table is rebuilt when it is read,
+ * since the hashes of some keys (e.g. enum constants) differ from one JVM to another.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ * @param <V> type of the values
+ */
+public class MsdxKeyMap<V> extends AbstractMap<Object, V> implements Serializable {
+
+	private static final long serialVersionUID = 4728159620372183315L;
+
+	private static final int DEFAULT_CAPACITY= 16;
+
+	/**True while every key is an Integer.*/
+	private transient boolean intKeys;
+
+	/**Keys in insertion order, when intKeys.*/
+	private transient int[] intKeyArray;
+
+	/**Keys in insertion order, when not intKeys.*/
+	private transient Object[] keyArray;
+
+	/**Cached hashes of the keys in keyArray.*/
+	private transient int[] hashes;
+
+	/**Values in insertion order.*/
+	private transient Object[] valueArray;
+
+	private transient int size;
+
+	/**Open-addressing table holding entry position + 1, or 0 for an empty slot.*/
+	private transient int[] slots;
+
+	private transient Set<Map.Entry<Object, V>> entrySet;
+	private transient Collection<V> values;
+
+	/**
+	 * Creates an empty map.
+	 */
+	public MsdxKeyMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty map sized for an expected number of entries.
+	 * @param expectedSize
+	 */
+	public MsdxKeyMap(int expectedSize) {
+		super();
+		this.allocate(Math.max(DEFAULT_CAPACITY, expectedSize));
+	}
+
+	/**
+	 * Creates a map with the same entries, in the same order, as another map.
+	 * @param map
+	 */
+	public MsdxKeyMap(Map<?, ? extends V> map) {
+		this(map.size());
+		this.putAll(map);
+	}
+
+	/**Empties the map, with room for capacity int keys.*/
+	private void allocate(int capacity) {
+		this.intKeys= true;
+		this.intKeyArray= new int[capacity];
+		this.keyArray= null;
+		this.hashes= null;
+		this.valueArray= new Object[capacity];
+		this.slots= new int[tableSizeFor(capacity)];
+		this.size= 0;
+	}//allocate
+
+	/**@return a power of two at least twice n, so the table is at most half full*/
+	private static int tableSizeFor(int n) {
+		return Integer.highestOneBit(Math.max(2, n) * 2 - 1) << 1;
+	}
+
+	/**Spreads the bits of a hash code so that sequential ids do not cluster.*/
+	private static int mix(int h) {
+		h*= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size==0;
+	}
+
+	/**
+	 * Finds the position of an int key.
+	 * @param key
+	 * @return the position of the entry, or -1 if absent
+	 */
+	private int indexOf(int key) {
+		int mask= slots.length - 1;
+		for(int slot= mix(key) & mask; ; slot= (slot + 1) & mask) {
+			int entry= slots[slot];
+			if(entry==0)
+				return -1;
+			if(intKeyArray[entry - 1]==key)
+				return entry - 1;
+		}
+	}//indexOf
+
+	/**
+	 * Finds the position of an object key.
+	 * @param key
+	 * @param hash mixed hash of the key
+	 * @return the position of the entry, or -1 if absent
+	 */
+	private int indexOf(Object key, int hash) {
+		int mask= slots.length - 1;
+		for(int slot= hash & mask; ; slot= (slot + 1) & mask) {
+			int entry= slots[slot];
+			if(entry==0)
+				return -1;
+			if(hashes[entry - 1]==hash && Objects.equals(keyArray[entry - 1], key))
+				return entry - 1;
+		}
+	}//indexOf
+
+	private int indexOf(Object key) {
+		if(intKeys)
+			return key instanceof Integer ? indexOf(((Integer) key).intValue()) : -1;
+		return indexOf(key, mix(Objects.hashCode(key)));
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(Object key) {
+		int index= indexOf(key);
+		return index < 0 ? null : (V) valueArray[index];
+	}
+
+	/**
+	 * Looks up an int key without boxing it.
+	 * @param key
+	 * @return the value of the key, or null if absent
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		int index= intKeys ? indexOf(key) : indexOf(Integer.valueOf(key), mix(Integer.hashCode(key)));
+		return index < 0 ? null : (V) valueArray[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V put(Object key, V value) {
+		Objects.requireNonNull(value);
+		int index= indexOf(key);
+		if(index >= 0) {
+			V previous= (V) valueArray[index];
+			valueArray[index]= value;
+			return previous;
+		}
+		append(key, value);
+		return null;
+	}//put
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V merge(Object key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(value);
+		int index= indexOf(key);
+		if(index < 0) {
+			append(key, value);
+			return value;
+		}
+		V merged= remappingFunction.apply((V) valueArray[index], value);
+		if(merged==null)
+			throw new UnsupportedOperationException("Entries cannot be removed");
+		valueArray[index]= merged;
+		return merged;
+	}//merge
+
+	/**Adds a new key at the end of the insertion order.*/
+	private void append(Object key, V value) {
+		if(intKeys && !(key instanceof Integer))
+			toObjectKeys();
+		if(size==valueArray.length) {
+			int capacity= size * 2;
+			valueArray= Arrays.copyOf(valueArray, capacity);
+			if(intKeys)
+				intKeyArray= Arrays.copyOf(intKeyArray, capacity);
+			else {
+				keyArray= Arrays.copyOf(keyArray, capacity);
+				hashes= Arrays.copyOf(hashes, capacity);
+			}
+		}
+		if((size + 1) * 2 > slots.length)
+			rehash(slots.length * 2);
+
+		int hash;
+		if(intKeys) {
+			int intKey= ((Integer) key).intValue();
+			intKeyArray[size]= intKey;
+			hash= mix(intKey);
+		}
+		else {
+			hash= mix(Objects.hashCode(key));
+			keyArray[size]= key;
+			hashes[size]= hash;
+		}
+		valueArray[size]= value;
+		size++;
+		insertSlot(hash, size);
+	}//append
+
+	private void insertSlot(int hash, int entry) {
+		int mask= slots.length - 1;
+		int slot= hash & mask;
+		while(slots[slot]!=0)
+			slot= (slot + 1) & mask;
+		slots[slot]= entry;
+	}
+
+	private void rehash(int tableSize) {
+		slots= new int[tableSize];
+		for(int i= 0; i < size; i++)
+			insertSlot(intKeys ? mix(intKeyArray[i]) : hashes[i], i + 1);
+	}
+
+	/**Converts the map from int keys to object keys, when the first non-Integer key arrives.*/
+	private void toObjectKeys() {
+		keyArray= new Object[valueArray.length];
+		hashes= new int[valueArray.length];
+		for(int i= 0; i < size; i++) {
+			Integer key= Integer.valueOf(intKeyArray[i]);
+			keyArray[i]= key;
+			hashes[i]= mix(key.hashCode());
+		}
+		intKeys= false;
+		intKeyArray= null;
+		rehash(slots.length);
+	}//toObjectKeys
+
+	@Override
+	public void clear() {
+		allocate(DEFAULT_CAPACITY);
+	}
+
+	/**Not supported.*/
+	@Override
+	public V remove(Object key) {
+		throw new UnsupportedOperationException("Entries cannot be removed");
+	}
+
+	private Object keyAt(int index) {
+		return intKeys ? Integer.valueOf(intKeyArray[index]) : keyArray[index];
+	}
+
+	/**
+	 * Writes the number of entries, then the key and value of each entry in insertion order.
+	 * @serialData the size (int), then the key (Object) and value (Object) of each entry
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(size);
+		for(int i= 0; i < size; i++) {
+			out.writeObject(keyAt(i));
+			out.writeObject(valueArray[i]);
+		}
+	}//writeObject
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int count= in.readInt();
+		if(count<0)
+			throw new InvalidObjectException("Negative size " + count);
+		allocate(Math.max(DEFAULT_CAPACITY, count));
+		for(int i= 0; i < count; i++) {
+			Object key= in.readObject();
+			Object value= in.readObject();
+			if(value==null)
+				throw new InvalidObjectException("Null value");
+			put(key, (V) value);
+		}
+	}//readObject
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void forEach(BiConsumer<? super Object, ? super V> action) {
+		for(int i= 0; i < size; i++)
+			action.accept(keyAt(i), (V) valueArray[i]);
+	}
+
+	@Override
+	public Collection<V> values() {
+		if(values==null) {
+			values= new AbstractCollection<V>() {
+				@Override public int size() {return MsdxKeyMap.this.size;}
+				@Override public Iterator<V> iterator() {
+					return new Iterator<V>() {
+						int next= 0;
+						@Override public boolean hasNext() {return next < size;}
+						@SuppressWarnings("unchecked")
+						@Override public V next() {
+							if(next >= size)
+								throw new NoSuchElementException();
+							return (V) valueArray[next++];
+						}
+					}/*Iterator*/;
+				}//iterator
+			}/*AbstractCollection*/;
+		}
+		return values;
+	}//values
+
+	@Override
+	public Set<Map.Entry<Object, V>> entrySet() {
+		if(entrySet==null) {
+			entrySet= new AbstractSet<Map.Entry<Object, V>>() {
+				@Override public int size() {return MsdxKeyMap.this.size;}
+				@Override public Iterator<Map.Entry<Object, V>> iterator() {
+					return new Iterator<Map.Entry<Object, V>>() {
+						int next= 0;
+						@Override public boolean hasNext() {return next < size;}
+						@Override public Map.Entry<Object, V> next() {
+							if(next >= size)
+								throw new NoSuchElementException();
+							return new Entry(next++);
+						}
+					}/*Iterator*/;
+				}//iterator
+			}/*AbstractSet*/;
+		}
+		return entrySet;
+	}//entrySet
+
+	/**
+	 * An entry of the map, which writes through to the value array.
+	 */
+	private final class Entry implements Map.Entry<Object, V> {
+
+		private final int index;
+
+		Entry(int index) {
+			super();
+			this.index= index;
+		}
+
+		@Override public Object getKey() {return keyAt(index);}
+
+		@SuppressWarnings("unchecked")
+		@Override public V getValue() {return (V) valueArray[index];}
+
+		@SuppressWarnings("unchecked")
+		@Override public V setValue(V value) {
+			Objects.requireNonNull(value);
+			V previous= (V) valueArray[index];
+			valueArray[index]= value;
+			return previous;
+		}
+
+		@Override public boolean equals(Object other) {
+			if(!(other instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> entry= (Map.Entry<?, ?>) other;
+			return Objects.equals(getKey(), entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+		}
+
+		@Override public int hashCode() {return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());}
+
+		@Override public String toString() {return getKey() + "=" + getValue();}
+
+	}//class MsdxKeyMap.Entry
+
+}//class MsdxKeyMap
@@ -0,0 +1,666 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.span;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.MsdxStringPool;
+
+/**
+ * A read-only collection of Records that keeps at most a working set of Records in memory
+ * and spills the rest to temporary files, so that a persistent Span can be larger than the heap.
+ * The Records are encoded with an MsdxRecordCodec for the Span's Schema;
+ * the identifiers of the Records read back are interned in a string pool of the store, which is cleared when the store is deleted.
+ * <p>
+ * The store is filled once, from a stream of Records, when it is created.
+ * Whenever the working set is full, its Records are written to a new file (a run).
+ * <ul style="list-style-type:bullet;">
+ * <li> Without a key field, the runs are written in arrival order, and iteration reads the runs in turn
+ * followed by the Records still in memory, so the order of the stream is kept.</li>
+ * <li> With a key field, each run is sorted by key, and when the stream ends the runs (and the Records still in memory)
+ * are merged into one sorted file. As in MsdxJavaSpan.Keyed, Records with the same key must be equal.
+ * A sparse index of every INDEX_INTERVAL-th key is kept in memory, so a lookup by key reads one block of the file;
+ * the last block read is cached, so lookups in key order read each block once.
+ * Iteration is in key order. If the stream fits in the working set, nothing is spilled,
+ * and the Records are held in an MsdxKeyMap in arrival order.</li>
+ * </ul>
+ * The keys must be Comparable. The files are deleted by the delete method;
+ * those of the stores not deleted by then are deleted by a shutdown hook when the JVM exits.
+ * A stream of the store closes the run it is reading when the stream is closed, even if it has not been read to the end.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxSpillStore extends AbstractCollection<MsdxContainer<Object>> {
+
+	/**Default largest number of Records held in memory.*/
+	public static final int DEFAULT_WORKING_SET_SIZE= 100_000;
+
+	/**Number of Records per block of a keyed file.*/
+	private static final int INDEX_INTERVAL= 64;
+
+	/**
+	 * Spill directories that have not been deleted yet, which are deleted when the JVM exits. 
+	 * Unlike File.deleteOnExit, whose list only grows, a directory leaves this set when it is deleted.
+	 */
+	private static final Set<Path> LIVE_DIRECTORIES= ConcurrentHashMap.newKeySet();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			for(Path directory: LIVE_DIRECTORIES)
+				deleteDirectory(directory);
+		}, "mosdex-spill-cleanup"));
+	}
+
+	private final MsdxStringPool strings;
+	private final MsdxRecordCodec codec;
+	private final String keyFieldName;
+	private final int workingSetSize;
+	private final Path spillDirectory;
+
+	/**Directory holding the runs; created when the first run is written.*/
+	private Path directory;
+
+	/**The spilled Records; a keyed store has at most one run once it is filled.*/
+	private final List<Run> runs;
+
+	/**Records held in memory, in arrival order; null when keyed.*/
+	private List<MsdxContainer<Object>> buffer;
+
+	/**Records held in memory by key; null when not keyed.*/
+	private MsdxKeyMap<MsdxContainer<Object>> bufferByKey;
+
+	private long size;
+
+	/**The last block read by a lookup in the keyed run.*/
+	private int cachedBlock= -1;
+	private List<MsdxContainer<Object>> cachedRecords;
+
+	private Map<Object, MsdxContainer<Object>> map;
+
+	/**
+	 * Creates a store from a stream of Records.
+	 *
+	 * @param records
+	 * @param recordSchema
+	 * @param keyFieldName the key field, or an empty string for a store without a key
+	 * @param workingSetSize largest number of Records held in memory
+	 * @param spillDirectory directory for the files, or null for the system temporary directory
+	 * @throws IllegalArgumentException if the Schema cannot be encoded, the key field is not in the Schema,
+	 * the working set size is not positive, a key is not Comparable,
+	 * or there are different Records with the same key
+	 * @throws IllegalStateException if the files cannot be written
+	 */
+	public MsdxSpillStore(Stream<MsdxContainer<Object>> records, MsdxContainer<Class<?>> recordSchema,
+		String keyFieldName, int workingSetSize, Path spillDirectory)
+	{
+		super();
+		if(!keyFieldName.isEmpty() && !recordSchema.containsField(keyFieldName))
+			throw new IllegalArgumentException("Invalid key field");
+		if(workingSetSize<1)
+			throw new IllegalArgumentException("Working set size must be positive");
+		this.strings= new MsdxStringPool();
+		this.codec= new MsdxRecordCodec(recordSchema, strings);
+		this.keyFieldName= keyFieldName;
+		this.workingSetSize= workingSetSize;
+		this.spillDirectory= spillDirectory;
+		this.runs= new ArrayList<Run>();
+		if(isKeyed())
+			this.bufferByKey= new MsdxKeyMap<MsdxContainer<Object>>();
+		else
+			this.buffer= new ArrayList<MsdxContainer<Object>>();
+
+		try {
+			records.forEachOrdered(this::accept);
+			if(isKeyed() && !runs.isEmpty()) {
+				spillBuffer();
+				mergeRuns();
+			}
+		} catch (IOException e) {
+			delete();
+			throw new IllegalStateException("Cannot spill records", e);
+		}
+	}
+
+	/**@return true if this store is keyed*/
+	public boolean isKeyed() {
+		return !keyFieldName.isEmpty();
+	}
+
+	/**@return true if some of the Records have been spilled to disk*/
+	public boolean isSpilled() {
+		return !runs.isEmpty();
+	}
+
+	private void accept(MsdxContainer<Object> record) {
+		if(isKeyed()) {
+			Object key= record.get(keyFieldName);
+			if(!(key instanceof Comparable))
+				throw new IllegalArgumentException("Key is not comparable " + key);
+			bufferByKey.merge(key, record, MsdxSpillStore::distinct);
+			if(bufferByKey.size() >= workingSetSize)
+				spillBuffer();
+		}
+		else {
+			buffer.add(record);
+			size++;
+			if(buffer.size() >= workingSetSize)
+				spillBuffer();
+		}
+	}//accept
+
+	/**Writes the Records in memory to a new run and empties the working set.*/
+	private void spillBuffer() {
+		try {
+			if(isKeyed()) {
+				List<MsdxContainer<Object>> sorted= new ArrayList<MsdxContainer<Object>>(bufferByKey.values());
+				sorted.sort(keyOrder());
+				bufferByKey= new MsdxKeyMap<MsdxContainer<Object>>();
+				runs.add(writeRun(sorted.iterator()));
+			}
+			else {
+				runs.add(writeRun(buffer.iterator()));
+				buffer= new ArrayList<MsdxContainer<Object>>();
+			}
+		} catch (IOException e) {
+			delete();
+			throw new IllegalStateException("Cannot spill records", e);
+		}
+	}//spillBuffer
+
+	/**
+	 * Merges the sorted runs into one, dropping Records repeated in several runs.
+	 * @throws IllegalArgumentException if there are different Records with the same key
+	 */
+	private void mergeRuns() throws IOException {
+		List<Run> merging= new ArrayList<Run>(runs);
+		PriorityQueue<RunReader> heads= new PriorityQueue<RunReader>(merging.size(),
+			(reader1, reader2) -> compareKeys(reader1.current.get(keyFieldName), reader2.current.get(keyFieldName)));
+		try {
+			for(Run run: merging) {
+				RunReader reader= new RunReader(run);
+				if(reader.advance())
+					heads.add(reader);
+			}
+			mergeRuns(merging, heads);
+		} finally {
+			for(RunReader reader: heads)
+				reader.close();
+		}
+	}//mergeRuns
+
+	private void mergeRuns(List<Run> merging, PriorityQueue<RunReader> heads) throws IOException {
+		Iterator<MsdxContainer<Object>> merged= new Iterator<MsdxContainer<Object>>() {
+			MsdxContainer<Object> previous= null;
+			MsdxContainer<Object> next= step();
+
+			private MsdxContainer<Object> step() {
+				while(!heads.isEmpty()) {
+					RunReader reader= heads.poll();
+					MsdxContainer<Object> record= reader.current;
+					if(reader.advance())
+						heads.add(reader);
+					if(previous!=null && compareKeys(previous.get(keyFieldName), record.get(keyFieldName))==0) {
+						distinct(previous, record);
+						continue;
+					}
+					previous= record;
+					return record;
+				}
+				return null;
+			}//step
+
+			@Override
+			public boolean hasNext() {
+				return next!=null;
+			}
+
+			@Override
+			public MsdxContainer<Object> next() {
+				MsdxContainer<Object> result= next;
+				next= step();
+				return result;
+			}
+		}/*Iterator*/;
+		Run result= writeRun(merged);
+		runs.clear();
+		runs.add(result);
+		size= result.count;
+		for(Run run: merging)
+			Files.deleteIfExists(run.file);
+	}//mergeRuns
+
+	private Run writeRun(Iterator<MsdxContainer<Object>> records) throws IOException {
+		if(directory==null)
+			directory= createDirectory(spillDirectory, "mosdex-span");
+		Path file= Files.createTempFile(directory, "run", ".bin");
+		List<Long> offsets= new ArrayList<Long>();
+		List<Object> keys= new ArrayList<Object>();
+		int count= 0;
+		try(CountingOutputStream counter= new CountingOutputStream(Files.newOutputStream(file));
+			DataOutputStream out= new DataOutputStream(counter))
+		{
+			while(records.hasNext()) {
+				MsdxContainer<Object> record= records.next();
+				if(isKeyed() && count % INDEX_INTERVAL == 0) {
+					offsets.add(counter.count);		//a DataOutputStream does not buffer, so the counter is up to date
+					keys.add(record.get(keyFieldName));
+				}
+				codec.write(out, record);
+				count++;
+			}
+		}
+		return new Run(file, count, offsets.stream().mapToLong(Long::longValue).toArray(), keys.toArray());
+	}//writeRun
+
+	/**
+	 * Finds a Record by key.
+	 *
+	 * @param key
+	 * @return the Record, or null if there is none
+	 * @throws UnsupportedOperationException if this store is not keyed
+	 */
+	public MsdxContainer<Object> get(Object key) {
+		if(!isKeyed())
+			throw new UnsupportedOperationException("Not valid for a store without a key");
+		if(runs.isEmpty())
+			return bufferByKey.get(key);
+		if(!(key instanceof Comparable))
+			return null;
+		Run run= runs.get(0);
+		int block= findBlock(run, key);
+		if(block<0)
+			return null;
+		try {
+			for(MsdxContainer<Object> record: readBlock(run, block)) {
+				int comparison= compareKeys(record.get(keyFieldName), key);
+				if(comparison==0)
+					return record;
+				if(comparison > 0)
+					break;
+			}
+		} catch (ClassCastException e) {	//key of a different type
+			return null;
+		}
+		return null;
+	}//get
+
+	/**@return the index of the last block whose first key is not greater than the key, or -1 if there is none*/
+	private static int findBlock(Run run, Object key) {
+		int low= 0, high= run.keys.length - 1, found= -1;
+		try {
+			while(low <= high) {
+				int middle= (low + high) >>> 1;
+				if(compareKeys(run.keys[middle], key) <= 0) {
+					found= middle;
+					low= middle + 1;
+				}
+				else
+					high= middle - 1;
+			}
+		} catch (ClassCastException e) {	//key of a different type
+			return -1;
+		}
+		return found;
+	}//findBlock
+
+	private List<MsdxContainer<Object>> readBlock(Run run, int block) {
+		if(block==cachedBlock)
+			return cachedRecords;
+		int count= Math.min(INDEX_INTERVAL, run.count - block * INDEX_INTERVAL);
+		List<MsdxContainer<Object>> records= new ArrayList<MsdxContainer<Object>>(count);
+		//opens the file for each block, so that no file stays open between lookups
+		try(FileChannel channel= FileChannel.open(run.file, StandardOpenOption.READ)) {
+			channel.position(run.offsets[block]);
+			DataInputStream in= new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+			for(int i= 0; i < count; i++)
+				records.add(codec.read(in));
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot read spilled records", e);
+		}
+		cachedBlock= block;
+		cachedRecords= records;
+		return records;
+	}//readBlock
+
+	/**
+	 * Deletes the files of this store; the store must not be used afterward.
+	 */
+	public void delete() {
+		if(directory!=null)
+			deleteDirectory(directory);
+		directory= null;
+		runs.clear();
+		cachedBlock= -1;
+		cachedRecords= null;
+		strings.clear();
+	}//delete
+
+	/**
+	 * Creates a temporary directory for spill files, to be deleted by deleteDirectory or, failing that, when the JVM exits.
+	 *
+	 * @param spillDirectory parent directory, or null for the system temporary directory
+	 * @param prefix of the directory name
+	 * @return the new directory
+	 * @throws IOException if the directory cannot be created
+	 */
+	static Path createDirectory(Path spillDirectory, String prefix) throws IOException {
+		Path directory= spillDirectory==null ?
+			Files.createTempDirectory(prefix) :
+			Files.createTempDirectory(spillDirectory, prefix);
+		LIVE_DIRECTORIES.add(directory);
+		return directory;
+	}//createDirectory
+
+	/**
+	 * Deletes a directory made by createDirectory with the files in it.
+	 * @param directory
+	 */
+	static void deleteDirectory(Path directory) {
+		try(Stream<Path> files= Files.list(directory)) {
+			for(Iterator<Path> file= files.iterator(); file.hasNext(); )
+				Files.deleteIfExists(file.next());
+			Files.deleteIfExists(directory);
+		} catch (NoSuchFileException e) {	//already deleted
+		} catch (IOException | UncheckedIOException e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+		}
+		LIVE_DIRECTORIES.remove(directory);
+	}//deleteDirectory
+
+	@Override
+	public Iterator<MsdxContainer<Object>> iterator() {
+		if(runs.isEmpty())
+			return Collections.unmodifiableCollection(isKeyed() ? bufferByKey.values() : buffer).iterator();
+		return new RunIterator();
+	}//iterator
+
+	/**
+	 * @return a stream of the Records, in the order of iteration, which closes the run being read when it is closed
+	 */
+	@Override
+	public Stream<MsdxContainer<Object>> stream() {
+		Iterator<MsdxContainer<Object>> records= iterator();
+		Stream<MsdxContainer<Object>> stream= StreamSupport.stream(
+			Spliterators.spliterator(records, size(), Spliterator.ORDERED | Spliterator.NONNULL), false);
+		return records instanceof RunIterator ? stream.onClose(((RunIterator) records)::close) : stream;
+	}//stream
+
+	@Override
+	public int size() {
+		long count= isKeyed() && runs.isEmpty() ? bufferByKey.size() : size;
+		return (int) Math.min(count, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size()==0;
+	}
+
+	/**
+	 * @return a read-only map view of the Records by key, whose get method looks up the Record on disk
+	 * @throws UnsupportedOperationException if this store is not keyed
+	 */
+	public Map<Object, MsdxContainer<Object>> asMap() {
+		if(!isKeyed())
+			throw new UnsupportedOperationException("Not valid for a store without a key");
+		if(map==null)
+			map= new AbstractMap<Object, MsdxContainer<Object>>() {
+				private Set<Map.Entry<Object, MsdxContainer<Object>>> entrySet;
+
+				@Override
+				public MsdxContainer<Object> get(Object key) {
+					return MsdxSpillStore.this.get(key);
+				}
+
+				@Override
+				public boolean containsKey(Object key) {
+					return MsdxSpillStore.this.get(key)!=null;
+				}
+
+				@Override
+				public int size() {
+					return MsdxSpillStore.this.size();
+				}
+
+				@Override
+				public Collection<MsdxContainer<Object>> values() {
+					return MsdxSpillStore.this;
+				}
+
+				@Override
+				public Set<Map.Entry<Object, MsdxContainer<Object>>> entrySet() {
+					if(entrySet==null)
+						entrySet= new AbstractSet<Map.Entry<Object, MsdxContainer<Object>>>() {
+
+							@Override
+							public Iterator<Map.Entry<Object, MsdxContainer<Object>>> iterator() {
+								Iterator<MsdxContainer<Object>> records= MsdxSpillStore.this.iterator();
+								return new Iterator<Map.Entry<Object, MsdxContainer<Object>>>() {
+
+									@Override
+									public boolean hasNext() {
+										return records.hasNext();
+									}
+
+									@Override
+									public Map.Entry<Object, MsdxContainer<Object>> next() {
+										MsdxContainer<Object> record= records.next();
+										return new AbstractMap.SimpleImmutableEntry<Object, MsdxContainer<Object>>(
+											record.get(keyFieldName), record);
+									}
+								}/*Iterator*/;
+							}//iterator
+
+							@Override
+							public int size() {
+								return MsdxSpillStore.this.size();
+							}
+						}/*AbstractSet*/;
+					return entrySet;
+				}//entrySet
+			}/*AbstractMap*/;
+		return map;
+	}//asMap
+
+	private Comparator<MsdxContainer<Object>> keyOrder() {
+		return (record1, record2) -> compareKeys(record1.get(keyFieldName), record2.get(keyFieldName));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static int compareKeys(Object key1, Object key2) {
+		return ((Comparable<Object>) key1).compareTo(key2);
+	}
+
+	/**
+	 * Requires two Records with the same key to be equal, as MsdxJavaSpan.Keyed does.
+	 * @throws IllegalArgumentException if they are not equal
+	 */
+	private static MsdxContainer<Object> distinct(MsdxContainer<Object> record1, MsdxContainer<Object> record2) {
+		if(record1.equals(record2))
+			return record1;
+		else
+			throw new IllegalArgumentException("Duplicate records");
+	}//distinct
+
+	/**
+	 * A file of spilled Records, with the offsets and first keys of its blocks when keyed.
+	 */
+	private static final class Run {
+
+		final Path file;
+		final int count;
+		final long[] offsets;
+		final Object[] keys;
+
+		Run(Path file, int count, long[] offsets, Object[] keys) {
+			super();
+			this.file= file;
+			this.count= count;
+			this.offsets= offsets;
+			this.keys= keys;
+		}
+
+	}//class MsdxSpillStore.Run
+
+	/**
+	 * Reads a run from the start; closes the file when the run is exhausted or the reader is closed.
+	 */
+	private final class RunReader implements AutoCloseable {
+
+		private final Run run;
+		private DataInputStream in;
+		private int remaining;
+
+		/**The Record last read.*/
+		MsdxContainer<Object> current;
+
+		RunReader(Run run) {
+			super();
+			this.run= run;
+			this.remaining= run.count;
+		}
+
+		/**@return true if a Record was read into current, false if the run is exhausted*/
+		boolean advance() {
+			try {
+				if(remaining==0) {
+					close();
+					current= null;
+					return false;
+				}
+				if(in==null)
+					in= new DataInputStream(new BufferedInputStream(Files.newInputStream(run.file)));
+				current= codec.read(in);
+				remaining--;
+				return true;
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot read spilled records", e);
+			}
+		}//advance
+
+		/**Closes the file, if it is open.*/
+		@Override
+		public void close() {
+			try {
+				if(in!=null)
+					in.close();
+			} catch (IOException e) {
+				System.err.println(e.getMessage());
+				e.printStackTrace();
+			}
+			in= null;
+		}//close
+
+	}//class MsdxSpillStore.RunReader
+
+	/**
+	 * Iterates over the runs in turn, then over the Records still in memory;
+	 * closing it closes the run being read.
+	 */
+	private final class RunIterator implements Iterator<MsdxContainer<Object>>, AutoCloseable {
+
+		private final List<Run> reading= new ArrayList<Run>(runs);
+		private final Iterator<MsdxContainer<Object>> inMemory= isKeyed() ?
+			Collections.emptyIterator() :
+			buffer.iterator();
+		private int nextRun= 0;
+		private RunReader reader= null;
+		private boolean ready= false;
+
+		@Override
+		public boolean hasNext() {
+			if(ready)
+				return true;
+			while(true) {
+				if(reader!=null && reader.advance())
+					return ready= true;
+				if(nextRun >= reading.size())
+					return inMemory.hasNext();
+				reader= new RunReader(reading.get(nextRun++));
+			}
+		}//hasNext
+
+		@Override
+		public MsdxContainer<Object> next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			if(!ready)
+				return inMemory.next();
+			ready= false;
+			return reader.current;
+		}
+
+		@Override
+		public void close() {
+			if(reader!=null)
+				reader.close();
+			reader= null;
+			nextRun= reading.size();
+			ready= false;
+		}//close
+
+	}//class MsdxSpillStore.RunIterator
+
+	/**
+	 * Counts the bytes written, for the block offsets of a keyed run.
+	 */
+	private static final class CountingOutputStream extends FilterOutputStream {
+
+		long count;
+
+		CountingOutputStream(OutputStream out) {
+			super(new BufferedOutputStream(out));
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count+= len;
+		}
+
+	}//class MsdxSpillStore.CountingOutputStream
+
+}//class MsdxSpillStore
@@ -91,6 +91,9 @@ public abstract class OperatorWithOneArgument {
 	 * }//withResultSchema	
 	 * </code></pre>
 	 * <p>
+	 * An operator that only keeps, drops or renames input fields can compile an MsdxContainer.Plan 
+	 * from the input Schema here and apply the plan to each Container.
+	 * <p>
 	 * @param inputSchema used to copy fields from the input Schema; this is an
 	 *                    optional parameter and can be set as empty or null if the
 	 *                    input fields are not used; fields that are not part of the
@@ -49,7 +49,12 @@
  * each has a companion, static member class implementing the MsdxSpan.Factory
  * interface. The create methods of this companion class provide for
  * construction of Span objects from various input data structures.
- * 
+ * <p>
+ * MsdxFlowSpan is a reactive variant that publishes its Records with java.util.concurrent.Flow.
+ * Its operators run as asynchronous stages with bounded buffers, so that the producer of a bridge
+ * waits for its consumer rather than realizing its content. It is created from a Span by its Factory
+ * and turned back into one by toSpan.
+ *
  * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
  */
 package io.github.JeremyBloom.mosdex2.span;
@@ -0,0 +1,118 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that MsdxNumberScanner returns the same bits as Double.parseDouble for every number it accepts,
+ * the same values as Long.parseLong for integers in the range of a long, and rejects what Double.parseDouble rejects.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxNumberScannerTest {
+
+	/**Asserts that the scanner and Double.parseDouble return the same bits.*/
+	static void assertParsesAsJava(String s) {
+		assertEquals(s, Double.doubleToRawLongBits(Double.parseDouble(s)), Double.doubleToRawLongBits(MsdxNumberScanner.parseDouble(s)));
+	}
+
+	@Test
+	public void exponents() {
+		for(String s: List.of("1e0", "1e22", "1e23", "12e30", "123456789012345e37", "2.5E+10", "2.5e-10", "1.5e-22", "1e-23",
+			"7e-300", "1e308", "1.7976931348623157e308", "1.7976931348623158e308", "1.8e308", "1e400", "1e-400",
+			"1e99999999999", "1e-99999999999", "0e99999", "0x1.8p1", "0x1p-3", "0X1.Fp+10", "0x.8p1", "0x1p1023", "0x1p1024"))
+			assertParsesAsJava(s);
+	}
+
+	@Test
+	public void signs() {
+		for(String s: List.of("+1.5", "-1.5", "+0", "-0", "-0.0", "-0e10", "-0.000e-5", "+0x1.8p1", "-0x1.8p1", "-0x0p0", "-1e400"))
+			assertParsesAsJava(s);
+		assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(MsdxNumberScanner.parseDouble("-0")));
+	}
+
+	@Test
+	public void leadingZerosAndWhiteSpace() {
+		for(String s: List.of("000123.4500", "0.000001", "00e5", "0012e-3", "-007", "0000000000000000000000001.5",
+			"0.0000000000000000000000000000001", "0x0001.8p1", " 1.5 ", "\t-2\n", "1.5d", "2F", "0x1.8p1D"))
+			assertParsesAsJava(s);
+	}
+
+	@Test
+	public void integersAsLongs() {
+		for(String s: List.of("0", "-0", "1", "-1", "9007199254740992", "9007199254740993", "-9007199254740993",
+			"123456789012345678", "999999999999999999", "1000000000000000001",
+			String.valueOf(Long.MAX_VALUE), String.valueOf(Long.MIN_VALUE), String.valueOf(Long.MIN_VALUE + 1))) {
+			assertParsesAsJava(s);
+			assertEquals(s, (double) Long.parseLong(s), MsdxNumberScanner.parseDouble(s), 0.0);
+		}
+		for(String s: List.of("9223372036854775808", "-9223372036854775809", "99999999999999999999999")) {	//overflow a long
+			assertThrows(NumberFormatException.class, () -> Long.parseLong(s));
+			assertParsesAsJava(s);
+		}
+
+		Random random= new Random(40);
+		for(int n= 0; n < 20_000; n++) {
+			String s= String.valueOf(random.nextLong() >> random.nextInt(64));
+			assertEquals(s, (double) Long.parseLong(s), MsdxNumberScanner.parseDouble(s), 0.0);
+		}
+	}
+
+	@Test
+	public void longMantissasAndSubnormals() {
+		for(String s: List.of("3.14159265358979323846264338327950288", "123456789012345678901234567890",
+			"0.1000000000000000055511151231257827021181583404541015625", "9007199254740992.5", "9007199254740993.000000000000001",
+			"1234567890123456789e-20", "4.9e-324", "2.4703282292062327e-324", "2.4703282292062328e-324", "1e-320",
+			"2.2250738585072011e-308", "2.2250738585072014e-308", "0x1p-1074", "0x0.0000000000001p-1022", "0x1.fffffffffffffp1023",
+			"0x1.00000000000008p0", "0x1.000000000000081p0", "0x123456789abcdef0p0"))
+			assertParsesAsJava(s);
+
+		Random random= new Random(40);
+		for(int n= 0; n < 20_000; n++) {
+			StringBuilder s= new StringBuilder();
+			int digits= 1 + random.nextInt(25);
+			for(int i= 0; i < digits; i++)
+				s.append((char) ('0' + random.nextInt(10)));
+			s.insert(random.nextInt(digits + 1), '.');
+			if(s.length()==1)
+				s.append('0');
+			s.append('e').append(random.nextInt(700) - 350);
+			assertParsesAsJava(s.toString());
+		}
+	}
+
+	@Test
+	public void infinitySpellings() {
+		assertEquals(Double.POSITIVE_INFINITY, MsdxNumberScanner.parseDouble("Infinity"), 0.0);
+		assertEquals(Double.POSITIVE_INFINITY, MsdxNumberScanner.parseDouble("+infinity"), 0.0);
+		assertEquals(Double.NEGATIVE_INFINITY, MsdxNumberScanner.parseDouble(" -INFINITY "), 0.0);
+		assertParsesAsJava("-Infinity");
+		assertParsesAsJava("NaN");
+		assertEquals(1, MsdxNumberScanner.infinity("INFINITY"));
+		assertEquals(-1, MsdxNumberScanner.infinity(" -infinity"));
+		assertEquals(0, MsdxNumberScanner.infinity("Inf"));
+		assertEquals(0, MsdxNumberScanner.infinity("12"));
+	}
+
+	@Test
+	public void malformedInput() {
+		for(String s: List.of("", " ", "-", "+", ".", "e5", "1e", "1e+", "-e1", "1..2", "1.2.3", "0x", "0x1", "0x1p", "0xp1", "0x1.8",
+			"1.5x", "1.5dd", "Inf", "Infinityy", "INFINITy", "--1", "+-1", "1 2", "1,5", "0x1g", "1e1.5", "١٢"))
+		{
+			assertThrows(s, NumberFormatException.class, () -> Double.parseDouble(s));
+			assertThrows(s, NumberFormatException.class, () -> MsdxNumberScanner.parseDouble(s));
+		}
+	}
+
+}//class MsdxNumberScannerTest
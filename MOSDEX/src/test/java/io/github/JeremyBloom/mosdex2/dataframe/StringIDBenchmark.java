@@ -0,0 +1,103 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.dataframe;
+
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.api.java.UDF2;
+import org.apache.spark.sql.api.java.UDF3;
+import org.apache.spark.sql.types.DataTypes;
+
+import io.github.JeremyBloom.mosdex2.Msdx;
+
+/**
+ * Compares the native IDn functions registered by MsdxSparkDataframe.Factory
+ * with the equivalent Java UDFs on a large query-form TERM table.
+ * The TERM query joins a constraint table to a variable table,
+ * as in the transshipment model of UserDefinedFunctions,
+ * and makes its Row and Column ids with ID2 and ID3.
+ * <p>
+ * The number of routes may be given as the first argument (default 2,000,000).
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class StringIDBenchmark {
+
+	static MsdxSparkDataframe.Factory dfFactory= new MsdxSparkDataframe.Factory(Msdx.GLOBAL.sparkConfiguration);
+
+	static final int REPETITIONS= 3;
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		Msdx.GLOBAL.setDisplayTitle("String ID Benchmark");
+		Msdx.GLOBAL.showDisplay();
+
+		long numberOfRoutes= args.length > 0 ? Long.parseLong(args[0]) : 2_000_000L;
+		long numberOfCities= Math.max(1L, numberOfRoutes/100L);
+
+		dfFactory.getSession().range(numberOfCities)
+			.selectExpr("CONCAT('city', id) AS city")
+			.createOrReplaceTempView("cities");
+		dfFactory.getSession().range(numberOfRoutes)
+			.selectExpr(
+				"CONCAT('city', id % " + numberOfCities + ") AS origin",
+				"CONCAT('city', (id * 7919) % " + numberOfCities + ") AS destination",
+				"CONCAT('lane', id) AS lane")
+			.createOrReplaceTempView("routes");
+		registerJavaIDFunctions();
+
+		String termQuery=
+			"SELECT %1$s2('balance', cities.city) AS Row, \n"
+			+ "       %1$s3('ship', routes.origin, routes.lane) AS Column, \n"
+			+ "       CAST(1.0 AS DOUBLE) AS Coefficient \n"
+			+ "FROM cities JOIN routes ON cities.city = routes.origin";
+
+		Msdx.GLOBAL.out.println("TERM table with " + numberOfRoutes + " routes");
+		for(int i= 0; i < REPETITIONS; i++) {
+			Msdx.GLOBAL.out.println(String.format("Java UDF   %8d ms", time(String.format(termQuery, "JAVA_ID"))));
+			Msdx.GLOBAL.out.println(String.format("native IDn %8d ms", time(String.format(termQuery, "ID"))));
+		}
+
+	}//main
+
+	/**
+	 * Runs a query to completion, consuming every Row and Column string.
+	 * @param sql
+	 * @return elapsed time in milliseconds
+	 */
+	static long time(String sql) {
+		long start= System.nanoTime();
+		Dataset<Row> term= dfFactory.getSession().sql(sql);
+		term.selectExpr("SUM(LENGTH(Row) + LENGTH(Column))").collectAsList();
+		return (System.nanoTime() - start)/1_000_000L;
+	}//time
+
+	/**
+	 * Registers JAVA_ID2 and JAVA_ID3, the Java UDF versions of ID2 and ID3.
+	 */
+	static void registerJavaIDFunctions() {
+		dfFactory.getSession().udf().register("JAVA_ID2", new JavaID2(), DataTypes.StringType);
+		dfFactory.getSession().udf().register("JAVA_ID3", new JavaID3(), DataTypes.StringType);
+	}
+
+	static class JavaID2 implements UDF2<String, String, String> {
+		private static final long serialVersionUID = 1L;
+		@Override public String call(String key1, String key2) throws Exception {
+			return String.join("_", key1, key2);
+		}//call
+	}//class StringIDBenchmark.JavaID2
+
+	static class JavaID3 implements UDF3<String, String, String, String> {
+		private static final long serialVersionUID = 1L;
+		@Override public String call(String key1, String key2, String key3) throws Exception {
+			return String.join("_", key1, key2, key3);
+		}//call
+	}//class StringIDBenchmark.JavaID3
+
+}//class StringIDBenchmark
@@ -73,7 +73,7 @@ public class UserDefinedFunctions {
 			+ "			     dualValue(ID2('balance', city)) AS dual                                \r\n"
 			+ "            FROM cities\r\n";
 		
-		Dataset<Row> balance= dfFactory.session.sql(constraintQuery);
+		Dataset<Row> balance= dfFactory.getSession().sql(constraintQuery);
 		
 		Msdx.GLOBAL.out.println("balance");
 		balance.toLocalIterator()
@@ -101,7 +101,7 @@ public class UserDefinedFunctions {
 		if(numberOfKeyFields<2)
 			throw new IllegalArgumentException("Too few key fields");
 		if(numberOfKeyFields==2) {
-			dfFactory.session.udf().register(
+			dfFactory.getSession().udf().register(
 				"ID2", 
 				new UDF2<String, String, String>() { 
 					private static final long serialVersionUID = 1L;
@@ -113,7 +113,7 @@ public class UserDefinedFunctions {
 			return;
 		}
 		if(numberOfKeyFields==3) {
-			dfFactory.session.udf().register(
+			dfFactory.getSession().udf().register(
 				"ID3", 
 				new UDF3<String, String, String, String>() { 
 					private static final long serialVersionUID = 1L;
@@ -125,7 +125,7 @@ public class UserDefinedFunctions {
 			return;
 		}
 			if(numberOfKeyFields==4) {
-				dfFactory.session.udf().register(
+				dfFactory.getSession().udf().register(
 					"ID4", 
 					new UDF4<String, String, String, String, String>() { 
 						private static final long serialVersionUID = 1L;
@@ -137,7 +137,7 @@ public class UserDefinedFunctions {
 				return;
 		}
 			if(numberOfKeyFields==5) {
-				dfFactory.session.udf().register(
+				dfFactory.getSession().udf().register(
 					"ID5", 
 					new UDF5<String, String, String, String, String, String>() { 
 						private static final long serialVersionUID = 1L;
@@ -169,7 +169,7 @@ public class UserDefinedFunctions {
 	 * @return a user defined function object
 	 */
 	static void registerFunctionCall(String functionName) {
-		dfFactory.session.udf().register(
+		dfFactory.getSession().udf().register(
 			functionName, 
 			new UDF1<String, String>() { 
 				private static final long serialVersionUID = 1L;
@@ -0,0 +1,109 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.json;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.MsdxOutputDestination;
+
+/**
+ * Checks that the Generator writes numbers into its buffer exactly as the JDK formats them:
+ * integers as Long.toString, doubles as Double.toString, and IEEE doubles as a quoted Double.toHexString,
+ * including the signed zeros, subnormals, infinities, NaN and the extreme longs,
+ * and that nothing is lost when the buffer fills.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxWriterTest {
+
+	static final double[] DOUBLES= {
+		0.0, -0.0, 1.0, -1.0, 0.5, 0.1, -2.75, 1.0/3.0, 9_999_999.0, -9_999_999.0, 1.0E7, 1.0E-3, 123_456_789.0,
+		Math.PI, Math.E, Double.MIN_VALUE, -Double.MIN_VALUE, Double.MIN_NORMAL, Double.MIN_NORMAL - Double.MIN_VALUE,
+		Double.MIN_VALUE * 0x1.8p4, Double.MAX_VALUE, -Double.MAX_VALUE,
+		Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN, 0x1.0000000000001p0, 0x1.fffffffffffffp-1
+	};
+
+	static final long[] LONGS= {
+		0, 1, -1, 9, 10, 99, 100, Integer.MAX_VALUE, Integer.MIN_VALUE,
+		999_999_999_999_999_999L, 1_000_000_000_000_000_000L, -1_000_000_000_000_000_000L,
+		Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1
+	};
+
+	interface Write {
+		void to(MsdxWriter.Generator generator) throws IOException;
+	}
+
+	static String generate(Write write) throws IOException {
+		ByteArrayOutputStream out= new ByteArrayOutputStream();
+		MsdxWriter.Generator generator= MsdxWriter.Generator.create(MsdxOutputDestination.toStream(out));
+		write.to(generator);
+		generator.flush();
+		return out.toString();
+	}
+
+	@Test
+	public void writesHexDoublesAsDoubleToHexString() throws IOException {
+		for(double v: DOUBLES)
+			assertEquals(Double.toString(v), '"' + Double.toHexString(v) + '"', generate(generator -> generator.writeHexDouble(v)));
+		for(int exponent= Double.MIN_EXPONENT - 52; exponent <= Double.MAX_EXPONENT; exponent++) {
+			double v= Math.scalb(1.0, exponent) * 1.25;		//every exponent, normal and subnormal
+			assertEquals('"' + Double.toHexString(v) + '"', generate(generator -> generator.writeHexDouble(v)));
+		}
+	}
+
+	@Test
+	public void writesIntegersAsLongToString() throws IOException {
+		for(long v: LONGS) {
+			assertEquals(Long.toString(v), generate(generator -> generator.writeNumber(v)));
+			if(v==(int) v)
+				assertEquals(Long.toString(v), generate(generator -> generator.writeNumber((int) v)));
+		}
+		for(long v= 1; v > 0 && v < Long.MAX_VALUE / 10; v*= 10) {		//every digit count
+			long power= v;
+			assertEquals(Long.toString(power - 1), generate(generator -> generator.writeNumber(power - 1)));
+			assertEquals(Long.toString(-power), generate(generator -> generator.writeNumber(-power)));
+		}
+	}
+
+	@Test
+	public void writesDoublesAsDoubleToString() throws IOException {
+		for(double v: DOUBLES)
+			assertEquals(Double.toString(v), generate(generator -> generator.writeNumber(v)));
+	}
+
+	@Test
+	public void keepsEverythingWhenTheBufferFills() throws IOException {
+		Random random= new Random(27);
+		List<Double> values= new ArrayList<Double>();
+		for(int i= 0; i < 20_000; i++)
+			values.add(i % 3 == 0 ? Double.longBitsToDouble(random.nextLong()) : (double) (random.nextInt(2_000_000) - 1_000_000));
+		StringBuilder expected= new StringBuilder();
+		for(double v: values)
+			expected.append(Double.toString(v)).append(' ').append('"').append(Double.toHexString(v)).append('"').append(' ')
+				.append(Long.toString((long) v)).append(' ');
+
+		assertEquals(expected.toString(), generate(generator -> {
+			for(double v: values) {
+				generator.writeNumber(v);
+				generator.writeRaw(' ');
+				generator.writeHexDouble(v);
+				generator.writeRaw(' ');
+				generator.writeNumber((long) v);
+				generator.writeRaw(' ');
+			}
+		}));
+	}
+
+}//class MsdxWriterTest
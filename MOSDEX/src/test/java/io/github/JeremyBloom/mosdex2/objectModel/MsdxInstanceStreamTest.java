@@ -0,0 +1,176 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.objectModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+
+/**
+ * Checks that an MsdxInstanceStream hands the Records from the parser to the model in order,
+ * that the parser waits for the model once the buffer holds capacity Records,
+ * that a Table parsed ahead of the model is buffered in full,
+ * and that cancelling the Registry stops a waiting parser and a waiting model.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxInstanceStreamTest {
+
+	static final MsdxContainer<Class<?>> SCHEMA= MsdxContainer.<Class<?>>builder()
+		.addItem("Row", String.class)
+		.addItem("Coefficient", Double.class)
+		.build();
+
+	static final int SIZE= 2_000;
+	static final int CAPACITY= 8;
+
+	ExecutorService parser;
+
+	@Before
+	public void setUp() {
+		parser= Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void tearDown() {
+		parser.shutdownNow();
+	}
+
+	static List<MsdxContainer<Object>> records(String tableName) {
+		List<MsdxContainer<Object>> records= new ArrayList<MsdxContainer<Object>>();
+		for(int i= 0; i < SIZE; i++)
+			records.add(MsdxRecord.create(SCHEMA, tableName + i, Double.valueOf(i / 8.0)));
+		return records;
+	}
+
+	/**Parses a Table as MsdxObject.Factory does, counting the Records put.*/
+	static void parse(MsdxInstanceStream stream, List<MsdxContainer<Object>> records, AtomicInteger put) {
+		stream.open(SCHEMA);
+		for(MsdxContainer<Object> record: records) {
+			stream.put(record);
+			put.incrementAndGet();
+		}
+		stream.close();
+	}
+
+	@Test
+	public void theParserWaitsForTheModel() throws Exception {
+		MsdxInstanceStream.Registry registry= new MsdxInstanceStream.Registry(List.of("ship", "supply"), Set.of(), CAPACITY);
+		List<MsdxContainer<Object>> ship= records("ship"), supply= records("supply");
+		AtomicInteger put= new AtomicInteger();
+		Future<?> parsed= parser.submit(() -> {
+			parse(registry.get("ship"), ship, put);
+			put.set(0);
+			parse(registry.get("supply"), supply, put);
+		});
+
+		assertSame(SCHEMA, registry.get("ship").getSchema());
+		assertEquals(ship, registry.get("ship").stream().collect(Collectors.toList()));
+		AtomicInteger taken= new AtomicInteger();
+		List<MsdxContainer<Object>> read= registry.get("supply").stream()
+			.peek(record -> {
+				taken.incrementAndGet();
+				assertTrue(put.get() + " put, " + taken.get() + " taken", put.get() <= taken.get() + CAPACITY);
+				if(taken.get() % 100 == 0)
+					sleep(5);		//a slow model
+			})
+			.collect(Collectors.toList());
+		parsed.get(10, TimeUnit.SECONDS);
+		assertEquals(supply, read);
+		assertTrue(registry.get("supply").isClosed());
+		assertThrows(IllegalStateException.class, () -> registry.get("supply").stream());
+	}
+
+	@Test
+	public void aTableParsedAheadOfTheModelIsBufferedInFull() throws Exception {
+		MsdxInstanceStream.Registry registry= new MsdxInstanceStream.Registry(List.of("ship", "supply"), Set.of("supply"), CAPACITY);
+		List<MsdxContainer<Object>> ship= records("ship"), supply= records("supply");
+		AtomicInteger put= new AtomicInteger();
+		Future<?> parsed= parser.submit(() -> {
+			parse(registry.get("supply"), supply, put);		//the TERM Table comes first in the File
+			parse(registry.get("ship"), ship, put);
+		});
+
+		long deadline= System.currentTimeMillis() + 10_000;
+		while(!registry.get("supply").isClosed() && System.currentTimeMillis() < deadline)
+			sleep(5);
+		assertTrue(registry.get("supply").isClosed());		//without the model having read anything
+		assertTrue(registry.get("supply").isRetained());
+		assertEquals(ship, registry.get("ship").stream().collect(Collectors.toList()));
+		assertEquals(supply, registry.get("supply").stream().collect(Collectors.toList()));
+		parsed.get(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void cancellingStopsTheParser() throws Exception {
+		MsdxInstanceStream.Registry registry= new MsdxInstanceStream.Registry(List.of("ship"), Set.of(), CAPACITY);
+		AtomicInteger put= new AtomicInteger();
+		Future<?> parsed= parser.submit(() -> parse(registry.get("ship"), records("ship"), put));
+
+		assertEquals(records("ship").subList(0, 10), registry.get("ship").stream().limit(10).collect(Collectors.toList()));
+		IllegalStateException failure= new IllegalStateException("Solver failed");
+		registry.cancel(failure);
+		ExecutionException e= assertThrows(ExecutionException.class, () -> parsed.get(10, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof CancellationException);
+		assertSame(failure, e.getCause().getCause());
+		assertTrue(put.get() <= 10 + CAPACITY);
+		assertTrue(registry.isCancelled());
+	}
+
+	@Test
+	public void cancellingStopsTheModel() throws Exception {
+		MsdxInstanceStream.Registry registry= new MsdxInstanceStream.Registry(List.of("ship", "supply"), Set.of(), CAPACITY);
+		Future<?> failed= parser.submit(() -> {
+			registry.get("ship").open(SCHEMA);
+			registry.get("ship").put(records("ship").get(0));
+			sleep(50);
+			registry.cancel(new IllegalArgumentException("Bad record"));		//the parser fails
+		});
+
+		assertThrows(CancellationException.class, () -> registry.get("ship").stream().count());
+		assertThrows(CancellationException.class, () -> registry.get("supply").getSchema());		//never opened
+		failed.get(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void rejectsMisuse() {
+		assertThrows(IllegalArgumentException.class, () -> new MsdxInstanceStream.Registry(List.of("ship"), Set.of(), 0));
+		assertThrows(IllegalArgumentException.class, () -> new MsdxInstanceStream.Registry(List.of("ship", "ship"), Set.of()));
+		MsdxInstanceStream.Registry registry= new MsdxInstanceStream.Registry(List.of("ship"), Set.of());
+		assertThrows(IllegalArgumentException.class, () -> registry.get("supply"));
+		registry.get("ship").open(SCHEMA);
+		assertThrows(IllegalStateException.class, () -> registry.get("ship").open(SCHEMA));
+	}
+
+	static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}//class MsdxInstanceStreamTest
@@ -3,6 +3,9 @@
  */
 package io.github.JeremyBloom.mosdex2.objectModel;
 
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 
 import org.json.JSONException;
@@ -1264,6 +1267,85 @@ public class MsdxObjectModel {
 		
 	}//javaInstanceTest
 	
+	@Test
+	public void binaryInstanceTest() throws JSONException {
+		String mosdex= 
+/*			'''
+			{
+			  "SYNTAX": "MOSDEX/MOSDEX v2/MOSDEXSchemaV2-0.json",
+			  "MODULES": [
+			    {
+			      "NAME": "data",
+			      "CLASS": "DATA",
+			      "TABLES": [
+			        {
+				        "NAME": "arcs",
+				        "CLASS": "DATA",
+				        "KIND": "INPUT",
+				        "SCHEMA": {
+				          "FIELDS": [ "from",   "capacity", "cost",                    "weight", "flow"],
+				          "TYPES": [  "STRING", "INTEGER",  "IEEEDOUBLE",              "DOUBLE", "DOUBLE_FUNCTION"]
+				        },
+				        "INSTANCE": [
+				          [           "PITT",   250,        "0x1.999999999999ap-4",    2.5,      "getValue(x_PITT)"],
+				          [           "NE",     "Infinity", "0x1.0p0",                 null,     "getValue(x_NE)"],
+				          [           null,     -3,         null,                      1.0E-7,   null]
+				        ]
+			        }
+			      ]
+			    }
+			  ]
+			}
+			'''
+*/
+			"{\r\n"
+			+ "  \"SYNTAX\": \"MOSDEX/MOSDEX v2/MOSDEXSchemaV2-0.json\",\r\n"
+			+ "  \"MODULES\": [\r\n"
+			+ "    {\r\n"
+			+ "      \"NAME\": \"data\",\r\n"
+			+ "      \"CLASS\": \"DATA\",\r\n"
+			+ "      \"TABLES\": [\r\n"
+			+ "        {\r\n"
+			+ "        \"NAME\": \"arcs\",\r\n"
+			+ "        \"CLASS\": \"DATA\",\r\n"
+			+ "        \"KIND\": \"INPUT\",\r\n"
+			+ "        \"SCHEMA\": {\r\n"
+			+ "          \"FIELDS\": [ \"from\",   \"capacity\", \"cost\",                    \"weight\", \"flow\"],\r\n"
+			+ "          \"TYPES\": [  \"STRING\", \"INTEGER\",  \"IEEEDOUBLE\",              \"DOUBLE\", \"DOUBLE_FUNCTION\"]\r\n"
+			+ "        },\r\n"
+			+ "        \"INSTANCE\": [\r\n"
+			+ "          [           \"PITT\",   250,        \"0x1.999999999999ap-4\",    2.5,      \"getValue(x_PITT)\"],\r\n"
+			+ "          [           \"NE\",     \"Infinity\", \"0x1.0p0\",                 null,     \"getValue(x_NE)\"],\r\n"
+			+ "          [           null,     -3,         null,                      1.0E-7,   null]\r\n"
+			+ "        ]\r\n"
+			+ "        }\r\n"
+			+ "      ]\r\n"
+			+ "    }\r\n"
+			+ "  ]\r\n"
+			+ "}";
+		
+		MsdxObject.Factory factory= new MsdxObject.Factory(
+			new MsdxJavaDataframe.Factory(), 
+			Msdx.GLOBAL.mapper, 
+			false);
+			
+		ByteArrayOutputStream expected= new ByteArrayOutputStream();
+		MsdxFile file= factory.readFile(MsdxInputSource.fromString(mosdex));
+		factory.writeFile(file, MsdxOutputDestination.toStream(expected));
+		
+		ByteArrayOutputStream binary= new ByteArrayOutputStream();
+		factory.writeBinaryFile(
+			factory.readFile(MsdxInputSource.fromString(mosdex)), 
+			MsdxOutputDestination.toStream(binary));
+		
+		ByteArrayOutputStream actual= new ByteArrayOutputStream();
+		MsdxFile copy= factory.readBinaryFile(MsdxInputSource.fromStream(new ByteArrayInputStream(binary.toByteArray())));
+		factory.writeFile(copy, MsdxOutputDestination.toStream(actual));
+		
+		assertEquals(expected.toString(), actual.toString());
+		
+	}//binaryInstanceTest
+	
 	public static void displaySparkInstance() {
 			
 		String mosdex= 
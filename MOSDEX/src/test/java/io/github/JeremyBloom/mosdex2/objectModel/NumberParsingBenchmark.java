@@ -0,0 +1,127 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.objectModel;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import io.github.JeremyBloom.mosdex2.Msdx;
+import io.github.JeremyBloom.mosdex2.MsdxNumberScanner;
+
+/**
+ * Compares MsdxNumberScanner with the checks that MsdxRecord.readItem used to make on each double item:
+ * the two infinity sets, the double pattern, and then Double.valueOf.
+ * <p>
+ * The items follow the coefficients of a typical model file:
+ * mostly small whole numbers (e.g. the 1 and -1 of flow balance rows), costs with two decimals,
+ * some scientific notation, hex values written by IEEEDouble, and a few infinite bounds.
+ * The scanner's results are checked against Double.parseDouble before timing.
+ * <p>
+ * The number of items may be given as the first argument (default 1,000,000).
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class NumberParsingBenchmark {
+
+	static final int REPETITIONS= 5;
+
+	static final Pattern DOUBLE_PATTERN = Pattern.compile(
+	    "[\\x00-\\x20]*[+-]?(NaN|Infinity|((((\\p{Digit}+)(\\.)?((\\p{Digit}+)?)" +
+	    "([eE][+-]?(\\p{Digit}+))?)|(\\.((\\p{Digit}+))([eE][+-]?(\\p{Digit}+))?)|" +
+	    "(((0[xX](\\p{XDigit}+)(\\.)?)|(0[xX](\\p{XDigit}+)?(\\.)(\\p{XDigit}+)))" +
+	    "[pP][+-]?(\\p{Digit}+)))[fFdD]?))[\\x00-\\x20]*"
+	    );
+
+	static final Set<String> INFINITY= Set.of("Infinity", "INFINITY", "infinity");
+
+	static final Set<String> NEGATIVE_INFINITY= Set.of("-Infinity", "-INFINITY", "-infinity");
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		Msdx.GLOBAL.setDisplayTitle("Number Parsing Benchmark");
+		Msdx.GLOBAL.showDisplay();
+
+		int numberOfItems= args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		String[] items= coefficients(numberOfItems, new Random(2019));
+
+		for(String item: items)
+			if(!INFINITY.contains(item) && !NEGATIVE_INFINITY.contains(item) &&
+					Double.doubleToRawLongBits(MsdxNumberScanner.parseDouble(item))!=Double.doubleToRawLongBits(Double.parseDouble(item)))
+				throw new IllegalStateException("Scanner differs from Double.parseDouble on " + item);
+
+		Msdx.GLOBAL.out.println(numberOfItems + " coefficient items");
+		for(int i= 0; i < REPETITIONS; i++) {
+			long start= System.nanoTime();
+			double sum= previous(items);
+			long previous= System.nanoTime() - start;
+			start= System.nanoTime();
+			sum-= scanner(items);
+			long scanner= System.nanoTime() - start;
+			Msdx.GLOBAL.out.println(String.format("pattern and Double.valueOf %8.1f M items/s   scanner %8.1f M items/s   (check %s)",
+				1e3*numberOfItems/previous, 1e3*numberOfItems/scanner, sum==0.0 || Double.isNaN(sum) ? "ok" : sum));
+		}
+	}//main
+
+	/**
+	 * @param numberOfItems
+	 * @param random
+	 * @return coefficient strings as they appear in model files
+	 */
+	static String[] coefficients(int numberOfItems, Random random) {
+		String[] items= new String[numberOfItems];
+		for(int i= 0; i < numberOfItems; i++) {
+			int kind= random.nextInt(100);
+			if(kind < 50)		//flow balance and assignment coefficients
+				items[i]= Integer.toString(random.nextBoolean() ? 1 : -1);
+			else if(kind < 65)	//small whole numbers
+				items[i]= Double.toString(random.nextInt(1000));
+			else if(kind < 85)	//costs
+				items[i]= Double.toString(random.nextInt(100_000)/100.0);
+			else if(kind < 92)	//scientific
+				items[i]= String.format("%.4e", random.nextDouble()*Math.pow(10, random.nextInt(12) - 6));
+			else if(kind < 98)	//solver values written by IEEEDouble
+				items[i]= Double.toHexString(random.nextDouble()*1000);
+			else				//bounds
+				items[i]= random.nextBoolean() ? "Infinity" : "-Infinity";
+		}
+		return items;
+	}//coefficients
+
+	/**@return the sum of the finite items parsed as readItem used to*/
+	static double previous(String[] items) {
+		double sum= 0;
+		for(String item: items) {
+			double value;
+			if(INFINITY.contains(item))
+				value= Double.POSITIVE_INFINITY;
+			else if(NEGATIVE_INFINITY.contains(item))
+				value= Double.NEGATIVE_INFINITY;
+			else if(DOUBLE_PATTERN.matcher(item).matches())
+				value= Double.valueOf(item);
+			else
+				throw new NumberFormatException("Invalid as double " + item);
+			if(!Double.isInfinite(value))
+				sum+= value;
+		}
+		return sum;
+	}//previous
+
+	/**@return the sum of the finite items parsed by MsdxNumberScanner*/
+	static double scanner(String[] items) {
+		double sum= 0;
+		for(String item: items) {
+			double value= MsdxNumberScanner.parseDouble(item);
+			if(!Double.isInfinite(value))
+				sum+= value;
+		}
+		return sum;
+	}//scanner
+
+}//class NumberParsingBenchmark
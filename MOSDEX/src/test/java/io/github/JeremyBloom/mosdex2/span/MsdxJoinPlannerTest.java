@@ -0,0 +1,240 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.span;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
+
+/**
+ * Checks that every strategy of the join planner returns the same Records as a nested-loop join,
+ * that an outer join is keyed whichever strategy is chosen,
+ * and that the spill files of a join are deleted once it has been read or closed.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxJoinPlannerTest {
+
+	static final MsdxContainer<Class<?>> LEFT_SCHEMA= MsdxContainer.<Class<?>>builder()
+		.addItem("Row", String.class)
+		.addItem("Count", Integer.class)
+		.build();
+
+	static final MsdxContainer<Class<?>> RIGHT_SCHEMA= MsdxContainer.<Class<?>>builder()
+		.addItem("Row", String.class)
+		.addItem("Coefficient", Double.class)
+		.build();
+
+	/**Large enough to keep every join in memory.*/
+	static final MsdxJoinPlanner BROADCAST= new MsdxJoinPlanner(1_000_000, 4, null);
+
+	/**Small enough to merge or spill every join that can be.*/
+	static final MsdxJoinPlanner SPILLING= new MsdxJoinPlanner(16, 4, null);
+
+	@Test
+	public void broadcastLeftJoinMatchesNestedJoin() {
+		List<MsdxContainer<Object>> lefts= lefts(200, false), rights= rights(300, false);
+		MsdxSpan left= persistent(lefts, LEFT_SCHEMA), right= persistent(rights, RIGHT_SCHEMA);
+
+		assertEquals(MsdxJoinPlanner.Strategy.BROADCAST_HASH, BROADCAST.planLeftJoin(left, "Row", right, "Row"));
+		assertEquals(nestedLeftJoin(lefts, rights), BROADCAST.leftJoin(left, "Row", right, "Row", joiner()).toList());
+	}
+
+	@Test
+	public void sortMergeLeftJoinMatchesNestedJoin() {
+		List<MsdxContainer<Object>> lefts= lefts(200, false), rights= rights(300, false);
+		MsdxSpan left= persistent(lefts, LEFT_SCHEMA), right= persistent(rights, RIGHT_SCHEMA);
+
+		assertEquals(MsdxJoinPlanner.Strategy.SORT_MERGE, SPILLING.planLeftJoin(left, "Row", right, "Row"));
+		assertEquals(nestedLeftJoin(lefts, rights), SPILLING.leftJoin(left, "Row", right, "Row", joiner()).toList());
+	}
+
+	@Test
+	public void sortMergeIsExactWhenTheTailsAreUnsorted() {
+		int size= 2 * MsdxJoinPlanner.SORT_SAMPLE_SIZE;	//the tails are out of the samples
+		List<MsdxContainer<Object>> sortedLefts= lefts(size, false), unsortedLefts= lefts(size, true);
+		List<MsdxContainer<Object>> sortedRights= rights(size, false), unsortedRights= rights(size, true);
+
+		for(List<MsdxContainer<Object>> lefts: List.of(sortedLefts, unsortedLefts)) {
+			for(List<MsdxContainer<Object>> rights: List.of(sortedRights, unsortedRights)) {
+				MsdxSpan left= persistent(lefts, LEFT_SCHEMA), right= persistent(rights, RIGHT_SCHEMA);
+				assertEquals(MsdxJoinPlanner.Strategy.SORT_MERGE, SPILLING.planLeftJoin(left, "Row", right, "Row"));
+				assertEquals(nestedLeftJoin(lefts, rights), SPILLING.leftJoin(left, "Row", right, "Row", joiner()).toList());
+			}
+		}
+	}
+
+	@Test
+	public void partitionedLeftJoinMatchesNestedJoin() {
+		List<MsdxContainer<Object>> lefts= lefts(200, true), rights= rights(300, true);
+		MsdxSpan left= persistent(lefts, LEFT_SCHEMA);
+
+		assertEquals(MsdxJoinPlanner.Strategy.PARTITIONED_HASH,
+			SPILLING.planLeftJoin(left, "Row", stream(rights, RIGHT_SCHEMA), "Row"));
+		MsdxSpan joined= SPILLING.leftJoin(left, "Row", stream(rights, RIGHT_SCHEMA), "Row", joiner());
+		assertEquals(sorted(nestedLeftJoin(lefts, rights)), sorted(joined.toList()));
+	}
+
+	@Test
+	public void outerJoinsMatchNestedJoinAndAreKeyed() {
+		List<MsdxContainer<Object>> lefts= lefts(200, true), rights= rights(300, true);
+		Map<Object, MsdxContainer<Object>> expected= nestedOuterJoin(lefts, rights);
+
+		assertEquals(MsdxJoinPlanner.Strategy.BROADCAST_HASH,
+			BROADCAST.planOuterJoin(persistent(lefts, LEFT_SCHEMA), "Row", persistent(rights, RIGHT_SCHEMA), "Row", LEFT_SCHEMA));
+		assertEquals(MsdxJoinPlanner.Strategy.PARTITIONED_HASH,
+			SPILLING.planOuterJoin(persistent(lefts, LEFT_SCHEMA), "Row", persistent(rights, RIGHT_SCHEMA), "Row", LEFT_SCHEMA));
+		assertEquals(MsdxJoinPlanner.Strategy.PARTITIONED_HASH,
+			BROADCAST.planOuterJoin(stream(lefts, LEFT_SCHEMA), "Row", stream(rights, RIGHT_SCHEMA), "Row", LEFT_SCHEMA));
+
+		List<MsdxSpan> joins= List.of(
+			BROADCAST.outerJoin(persistent(lefts, LEFT_SCHEMA), "Row", persistent(rights, RIGHT_SCHEMA), "Row", joiner()),
+			BROADCAST.outerJoin(stream(lefts, LEFT_SCHEMA), "Row", stream(rights, RIGHT_SCHEMA), "Row", joiner()),	//hashed in memory
+			SPILLING.outerJoin(stream(lefts, LEFT_SCHEMA), "Row", stream(rights, RIGHT_SCHEMA), "Row", joiner()));	//spilled
+		for(MsdxSpan joined: joins) {
+			assertTrue(joined.isKeyed());
+			assertEquals("Row", joined.getKeyFieldName());
+			assertEquals(expected.size(), joined.count());
+			assertEquals(new LinkedHashMap<Object, MsdxContainer<Object>>(expected).entrySet(),
+				new LinkedHashMap<Object, MsdxContainer<Object>>(joined.getAsMap()).entrySet());
+		}
+	}
+
+	@Test
+	public void deletesItsSpillFiles() throws IOException {
+		List<MsdxContainer<Object>> lefts= lefts(200, true), rights= rights(300, true);
+		Path directory= Files.createTempDirectory("join");
+		try {
+			MsdxJoinPlanner spilling= new MsdxJoinPlanner(16, 4, directory);
+			MsdxSpan sortMerged= spilling.leftJoin(persistent(lefts(200, false), LEFT_SCHEMA), "Row", persistent(rights, RIGHT_SCHEMA), "Row", joiner());
+			assertEquals(nestedLeftJoin(lefts(200, false), rights), sortMerged.toList());		//read to the end, but not closed
+			assertEquals(0, countFiles(directory));
+
+			MsdxSpan partitioned= spilling.leftJoin(persistent(lefts, LEFT_SCHEMA), "Row", stream(rights, RIGHT_SCHEMA), "Row", joiner());
+			assertEquals(sorted(nestedLeftJoin(lefts, rights)), sorted(partitioned.toList()));
+			assertEquals(0, countFiles(directory));
+
+			MsdxSpan outer= spilling.outerJoin(stream(lefts, LEFT_SCHEMA), "Row", stream(rights, RIGHT_SCHEMA), "Row", joiner());
+			assertEquals(nestedOuterJoin(lefts, rights).size(), outer.count());
+			assertEquals(1, countFiles(directory));
+			((MsdxJavaSpan.Keyed) outer).close();
+			assertEquals(0, countFiles(directory));
+		} finally {
+			Files.delete(directory);
+		}
+	}
+
+	static long countFiles(Path directory) throws IOException {
+		try(Stream<Path> files= Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	/**@return Records with every key of the right side but the fifth, and two Records for every seventh key*/
+	static List<MsdxContainer<Object>> lefts(int size, boolean unsortedTail) {
+		List<MsdxContainer<Object>> records= new ArrayList<MsdxContainer<Object>>();
+		for(int i= 0; i < size; i++) {
+			if(i % 5 == 4)
+				continue;
+			records.add(MsdxRecord.create(LEFT_SCHEMA, key(i), Integer.valueOf(i)));
+			if(i % 7 == 0)
+				records.add(MsdxRecord.create(LEFT_SCHEMA, key(i), Integer.valueOf(-i)));
+		}
+		if(unsortedTail)
+			Collections.swap(records, records.size() - 1, records.size() - 3);
+		return records;
+	}
+
+	/**@return Records with distinct keys, every third one missing*/
+	static List<MsdxContainer<Object>> rights(int size, boolean unsortedTail) {
+		List<MsdxContainer<Object>> records= new ArrayList<MsdxContainer<Object>>();
+		for(int i= 0; i < size; i++)
+			if(i % 3 != 2)
+				records.add(MsdxRecord.create(RIGHT_SCHEMA, key(i), Double.valueOf(i / 2.0)));
+		if(unsortedTail)
+			Collections.swap(records, records.size() - 1, records.size() - 2);
+		return records;
+	}
+
+	static String key(int i) {
+		return String.format("row%05d", i);
+	}
+
+	static MsdxSpan persistent(List<MsdxContainer<Object>> records, MsdxContainer<Class<?>> schema) {
+		return new MsdxJavaSpan.Persistent(records, schema);
+	}
+
+	static MsdxSpan stream(List<MsdxContainer<Object>> records, MsdxContainer<Class<?>> schema) {
+		return new MsdxJavaSpan(records.stream(), schema);
+	}
+
+	static OperatorWithTwoArguments joiner() {
+		return MsdxSpan.merge().withResultSchema(LEFT_SCHEMA, "Row", RIGHT_SCHEMA, "Row");
+	}
+
+	/**Joins each Record of the left side with the Record of the right side with the same key, if any.*/
+	static List<MsdxContainer<Object>> nestedLeftJoin(List<MsdxContainer<Object>> lefts, List<MsdxContainer<Object>> rights) {
+		OperatorWithTwoArguments joiner= joiner();
+		List<MsdxContainer<Object>> joined= new ArrayList<MsdxContainer<Object>>();
+		for(MsdxContainer<Object> left: lefts) {
+			MsdxContainer<Object> match= null;
+			for(MsdxContainer<Object> right: rights)
+				if(right.get("Row").equals(left.get("Row")))
+					match= right;
+			joined.add(joiner.apply(Optional.of(left), Optional.ofNullable(match)));
+		}
+		return joined;
+	}//nestedLeftJoin
+
+	/**Folds the Records of each key, those of the left side first, in key order.*/
+	static Map<Object, MsdxContainer<Object>> nestedOuterJoin(List<MsdxContainer<Object>> lefts, List<MsdxContainer<Object>> rights) {
+		OperatorWithTwoArguments joiner= joiner();
+		List<Object> keys= new ArrayList<Object>();
+		lefts.forEach(record -> keys.add(record.get("Row")));
+		rights.forEach(record -> keys.add(record.get("Row")));
+		Map<Object, MsdxContainer<Object>> joined= new LinkedHashMap<Object, MsdxContainer<Object>>();
+		for(Object key: keys.stream().distinct().sorted().collect(Collectors.toList())) {
+			MsdxContainer<Object> accumulation= null;
+			for(MsdxContainer<Object> left: lefts)
+				if(left.get("Row").equals(key))
+					accumulation= fold(joiner, accumulation, joiner.apply(Optional.of(left), Optional.empty()));
+			for(MsdxContainer<Object> right: rights)
+				if(right.get("Row").equals(key))
+					accumulation= fold(joiner, accumulation, joiner.apply(Optional.empty(), Optional.of(right)));
+			joined.put(key, accumulation);
+		}
+		return joined;
+	}//nestedOuterJoin
+
+	static MsdxContainer<Object> fold(OperatorWithTwoArguments joiner, MsdxContainer<Object> accumulation, MsdxContainer<Object> record) {
+		return accumulation==null ? record : joiner.apply(Optional.of(accumulation), Optional.of(record));
+	}
+
+	static List<MsdxContainer<Object>> sorted(List<MsdxContainer<Object>> records) {
+		List<MsdxContainer<Object>> sorted= new ArrayList<MsdxContainer<Object>>(records);
+		sorted.sort(Comparator.comparing(MsdxContainer::toString));
+		return sorted;
+	}
+
+}//class MsdxJoinPlannerTest
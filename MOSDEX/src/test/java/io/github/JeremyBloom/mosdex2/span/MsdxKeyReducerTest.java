@@ -0,0 +1,221 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.span;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
+
+/**
+ * Checks that reduceByKey with hot keys split into chunks returns the same Containers, in the same key order,
+ * as folding the Records of each key one after another, on the calling thread and on an executor,
+ * and that the keys of an operator that is not splittable are accumulated whole.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxKeyReducerTest {
+
+	static final MsdxContainer<Class<?>> SCHEMA= MsdxContainer.<Class<?>>builder()
+		.addItem("Row", String.class)
+		.addItem("Value", Integer.class)
+		.build();
+
+	/**Records of a hot objective row, a warm row and many cold rows, interleaved.*/
+	static List<MsdxContainer<Object>> records() {
+		List<MsdxContainer<Object>> records= new ArrayList<MsdxContainer<Object>>();
+		for(int i= 0; i < 5_000; i++) {
+			records.add(MsdxRecord.create(SCHEMA, "cost", Integer.valueOf(i)));
+			if(i % 3 == 0)
+				records.add(MsdxRecord.create(SCHEMA, "supply", Integer.valueOf(-i)));
+			if(i % 10 == 0)
+				records.add(MsdxRecord.create(SCHEMA, "demand_" + (i / 10 % 70), Integer.valueOf(i)));
+		}
+		return records;
+	}
+
+	/**
+	 * Collects the Values of a key in order, so that a result depends on the order in which the partial accumulations are combined.
+	 */
+	static class Listing extends OperatorWithAccumulator<List<Object>> {
+
+		final boolean concurrent;
+		final boolean splittable;
+		final AtomicInteger supplied= new AtomicInteger();
+		final AtomicInteger longestChain= new AtomicInteger();
+
+		Listing(boolean concurrent) {
+			this(concurrent, true);
+		}
+
+		Listing(boolean concurrent, boolean splittable) {
+			super();
+			this.concurrent= concurrent;
+			this.splittable= splittable;
+		}
+
+		@Override
+		public OperatorWithAccumulator<List<Object>> withResultSchema(MsdxContainer<Class<?>> inputSchema, String keyFieldName) {
+			this.inputSchema= inputSchema;
+			this.keyFieldName= keyFieldName;
+			this.resultSchema= MsdxContainer.<Class<?>>builder()
+				.addItem("Row", String.class)
+				.addItem("Values", String.class)
+				.build();
+			return this;
+		}
+
+		@Override
+		public boolean isSplittable() {
+			return splittable;
+		}
+
+		@Override
+		public boolean isConcurrent() {
+			return concurrent;
+		}
+
+		@Override
+		public List<Object> supply() {
+			supplied.incrementAndGet();
+			return new ArrayList<Object>();
+		}
+
+		@Override
+		public void accumulate(List<Object> accumulation, MsdxContainer<Object> record) {
+			if(accumulation.isEmpty())
+				accumulation.add(record.get("Row"));
+			accumulation.add(record.get("Value"));
+			longestChain.accumulateAndGet(accumulation.size() - 1, Math::max);
+		}
+
+		@Override
+		public List<Object> combine(List<Object> accumulation1, List<Object> accumulation2) {
+			if(accumulation1.isEmpty())
+				return accumulation2;
+			if(!accumulation2.isEmpty())
+				accumulation1.addAll(accumulation2.subList(1, accumulation2.size()));
+			return accumulation1;
+		}
+
+		@Override
+		public MsdxContainer<Object> finish(List<Object> accumulation) {
+			return MsdxRecord.create(resultSchema, accumulation.get(0), accumulation.subList(1, accumulation.size()).toString());
+		}
+
+	}//class MsdxKeyReducerTest.Listing
+
+	/**Folds the Records of each key one after another, in the order the keys first occur.*/
+	static Map<Object, MsdxContainer<Object>> sequential(List<MsdxContainer<Object>> records) {
+		Listing listing= new Listing(false);
+		listing.withResultSchema(SCHEMA, "Row");
+		Map<Object, List<Object>> accumulations= new LinkedHashMap<Object, List<Object>>();
+		for(MsdxContainer<Object> record: records)
+			listing.accumulate(accumulations.computeIfAbsent(record.get("Row"), key -> listing.supply()), record);
+		Map<Object, MsdxContainer<Object>> reduced= new LinkedHashMap<Object, MsdxContainer<Object>>();
+		accumulations.forEach((key, accumulation) -> reduced.put(key, listing.finish(accumulation)));
+		return reduced;
+	}//sequential
+
+	static <A> Map<Object, MsdxContainer<Object>> reduce(MsdxKeyReducer reducer, List<MsdxContainer<Object>> records,
+		OperatorWithAccumulator<A> combiner)
+	{
+		combiner.withResultSchema(SCHEMA, "Row");
+		return reducer.reduceByKey(records.stream(), "Row", combiner);
+	}
+
+	@Test
+	public void chunksHotKeysOnTheCallingThread() {
+		List<MsdxContainer<Object>> records= records();
+		Listing listing= new Listing(false);
+		Map<Object, MsdxContainer<Object>> reduced= reduce(new MsdxKeyReducer(1_000, 256, null), records, listing);
+
+		assertEquals(sequential(records), reduced);
+		assertEquals(new ArrayList<Object>(sequential(records).keySet()), new ArrayList<Object>(reduced.keySet()));
+		assertEquals(1_000, listing.longestChain.get());
+		//cost: 1,000 then 16 chunks; supply: 1,000 then 3 chunks; 70 cold rows
+		assertEquals(1 + 16 + 1 + 3 + 70, listing.supplied.get());
+	}
+
+	@Test
+	public void declaredHotKeysAreChunkedFromTheirFirstRecord() {
+		List<MsdxContainer<Object>> records= records();
+		Listing listing= new Listing(false);
+		listing.withHotKeys(Set.of("cost"));
+		Map<Object, MsdxContainer<Object>> reduced= reduce(new MsdxKeyReducer(100_000, 256, null), records, listing);
+
+		assertEquals(sequential(records), reduced);
+		assertEquals(20 + 1 + 70, listing.supplied.get());		//cost: 20 chunks
+		assertEquals(1_667, listing.longestChain.get());		//supply is never hot
+	}
+
+	@Test
+	public void chunksHotKeysOnAnExecutor() {
+		List<MsdxContainer<Object>> records= records();
+		ExecutorService executor= Executors.newFixedThreadPool(4);
+		try {
+			for(int chunkSize: new int[] {1, 7, 256, 10_000}) {
+				Listing listing= new Listing(true);
+				listing.withHotKeys(Set.of("supply"));
+				assertEquals(sequential(records), reduce(new MsdxKeyReducer(500, chunkSize, executor), records, listing));
+				assertTrue(listing.longestChain.get() <= Math.max(500, chunkSize));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void keysOfAnOperatorThatIsNotSplittableAreNeverChunked() {
+		List<MsdxContainer<Object>> records= records();
+		ExecutorService executor= Executors.newFixedThreadPool(2);
+		try {
+			Listing listing= new Listing(true, false);
+			listing.withHotKeys(Set.of("cost"));
+			assertEquals(sequential(records), reduce(new MsdxKeyReducer(100, 64, executor), records, listing));
+			assertEquals(1 + 1 + 70, listing.supplied.get());
+			assertEquals(5_000, listing.longestChain.get());
+		} finally {
+			executor.shutdown();
+		}
+		assertFalse(OperatorWithAccumulator.folding(MsdxSpan.merge()).isSplittable());
+	}
+
+	@Test
+	public void failuresOnTheExecutorAreRethrown() {
+		List<MsdxContainer<Object>> records= records();
+		ExecutorService executor= Executors.newFixedThreadPool(2);
+		try {
+			Listing failing= new Listing(true) {
+				@Override
+				public void accumulate(List<Object> accumulation, MsdxContainer<Object> record) {
+					if(Integer.valueOf(4_321).equals(record.get("Value")))
+						throw new IllegalStateException("Bad term");
+					super.accumulate(accumulation, record);
+				}
+			};
+			assertThrows(IllegalStateException.class, () -> reduce(new MsdxKeyReducer(100, 64, executor), records, failing));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}//class MsdxKeyReducerTest
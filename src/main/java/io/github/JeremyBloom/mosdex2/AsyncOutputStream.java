@@ -0,0 +1,220 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An output stream that hands its bytes to a background writer thread through a ring buffer.
+ * Writers only copy bytes into the buffer, so printing diagnostics does not wait on the console
+ * (or whatever the target is) unless the buffer is full.
+ * Flushing only wakes the writer thread; use drain to wait until everything written so far
+ * has reached the target.
+ * Closing the stream drains it and stops the writer thread,
+ * but leaves the target open, since the target is usually the console.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class AsyncOutputStream extends OutputStream {
+
+	/**Default capacity of the ring buffer in bytes.*/
+	public static final int DEFAULT_CAPACITY= 1 << 20;
+
+	private final OutputStream target;
+	private final byte[] ring;
+	private final ReentrantLock lock;
+	private final Condition notEmpty;
+	private final Condition notFull;
+	private final Condition drained;
+
+	/**Total bytes written to the ring and total bytes taken by the writer thread; their difference is the fill.*/
+	private long head, tail;
+	/**Total bytes written to and flushed on the target.*/
+	private long flushed;
+	private boolean flushRequested;
+	private boolean closed;
+	private final Thread writer;
+
+	/**
+	 * Creates a stream and starts its writer thread.
+	 *
+	 * @param target receives the bytes on the writer thread
+	 * @param capacity ring buffer size in bytes
+	 */
+	public AsyncOutputStream(OutputStream target, int capacity) {
+		super();
+		if(capacity<1)
+			throw new IllegalArgumentException("Capacity must be positive");
+		this.target= target;
+		this.ring= new byte[capacity];
+		this.lock= new ReentrantLock();
+		this.notEmpty= lock.newCondition();
+		this.notFull= lock.newCondition();
+		this.drained= lock.newCondition();
+		this.writer= new Thread(this::writeLoop, "MOSDEX output");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Creates a stream with the default capacity and starts its writer thread.
+	 * @param target
+	 */
+	public AsyncOutputStream(OutputStream target) {
+		this(target, DEFAULT_CAPACITY);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		lock.lock();
+		try {
+			awaitSpace(1);
+			ring[(int) (head % ring.length)]= (byte) b;
+			head++;
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+	}//write
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		lock.lock();
+		try {
+			while(len>0) {
+				awaitSpace(1);
+				int start= (int) (head % ring.length);
+				int n= Math.min(len, Math.min(ring.length - (int) (head - tail), ring.length - start));
+				System.arraycopy(b, off, ring, start, n);
+				head+= n;
+				off+= n;
+				len-= n;
+				notEmpty.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}//write
+
+	/**
+	 * Wakes the writer thread so that buffered bytes reach the target promptly. Does not wait.
+	 */
+	@Override
+	public void flush() throws IOException {
+		lock.lock();
+		try {
+			ensureOpen();
+			flushRequested= true;
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+	}//flush
+
+	/**
+	 * Waits until every byte written so far has been written to and flushed on the target.
+	 * @throws IOException
+	 */
+	public void drain() throws IOException {
+		lock.lock();
+		try {
+			long mark= head;
+			flushRequested= true;
+			notEmpty.signal();
+			while(flushed<mark && writer.isAlive())
+				drained.awaitUninterruptibly();
+		} finally {
+			lock.unlock();
+		}
+	}//drain
+
+	@Override
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			if(closed)
+				return;
+		} finally {
+			lock.unlock();
+		}
+		drain();
+		lock.lock();
+		try {
+			closed= true;
+			notEmpty.signal();
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}//close
+
+	private void ensureOpen() throws IOException {
+		if(closed)
+			throw new IOException("Stream closed");
+	}
+
+	/**Called with the lock held.*/
+	private void awaitSpace(int n) throws IOException {
+		ensureOpen();
+		while(ring.length - (head - tail) < n) {
+			notFull.awaitUninterruptibly();
+			ensureOpen();
+		}
+	}//awaitSpace
+
+	/**
+	 * Runs on the writer thread: moves bytes from the ring to the target,
+	 * a contiguous run at a time, and flushes the target when the ring empties or a flush was requested.
+	 */
+	private void writeLoop() {
+		byte[] chunk= new byte[Math.min(ring.length, 1 << 16)];
+		while(true) {
+			int n;
+			long position;
+			boolean flush;
+			lock.lock();
+			try {
+				while(head==tail && !flushRequested && !closed)
+					notEmpty.awaitUninterruptibly();
+				if(head==tail && closed)
+					return;
+				int start= (int) (tail % ring.length);
+				n= (int) Math.min(head - tail, Math.min(chunk.length, ring.length - start));
+				System.arraycopy(ring, start, chunk, 0, n);
+				tail+= n;
+				position= tail;
+				flush= head==tail;
+				if(flush)
+					flushRequested= false;
+				notFull.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			try {
+				target.write(chunk, 0, n);
+				if(flush)
+					target.flush();
+			} catch (IOException e) {
+				System.err.println(e.getMessage());
+				e.printStackTrace();
+			}
+			if(flush) {
+				lock.lock();
+				try {
+					flushed= position;
+					drained.signalAll();
+				} finally {
+					lock.unlock();
+				}
+			}
+		}//while
+	}//writeLoop
+
+}//class AsyncOutputStream
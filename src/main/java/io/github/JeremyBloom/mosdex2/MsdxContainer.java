@@ -15,9 +15,11 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -37,6 +39,24 @@ public class MsdxContainer<T> implements Serializable {
 	
 	private static final long serialVersionUID = -6901729464171054592L;
 
+	/**
+	 * The largest number of canonical Schemas kept (see canonicalSchema).
+	 */
+	public static final int MAX_CANONICAL_SCHEMAS= 1024;
+
+	/**
+	 * Holds the canonical instances of the most recently used Schemas, keyed by their field names and types in order. 
+	 * The least recently used Schema is dropped when there are more than MAX_CANONICAL_SCHEMAS.
+	 */
+	private static final Map<List<Object>, MsdxContainer<Class<?>>> SCHEMAS= Collections.synchronizedMap(
+		new LinkedHashMap<List<Object>, MsdxContainer<Class<?>>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<List<Object>, MsdxContainer<Class<?>>> eldest) {
+				return size() > MAX_CANONICAL_SCHEMAS;
+			}
+		});
+
 	/**
 	 * Holds the content of this Container.
 	 * Should use a LinkedHashMap to assure iteration order.
@@ -353,6 +373,45 @@ public class MsdxContainer<T> implements Serializable {
 					e));		
 	}//renameField
 	
+	/**
+	 * Returns the canonical instance of a Schema: 
+	 * one unmodifiable Container shared by all the Schemas with the same field names and types in the same order.
+	 * The Spans hold canonical Schemas, so that comparing the Schemas of two Spans (e.g. in union) 
+	 * is usually a reference comparison. 
+	 * Only the MAX_CANONICAL_SCHEMAS most recently used Schemas are kept, so a Schema that has been dropped 
+	 * gets a new canonical instance; sameSchema then falls back to comparing the contents.
+	 * 
+	 * @param schema
+	 * @return the canonical instance, which equals schema
+	 */
+	public static MsdxContainer<Class<?>> canonicalSchema(MsdxContainer<Class<?>> schema) {
+		List<Object> key= new ArrayList<Object>(2 * schema.size());
+		schema.items.forEach((name, type) -> {
+			key.add(name);
+			key.add(type);
+		});
+		MsdxContainer<Class<?>> canonical= SCHEMAS.get(key);
+		if(canonical==null) {
+			canonical= new MsdxContainer<Class<?>>(Collections.unmodifiableMap(new LinkedHashMap<String, Class<?>>(schema.items)));
+			MsdxContainer<Class<?>> previous= SCHEMAS.putIfAbsent(key, canonical);
+			if(previous!=null)
+				canonical= previous;
+		}
+		return canonical;
+	}//canonicalSchema
+
+	/**
+	 * Tests whether two Schemas are equal, 
+	 * by reference if both are canonical and otherwise by their contents.
+	 * 
+	 * @param schema
+	 * @param other
+	 * @return true if the Schemas are equal
+	 */
+	public static boolean sameSchema(MsdxContainer<Class<?>> schema, MsdxContainer<Class<?>> other) {
+		return schema==other || schema.equals(other);
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -581,6 +640,202 @@ public class MsdxContainer<T> implements Serializable {
 		}
 
 	}//class MsdxContainer.Builder
+
+	/**
+	 * A compiled plan for select, delete or merge, 
+	 * for applying the same operation to every Record of a Span.
+	 * <p>
+	 * The container methods work out which items to keep from the item names each time they are called: 
+	 * select and delete test every item against a Collection of names, merge checks every item for duplicates, 
+	 * and each streams the items through a Builder. 
+	 * A plan works this out once, from the Schema of the Records, 
+	 * as the name of each result item and the name of the item it is copied from,
+	 * so applying it to a Record only copies the items into a map of the right size.
+	 * The items of a merge that are in both Schemas are still checked for equal contents.
+	 * <p>
+	 * Operators create their plans in withResultSchema, where the Schemas of their arguments are known 
+	 * (see MsdxSpan.merge), and the result Schema of a plan is canonical (see canonicalSchema).
+	 * 
+	 * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+	 *
+	 */
+	public static final class Plan {
+		
+		/**Names of the result items, in order.*/
+		private final String[] names;
+		
+		/**Names of the items of the first (or left) argument from which the result items are copied, or null.*/
+		private final String[] leftNames;
+		
+		/**Names of the items of the right argument of a merge from which the result items are copied, or null.*/
+		private final String[] rightNames;
+		
+		/**Positions of the result items of a merge that are in both arguments.*/
+		private final int[] shared;
+		
+		/**True for a merge plan, which applies to two Containers.*/
+		private final boolean merging;
+		
+		private final MsdxContainer<Class<?>> resultSchema;
+		
+		private Plan(List<String> names, List<String> leftNames, List<String> rightNames, List<Integer> shared, 
+			MsdxContainer<Class<?>> resultSchema) 
+		{
+			super();
+			this.names= names.toArray(new String[0]);
+			this.leftNames= leftNames.toArray(new String[0]);
+			this.rightNames= rightNames.toArray(new String[0]);
+			this.shared= shared.stream().mapToInt(Integer::intValue).toArray();
+			this.merging= !rightNames.isEmpty();
+			this.resultSchema= canonicalSchema(resultSchema);
+		}
+		
+		/**
+		 * Compiles select for the Records of a Schema.
+		 * 
+		 * @param schema of the input Records
+		 * @param itemNames to keep; names not in the Schema are ignored
+		 * @return a plan
+		 */
+		public static Plan select(MsdxContainer<Class<?>> schema, Collection<String> itemNames) {
+			Set<String> kept= new LinkedHashSet<String>(itemNames);
+			return project(schema, name -> kept.contains(name));
+		}
+		
+		/**
+		 * Compiles delete for the Records of a Schema.
+		 * 
+		 * @param schema of the input Records
+		 * @param itemNames to delete; names not in the Schema are ignored
+		 * @return a plan
+		 */
+		public static Plan delete(MsdxContainer<Class<?>> schema, Collection<String> itemNames) {
+			Set<String> deleted= new LinkedHashSet<String>(itemNames);
+			return project(schema, name -> !deleted.contains(name));
+		}
+		
+		private static Plan project(MsdxContainer<Class<?>> schema, Predicate<String> keep) {
+			List<String> names= new ArrayList<String>();
+			MsdxContainer.Builder<Class<?>> result= MsdxContainer.builder();
+			for(Map.Entry<String, Class<?>> field: schema.items.entrySet())
+				if(keep.test(field.getKey())) {
+					names.add(field.getKey());
+					result.addItem(field.getKey(), field.getValue());
+				}
+			return new Plan(names, names, Collections.emptyList(), Collections.emptyList(), result.build());
+		}//project
+		
+		/**
+		 * Compiles merge for the Records of two Schemas, 
+		 * as left.merge(right.delete(rightDeleted)).
+		 * 
+		 * @param leftSchema
+		 * @param rightSchema
+		 * @param rightDeleted names of the items of the right Records to leave out (e.g. the key field of a join)
+		 * @return a plan
+		 * @throws IllegalArgumentException if both Schemas have a field with the same name but different types
+		 */
+		public static Plan merge(MsdxContainer<Class<?>> leftSchema, MsdxContainer<Class<?>> rightSchema, String... rightDeleted) {
+			Set<String> deleted= new LinkedHashSet<String>(Arrays.asList(rightDeleted));
+			MsdxContainer.Builder<Class<?>> result= MsdxContainer.builder();
+			List<String> names= new ArrayList<String>();
+			List<String> leftNames= new ArrayList<String>();
+			List<String> rightNames= new ArrayList<String>();
+			List<Integer> shared= new ArrayList<Integer>();
+			for(Map.Entry<String, Class<?>> field: leftSchema.items.entrySet()) {
+				result.addItem(field.getKey(), field.getValue());
+				names.add(field.getKey());
+				leftNames.add(field.getKey());
+				rightNames.add(null);
+			}
+			for(Map.Entry<String, Class<?>> field: rightSchema.items.entrySet()) {
+				String name= field.getKey();
+				if(deleted.contains(name))
+					continue;
+				result.addItem(name, field.getValue());	//checks the types of the shared fields
+				int i= names.indexOf(name);
+				if(i >= 0) {
+					rightNames.set(i, name);
+					shared.add(i);
+					continue;
+				}
+				names.add(name);
+				leftNames.add(null);
+				rightNames.add(name);
+			}
+			return new Plan(names, leftNames, rightNames, shared, result.build());
+		}//merge
+		
+		/**@return the Schema of the result Records (canonical)*/
+		public MsdxContainer<Class<?>> getResultSchema() {
+			return resultSchema;
+		}
+		
+		/**
+		 * Applies a select or delete plan. 
+		 * As with the container methods, items of the plan that are missing from the input are left out.
+		 * 
+		 * @param <T>
+		 * @param input
+		 * @return a new Container
+		 * @throws IllegalStateException if this is a merge plan
+		 */
+		public <T> MsdxContainer<T> apply(MsdxContainer<T> input) {
+			if(merging)
+				throw new IllegalStateException("A merge plan applies to two containers");
+			Map<String, T> result= new LinkedHashMap<String, T>(capacity(names.length));
+			for(int i= 0; i < names.length; i++)
+				copy(input.items, leftNames[i], result, names[i]);
+			return new MsdxContainer<T>(result);
+		}//apply
+		
+		/**
+		 * Applies a merge plan.
+		 * 
+		 * @param <T>
+		 * @param left
+		 * @param right
+		 * @return a new Container
+		 * @throws IllegalArgumentException if both Containers have items with the same name but their contents do not match
+		 * @throws IllegalStateException if this is not a merge plan
+		 */
+		public <T> MsdxContainer<T> apply(MsdxContainer<T> left, MsdxContainer<T> right) {
+			if(!merging)
+				throw new IllegalStateException("Only a merge plan applies to two containers");
+			Map<String, T> result= new LinkedHashMap<String, T>(capacity(names.length));
+			for(int i= 0; i < names.length; i++)
+				if(leftNames[i]!=null)
+					copy(left.items, leftNames[i], result, names[i]);
+				else
+					copy(right.items, rightNames[i], result, names[i]);
+			for(int i: shared) {
+				if(!right.items.containsKey(rightNames[i]))
+					continue;
+				T value= right.items.get(rightNames[i]);
+				if(!result.containsKey(names[i]))
+					result.put(names[i], value);
+				else if(!Objects.equals(value, result.get(names[i])))
+					throw new IllegalArgumentException("Duplicate item name " + names[i]);
+			}
+			return new MsdxContainer<T>(result);
+		}//apply
+		
+		private static <T> void copy(Map<String, T> from, String fromName, Map<String, T> to, String toName) {
+			T value= from.get(fromName);
+			if(value!=null || from.containsKey(fromName))
+				to.put(toName, value);
+		}
+		
+		private static int capacity(int size) {
+			return size * 4 / 3 + 1;
+		}
+		
+		@Override
+		public String toString() {
+			return "Plan " + Arrays.toString(names);
+		}
+		
+	}//class MsdxContainer.Plan
 	
 
 }//class MsdxContainer
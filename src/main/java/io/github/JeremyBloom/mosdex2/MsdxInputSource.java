@@ -13,6 +13,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Paths;
+import java.util.function.Supplier;
 
 /**
  * Provides a standard source for reading a MOSDEX JSON File.
@@ -21,6 +22,11 @@ import java.nio.file.Paths;
  * The constructors and static factories set up the input source. 
  * The MOSDEX Object Factory creates a JSON parser from the Input Source and uses it in the 
  * Factory's read methods to create the MOSDEX Object Model from the JSON.
+ * <p>
+ * An Input Source created from a file, path, URL, resource, or string can be reopened, 
+ * which gives a new Input Source reading the same content from the start 
+ * (e.g. for a first pass over a file that only reads its Schemas and Queries). 
+ * An Input Source created from a stream cannot.
  *
  * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
  *
@@ -28,6 +34,9 @@ import java.nio.file.Paths;
 public class MsdxInputSource extends InputStream {
 	
 	private InputStream sourceStream;
+	
+	/**Opens the source again; null if the source cannot be reopened.*/
+	private Supplier<InputStream> opener;
 
 	/**
 	 * Creates a new Input Source instance. 
@@ -35,8 +44,19 @@ public class MsdxInputSource extends InputStream {
 	 * @param sourceStream
 	 */
 	protected MsdxInputSource(InputStream sourceStream) {
+		this(sourceStream, null);
+	}
+
+	/**
+	 * Creates a new Input Source instance that can be reopened. 
+	 * Prefer using the static from... methods to create an Input Source.
+	 * @param sourceStream
+	 * @param opener opens a new stream on the same content, or null if the source cannot be reopened
+	 */
+	protected MsdxInputSource(InputStream sourceStream, Supplier<InputStream> opener) {
 		super();
 		this.sourceStream = sourceStream;
+		this.opener = opener;
 	}
 
 	/**@return the source input stream*/
@@ -44,6 +64,21 @@ public class MsdxInputSource extends InputStream {
 		return sourceStream;
 	}
 
+	/**@return true if this source can be reopened*/
+	public boolean isReopenable() {
+		return opener!=null;
+	}
+	
+	/**
+	 * @return a new Input Source reading the content of this source from the start
+	 * @throws IllegalStateException if this source cannot be reopened
+	 */
+	public MsdxInputSource reopen() {
+		if(opener==null)
+			throw new IllegalStateException("Input source cannot be reopened");
+		return new MsdxInputSource(opener.get(), opener);
+	}
+
 	/**Reads the next byte of data from the input stream.*/
 	@Override
 	public int read() throws IOException {
@@ -69,14 +104,17 @@ public class MsdxInputSource extends InputStream {
 	 * @return a new Input Source from the source file
 	 */
 	public static MsdxInputSource fromFile(File sourceFile) {
-		FileInputStream src= null;
-		try {
-			src= new FileInputStream(sourceFile);
-		} catch (FileNotFoundException e) {
-			System.err.println(e.getMessage());
-			e.printStackTrace(System.err);
-		}
-		return MsdxInputSource.fromStream(src);
+		Supplier<InputStream> opener= () -> {
+			FileInputStream src= null;
+			try {
+				src= new FileInputStream(sourceFile);
+			} catch (FileNotFoundException e) {
+				System.err.println(e.getMessage());
+				e.printStackTrace(System.err);
+			}
+			return src;
+		};
+		return new MsdxInputSource(opener.get(), opener);
 	}//fromFile
 	
 	/**
@@ -92,14 +130,17 @@ public class MsdxInputSource extends InputStream {
 	 * @return a new Input Source from the file designated by the source URL
 	 */
 	public static MsdxInputSource fromURL(URL sourceURL) {
-		InputStream src= null;
-		try {
-			src= sourceURL.openStream();
-		} catch (IOException e) {
-			System.err.println(e.getMessage());
-			e.printStackTrace(System.err);
-		}
-		return MsdxInputSource.fromStream(src);
+		Supplier<InputStream> opener= () -> {
+			InputStream src= null;
+			try {
+				src= sourceURL.openStream();
+			} catch (IOException e) {
+				System.err.println(e.getMessage());
+				e.printStackTrace(System.err);
+			}
+			return src;
+		};
+		return new MsdxInputSource(opener.get(), opener);
 	}//fromURL
 	
 	/**
@@ -113,7 +154,7 @@ public class MsdxInputSource extends InputStream {
 		if(resource == null) {
 			throw new IllegalArgumentException("Resource file " + sourcePath + " not found");
 		}
-		return MsdxInputSource.fromStream(resource);
+		return new MsdxInputSource(resource, () -> loader.getResourceAsStream(sourcePath));
 	}//fromResource
 	
 	/**
@@ -121,7 +162,8 @@ public class MsdxInputSource extends InputStream {
 	 * @return a new Input Source from the source string
 	 */
 	public static MsdxInputSource fromString(String sourceString) {
-		return MsdxInputSource.fromStream(new ByteArrayInputStream(sourceString.getBytes()));						
+		byte[] bytes= sourceString.getBytes();
+		return new MsdxInputSource(new ByteArrayInputStream(bytes), () -> new ByteArrayInputStream(bytes));						
 	}//fromString
 	
 
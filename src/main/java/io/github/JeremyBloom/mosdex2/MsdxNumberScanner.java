@@ -0,0 +1,277 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2;
+
+/**
+ * Parses the numeric items of MOSDEX Records in one pass over the characters of the item.
+ * <p>
+ * A MOSDEX double item is either a decimal number (e.g. 12.75 or 3.2e-4),
+ * a hexadecimal IEEE 754 number as written by IEEEDouble (e.g. 0x1.8p1),
+ * or one of the infinity spellings Infinity, INFINITY or infinity, with an optional sign.
+ * Checking an item against each form in turn and then parsing it reads the item four times;
+ * this class recognizes the form and computes the value as it reads.
+ * <p>
+ * The value is computed directly when that is exact:
+ * a decimal with at most 18 significant digits whose value and power of ten are both exactly representable
+ * (e.g. 12.75 is 1275 / 100, two exact doubles and one correctly rounded division),
+ * or a hexadecimal whose significand fits in 53 bits and whose value is a normal double.
+ * Any other item (e.g. one with many digits, a subnormal value, or NaN)
+ * falls back to Double.parseDouble, which also reports items that are not numbers.
+ * So the result is always the correctly rounded value that Double.parseDouble would return.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public final class MsdxNumberScanner {
+
+	/**The powers of ten that are exactly representable as doubles.*/
+	private static final double[] POWERS_OF_TEN= {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+	/**The powers of ten that are exactly representable as longs below 2^53.*/
+	private static final long[] LONG_POWERS_OF_TEN= {
+		1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+		1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+		10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L};
+
+	/**The largest significand of a double, 2^53.*/
+	private static final long MAX_EXACT= 1L << 53;
+
+	private static final String[] INFINITY_SPELLINGS= {"Infinity", "INFINITY", "infinity"};
+
+	private MsdxNumberScanner() {
+		super();
+	}
+
+	/**
+	 * Parses a double item.
+	 *
+	 * @param s a decimal or hexadecimal number, or an infinity spelling, optionally signed and surrounded by white space
+	 * @return the value of s
+	 * @throws NumberFormatException if s is not a number
+	 */
+	public static double parseDouble(String s) {
+		int end= s.length();
+		int i= 0;
+		while(i < end && s.charAt(i) <= ' ')
+			i++;
+		while(end > i && s.charAt(end - 1) <= ' ')
+			end--;
+		if(i==end)
+			throw new NumberFormatException("Empty number");
+
+		boolean negative= false;
+		char c= s.charAt(i);
+		if(c=='-' || c=='+') {
+			negative= c=='-';
+			i++;
+		}
+		if(i==end)
+			throw new NumberFormatException("Invalid number " + s);
+
+		c= s.charAt(i);
+		if(c=='I' || c=='i') {
+			if(isInfinity(s, i, end))
+				return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+			throw new NumberFormatException("Invalid number " + s);
+		}
+		double value= (c=='0' && i + 1 < end && (s.charAt(i + 1)=='x' || s.charAt(i + 1)=='X')) ?
+			scanHexadecimal(s, i + 2, end) :
+			scanDecimal(s, i, end);
+		if(Double.isNaN(value))		//not parsed exactly
+			return Double.parseDouble(s);
+		return negative ? -value : value;
+	}//parseDouble
+
+	/**
+	 * Tests for an infinity spelling, with an optional sign, as used for the infinite items of Integer and Double fields.
+	 *
+	 * @param s
+	 * @return 1 for an infinity, -1 for a negative infinity, or 0 otherwise
+	 */
+	public static int infinity(String s) {
+		int end= s.length();
+		int i= 0;
+		while(i < end && s.charAt(i) <= ' ')
+			i++;
+		while(end > i && s.charAt(end - 1) <= ' ')
+			end--;
+		if(i==end)
+			return 0;
+		int sign= 1;
+		if(s.charAt(i)=='-' || s.charAt(i)=='+') {
+			sign= s.charAt(i)=='-' ? -1 : 1;
+			i++;
+		}
+		return isInfinity(s, i, end) ? sign : 0;
+	}//infinity
+
+	private static boolean isInfinity(String s, int start, int end) {
+		if(end - start != 8)
+			return false;
+		for(String spelling: INFINITY_SPELLINGS)
+			if(s.startsWith(spelling, start))
+				return true;
+		return false;
+	}//isInfinity
+
+	/**
+	 * Scans an unsigned decimal number.
+	 * @return its value, or NaN if it cannot be computed exactly here
+	 */
+	private static double scanDecimal(String s, int i, int end) {
+		long significand= 0;
+		int digits= 0;			//significant digits in significand
+		int exponent= 0;		//power of ten to apply to significand
+		boolean anyDigit= false;
+		boolean truncated= false;
+		char c;
+
+		for(; i < end && (c= s.charAt(i)) >= '0' && c <= '9'; i++) {
+			anyDigit= true;
+			if(digits < 18) {
+				significand= 10 * significand + (c - '0');
+				if(significand > 0)
+					digits++;
+			}
+			else {
+				exponent++;
+				truncated|= c!='0';
+			}
+		}
+		if(i < end && s.charAt(i)=='.') {
+			for(i++; i < end && (c= s.charAt(i)) >= '0' && c <= '9'; i++) {
+				anyDigit= true;
+				if(digits < 18) {
+					significand= 10 * significand + (c - '0');
+					if(significand > 0)
+						digits++;
+					exponent--;
+				}
+				else
+					truncated|= c!='0';
+			}
+		}
+		if(!anyDigit)
+			return Double.NaN;
+		if(i < end && ((c= s.charAt(i))=='e' || c=='E')) {
+			i++;
+			boolean negativeExponent= false;
+			if(i < end && ((c= s.charAt(i))=='-' || c=='+')) {
+				negativeExponent= c=='-';
+				i++;
+			}
+			int explicit= 0;
+			int start= i;
+			for(; i < end && (c= s.charAt(i)) >= '0' && c <= '9'; i++)
+				if(explicit < 100_000)
+					explicit= 10 * explicit + (c - '0');
+			if(i==start)
+				return Double.NaN;
+			exponent+= negativeExponent ? -explicit : explicit;
+		}
+		if(i < end && "fFdD".indexOf(s.charAt(i)) >= 0)
+			i++;
+		if(i!=end || truncated)
+			return Double.NaN;
+
+		if(significand==0)
+			return 0.0;
+		if(significand > MAX_EXACT)
+			return Double.NaN;
+		if(exponent==0)
+			return significand;
+		if(exponent < 0 && exponent >= -22)
+			return significand / POWERS_OF_TEN[-exponent];
+		if(exponent > 0 && exponent <= 22)
+			return significand * POWERS_OF_TEN[exponent];
+		if(exponent > 22 && exponent <= 22 + 15) {	//e.g. 12e30: move some of the power into the significand
+			long scale= LONG_POWERS_OF_TEN[exponent - 22];
+			if(significand <= MAX_EXACT / scale)
+				return (significand * scale) * POWERS_OF_TEN[22];
+		}
+		return Double.NaN;
+	}//scanDecimal
+
+	/**
+	 * Scans the part of an unsigned hexadecimal number after 0x.
+	 * @return its value, or NaN if it cannot be computed exactly here
+	 */
+	private static double scanHexadecimal(String s, int i, int end) {
+		long significand= 0;
+		int digits= 0;			//significant hex digits in significand
+		int exponent= 0;		//power of two to apply to significand
+		boolean anyDigit= false;
+		int digit;
+
+		for(; i < end && (digit= hexDigit(s.charAt(i))) >= 0; i++) {
+			anyDigit= true;
+			if(digits >= 15)
+				return Double.NaN;
+			significand= (significand << 4) | digit;
+			if(significand > 0)
+				digits++;
+		}
+		if(i < end && s.charAt(i)=='.') {
+			for(i++; i < end && (digit= hexDigit(s.charAt(i))) >= 0; i++) {
+				anyDigit= true;
+				if(digits >= 15) {
+					if(digit!=0)
+						return Double.NaN;
+					continue;
+				}
+				significand= (significand << 4) | digit;
+				if(significand > 0)
+					digits++;
+				exponent-= 4;
+			}
+		}
+		if(!anyDigit || i==end || (s.charAt(i)!='p' && s.charAt(i)!='P'))
+			return Double.NaN;
+		i++;
+		boolean negativeExponent= false;
+		char c;
+		if(i < end && ((c= s.charAt(i))=='-' || c=='+')) {
+			negativeExponent= c=='-';
+			i++;
+		}
+		int explicit= 0;
+		int start= i;
+		for(; i < end && (c= s.charAt(i)) >= '0' && c <= '9'; i++)
+			if(explicit < 100_000)
+				explicit= 10 * explicit + (c - '0');
+		if(i==start)
+			return Double.NaN;
+		exponent+= negativeExponent ? -explicit : explicit;
+		if(i < end && "fFdD".indexOf(s.charAt(i)) >= 0)
+			i++;
+		if(i!=end)
+			return Double.NaN;
+
+		if(significand==0)
+			return 0.0;
+		if(significand > MAX_EXACT)
+			return Double.NaN;
+		double value= significand;	//exact
+		int resultExponent= Math.getExponent(value) + exponent;
+		if(resultExponent < Double.MIN_EXPONENT || resultExponent > Double.MAX_EXPONENT)
+			return Double.NaN;		//subnormal or overflow
+		return Math.scalb(value, exponent);	//exact for a normal result
+	}//scanHexadecimal
+
+	/**@return the value of an ASCII hexadecimal digit, or -1*/
+	private static int hexDigit(char c) {
+		if(c >= '0' && c <= '9')
+			return c - '0';
+		if(c >= 'a' && c <= 'f')
+			return c - 'a' + 10;
+		if(c >= 'A' && c <= 'F')
+			return c - 'A' + 10;
+		return -1;
+	}//hexDigit
+
+}//class MsdxNumberScanner
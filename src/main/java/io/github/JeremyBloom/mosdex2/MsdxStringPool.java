@@ -0,0 +1,169 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds one canonical instance of each item of the key and identifier fields read into a Record.
+ * <p>
+ * The Row, Column and Name identifiers of a model repeat in every term that refers to them,
+ * so a table with millions of terms would otherwise hold millions of equal but distinct String instances.
+ * The readers (MsdxRecord.fromNode), the Spark row conversion and the record codec of spilled Spans
+ * pass each String item through intern, so that equal items share one instance.
+ * Besides saving heap, a shared instance caches its hash code once,
+ * and String.equals returns at once on the identity check when the Span joins compare keys.
+ * <p>
+ * Only the items of the pooled fields are kept: Row, Column and Name, 
+ * and the key fields of the data tables added by withKeyFields. 
+ * The items of other String fields are returned as they are, so free text does not fill the pool.
+ * <p>
+ * Each dataframe factory owns a pool (see MsdxDataframe.Factory.getStringPool), 
+ * which the application clears at the end of its run; 
+ * a spill store owns a pool for the Records it reads back, which it clears when it is deleted.
+ * Unlike String.intern, clearing releases the pooled strings; it does not affect the Strings already in use.
+ * The pool keeps counts of the strings it has seen, so that report can estimate the heap saved.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxStringPool {
+
+	/**The identifier fields of the modeling tables, which are always pooled.*/
+	public static final Set<String> IDENTIFIER_FIELDS= Set.of("Row", "Column", "Name");
+
+	/**Estimated heap of an empty String: the String object and the header of its byte array.*/
+	private static final int STRING_OVERHEAD= 24 + 16;
+
+	/**Names of the fields whose items are pooled.*/
+	private final Set<String> pooledFields;
+
+	/**Canonical instances, keyed by themselves.*/
+	private final Map<String, String> strings;
+
+	/**Number of strings passed to intern.*/
+	private final LongAdder lookups;
+
+	/**Number of strings replaced by an instance already in the pool.*/
+	private final LongAdder hits;
+
+	/**Estimated heap of the strings replaced by an instance already in the pool.*/
+	private final LongAdder bytesSaved;
+
+	/**
+	 * Creates an empty pool of the identifier fields.
+	 */
+	public MsdxStringPool() {
+		super();
+		this.pooledFields= ConcurrentHashMap.newKeySet();
+		this.pooledFields.addAll(IDENTIFIER_FIELDS);
+		this.strings= new ConcurrentHashMap<String, String>();
+		this.lookups= new LongAdder();
+		this.hits= new LongAdder();
+		this.bytesSaved= new LongAdder();
+	}
+
+	/**
+	 * Adds key fields whose items are pooled, e.g. the location and store keys of the data tables.
+	 *
+	 * @param fieldNames
+	 * @return this pool
+	 */
+	public MsdxStringPool withKeyFields(String... fieldNames) {
+		pooledFields.addAll(Arrays.asList(fieldNames));
+		return this;
+	}
+
+	/**
+	 * @param fieldName
+	 * @return true if the items of the field are pooled
+	 */
+	public boolean isPooled(String fieldName) {
+		return pooledFields.contains(fieldName);
+	}
+
+	/**
+	 * Returns the canonical instance of an item of a pooled field, adding the item to the pool if it is new.
+	 * The items of other fields are returned as they are.
+	 *
+	 * @param fieldName
+	 * @param string an item of the field
+	 * @return an instance equal to string, or null if string is null
+	 */
+	public String intern(String fieldName, String string) {
+		if(string==null || !isPooled(fieldName))
+			return string;
+		lookups.increment();
+		String canonical= strings.putIfAbsent(string, string);
+		if(canonical==null)
+			return string;
+		if(canonical!=string) {
+			hits.increment();
+			bytesSaved.add(sizeOf(string));
+		}
+		return canonical;
+	}//intern
+
+	/**
+	 * Removes every string from the pool and resets its counts; the pooled fields are kept.
+	 * Strings already returned by intern are not affected.
+	 */
+	public void clear() {
+		strings.clear();
+		lookups.reset();
+		hits.reset();
+		bytesSaved.reset();
+	}
+
+	/**@return the number of distinct strings in the pool*/
+	public int size() {
+		return strings.size();
+	}
+
+	/**@return the number of strings passed to intern*/
+	public long getLookups() {
+		return lookups.sum();
+	}
+
+	/**@return the number of strings replaced by an instance already in the pool*/
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**@return the estimated heap, in bytes, of the strings replaced by an instance already in the pool*/
+	public long getBytesSaved() {
+		return bytesSaved.sum();
+	}
+
+	/**
+	 * @return a one-line summary of the counts of this pool
+	 */
+	public String report() {
+		long bytesSaved= getBytesSaved();
+		return new StringBuilder("String pool: ")
+			.append(size()).append(" distinct strings, ")
+			.append(getLookups()).append(" lookups, ")
+			.append(getHits()).append(" duplicates shared, about ")
+			.append(bytesSaved >= 1 << 20 ? (bytesSaved >> 20) + " MB" : (bytesSaved >> 10) + " KB")
+			.append(" of heap saved")
+			.toString();
+	}//report
+
+	@Override
+	public String toString() {
+		return report();
+	}
+
+	/**Estimates the heap of a string of Latin-1 characters, rounded up to 8 bytes.*/
+	private static int sizeOf(String string) {
+		return (STRING_OVERHEAD + string.length() + 7) & ~7;
+	}
+
+}//class MsdxStringPool
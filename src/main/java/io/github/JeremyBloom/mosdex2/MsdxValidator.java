@@ -9,52 +9,163 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOError;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.report.ListProcessingReport;
+import com.github.fge.jsonschema.core.report.LogLevel;
 import com.github.fge.jsonschema.core.report.ProcessingMessage;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
 import com.github.fge.jsonschema.main.JsonSchemaFactory;
 
 import io.github.JeremyBloom.mosdex2.Msdx;
+import io.github.JeremyBloom.mosdex2.json.MsdxReader;
 import io.github.JeremyBloom.mosdex2.json.MsdxWriter;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
 
 /**
- * This class validates a MOSDEX JSON file against the MOSDEX JSON Schema. 
- * This class has not been fully implemented.
- * 
+ * This class validates a MOSDEX JSON file against the MOSDEX JSON Schema.
+ * <p>
+ * The schema is compiled once per process for each distinct syntax tree and cached,
+ * so creating validators is cheap.
+ * Besides validating a complete tree, a validator can check the sections of a file one at a time
+ * as MsdxObject.Factory reads them:
+ * each module and table is validated without its nested tables or instance records,
+ * and instance records are validated against the schema only at sampled positions
+ * (the first record and those whose index is a power of two).
+ * Every record also gets a fast type check against its table schema (see MsdxRecord.checkTypes).
+ *
  * @author Dr. Jeremy Bloom (jeremyblmca@gmail.com)
  */
 public class MsdxValidator {
-	
+
+	/**
+	 * The resource (or, failing that, the file in the working directory)
+	 * holding the MOSDEX JSON Schema used by the default validator.
+	 */
+	public static final String SYNTAX_RESOURCE= "MOSDEXSchemaV2-0.json";
+
+	/**Compiled schemas, keyed by syntax tree.*/
+	private static final Map<JsonNode, Compiled> COMPILED= new ConcurrentHashMap<JsonNode, Compiled>();
+
+	private static MsdxValidator defaultValidator;
+
 	private JsonNode syntaxTree;
-	private ProcessingReport report;	
+
+	/**The schemas compiled from syntaxTree, shared by every validator of an equal tree.*/
+	final Compiled compiled;
+
+	private ProcessingReport report;
 
 	/**@param syntaxTree MOSDEX syntax as a Jackson Tree model*/
 	public MsdxValidator(JsonNode syntaxTree) {
 		super();
 		this.syntaxTree= syntaxTree;
+		this.compiled= COMPILED.computeIfAbsent(syntaxTree, Compiled::new);
 		this.report= new ListProcessingReport();
 	}
-	
+
+	/**
+	 * @return a shared validator for the MOSDEX JSON Schema in SYNTAX_RESOURCE
+	 * @throws IllegalArgumentException if the schema cannot be found
+	 */
+	public static synchronized MsdxValidator getDefault() {
+		if(defaultValidator==null) {
+			MsdxInputSource src= MsdxValidator.class.getClassLoader().getResource(SYNTAX_RESOURCE)==null ?
+				MsdxInputSource.fromPath(SYNTAX_RESOURCE) :
+				MsdxInputSource.fromResource(SYNTAX_RESOURCE, MsdxValidator.class);
+			if(src.getStream()==null)
+				throw new IllegalArgumentException("MOSDEX schema " + SYNTAX_RESOURCE + " not found");
+			try {
+				defaultValidator= new MsdxValidator(Msdx.GLOBAL.mapper.readTree(src.getStream()));
+			} catch (IOException e) {
+				throw new IllegalArgumentException("MOSDEX schema " + SYNTAX_RESOURCE + " is not valid JSON", e);
+			}
+		}
+		return defaultValidator;
+	}//getDefault
+
 	/**
 	 * Checks a MOSDEX File object against the MOSDEX JSON Schema.
 	 * @param mosdexTree
 	 * @return true if the MOSDEX File conforms the the schema, false otherwise.
 	 */
 	public boolean validate(JsonNode mosdexTree) {
-        this.report= JsonSchemaFactory.byDefault().getValidator().validateUnchecked(this.syntaxTree, mosdexTree);
+		return check(compiled.full, mosdexTree);
+	}
+
+	/**
+	 * Checks the fields of a MOSDEX File, other than the contents of its modules.
+	 * @param fileNode
+	 * @return true if the File conforms to the schema
+	 */
+	public boolean validateFile(JsonNode fileNode) {
+		return check(compiled.file, fileNode);
+	}
+
+	/**
+	 * Checks the fields of a MOSDEX Module, other than the contents of its tables.
+	 * @param moduleNode
+	 * @return true if the Module conforms to the schema
+	 */
+	public boolean validateModule(JsonNode moduleNode) {
+		return check(compiled.module, moduleNode);
+	}
+
+	/**
+	 * Checks a MOSDEX Table.
+	 * The INSTANCE of a table read by MsdxObject.Factory holds only its representative record.
+	 * @param tableNode
+	 * @return true if the Table conforms to the schema
+	 */
+	public boolean validateTable(JsonNode tableNode) {
+		return check(compiled.table, tableNode);
+	}
+
+	/**
+	 * Checks a record of an Instance.
+	 * Every record gets a fast type check against its table schema;
+	 * only sampled records are also checked against the MOSDEX JSON Schema.
+	 *
+	 * @param index position of the record in its instance
+	 * @param recordNode
+	 * @param recordSchema
+	 * @return true if the record conforms to the schema
+	 * @throws IllegalArgumentException if the record fails the type check
+	 */
+	public boolean validateRecord(long index, JsonNode recordNode, MsdxContainer<Class<?>> recordSchema) {
+		MsdxRecord.checkTypes(recordNode, recordSchema);
+		return !isSampled(index) || check(compiled.record, recordNode);
+	}
+
+	/**
+	 * @param index
+	 * @return true if the record at index is validated against the schema:
+	 * the first record and those whose index is a power of two
+	 */
+	public static boolean isSampled(long index) {
+		return (index & (index - 1))==0;
+	}
+
+	private boolean check(JsonSchema schema, JsonNode node) {
+        this.report= schema.validateUnchecked(node);
         if(!report.isSuccess()) {
-            for (ProcessingMessage processingMessage : report)
-                System.err.println(getMessagesAsJson(processingMessage));
-            throw new IOError(new Throwable("JSON MsdxSchema validation exception"));    
+            for (ProcessingMessage processingMessage : report) {
+            	if(processingMessage.getLogLevel().compareTo(LogLevel.ERROR)>=0)	//omit warnings about the schema itself
+            		System.err.println(getMessagesAsJson(processingMessage));
+            }
+            throw new IOError(new Throwable("JSON MsdxSchema validation exception"));
         }
 		return report.isSuccess();
-	}
+	}//check
 
 	/**
 	 * Writes a pretty JSON string representation of a node to an output stream.
-	 * 
+	 *
 	 * @param node
 	 * @param out
 	 */
@@ -73,28 +184,73 @@ public class MsdxValidator {
 			}
 			else
 				throw new IllegalArgumentException("Unsupported node type " + node.getNodeType().toString());
+			generator.flush();
 		} catch (IOException e) {
 			System.err.println(e.getMessage());
 			e.printStackTrace();
 		}
 	}//show
-	
+
+	public JsonNode getSyntaxTree() {
+		return this.syntaxTree;
+	}
+
 	public ProcessingReport getReport() {
 		return this.report;
 	}
-	
+
 	/**
 	 * Provides a pretty JSON string for the processing messages.
-	 * 
+	 *
 	 * @param messages
 	 * @return a pretty JSON string
 	 */
-	public String getMessagesAsJson(ProcessingMessage messages) {	
+	public String getMessagesAsJson(ProcessingMessage messages) {
 		ByteArrayOutputStream out= new ByteArrayOutputStream();
 		JsonNode messageNode= messages.asJson();
 		show(messageNode, out);
 	    return out.toString();
 	}//getMessageAsJson
-	
+
+	/**
+	 * The schemas compiled from one syntax tree.
+	 * The File and Module schemas are compiled from a copy of the syntax
+	 * in which modules and tables need only be objects,
+	 * since these are validated separately when a file is read section by section.
+	 *
+	 * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+	 *
+	 */
+	static final class Compiled {
+
+		final JsonSchema full;
+		final JsonSchema file;
+		final JsonSchema module;
+		final JsonSchema table;
+		final JsonSchema record;
+
+		Compiled(JsonNode syntaxTree) {
+			super();
+			JsonSchemaFactory factory= JsonSchemaFactory.byDefault();
+			JsonNode shallowTree= syntaxTree.deepCopy();
+			relax(shallowTree.at("/properties/MODULES"));
+			relax(shallowTree.at("/definitions/Module/properties/TABLES"));
+			try {
+				full= factory.getJsonSchema(syntaxTree);
+				file= factory.getJsonSchema(shallowTree);
+				module= factory.getJsonSchema(shallowTree, "/definitions/Module");
+				table= factory.getJsonSchema(syntaxTree, "/definitions/Table");
+				record= factory.getJsonSchema(syntaxTree, "/definitions/Record");
+			} catch (ProcessingException e) {
+				throw new IllegalArgumentException("Invalid MOSDEX schema: " + e.getMessage(), e);
+			}
+		}//constructor
+
+		private static void relax(JsonNode arrayProperty) {
+			if(arrayProperty.isObject())
+				((ObjectNode) arrayProperty).set("items", MsdxReader.createObjectNode().put("type", "object"));
+		}
+
+	}//class MsdxValidator.Compiled
 
 }//class MsdxValidator
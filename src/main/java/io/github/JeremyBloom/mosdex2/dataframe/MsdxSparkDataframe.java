@@ -9,21 +9,26 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Spliterators;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.sql.Column;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.RowFactory;
 import org.apache.spark.sql.SparkSession;
 import org.apache.spark.sql.api.java.UDF1;
-import org.apache.spark.sql.api.java.UDF2;
-import org.apache.spark.sql.api.java.UDF3;
-import org.apache.spark.sql.api.java.UDF4;
-import org.apache.spark.sql.api.java.UDF5;
+import org.apache.spark.sql.catalog.Table;
+import org.apache.spark.sql.catalyst.FunctionIdentifier;
+import org.apache.spark.sql.catalyst.expressions.Expression;
+import org.apache.spark.sql.catalyst.expressions.ExpressionInfo;
+import org.apache.spark.sql.functions;
 import org.apache.spark.sql.types.DataTypes;
 import org.apache.spark.sql.types.StructField;
 import org.apache.spark.sql.types.StructType;
@@ -31,9 +36,12 @@ import org.apache.spark.sql.types.StructType;
 import io.github.JeremyBloom.mosdex2.IEEEDouble;
 import io.github.JeremyBloom.mosdex2.MsdxContainer;
 import io.github.JeremyBloom.mosdex2.MsdxFunctionCall;
+import io.github.JeremyBloom.mosdex2.MsdxIdDictionary;
+import io.github.JeremyBloom.mosdex2.MsdxStringPool;
 import io.github.JeremyBloom.mosdex2.objectModel.MsdxQuery;
 import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
 import scala.collection.JavaConverters;
+import scala.collection.Seq;
 
 /**
  * Implements the Dataframe interface using a Apache Spark Dataset of Rows. 
@@ -78,7 +86,7 @@ public class MsdxSparkDataframe implements MsdxDataframe {
 	 * @param factory
 	 */
 	protected MsdxSparkDataframe(MsdxContainer<Class<?>> schema, MsdxSparkDataframe.Factory factory) {
-		this(factory.session.emptyDataFrame(), schema, factory);
+		this(factory.getSession().emptyDataFrame(), schema, factory);
 	}
 
 	@Override
@@ -119,7 +127,8 @@ public class MsdxSparkDataframe implements MsdxDataframe {
 
 	/**
 	 * Creates a MOSDEX Record from a Spark Row.
-	 * Converts Double to IEEEDouble and call strings to function call objects when called for by the Schema.
+	 * Converts Double to IEEEDouble, Integer to the Id of this Factory's dictionary, 
+	 * and call strings to function call objects when called for by the Schema.
 	 * Assures that the resulting Record conforms with the Schema of this Dataframe.
 	 * 
 	 * @param row
@@ -139,10 +148,14 @@ public class MsdxSparkDataframe implements MsdxDataframe {
 			fieldType= this.schema.get(fieldName);
 			if(IEEEDouble.class.isAssignableFrom(fieldType))
 				item= IEEEDouble.valueOf((Double)row.get(itemIndex));
+			else if(MsdxIdDictionary.Id.class.equals(fieldType))
+				item= row.isNullAt(itemIndex) ? null : factory.getIdDictionary().id(row.getInt(itemIndex));
 			else if (MsdxFunctionCall.class.isAssignableFrom(fieldType)) {
 				callString= (String)row.get(itemIndex);
-				item= MsdxFunctionCall.create(callString, MsdxFunctionCall.getResultTypeFor(fieldType)); 				
+				item= factory.getFunctionCalls().create(callString, MsdxFunctionCall.getResultTypeFor(fieldType)); 				
 			}
+			else if(String.class.equals(fieldType))
+				item= factory.getStringPool().intern(fieldName, (String)row.get(itemIndex));	//identifiers repeat in every term
 			else
 				item= row.get(itemIndex);
 			builder.addItem(fieldName, item);
@@ -187,14 +200,91 @@ public class MsdxSparkDataframe implements MsdxDataframe {
 		this.toStream().forEach(action);
 	}
 
+	/**
+	 * Manages the Spark session shared by all Factories in the process.
+	 * Spark is started lazily, when the first Factory needs a session, and then kept running, 
+	 * so that applications that each run a small model do not pay for Spark startup every time.
+	 * Each Factory gets its own namespace: a Spark session created by newSession, 
+	 * which shares the Spark context and cached data of the root session 
+	 * but has its own temporary views and registered functions, 
+	 * so applications running in the same process cannot see or replace each other's tables.
+	 *
+	 * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+	 *
+	 */
+	public static final class Sessions {
+		
+		private static SparkSession root;
+		private static JavaSparkContext context;
+		
+		private Sessions() {
+			super();
+		}
+		
+		/**
+		 * @param configuration used only if Spark has not yet been started
+		 * @return the root session, starting Spark if necessary
+		 */
+		public static synchronized SparkSession root(SparkConf configuration) {
+			if(root==null || root.sparkContext().isStopped()) {
+				root= SparkSession.builder()
+					.config(configuration)
+					.getOrCreate();
+				root.sparkContext().setLogLevel("ERROR");
+				context= JavaSparkContext.fromSparkContext(root.sparkContext());
+			}
+			return root;
+		}//root
+		
+		/**
+		 * @param configuration used only if Spark has not yet been started
+		 * @return the shared Spark context, starting Spark if necessary
+		 */
+		public static synchronized JavaSparkContext context(SparkConf configuration) {
+			root(configuration);
+			return context;
+		}
+		
+		/**
+		 * @param configuration used only if Spark has not yet been started
+		 * @return a new session with its own temporary views and functions, sharing the root session's Spark context
+		 */
+		public static synchronized SparkSession newNamespace(SparkConf configuration) {
+			return root(configuration).newSession();
+		}
+		
+		/**@return true if Spark is running*/
+		public static synchronized boolean isStarted() {
+			return root!=null && !root.sparkContext().isStopped();
+		}
+		
+		/**
+		 * Stops Spark. The sessions of existing Factories become unusable; 
+		 * a Factory used after this call restarts Spark with a new, empty namespace.
+		 */
+		public static synchronized void stop() {
+			if(root!=null)
+				root.stop();
+			root= null;
+			context= null;
+		}//stop
+		
+	}//class MsdxSparkDataframe.Sessions
+
 	/**
 	 * The Dataframe Factory provides public methods for creating dataframes and executing queries.
 	 * The Factory also enables registering SQL user-defined functions with the database engine at implements the Dataframe.
+	 * <p>
+	 * A Factory does not start Spark when it is created; it gets its session from Sessions 
+	 * the first time it is used (see getSession). 
+	 * The public context and session fields of earlier versions, which started Spark when the Factory was created, 
+	 * are replaced by the deprecated context and session methods. 
+	 * Closing a Factory drops the temporary views of its tables but leaves Spark running for other Factories.
 	 *
 	 * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
 	 *
 	 */
-	public static class Factory implements MsdxDataframe.Factory {
+	public static class Factory implements MsdxDataframe.Factory, AutoCloseable {
 		
 		/**
 		 * Configuration for Apache Spark applications using MOSDEX.
@@ -202,14 +292,19 @@ public class MsdxSparkDataframe implements MsdxDataframe {
 		public final SparkConf configuration;
 		
 		/**
-		 * Represents the connection to a Spark cluster.
+		 * The entry point to programming Spark with the Dataset API; 
+		 * this Factory's namespace in the shared Spark session. Created on first use.
 		 */
-		public final JavaSparkContext context;
+		private SparkSession session;
 		
-		/**
-		 * The entry point to programming Spark with the Dataset API. 
-		 */
-		public final SparkSession session;
+		/**The dictionary of the integer ids made by I_IDn in this Factory's session; created with the session.*/
+		private MsdxIdDictionary ids;
+		
+		/**The pool of the key and identifier items of the Records converted from Spark rows.*/
+		private final MsdxStringPool strings;
+		
+		/**The canonical Function Calls of the Records converted from Spark rows.*/
+		private final MsdxFunctionCall.Templates functionCalls;
 	
 		/**
 		 * Creates a new Factory instance.
@@ -219,18 +314,98 @@ public class MsdxSparkDataframe implements MsdxDataframe {
 		public Factory(SparkConf configuration) {
 			super();
 			this.configuration = configuration;
-			context= new JavaSparkContext(configuration);
-			context.setLogLevel("ERROR");
-			session= SparkSession.builder()
-				.config(configuration)
-				.getOrCreate();
-			session.sparkContext().setLogLevel("ERROR");
-			for(int numberOfKeyFields= 1; numberOfKeyFields <= 5; numberOfKeyFields++)
-				this.registerStringIDFunction(numberOfKeyFields);
-			this.registerIntegerInfinity();
-			this.registerDoubleInfinity();
+			this.strings= new MsdxStringPool();
+			this.functionCalls= new MsdxFunctionCall.Templates();
 		}//Factory
 		
+		/**
+		 * Returns the session for this Factory, creating it on first use (which starts Spark if necessary)
+		 * and registering the standard MOSDEX functions in it.
+		 * 
+		 * @return the entry point to programming Spark with the Dataset API
+		 */
+		public synchronized SparkSession getSession() {
+			if(session==null || session.sparkContext().isStopped()) {
+				session= Sessions.newNamespace(configuration);
+				for(int numberOfKeyFields= 1; numberOfKeyFields <= 5; numberOfKeyFields++)
+					this.registerStringIDFunction(numberOfKeyFields);
+				this.registerIntegerInfinity();
+				this.registerDoubleInfinity();
+				if(ids==null || ids.isClosed())
+					ids= new MsdxIdDictionary();
+				session.udf().register("I_ID", new DictionaryId(ids.getKey()), DataTypes.IntegerType);
+				session.udf().register("ID_NAME", new DictionaryName(ids.getKey()), DataTypes.StringType);
+			}
+			return session;
+		}//getSession
+		
+		/**
+		 * @return the dictionary of the integer ids made by the I_IDn functions in this Factory's session, 
+		 * creating the session if necessary
+		 */
+		public synchronized MsdxIdDictionary getIdDictionary() {
+			this.getSession();
+			return ids;
+		}
+		
+		@Override
+		public MsdxStringPool getStringPool() {
+			return strings;
+		}
+		
+		@Override
+		public MsdxFunctionCall.Templates getFunctionCalls() {
+			return functionCalls;
+		}
+		
+		/**@return the connection to a Spark cluster, shared by all Factories*/
+		public JavaSparkContext getContext() {
+			return Sessions.context(configuration);
+		}
+		
+		/**
+		 * Returns this Factory's session, as the public session field did before Spark was started lazily.
+		 * 
+		 * @return the entry point to programming Spark with the Dataset API, starting Spark if necessary
+		 * @deprecated use getSession
+		 */
+		@Deprecated
+		public SparkSession session() {
+			return this.getSession();
+		}
+		
+		/**
+		 * Returns the shared Spark context, as the public context field did before Spark was started lazily.
+		 * 
+		 * @return the connection to a Spark cluster, starting Spark if necessary
+		 * @deprecated use getContext
+		 */
+		@Deprecated
+		public JavaSparkContext context() {
+			return this.getContext();
+		}
+		
+		/**
+		 * Drops the temporary views registered by this Factory, closes its id dictionary, 
+		 * and clears its string pool and Function Call templates. 
+		 * Spark keeps running; the Factory gets a fresh namespace and dictionary if it is used again.
+		 */
+		@Override
+		public synchronized void close() {
+			if(session!=null && !session.sparkContext().isStopped()) {
+				for(Table table: session.catalog().listTables().collectAsList()) {
+					if(table.isTemporary())
+						session.catalog().dropTempView(table.name());
+				}
+			}
+			session= null;
+			if(ids!=null)
+				ids.close();
+			ids= null;
+			strings.clear();
+			functionCalls.clear();
+		}//close
+
 		/**
 		 * Creates a Spark StructType from a MOSDEX schema. 
 		 * Maps Java classes to their equivalent Spark data types.
@@ -247,7 +422,7 @@ public class MsdxSparkDataframe implements MsdxDataframe {
 				fieldType= schema.get(fieldName);
 				if(fieldType.equals(String.class))		
 					sparkSchema= sparkSchema.add(fieldName, 		DataTypes.StringType, true);		
-				else if(fieldType.equals(Integer.class))			
+				else if(fieldType.equals(Integer.class) || fieldType.equals(MsdxIdDictionary.Id.class))			
 					sparkSchema= sparkSchema.add(fieldName, 		DataTypes.IntegerType, true);		
 				else if(fieldType.equals(Double.class))		
 					sparkSchema= sparkSchema.add(fieldName, 		DataTypes.DoubleType, true);		
@@ -275,6 +450,8 @@ public class MsdxSparkDataframe implements MsdxDataframe {
 					Object fieldValue= entry.getValue();
 					if(IEEEDouble.class.isAssignableFrom(schema.get(fieldName)))
 						return ((IEEEDouble)fieldValue).exposeDoubleValue();
+					if(fieldValue instanceof MsdxIdDictionary.Id)
+						return ((MsdxIdDictionary.Id)fieldValue).intValue();
 					if (MsdxFunctionCall.class.isAssignableFrom(schema.get(fieldName)))
 						return ((MsdxFunctionCall)fieldValue).getCallString();
 					/* else */ 
@@ -310,131 +487,169 @@ public class MsdxSparkDataframe implements MsdxDataframe {
 			List<Row> rows= records
 				.map(record -> recordToSpark(record, schema))
 				.collect(Collectors.toList());
-			Dataset<Row> spark= session.createDataFrame(rows, schemaToSpark(schema));
+			Dataset<Row> spark= getSession().createDataFrame(rows, schemaToSpark(schema));
 			return create(tableName, spark, schema);
 		}
 
 		@Override
 		public MsdxDataframe create(String tableName, MsdxQuery query, MsdxContainer<Class<?>> schema) {
-			return create(tableName, session.sql(query.toSQL()), schema);
+			String sql= query.toSQL();
+			this.registerIDFunctions(sql);
+			return create(tableName, getSession().sql(sql), schema);
 		}
 	
+		/**
+		 * Registers IDn as a native Spark expression, <code>concat_ws('_', key1, ..., keyn)</code>, 
+		 * rather than as a Java UDF, so that Catalyst can optimize it and generate code for it 
+		 * without converting rows to Java objects. 
+		 * Any number of key fields is allowed; create(tableName, query, schema) registers 
+		 * the IDn functions a query uses automatically. 
+		 * Note that, like concat_ws, IDn skips null keys.
+		 */
 		@Override
 		public void registerStringIDFunction(int numberOfKeyFields) {
-			if(numberOfKeyFields>5)
-				throw new IllegalArgumentException("Too many key fields");
 			if(numberOfKeyFields<1)
 				throw new IllegalArgumentException("Too few key fields");
 			
-			if(numberOfKeyFields==1) {
-				this.session.udf().register(
-					"ID1", 
-					new UDF1<String, String>() { 
-						private static final long serialVersionUID = 1L;
-						@Override public String call(String key1) throws Exception {
-							return key1;
-						}//call
-					}/*UDF1*/, 
-					DataTypes.StringType);
-				return;
-			}
-			if(numberOfKeyFields==2) {
-				this.session.udf().register(
-					"ID2", 
-					new UDF2<String, String, String>() { 
-						private static final long serialVersionUID = 1L;
-						@Override public String call(String key1, String key2) throws Exception {
-							return String.join("_", key1, key2);
-						}//call
-					}/*UDF2*/, 
-					DataTypes.StringType);
-				return;
-			}
-			if(numberOfKeyFields==3) {
-				this.session.udf().register(
-					"ID3", 
-					new UDF3<String, String, String, String>() { 
-						private static final long serialVersionUID = 1L;
-						@Override public String call(String key1, String key2, String key3) throws Exception {
-							return String.join("_", key1, key2, key3);
-						}//call
-					}/*UDF3*/, 
-					DataTypes.StringType);
-				return;
-			}
-				if(numberOfKeyFields==4) {
-					this.session.udf().register(
-						"ID4", 
-						new UDF4<String, String, String, String, String>() { 
-							private static final long serialVersionUID = 1L;
-							@Override public String call(String key1, String key2, String key3, String key4) throws Exception {
-								return String.join("_", key1, key2, key3, key4);
-							}//call
-						}/*UDF4*/, 
-						DataTypes.StringType);
-					return;
-			}
-				if(numberOfKeyFields==5) {
-					this.session.udf().register(
-						"ID5", 
-						new UDF5<String, String, String, String, String, String>() { 
-							private static final long serialVersionUID = 1L;
-							@Override public String call(String key1, String key2, String key3, String key4, String key5) throws Exception {
-								return String.join("_", key1, key2, key3, key4, key5);
-							}//call
-						}/*UDF5*/, 
-						DataTypes.StringType);
-					return;
-			}
+			this.registerNativeFunction(
+				"ID" + numberOfKeyFields, 
+				"Joins " + numberOfKeyFields + " keys with underscores", 
+				numberOfKeyFields,
+				keys -> functions.concat_ws("_", keys));
 		}//registerStringIDFunction
 		
-		/**Currently unsupported.*/
+		/**
+		 * Registers I_IDn, which returns the integer id of the name that IDn makes from the same keys, 
+		 * assigned by this Factory's MsdxIdDictionary (see getIdDictionary). 
+		 * A query declares the fields it makes with I_IDn as type ID, so that their items are read as Ids.
+		 * The keys are joined natively and only the dictionary lookup is a Java UDF (I_ID). 
+		 * The SQL function ID_NAME(id) maps an id back to its name, for output tables. 
+		 * As with IDn, any number of key fields is allowed and 
+		 * create(tableName, query, schema) registers the I_IDn functions a query uses automatically.
+		 * <p>
+		 * Integer ids are supported only with a local Spark master, since the dictionary lives in this JVM.
+		 */
 		@Override
 		public void registerIntegerIDFunction(int numberOfKeyFields) {
-			throw new UnsupportedOperationException();
-		}
+			if(numberOfKeyFields<1)
+				throw new IllegalArgumentException("Too few key fields");
+			
+			this.registerNativeFunction(
+				"I_ID" + numberOfKeyFields, 
+				"Returns the integer id of " + numberOfKeyFields + " keys joined with underscores", 
+				numberOfKeyFields,
+				keys -> functions.callUDF("I_ID", functions.concat_ws("_", keys)));
+		}//registerIntegerIDFunction
 
 		@Override
 		public void registerFunctionCall(String functionName) {
-			this.session.udf().register(
+			this.registerNativeFunction(
 				functionName, 
-				new UDF1<String, String>() { 
-					private static final long serialVersionUID = 1L;
-					@Override public String call(String arguments) throws Exception {			
-						return functionName + "(" + arguments + ")";
-					}//call
-				}/*UDF1*/, 
-				DataTypes.StringType);
+				"Makes the call string " + functionName + "(arguments)", 
+				1,
+				arguments -> functions.concat(functions.lit(functionName + "("), arguments[0], functions.lit(")")));
 		}//registerFunctionCall
 
 		@Override
 		public void registerIntegerInfinity() {
-			this.session.udf().register(
+			this.registerNativeFunction(
 				"I_INFINTY", 
-				new UDF1<String, Integer>() { 
-					private static final long serialVersionUID = 1L;
-					@Override public Integer call(String sign) throws Exception {
-						return (sign.equals("-")) ? Integer.MIN_VALUE : Integer.MAX_VALUE;
-					}//call
-				}/*UDF1*/, 
-				DataTypes.IntegerType);
-			return;
+				"Returns Integer.MIN_VALUE if sign is '-', otherwise Integer.MAX_VALUE", 
+				1,
+				sign -> functions.when(sign[0].equalTo("-"), Integer.MIN_VALUE).otherwise(Integer.MAX_VALUE));
 		}//registerIntegerInfinity
 
 		@Override
 		public void registerDoubleInfinity() {
-			this.session.udf().register(
+			this.registerNativeFunction(
 				"INFINITY", 
-				new UDF1<String, Double>() { 
-					private static final long serialVersionUID = 1L;
-					@Override public Double call(String sign) throws Exception {
-						return (sign.equals("-")) ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
-					}//call
-				}/*UDF1*/, 
-				DataTypes.DoubleType);
-			return;
+				"Returns -Infinity if sign is '-', otherwise Infinity", 
+				1,
+				sign -> functions.when(sign[0].equalTo("-"), Double.NEGATIVE_INFINITY).otherwise(Double.POSITIVE_INFINITY));
 		}//registerDoubleInfinity
 		
+		/**
+		 * Registers a SQL function in this Factory's session that Spark expands, 
+		 * when it analyzes a query, into an expression built from Spark's own functions. 
+		 * Unlike a Java UDF, such a function is transparent to the optimizer: 
+		 * it takes part in constant folding and whole-stage code generation, and 
+		 * its arguments are never converted to Java objects.
+		 * 
+		 * @param functionName
+		 * @param usage a short description of the function
+		 * @param numberOfArguments the number of arguments the function must be called with
+		 * @param expression builds the expression from the argument columns
+		 */
+		protected void registerNativeFunction(String functionName, String usage, int numberOfArguments, 
+				Function<Column[], Column> expression) {
+			this.getSession().sessionState().functionRegistry().registerFunction(
+				new FunctionIdentifier(functionName), 
+				new ExpressionInfo(this.getClass().getName(), null, functionName, usage, ""), 
+				(Seq<Expression> arguments) -> {
+					List<Expression> args= JavaConverters.seqAsJavaListConverter(arguments).asJava();
+					if(args.size()!=numberOfArguments)
+						throw new IllegalArgumentException(functionName + " requires " + numberOfArguments + " arguments but was called with " + args.size());
+					Column[] columns= new Column[numberOfArguments];
+					for(int i= 0; i < numberOfArguments; i++)
+						columns[i]= new Column(args.get(i));
+					return expression.apply(columns).expr();
+				});
+		}//registerNativeFunction
+		
+		/**
+		 * Matches calls to IDn and I_IDn functions in a SQL query.
+		 */
+		private static final Pattern ID_CALL= Pattern.compile("\\b(I_)?ID(\\d+)\\s*\\(", Pattern.CASE_INSENSITIVE);
+		
+		/**
+		 * Registers the IDn and I_IDn functions called in a SQL query that are not yet registered, 
+		 * so that queries may use keys of any length.
+		 * @param sql
+		 */
+		protected void registerIDFunctions(String sql) {
+			Matcher matcher= ID_CALL.matcher(sql);
+			while(matcher.find()) {
+				boolean integer= matcher.group(1)!=null;
+				int numberOfKeyFields= Integer.parseInt(matcher.group(2));
+				String functionName= (integer ? "I_ID" : "ID") + numberOfKeyFields;
+				if(this.getSession().sessionState().functionRegistry().functionExists(new FunctionIdentifier(functionName)))
+					continue;
+				if(integer)
+					this.registerIntegerIDFunction(numberOfKeyFields);
+				else
+					this.registerStringIDFunction(numberOfKeyFields);
+			}
+		}//registerIDFunctions
+		
+		/**
+		 * The SQL function I_ID(name): looks up the id of a name in a Factory's MsdxIdDictionary. 
+		 * Holds the dictionary's key rather than the dictionary, since Spark serializes its functions.
+		 */
+		private static final class DictionaryId implements UDF1<String, Integer> {
+			private static final long serialVersionUID = 2L;
+			private final long dictionaryKey;
+			DictionaryId(long dictionaryKey) {
+				this.dictionaryKey= dictionaryKey;
+			}
+			@Override public Integer call(String name) throws Exception {
+				return name==null ? null : MsdxIdDictionary.forKey(dictionaryKey).idOf(name).intValue();
+			}//call
+		}//class MsdxSparkDataframe.Factory.DictionaryId
+		
+		/**
+		 * The SQL function ID_NAME(id): looks up the name of an id in a Factory's MsdxIdDictionary.
+		 */
+		private static final class DictionaryName implements UDF1<Integer, String> {
+			private static final long serialVersionUID = 2L;
+			private final long dictionaryKey;
+			DictionaryName(long dictionaryKey) {
+				this.dictionaryKey= dictionaryKey;
+			}
+			@Override public String call(Integer id) throws Exception {
+				return id==null ? null : MsdxIdDictionary.forKey(dictionaryKey).nameOf(id);
+			}//call
+		}//class MsdxSparkDataframe.Factory.DictionaryName
+		
 	}//class MsdxSparkDataframe.Factory 
 	
 
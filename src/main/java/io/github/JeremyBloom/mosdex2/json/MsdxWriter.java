@@ -321,6 +321,10 @@ public class MsdxWriter {
 	 * Note that this class does not use the Jackson generator or pretty printer, 
 	 * which proved too difficult to customize; nevertheless, it generally follows 
 	 * their conventions. 
+	 * <p>
+	 * Output is accumulated in a reusable buffer, with numbers formatted directly into it, 
+	 * and passed to the destination only when the buffer fills or the generator is flushed. 
+	 * Callers must call flush (or close) when they finish writing.
 	 *
 	 * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
 	 *
@@ -336,11 +340,26 @@ public class MsdxWriter {
 		/**Used to insert two spaces for each level of indent.*/
 		private static final String WHITESPACE= "  ";
 		
+		/**The encoded line separator.*/
+		private static final byte[] LINEFEED_BYTES= LINEFEED.getBytes();
+		
+		/**Lower case hexadecimal digits, as used by Double.toHexString.*/
+		private static final byte[] HEX_DIGITS= "0123456789abcdef".getBytes();
+		
+		/**The size of the output buffer; output is passed to the destination only when the buffer fills or on flush.*/
+		public static final int BUFFER_SIZE= 1 << 16;
+		
 		/**The destination for JSON output.*/
 		private MsdxOutputDestination dst;
 		
 		/**The current indent level.*/
 		private int level;
+		
+		/**Holds output until it is passed to the destination.*/
+		private final byte[] buffer;
+		
+		/**The number of bytes in the buffer.*/
+		private int position;
 	
 		/**
 		 * Creates a new Generator instance.
@@ -351,6 +370,8 @@ public class MsdxWriter {
 			super();
 			this.dst = dst;
 			this.level = 0;
+			this.buffer= new byte[BUFFER_SIZE];
+			this.position= 0;
 		}
 		
 		/**
@@ -368,7 +389,14 @@ public class MsdxWriter {
 		private void indent() throws IOException {
 			if(level<0)
 				throw new IllegalStateException("Negative level");
-			writeRaw(WHITESPACE.repeat(level));
+			int length= WHITESPACE.length()*level;
+			if(length > buffer.length) {
+				writeRaw(WHITESPACE.repeat(level));
+				return;
+			}
+			reserve(length);
+			for(int i= 0; i < length; i++)
+				buffer[position++]= ' ';
 		}
 		
 		/**
@@ -376,7 +404,7 @@ public class MsdxWriter {
 		 * @throws IOException if a JSON generation exception occurs
 		 */
 		public void linefeed() throws IOException {
-			writeRaw(LINEFEED);		
+			writeRaw(LINEFEED_BYTES);		
 		}
 		
 		/**
@@ -397,16 +425,73 @@ public class MsdxWriter {
 		 * @throws IOException if a JSON generation exception occurs
 		 */
 		public void writeRaw(char c) throws IOException {
-			this.dst.write(c);
+			reserve(1);
+			buffer[position++]= (byte) c;
 		}
 
 		/**
 		 * Generates a string.
+		 * ASCII text is copied directly into the buffer; 
+		 * other text is encoded in the platform's default charset, as String.getBytes does.
 		 * @param text
 		 * @throws IOException if a JSON generation exception occurs
 		 */
 		public void writeRaw(String text) throws IOException {
-			this.dst.write(text.getBytes());
+			int length= text.length();
+			if(length > buffer.length) {
+				writeRaw(text.getBytes());
+				return;
+			}
+			reserve(length);
+			int start= position;
+			char c;
+			for(int i= 0; i < length; i++) {
+				c= text.charAt(i);
+				if(c >= 0x80) {
+					position= start;
+					writeRaw(text.getBytes());
+					return;
+				}
+				buffer[position++]= (byte) c;
+			}
+		}
+
+		/**
+		 * Generates a sequence of bytes.
+		 * @param bytes
+		 * @throws IOException if a JSON generation exception occurs
+		 */
+		public void writeRaw(byte[] bytes) throws IOException {
+			if(bytes.length > buffer.length) {
+				flushBuffer();
+				this.dst.write(bytes);
+				return;
+			}
+			reserve(bytes.length);
+			System.arraycopy(bytes, 0, buffer, position, bytes.length);
+			position+= bytes.length;
+		}
+
+		/**
+		 * Makes room in the buffer for the given number of bytes, 
+		 * passing the buffer contents to the destination if necessary.
+		 * @param length no larger than the buffer size
+		 * @throws IOException if a JSON generation exception occurs
+		 */
+		private void reserve(int length) throws IOException {
+			if(position + length > buffer.length)
+				flushBuffer();
+		}
+
+		/**
+		 * Passes the buffer contents to the destination, without flushing the destination.
+		 * @throws IOException if a JSON generation exception occurs
+		 */
+		private void flushBuffer() throws IOException {
+			if(position > 0) {
+				this.dst.write(buffer, 0, position);
+				position= 0;
+			}
 		}
 
 		/**
@@ -570,7 +655,7 @@ public class MsdxWriter {
 		 * @throws IOException if a JSON generation exception occurs
 		 */
 		public void writeNumber(int v) throws IOException {
-			writeRaw(String.valueOf(v));
+			writeNumber((long) v);
 		}
 	
 		/**
@@ -579,7 +664,42 @@ public class MsdxWriter {
 		 * @throws IOException if a JSON generation exception occurs
 		 */
 		public void writeNumber(long v) throws IOException {
-			writeRaw(String.valueOf(v));
+			if(v == Long.MIN_VALUE) {	//cannot be negated
+				writeRaw(String.valueOf(v));
+				return;
+			}
+			reserve(20);
+			if(v < 0) {
+				buffer[position++]= '-';
+				v= -v;
+			}
+			writeDigits(v);
+		}
+		
+		/**
+		 * Generates the decimal digits of a non-negative integer directly into the buffer.
+		 * The caller must reserve room for the digits.
+		 * @param v
+		 */
+		private void writeDigits(long v) {
+			int end= position + digitCount(v);
+			int i= end;
+			do {
+				buffer[--i]= (byte) ('0' + (v % 10));
+				v/= 10;
+			} while(v > 0);
+			position= end;
+		}
+		
+		/**
+		 * @param v non-negative
+		 * @return the number of decimal digits in v
+		 */
+		private static int digitCount(long v) {
+			int count= 1;
+			for(long limit= 10; count < 19 && v >= limit; limit*= 10)
+				count++;
+			return count;
 		}
 	
 		/**
@@ -597,7 +717,68 @@ public class MsdxWriter {
 		 * @throws IOException if a JSON generation exception occurs
 		 */
 		public void writeNumber(double v) throws IOException {
-			writeRaw(String.valueOf(v));
+			//Integral values in the range where Double.toString uses plain notation are written as digits followed by ".0"; 
+			//other values use Double.toString, so the output is unchanged
+			if(v == Math.rint(v) && Math.abs(v) < 1.0E7 && !(v == 0.0 && 1.0/v < 0.0)) {
+				reserve(11);
+				if(v < 0.0)
+					buffer[position++]= '-';
+				writeDigits((long) Math.abs(v));
+				buffer[position++]= '.';
+				buffer[position++]= '0';
+			}
+			else
+				writeRaw(String.valueOf(v));
+		}
+	
+		/**
+		 * Generates a floating point number as a quoted hexadecimal string, 
+		 * identical to Double.toHexString but without creating an intermediate string.
+		 * Used for IEEE double values.
+		 * @param v
+		 * @throws IOException if a JSON generation exception occurs
+		 */
+		public void writeHexDouble(double v) throws IOException {
+			if(Double.isNaN(v) || Double.isInfinite(v)) {
+				writeString(Double.toString(v));
+				return;
+			}
+			reserve(26);
+			buffer[position++]= '"';
+			long bits= Double.doubleToRawLongBits(v);
+			if(bits < 0)
+				buffer[position++]= '-';
+			buffer[position++]= '0';
+			buffer[position++]= 'x';
+			long significand= bits & 0x000FFFFFFFFFFFFFL;
+			int exponent= (int) ((bits >>> 52) & 0x7FF);
+			if(exponent == 0 && significand == 0) {
+				buffer[position++]= '0';
+				buffer[position++]= '.';
+				buffer[position++]= '0';
+				buffer[position++]= 'p';
+				buffer[position++]= '0';
+			}
+			else {
+				boolean subnormal= (exponent == 0);
+				buffer[position++]= (byte) (subnormal ? '0' : '1');
+				buffer[position++]= '.';
+				int digits= 13;
+				while(digits > 1 && (significand & 0xF) == 0) {	//strip trailing zeros, keeping at least one digit
+					significand>>>= 4;
+					digits--;
+				}
+				for(int i= digits - 1; i >= 0; i--)
+					buffer[position++]= HEX_DIGITS[(int) ((significand >>> (4*i)) & 0xF)];
+				buffer[position++]= 'p';
+				int power= subnormal ? Double.MIN_EXPONENT : exponent - Double.MAX_EXPONENT;
+				if(power < 0) {
+					buffer[position++]= '-';
+					power= -power;
+				}
+				writeDigits(power);
+			}
+			buffer[position++]= '"';
 		}
 	
 		/**
@@ -649,6 +830,7 @@ public class MsdxWriter {
 		 * @throws IOException if a JSON generation exception occurs
 		 */
 		public void flush() throws IOException {
+			flushBuffer();
 			dst.flush();
 		}
 	
@@ -657,6 +839,7 @@ public class MsdxWriter {
 		 * @throws IOException if a JSON generation exception occurs
 		 */
 		public void close() throws IOException {
+			flushBuffer();
 			dst.close();
 		}
 
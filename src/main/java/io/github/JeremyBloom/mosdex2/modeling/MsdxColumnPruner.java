@@ -0,0 +1,159 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.modeling;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.MsdxFunctionCall;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxFile;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxModule;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxQuery;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxTable;
+
+/**
+ * Finds the fields of each Table that a model actually uses, so that the others need not be read
+ * (see MsdxObject.Factory.withRequiredFields).
+ * <p>
+ * The pruner works on Files read by MsdxObject.Factory.readSchemas, which have Schemas and Queries but no Instances.
+ * A field of a Table is required if
+ * <ul>
+ * <li>it is a parameter field of a VARIABLE, CONSTRAINT, OBJECTIVE or TERM Table in the modeling factory's creationOrder
+ * (see MsdxSolverModelingFactory.parameterFields), or</li>
+ * <li>the Query of a Table that depends on it names it, or selects *.</li>
+ * </ul>
+ * A Query names a field if the field's name appears as an identifier in its SQL (see MsdxQuery.toSQL), 
+ * ignoring case as SQL does.
+ * This may keep a field that a Query does not actually read (e.g. a field with the same name in another Table),
+ * but never drops one that it does.
+ * <p>
+ * Some Tables are read in full:
+ * those to be shown in the output (see MsdxApplication.show), which are written with all their fields,
+ * those with function call fields, whose Instances are replaced with the solution values,
+ * and those that no Query or modeling step reads, since nothing is known of how they will be used.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxColumnPruner {
+
+	/**The Table classes whose solver objects are created from their parameter fields.*/
+	private static final Set<String> MODELING_CLASSES= Set.of("VARIABLE", "CONSTRAINT", "OBJECTIVE", "TERM");
+
+	/**An identifier in the SQL of a Query.*/
+	private static final Pattern IDENTIFIER= Pattern.compile("[A-Za-z_$][A-Za-z\\d_$]*");
+
+	private final MsdxSolverModelingFactory modelingFactory;
+	private final Map<String, Set<String>> objectsToShow;
+
+	/**
+	 * Creates a pruner.
+	 *
+	 * @param modelingFactory
+	 * @param objectsToShow Modules (and their Tables) to include in the output, as in MsdxObject.Factory.writeFile (include all if empty)
+	 */
+	public MsdxColumnPruner(MsdxSolverModelingFactory modelingFactory, Map<String, Set<String>> objectsToShow) {
+		super();
+		this.modelingFactory= modelingFactory;
+		this.objectsToShow= objectsToShow;
+	}
+
+	/**
+	 * Finds the required fields of each Table.
+	 *
+	 * @param scannedFiles read by MsdxObject.Factory.readSchemas
+	 * @return the required fields of the Tables that can be pruned, by Table name;
+	 * the Tables that must be read in full are not in the map
+	 * @throws IllegalArgumentException if there is any duplicate table name
+	 */
+	public Map<String, Set<String>> requiredFields(Collection<MsdxFile> scannedFiles) {
+		Map<String, MsdxTable> collector= new LinkedHashMap<String, MsdxTable>();
+		Set<String> shown= new LinkedHashSet<String>();
+		for(MsdxFile file: scannedFiles)
+			for(MsdxModule module: file.getModules().values())
+				for(MsdxTable table: module.getTables().values()) {
+					if(collector.put(table.getName(), table)!=null)
+						throw new IllegalArgumentException("Duplicate table names " + table.getName());
+					if(isShown(module.getName(), table.getName()))
+						shown.add(table.getName());
+				}
+
+		Map<String, Set<String>> dependencies= new MsdxQuery.Resolver(collector).findDependencies().getTableDependencies();
+		Map<String, Set<String>> required= new LinkedHashMap<String, Set<String>>();
+		Set<String> consumed= new LinkedHashSet<String>();
+		for(Map.Entry<String, MsdxTable> entry: collector.entrySet()) {
+			MsdxTable table= entry.getValue();
+			MsdxContainer<Class<?>> schema= table.getSchema()!=null ? table.getSchema().asContainer() : null;
+			if(schema!=null && MODELING_CLASSES.contains(table.getTableClass())
+				&& modelingFactory.creationOrder().contains(table.getTableClass()))
+			{
+				fieldsOf(required, entry.getKey())
+					.addAll(schema.select(modelingFactory.parameterFields(table.getTableClass(), table.getTableType())).itemNames());
+				consumed.add(entry.getKey());
+			}
+			Set<String> identifiers= null;
+			for(String dependency: dependencies.getOrDefault(entry.getKey(), Set.of())) {
+				MsdxTable source= collector.get(dependency);
+				if(source==null || source.getSchema()==null)
+					continue;
+				if(identifiers==null)
+					identifiers= identifiersOf(table.getQuery().toSQL());
+				MsdxContainer<Class<?>> sourceSchema= source.getSchema().asContainer();
+				for(String fieldName: sourceSchema.itemNames())
+					if(identifiers.contains("*") || identifiers.contains(fieldName.toLowerCase()))
+						fieldsOf(required, dependency).add(fieldName);
+				consumed.add(dependency);
+			}
+		}//for entry
+
+		required.keySet().removeIf(tableName -> {
+			MsdxTable table= collector.get(tableName);
+			MsdxContainer<Class<?>> schema= table.getSchema()!=null ? table.getSchema().asContainer() : null;
+			return schema==null
+				|| table.getQuery()!=null
+				|| shown.contains(tableName)
+				|| !consumed.contains(tableName)
+				|| !MsdxFunctionCall.findFunctionFieldsIn(schema).isEmpty()
+				|| required.get(tableName).isEmpty()
+				|| required.get(tableName).containsAll(schema.itemNames());
+		});
+		return required;
+	}//requiredFields
+
+	/**
+	 * @param moduleName
+	 * @param tableName
+	 * @return true if the Table is written to the output
+	 */
+	public boolean isShown(String moduleName, String tableName) {
+		if(objectsToShow.isEmpty())
+			return true;
+		Set<String> tables= objectsToShow.get(moduleName);
+		return tables!=null && (tables.isEmpty() || tables.contains(tableName));
+	}
+
+	private static Set<String> fieldsOf(Map<String, Set<String>> required, String tableName) {
+		return required.computeIfAbsent(tableName, name -> new LinkedHashSet<String>());
+	}
+
+	/**@return the identifiers in the SQL of a Query in lower case, and * if it may select every field*/
+	private static Set<String> identifiersOf(String sql) {
+		Set<String> identifiers= new LinkedHashSet<String>();
+		Matcher matcher= IDENTIFIER.matcher(sql);
+		while(matcher.find())
+			identifiers.add(matcher.group().toLowerCase());
+		if(sql.indexOf('*')>=0)
+			identifiers.add("*");
+		return identifiers;
+	}//identifiersOf
+
+}//class MsdxColumnPruner
@@ -14,6 +14,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Spliterators;
+import java.util.StringJoiner;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -22,9 +23,11 @@ import java.util.stream.StreamSupport;
 
 import io.github.JeremyBloom.mosdex2.IEEEDouble;
 import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.MsdxIdDictionary;
 import io.github.JeremyBloom.mosdex2.dataframe.MsdxDataframe;
 import io.github.JeremyBloom.mosdex2.dataframe.MsdxDataframe.Factory;
 import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
+import io.github.JeremyBloom.mosdex2.span.OperatorWithAccumulator;
 import io.github.JeremyBloom.mosdex2.span.OperatorWithOneArgument;
 import io.github.JeremyBloom.mosdex2.span.OperatorWithTwoArguments;
 
@@ -59,6 +62,9 @@ public class MsdxMpsTextModelingFactory implements MsdxSolverModelingFactory {
 	 * when a MOSDEX File is used with other solvers,
 	 */
 	protected Map<String, Function<MsdxContainer<Object>, ?>> functionTable;
+	
+	/**The ids of the row names in the Expressions of this model.*/
+	private final MsdxSparseExpression.Names names;
 
 	/**
 	 * Creates a new mps factory instance.
@@ -70,6 +76,7 @@ public class MsdxMpsTextModelingFactory implements MsdxSolverModelingFactory {
 		this.modelName= null;
 		this.dataframeFactory= dataframeFactory;
 		this.functionTable= initializeFunctionTable(this.dataframeFactory);
+		this.names= new MsdxSparseExpression.Names();
 	}
 
 	@Override
@@ -152,7 +159,7 @@ public class MsdxMpsTextModelingFactory implements MsdxSolverModelingFactory {
 
 			@Override
 			public MsdxContainer<Object> apply(MsdxContainer<Object> parameter) {
-				Constraint constraint= new Constraint(parameter.get("Row"))
+				Constraint constraint= new Constraint(parameter.get("Row"), names)
 				.setSense(parameter.get("Sense"))
 				.setRHS(parameter.get("RHS"));
 	
@@ -187,7 +194,7 @@ public class MsdxMpsTextModelingFactory implements MsdxSolverModelingFactory {
 
 			@Override
 			public MsdxContainer<Object> apply(MsdxContainer<Object> parameter) {
-				Objective objective= new Objective(parameter.get("Row"))
+				Objective objective= new Objective(parameter.get("Row"), names)
 					.setSense(parameter.get("Sense"))
 					.setConstant(parameter.get("Constant"));
 	
@@ -243,7 +250,7 @@ public class MsdxMpsTextModelingFactory implements MsdxSolverModelingFactory {
 			protected MsdxContainer<Object> onKeyMatch(MsdxContainer<Object> termParameter, MsdxContainer<Object> row) {
 			Expression product;
 				product= Expression.multiply(
-					termParameter.get("Coefficient").toString(), 
+					termParameter.get("Coefficient"), 
 					(Constraint) row.get("Constraint"),
 					(Objective) row.get("Objective"));
 				
@@ -327,6 +334,74 @@ public class MsdxMpsTextModelingFactory implements MsdxSolverModelingFactory {
 		}/*OperatorWithOneArgument*/;//return		
 	}//add
 
+	@Override
+	public OperatorWithAccumulator<Sum> sum(String tableClass, String tableType) {
+		if(!this.orientation().equals("Column"))
+			throw new UnsupportedOperationException();	//must override this method for row orientation
+		if(!tableClass.equals("TERM"))
+			throw new IllegalArgumentException("Illegal table class");
+		if(!(tableType.equals("LINEAR")))
+			throw new IllegalArgumentException("Illegal table type");
+		
+		return new OperatorWithAccumulator<Sum>() {
+			@Override
+			public OperatorWithAccumulator<Sum> withResultSchema(
+				MsdxContainer<Class<?>> termSchema,
+				String keyFieldName) 
+			{
+			    if(this.resultSchema!=null)
+			        return this;
+				this.inputSchema= termSchema;
+				this.keyFieldName= keyFieldName;	//should be "Column"
+				
+				this.resultSchema= MsdxContainer.<Class<?>>builder()
+					.addItem(keyFieldName/*=="Column"*/, termSchema.get(keyFieldName))
+					.copyItem(termSchema, "Expression")
+					.build();
+					//expressionSchema= {Column, Expression}
+				return this;				
+			}//withResultSchema
+
+			@Override
+			public Sum supply() {
+				return new Sum();
+			}
+
+			@Override
+			public void accumulate(Sum sum, MsdxContainer<Object> term) {
+				if(sum.key==null)
+					sum.key= term.get(this.keyFieldName/*=="Column"*/);
+				sum.expression.add((Expression) term.get("Expression"));
+			}//accumulate
+
+			@Override
+			public Sum combine(Sum sum1, Sum sum2) {
+				if(sum1.key==null)
+					sum1.key= sum2.key;
+				sum1.expression.add(sum2.expression);
+				return sum1;
+			}//combine
+
+			@Override
+			public MsdxContainer<Object> finish(Sum sum) {
+				return MsdxRecord.builder(this.getResultSchema())
+					.addItem(this.keyFieldName/*=="Column"*/, sum.key)
+					.addItem("Expression", sum.expression)
+					.build();
+			}//finish
+
+			@Override
+			public boolean isSplittable() {
+				return true;	//the terms of two parts of a column, added in order, make the entries of the whole column
+			}
+
+			@Override
+			public boolean isConcurrent() {
+				return true;	//the sums only add the terms of the column to their own expressions
+			}
+		}/*OperatorWithAccumulator*/;//return		
+	}//sum
+
 	@Override
 	public OperatorWithTwoArguments attach() {
 		if(!this.orientation().equals("Column"))
@@ -516,7 +591,7 @@ public class MsdxMpsTextModelingFactory implements MsdxSolverModelingFactory {
 	
 		Variable(Object columnId, String type) {
 			super();
-			this.columnId = columnId.toString();
+			this.columnId = MsdxIdDictionary.name(columnId);
 			this.type = type;
 		}
 		
@@ -637,18 +712,28 @@ public class MsdxMpsTextModelingFactory implements MsdxSolverModelingFactory {
 	public static class Constraint {
 		
 		String rowId;
+		/**The integer id of the row in Expressions.*/
+		int row;
+		/**The names of the row ids.*/
+		final MsdxSparseExpression.Names names;
 		String sense;
 		String RHS;
 	
-		Constraint(Object rowId) {
+		Constraint(Object rowId, MsdxSparseExpression.Names names) {
 			super();
-			this.rowId = rowId.toString();
+			this.rowId = MsdxIdDictionary.name(rowId);
+			this.row = names.idOf(rowId);
+			this.names = names;
 		}
 
 		String getRowId() {
 			return rowId;
 		}
 
+		int getRow() {
+			return row;
+		}
+
 		String getSense() {
 			return sense.toString();
 		}
@@ -691,18 +776,28 @@ public class MsdxMpsTextModelingFactory implements MsdxSolverModelingFactory {
 	public static class Objective {
 		
 		String rowId;
+		/**The integer id of the row in Expressions.*/
+		int row;
+		/**The names of the row ids.*/
+		final MsdxSparseExpression.Names names;
 		String sense;
 		String constant;
 	
-		Objective(Object rowId) {
+		Objective(Object rowId, MsdxSparseExpression.Names names) {
 			super();
-			this.rowId = rowId.toString();
+			this.rowId = MsdxIdDictionary.name(rowId);
+			this.row = names.idOf(rowId);
+			this.names = names;
 		}
 
 		String getRowId() {
 			return rowId;
 		}
 
+		int getRow() {
+			return row;
+		}
+
 		String getSense() {
 			return sense;
 		}
@@ -777,7 +872,7 @@ public class MsdxMpsTextModelingFactory implements MsdxSolverModelingFactory {
 		String rowId;
 		String columnId;
 		String columnId2;
-		String coefficient;
+		double coefficient;
 		
 		public Term(String type) {
 			super();
@@ -796,7 +891,7 @@ public class MsdxMpsTextModelingFactory implements MsdxSolverModelingFactory {
 		}
 
 		Term setRow(Object row) {
-			this.rowId = row.toString();
+			this.rowId = MsdxIdDictionary.name(row);
 			return this;
 		}
 
@@ -805,7 +900,7 @@ public class MsdxMpsTextModelingFactory implements MsdxSolverModelingFactory {
 		}
 
 		Term setColumnId(Object column) {
-			this.columnId = column.toString();
+			this.columnId = MsdxIdDictionary.name(column);
 			return this;
 		}
 
@@ -818,80 +913,75 @@ public class MsdxMpsTextModelingFactory implements MsdxSolverModelingFactory {
 		Term setColumnId2(Object column2) {
 			if(!type.equals("QUADRATIC"))
 				throw new IllegalArgumentException("Not valid for " + type);
-			this.columnId2 = column2.toString();
+			this.columnId2 = MsdxIdDictionary.name(column2);
 			return this;
 		}
 
-		String getCoefficient() {
+		double getCoefficient() {
 			return coefficient;
 		}
 
 		Term setCoefficient(Object coefficient) {
-			return setCoefficient(coefficient.toString());				
-			
+			this.coefficient = MsdxSparseExpression.valueOf(coefficient);
+			return this;
 		}
 		
 		@Override
 		public String toString() {
 			return new StringBuilder(rowId)
 				.append(" ")
-				.append(coefficient)
+				.append(MsdxSparseExpression.format(coefficient))
 				.toString();
 		}
 		
 	}//class Term
 
 	/**
-	 * This class is part of the API for the .mps "solver"
+	 * The accumulation of the sum operator: the Expression of a column, built in place, and the column id.
 	 */
-	public static class Expression {
+	public static final class Sum {
 		
-		List<String> contents;
+		Object key;
+		final Expression expression= Expression.empty();
+		
+	}//class Sum
+
+	/**
+	 * This class is part of the API for the .mps "solver".
+	 * The entries of a column are held as the numeric ids of their rows and their coefficients,
+	 * and rendered as .mps text only when the model is written.
+	 */
+	public static class Expression extends MsdxSparseExpression {
 	
 		public Expression() {
-			this.contents= new ArrayList<String>();
+			super();
 		}
-		
-		public Expression(String contents) {
-			this();
-			this.contents.add(contents);
+
+		public Expression(MsdxSparseExpression.Names names) {
+			super(names);
 		}
 		
 		public Expression(Expression expression) {
-			this();
-			this.contents.addAll(expression.contents);
+			super(expression);
 		}
 
 		public static Expression empty() {
 			return new Expression();
 		}
-
-		List<String> get() {
-			return contents;
-		}
-
-		public Expression append(String str) {
-			contents.add(str);
-			return this;
-		}
 		
-		public Expression append(Expression expr) {
-			contents.addAll(expr.contents);
-			return this;
-		}
-		
-		public static Expression multiply(String coefficient, Constraint constraint, Objective objective) {
+		public static Expression multiply(Object coefficient, Constraint constraint, Objective objective) {
 			if(!(constraint==null ^ objective==null))
 				throw new IllegalArgumentException("Only one of constraint or objective can be non-null");	
-			return new Expression(new StringBuilder()
-				.append(constraint!= null ? constraint.getRowId() : objective.getRowId())
-				.append(" ")
-				.append(coefficient)
-				.toString());		
+			Expression product= new Expression(constraint!= null ? constraint.names : objective.names);
+			product.addTerm(
+				MsdxSparseExpression.valueOf(coefficient), 
+				constraint!= null ? constraint.getRow() : objective.getRow());
+			return product;
 		}
 
-		public Expression add(Expression expression) {
-			this.contents.addAll(expression.contents);
+		@Override
+		public Expression add(MsdxSparseExpression expression) {
+			super.add(expression);
 			return this;
 		}
 
@@ -899,45 +989,59 @@ public class MsdxMpsTextModelingFactory implements MsdxSolverModelingFactory {
 			return StreamSupport.stream(Spliterators.spliteratorUnknownSize(twoAtATime(), 0), false);
 		}
 
+		/**
+		 * Renders the entries of this column, after merging its duplicate rows and dropping its zero entries,
+		 * as .mps text with two "row coefficient" pairs per line. This Expression is not changed.
+		 * 
+		 * @return an iterator over the lines, without the column name
+		 */
 		public Iterator<String> twoAtATime(){
+			MsdxSparseExpression terms= Expression.this.compacted();
 			return new Iterator<String>() {
 			
-				private Iterator<String> strings;
+				private int next;
 				StringBuilder pairs;
-				String nextPair;
 	
 				{
-					strings= Expression.this.contents.iterator();
+					next= 0;
 					pairs= new StringBuilder();
-					nextPair= "";
 				}
 	
 				@Override
 				public boolean hasNext() {
-					return strings.hasNext();
+					return next < terms.size();
 				}
 	
 				@Override
 				public String next() {
 					if(!hasNext())
 						throw new NoSuchElementException();
-					pairs.append(strings.next());
-					if(strings.hasNext())
-						pairs.append(" ").append(strings.next());
-					nextPair= pairs.toString();	
 					pairs.delete(0, pairs.length());
-					return nextPair;
+					appendEntry(next++);
+					if(hasNext())
+						appendEntry(next++);
+					return pairs.toString();
+				}
+				
+				private void appendEntry(int i) {
+					if(pairs.length() > 0)
+						pairs.append(" ");
+					pairs
+						.append(nameOf(terms.getId(i)))
+						.append(" ")
+						.append(format(terms.getCoefficient(i)));
 				}
 				
 			}/*Iterator*/;//return
 		}//twoAtATime
-		
-		public int size() {
-			return contents.size();
-		}
 
 		public String toString() {
-			return !contents.isEmpty() ? contents.toString() : "empty";
+			if(this.isEmpty())
+				return "empty";
+			StringJoiner entries= new StringJoiner(", ", "[", "]");
+			for(int i= 0; i < this.size(); i++)
+				entries.add(nameOf(this.getId(i)) + " " + format(this.getCoefficient(i)));
+			return entries.toString();
 		}
 	
 		/**
@@ -0,0 +1,447 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.modeling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.github.JeremyBloom.mosdex2.MsdxIdDictionary;
+import io.github.JeremyBloom.mosdex2.MsdxNumberScanner;
+
+/**
+ * A linear or quadratic expression held as numbers rather than text:
+ * parallel arrays of the integer ids of its variables (or rows) and of their double coefficients.
+ * <p>
+ * The ids are dense numbers given by the Names of a modeling factory, which makes one for each model.
+ * Every Row or Column item is given an id by its name (see MsdxIdDictionary.name) the first time it is seen,
+ * so the ids do not depend on whether the items are Strings, Integers, or the Ids of an MsdxIdDictionary.
+ * An expression is bound to the Names of the first terms added to it, 
+ * and only expressions with the same Names can be added together.
+ * Adding terms appends them to the arrays in place, growing the arrays by half their length when they are full.
+ * Nothing is formatted as text until the expression is written:
+ * the compact method then sorts the terms by id, merges the terms with the same ids, and drops the terms with zero coefficients,
+ * and the text modeling factories render what is left, from a compacted copy (see compacted) so that writing a model does not change it.
+ * <p>
+ * The .lp and .mps factories extend this class with their own Expression classes, which add the rendering in their format.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxSparseExpression {
+
+	private static final int[] NO_IDS= new int[0];
+	private static final double[] NO_COEFFICIENTS= new double[0];
+
+	/**Ids of the variable (or row) of each term.*/
+	private int[] ids;
+
+	/**Ids of the second variable of each term, -1 for a linear term; null while every term is linear.*/
+	private int[] ids2;
+
+	/**Coefficients of each term.*/
+	private double[] coefficients;
+
+	/**Number of terms in use.*/
+	private int size;
+
+	/**True if the terms are sorted, with no duplicate ids and no zero coefficients.*/
+	private boolean compact;
+
+	/**The names of the ids; null until the expression is bound to the Names of its first terms.*/
+	private Names names;
+
+	/**
+	 * Creates an empty expression, bound to no Names.
+	 */
+	public MsdxSparseExpression() {
+		this((Names) null);
+	}
+
+	/**
+	 * Creates an empty expression.
+	 *
+	 * @param names of the ids of the terms to be added
+	 */
+	public MsdxSparseExpression(Names names) {
+		super();
+		this.names= names;
+		this.ids= NO_IDS;
+		this.ids2= null;
+		this.coefficients= NO_COEFFICIENTS;
+		this.size= 0;
+		this.compact= true;
+	}
+
+	/**
+	 * Creates a copy of an expression.
+	 *
+	 * @param expression
+	 */
+	public MsdxSparseExpression(MsdxSparseExpression expression) {
+		this(expression.names);
+		this.add(expression);
+		this.compact= expression.compact;
+	}
+
+	/**@return the Names of the ids of this expression, or null if it has no terms yet*/
+	public Names getNames() {
+		return names;
+	}
+
+	/**
+	 * @param id
+	 * @return the name with this id
+	 * @throws IllegalStateException if the expression is not bound to Names
+	 */
+	public String nameOf(int id) {
+		if(names==null)
+			throw new IllegalStateException("Expression has no names");
+		return names.nameOf(id);
+	}
+
+	/**
+	 * Returns the numeric value of a Coefficient item.
+	 *
+	 * @param coefficient a Number (including IEEEDouble) or the text of a number
+	 * @return its value
+	 * @throws IllegalArgumentException if coefficient is null or not a number
+	 */
+	public static double valueOf(Object coefficient) {
+		if(coefficient==null)
+			throw new IllegalArgumentException("Null coefficient");
+		if(coefficient instanceof Number)
+			return ((Number) coefficient).doubleValue();
+		try {
+			return MsdxNumberScanner.parseDouble(coefficient.toString());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Coefficient is not a number: " + coefficient, e);
+		}
+	}//valueOf
+
+	/**
+	 * Formats a coefficient as text: a whole number without a decimal point, any other number as Double.toString does.
+	 *
+	 * @param coefficient
+	 * @return the text of the coefficient
+	 */
+	public static String format(double coefficient) {
+		if(coefficient==Math.rint(coefficient) && Math.abs(coefficient) < 1.0e15)
+			return Long.toString((long) coefficient);
+		return Double.toString(coefficient);
+	}//format
+
+	/**
+	 * Adds a linear term in place.
+	 *
+	 * @param coefficient
+	 * @param id of the variable (or row)
+	 * @return this expression
+	 */
+	public MsdxSparseExpression addTerm(double coefficient, int id) {
+		return addTerm(coefficient, id, -1);
+	}
+
+	/**
+	 * Adds a term in place.
+	 *
+	 * @param coefficient
+	 * @param id of the variable (or row)
+	 * @param id2 of the second variable of a quadratic term, or -1 for a linear term
+	 * @return this expression
+	 */
+	public MsdxSparseExpression addTerm(double coefficient, int id, int id2) {
+		ensureCapacity(size + 1);
+		if(id2 >= 0 && ids2==null)
+			ids2= linearIds(ids.length);
+		if(compact && size > 0 && compare(size - 1, id, id2) >= 0)
+			compact= false;
+		if(coefficient==0.0)
+			compact= false;
+		ids[size]= id;
+		if(ids2!=null)
+			ids2[size]= id2;
+		coefficients[size]= coefficient;
+		size++;
+		return this;
+	}//addTerm
+
+	/**
+	 * Adds the terms of an expression to this expression in place.
+	 *
+	 * @param terms
+	 * @return this expression
+	 */
+	public MsdxSparseExpression add(MsdxSparseExpression terms) {
+		int count= terms.size;	//terms may be this expression
+		if(count==0)
+			return this;
+		if(names==null)
+			names= terms.names;
+		else if(terms.names!=null && terms.names!=names)
+			throw new IllegalArgumentException("Cannot add expressions with different names");
+		ensureCapacity(size + count);
+		if(terms.ids2!=null && ids2==null)
+			ids2= linearIds(ids.length);
+		if(!(compact && terms.compact && (size==0 || compare(size - 1, terms.ids[0], terms.id2(0)) < 0)))
+			compact= false;
+		System.arraycopy(terms.ids, 0, ids, size, count);
+		System.arraycopy(terms.coefficients, 0, coefficients, size, count);
+		if(ids2!=null) {
+			if(terms.ids2!=null)
+				System.arraycopy(terms.ids2, 0, ids2, size, count);
+			else
+				Arrays.fill(ids2, size, size + count, -1);
+		}
+		size+= count;
+		return this;
+	}//add
+
+	/**
+	 * Sorts the terms by id, merges the terms with the same ids by adding their coefficients,
+	 * and drops the terms whose coefficients are zero.
+	 *
+	 * @return this expression
+	 */
+	public MsdxSparseExpression compact() {
+		if(compact)
+			return this;
+		if(!isSorted())
+			sort();
+		int kept= 0;
+		for(int i= 0; i < size; ) {
+			int id= ids[i];
+			int id2= id2(i);
+			double coefficient= 0.0;
+			for(; i < size && ids[i]==id && id2(i)==id2; i++)
+				coefficient+= coefficients[i];
+			if(coefficient==0.0)
+				continue;
+			ids[kept]= id;
+			if(ids2!=null)
+				ids2[kept]= id2;
+			coefficients[kept]= coefficient;
+			kept++;
+		}
+		size= kept;
+		compact= true;
+		return this;
+	}//compact
+
+	/**
+	 * Returns the terms of this expression as compact leaves them, without changing this expression.
+	 *
+	 * @return this expression if it is compact, otherwise a compacted copy of it
+	 */
+	public MsdxSparseExpression compacted() {
+		return compact ? this : new MsdxSparseExpression(this).compact();
+	}
+
+	/**@return the number of terms*/
+	public int size() {
+		return size;
+	}
+
+	/**@return true if this expression has no terms*/
+	public boolean isEmpty() {
+		return size==0;
+	}
+
+	/**
+	 * @param i
+	 * @return the id of the variable (or row) of term i
+	 */
+	public int getId(int i) {
+		checkIndex(i);
+		return ids[i];
+	}
+
+	/**
+	 * @param i
+	 * @return the id of the second variable of term i, or -1 if the term is linear
+	 */
+	public int getId2(int i) {
+		checkIndex(i);
+		return id2(i);
+	}
+
+	/**
+	 * @param i
+	 * @return true if term i is quadratic
+	 */
+	public boolean isQuadratic(int i) {
+		return getId2(i) >= 0;
+	}
+
+	/**
+	 * @param i
+	 * @return the coefficient of term i
+	 */
+	public double getCoefficient(int i) {
+		checkIndex(i);
+		return coefficients[i];
+	}
+
+	@Override
+	public String toString() {
+		if(size==0)
+			return "empty";
+		StringBuilder result= new StringBuilder("[");
+		for(int i= 0; i < size; i++) {
+			if(i > 0)
+				result.append(", ");
+			result.append(format(coefficients[i])).append('*').append(names==null ? "#" + ids[i] : nameOf(ids[i]));
+			if(id2(i) >= 0)
+				result.append('*').append(names==null ? "#" + id2(i) : nameOf(id2(i)));
+		}
+		return result.append(']').toString();
+	}//toString
+
+	private int id2(int i) {
+		return ids2==null ? -1 : ids2[i];
+	}
+
+	private void checkIndex(int i) {
+		if(i < 0 || i >= size)
+			throw new IndexOutOfBoundsException("Term " + i + " of " + size);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if(capacity <= ids.length)
+			return;
+		int newCapacity= Math.max(capacity, Math.max(4, ids.length + (ids.length >> 1)));
+		ids= Arrays.copyOf(ids, newCapacity);
+		coefficients= Arrays.copyOf(coefficients, newCapacity);
+		if(ids2!=null) {
+			int oldLength= ids2.length;
+			ids2= Arrays.copyOf(ids2, newCapacity);
+			Arrays.fill(ids2, oldLength, newCapacity, -1);
+		}
+	}//ensureCapacity
+
+	private int[] linearIds(int length) {
+		int[] result= new int[length];
+		Arrays.fill(result, -1);
+		return result;
+	}
+
+	/**Compares term i with the ids of another term, first by id and then by id2.*/
+	private int compare(int i, int id, int id2) {
+		int result= Integer.compare(ids[i], id);
+		return result!=0 ? result : Integer.compare(id2(i), id2);
+	}
+
+	private boolean isSorted() {
+		for(int i= 1; i < size; i++)
+			if(compare(i - 1, ids[i], id2(i)) > 0)
+				return false;
+		return true;
+	}
+
+	/**Sorts the terms by their ids, keeping terms with the same ids in order, with a merge sort of the term positions.*/
+	private void sort() {
+		int[] order= new int[size];
+		for(int i= 0; i < size; i++)
+			order[i]= i;
+		int[] buffer= new int[size];
+		for(int width= 1; width < size; width*= 2) {
+			for(int low= 0; low < size - width; low+= 2 * width) {
+				int middle= low + width;
+				int high= Math.min(low + 2 * width, size);
+				int left= low, right= middle, k= low;
+				while(left < middle && right < high)
+					buffer[k++]= compare(order[right], ids[order[left]], id2(order[left])) < 0 ? order[right++] : order[left++];
+				while(left < middle)
+					buffer[k++]= order[left++];
+				while(right < high)
+					buffer[k++]= order[right++];
+				System.arraycopy(buffer, low, order, low, high - low);
+			}
+		}
+		int[] sortedIds= new int[ids.length];
+		int[] sortedIds2= ids2==null ? null : linearIds(ids2.length);
+		double[] sortedCoefficients= new double[coefficients.length];
+		for(int i= 0; i < size; i++) {
+			sortedIds[i]= ids[order[i]];
+			if(ids2!=null)
+				sortedIds2[i]= ids2[order[i]];
+			sortedCoefficients[i]= coefficients[order[i]];
+		}
+		ids= sortedIds;
+		ids2= sortedIds2;
+		coefficients= sortedCoefficients;
+	}//sort
+
+	/**
+	 * Gives dense integer ids (0, 1, 2, ...) to the names of the Row and Column items of a model.
+	 * A modeling factory makes one for each model, so the ids are forgotten with the model.
+	 *
+	 * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+	 *
+	 */
+	public static final class Names {
+
+		/**Ids by name.*/
+		private final Map<String, Integer> ids;
+
+		/**Names by id.*/
+		private final List<String> names;
+
+		/**
+		 * Creates an empty set of names.
+		 */
+		public Names() {
+			super();
+			this.ids= new ConcurrentHashMap<String, Integer>();
+			this.names= new ArrayList<String>();
+		}
+
+		/**
+		 * Returns the id of a Row or Column item, giving the next id to a new name.
+		 *
+		 * @param item an Id, a String name, or any other item named by its toString
+		 * @return the id of the item's name
+		 * @throws IllegalArgumentException if item is null
+		 */
+		public int idOf(Object item) {
+			if(item==null)
+				throw new IllegalArgumentException("Null id");
+			String name= MsdxIdDictionary.name(item);
+			Integer id= ids.get(name);
+			if(id!=null)
+				return id;
+			synchronized(this) {
+				id= ids.get(name);
+				if(id==null) {
+					id= names.size();
+					names.add(name);
+					ids.put(name, id);
+				}
+				return id;
+			}
+		}//idOf
+
+		/**
+		 * @param id
+		 * @return the name with this id
+		 * @throws IllegalArgumentException if no name has this id
+		 */
+		public synchronized String nameOf(int id) {
+			if(id<0 || id>=names.size())
+				throw new IllegalArgumentException("Unknown id " + id);
+			return names.get(id);
+		}
+
+		/**@return the number of names*/
+		public synchronized int size() {
+			return names.size();
+		}
+
+	}//class MsdxSparseExpression.Names
+
+}//class MsdxSparseExpression
@@ -0,0 +1,227 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.modeling;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.MsdxFunctionCall;
+import io.github.JeremyBloom.mosdex2.dataframe.MsdxJavaDataframe;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxInstance;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxQuery;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxTable;
+import io.github.JeremyBloom.mosdex2.span.MsdxRecordCodec;
+import io.github.JeremyBloom.mosdex2.span.MsdxSpillStore;
+
+/**
+ * Counts the remaining consumers of each Table's Instance while MsdxModel builds a model,
+ * and releases an Instance once its last consumer has run.
+ * <p>
+ * The consumers of a Table are the Queries of the Tables that depend on it (as found by the MsdxQuery.Resolver),
+ * which run when MsdxModel.createModelingObjects creates their Instances,
+ * and, for a VARIABLE, CONSTRAINT, OBJECTIVE or TERM Table in the modeling factory's creationOrder,
+ * the step that creates its solver objects. A Table with no consumers left is released when
+ * releaseUnused is called after the Queries have run, or as soon as its last consumer has run.
+ * <p>
+ * Some Tables are read again after the model is built, and are kept (pinned):
+ * those with function call fields, whose Instances createSolutionObjects replaces with the solution values,
+ * and those the Queries of the output Tables depend on.
+ * Any Table may still be written when the Files are shown, so a released Instance remains readable:
+ * its Records are spilled to an MsdxSpillStore and read back from it on demand (see MsdxInstance.release).
+ * <p>
+ * Only Java dataframes are released. A Spark dataframe is not held by its Instance alone
+ * (its temporary view and the plans of the Queries that read it refer to its data),
+ * and Spark manages its memory itself.
+ * Dataframes with fewer than minimumSize Records, or whose Schemas cannot be encoded by MsdxRecordCodec, are also kept.
+ * The spill files of a Table are deleted when its Instance creates its Dataframe again or is replaced,
+ * and those that remain when the lifecycle is closed, once the Files have been shown.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxTableLifecycle implements AutoCloseable {
+
+	/**Default smallest number of Records in a released dataframe.*/
+	public static final int DEFAULT_MINIMUM_SIZE= 10_000;
+
+	/**Number of Records a released Instance keeps in memory; the rest are in its spill files.*/
+	static final int SPILL_WORKING_SET_SIZE= 1_024;
+
+	/**The Table classes whose solver objects are created from their Instances.*/
+	private static final Set<String> MODELING_CLASSES= Set.of("VARIABLE", "CONSTRAINT", "OBJECTIVE", "TERM");
+
+	private final Map<String, MsdxTable> collector;
+
+	/**The Tables each Table's Query depends on.*/
+	private final Map<String, Set<String>> dependencies;
+
+	/**Number of consumers of each Table that have yet to run.*/
+	private final Map<String, Integer> referenceCounts;
+
+	/**Tables that are read after the model is built.*/
+	private final Set<String> pinned;
+
+	/**Tables that have been released, with the stores holding their Records.*/
+	private final Map<String, MsdxSpillStore> released;
+
+	private final long minimumSize;
+	private final Path spillDirectory;
+
+	/**
+	 * Creates a lifecycle with the default minimum size, spilling to the system temporary directory.
+	 *
+	 * @param collector the Tables of the model
+	 * @param resolver whose dependencies have been found
+	 * @param creationOrder of the modeling factory
+	 */
+	public MsdxTableLifecycle(Map<String, MsdxTable> collector, MsdxQuery.Resolver resolver, Set<String> creationOrder) {
+		this(collector, resolver, creationOrder, DEFAULT_MINIMUM_SIZE, null);
+	}
+
+	/**
+	 * Creates a lifecycle.
+	 *
+	 * @param collector the Tables of the model
+	 * @param resolver whose dependencies have been found
+	 * @param creationOrder of the modeling factory
+	 * @param minimumSize smallest number of Records in a released dataframe
+	 * @param spillDirectory directory for the spill files, or null for the system temporary directory
+	 * @throws IllegalArgumentException if a Query depends on a Table that is not in the collector
+	 */
+	public MsdxTableLifecycle(Map<String, MsdxTable> collector, MsdxQuery.Resolver resolver, Set<String> creationOrder,
+		long minimumSize, Path spillDirectory)
+	{
+		super();
+		this.collector= collector;
+		this.dependencies= resolver.getTableDependencies();
+		this.referenceCounts= new LinkedHashMap<String, Integer>();
+		this.pinned= new LinkedHashSet<String>();
+		this.released= new LinkedHashMap<String, MsdxSpillStore>();
+		this.minimumSize= minimumSize;
+		this.spillDirectory= spillDirectory;
+
+		for(String tableName: collector.keySet())
+			referenceCounts.put(tableName, 0);
+		for(Map.Entry<String, MsdxTable> entry: collector.entrySet()) {
+			String tableName= entry.getKey();
+			MsdxTable table= entry.getValue();
+			boolean output= table.getTableClass().equals("DATA") && table.getTableType().equals("OUTPUT");
+			for(String dependency: dependenciesOf(tableName)) {
+				if(!referenceCounts.containsKey(dependency))
+					throw new IllegalArgumentException("Table " + tableName + " depends on unknown table " + dependency);
+				if(output)
+					pinned.add(dependency);
+				else
+					referenceCounts.merge(dependency, 1, Integer::sum);
+			}
+			if(MODELING_CLASSES.contains(table.getTableClass()) && creationOrder.contains(table.getTableClass()))
+				referenceCounts.merge(tableName, 1, Integer::sum);
+			if(table.getSchema()!=null && !MsdxFunctionCall.findFunctionFieldsIn(table.getSchema().asContainer()).isEmpty())
+				pinned.add(tableName);
+		}//for entry
+	}//MsdxTableLifecycle
+
+	/**
+	 * Records that a Table's Query has run, so that each Table it depends on has one consumer fewer.
+	 *
+	 * @param tableName
+	 */
+	public void instantiated(String tableName) {
+		for(String dependency: dependenciesOf(tableName))
+			consume(dependency);
+	}
+
+	/**
+	 * Records that the solver objects of a Table have been created from its Instance.
+	 *
+	 * @param tableName
+	 */
+	public void modeled(String tableName) {
+		if(MODELING_CLASSES.contains(collector.get(tableName).getTableClass()))
+			consume(tableName);
+	}
+
+	/**
+	 * Releases the Tables that have no consumers left.
+	 * Called once the Queries of the input Tables have run.
+	 */
+	public void releaseUnused() {
+		for(Map.Entry<String, Integer> entry: referenceCounts.entrySet())
+			if(entry.getValue()==0)
+				release(entry.getKey());
+	}
+
+	/**
+	 * @param tableName
+	 * @return the number of consumers of the Table that have yet to run
+	 */
+	public int getReferenceCount(String tableName) {
+		Integer count= referenceCounts.get(tableName);
+		if(count==null)
+			throw new IllegalArgumentException("Unknown table " + tableName);
+		return count;
+	}
+
+	/**
+	 * @param tableName
+	 * @return true if the Table is read after the model is built and so is never released
+	 */
+	public boolean isPinned(String tableName) {
+		return pinned.contains(tableName);
+	}
+
+	/**@return the names of the Tables that have been released*/
+	public Set<String> getReleased() {
+		return Collections.unmodifiableSet(released.keySet());
+	}
+
+	private Set<String> dependenciesOf(String tableName) {
+		return dependencies.getOrDefault(tableName, Set.of());
+	}
+
+	private void consume(String tableName) {
+		int count= getReferenceCount(tableName);
+		if(count==0)
+			throw new IllegalStateException("Table " + tableName + " has no consumers left");
+		referenceCounts.put(tableName, count - 1);
+		if(count==1)
+			release(tableName);
+	}//consume
+
+	/**Spills the Instance of a Table and releases its dataframe, unless it is kept.*/
+	private void release(String tableName) {
+		if(pinned.contains(tableName) || released.containsKey(tableName))
+			return;
+		MsdxTable table= collector.get(tableName);
+		MsdxInstance instance= table.getInstance();
+		if(instance==null || instance.isReleased() || instance.isDeferred()	//a deferred Instance holds no Records yet
+			|| !(instance.getDataframe() instanceof MsdxJavaDataframe))
+			return;
+		MsdxContainer<Class<?>> schema= instance.getRecordSchema();
+		if(!MsdxRecordCodec.isSupported(schema) || instance.getDataframe().size() < minimumSize)
+			return;
+		MsdxSpillStore store= new MsdxSpillStore(instance.asContainers(), schema, "", SPILL_WORKING_SET_SIZE, spillDirectory);
+		instance.release(store::stream, store::delete);
+		released.put(tableName, store);
+	}//release
+
+	/**
+	 * Deletes the spill files of the released Tables. 
+	 * A released Instance that has not created its Dataframe again can no longer be read, 
+	 * so this is called once the model has been solved and the Files shown.
+	 */
+	@Override
+	public void close() {
+		for(MsdxSpillStore store: released.values())
+			store.delete();
+	}//close
+
+}//class MsdxTableLifecycle
@@ -7,6 +7,9 @@ package io.github.JeremyBloom.mosdex2.objectModel;
 
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -39,6 +42,24 @@ public class MsdxInstance extends MsdxObject {
 	/**Holds the actual data of this Instance.*/
 	MsdxDataframe dataframe;
 
+	/**Reads the Records of this Instance back after it has been released; null while it holds its Dataframe.*/
+	private Supplier<Stream<MsdxContainer<Object>>> reload;
+
+	/**Discards the Records supplied by reload once the Dataframe has been created again; null if there is nothing to discard.*/
+	private Runnable discard;
+
+	/**Creates the Dataframe again when a released Instance is asked for it.*/
+	private MsdxDataframe.Factory reloadFactory;
+
+	/**The Schema of the Records of a released or deferred Instance.*/
+	private MsdxContainer<Class<?>> reloadSchema;
+
+	/**Decodes a deferred Instance when it is first read; null once it has been decoded, or if it was decoded when its File was read.*/
+	private volatile Supplier<MsdxInstance> loader;
+
+	/**Byte offset of the Instance array in its File, if it was indexed rather than decoded when the File was read; otherwise -1.*/
+	private long fileOffset;
+
 	/**
      * Constructs a new Instance object. 
      * Ordinarily, an Instance should be deserialized from JSON using methods of the 
@@ -60,6 +81,7 @@ public class MsdxInstance extends MsdxObject {
 		super(thisNode, parent, objectFactory);
 		this.dataframe = dataframe;
 		this.tableSchema = tableSchema;
+		this.fileOffset = -1;
 	}
 	
 	/**
@@ -104,6 +126,11 @@ public class MsdxInstance extends MsdxObject {
 	 */
 	public MsdxInstance replace(MsdxDataframe dataframe, MsdxSchema tableSchema) {
 		this.dataframe= dataframe;
+		this.discard();
+		this.reload= null;
+		this.reloadFactory= null;
+		this.reloadSchema= null;
+		this.loader= null;
 		if(this.getSchema()==null)
 			this.tableSchema= tableSchema;
 
@@ -124,21 +151,182 @@ public class MsdxInstance extends MsdxObject {
 		return super.getAsNode();
 	}
 
-	/**@return the Dataframe of this Instance*/
+	/**
+	 * Returns the Dataframe of this Instance. 
+	 * If the Instance has been released, its Dataframe is created again from the Records read back, 
+	 * which are then discarded; if it is deferred, it is decoded first.
+	 * 
+	 * @return the Dataframe of this Instance
+	 */
 	public MsdxDataframe getDataframe() {
+		this.load();
+		if(this.isReleased()) {
+			this.dataframe= this.reloadFactory.create(
+				((MsdxTable) this.getParent()).getName(), this.reload.get(), this.reloadSchema);
+			this.discard();
+			this.reload= null;
+			this.reloadFactory= null;
+			this.reloadSchema= null;
+		}
 		return this.dataframe;
 	}
 	
-	/**@return the Dataframe of this Instance as a stream of records*/
+	/**
+	 * Returns the Records of this Instance. 
+	 * If the Instance has been released, the Records are read back without creating its Dataframe again; 
+	 * if it is deferred, it is decoded first.
+	 * 
+	 * @return the Dataframe of this Instance as a stream of records
+	 */
 	public Stream<MsdxContainer<Object>> asContainers() {
+		this.load();
+		if(this.isReleased())
+			return this.reload.get();
 		return this.dataframe.toStream().map(record -> (MsdxContainer<Object>)record);		
 	}
+	
+	/**
+	 * Releases the Dataframe of this Instance, so that it can be reclaimed while the Instance is not in use 
+	 * (see MsdxTableLifecycle). 
+	 * Later reads of the Instance get its Records from the reload argument, 
+	 * which must supply the same Records each time it is called.
+	 * 
+	 * @param reload supplies the Records of this Instance
+	 * @return this instance
+	 * @throws IllegalArgumentException if reload is null
+	 * @throws IllegalStateException if this Instance has already been released or has not yet been decoded
+	 */
+	public MsdxInstance release(Supplier<Stream<MsdxContainer<Object>>> reload) {
+		return this.release(reload, null);
+	}
+
+	/**
+	 * Releases the Dataframe of this Instance, as release(reload) does, 
+	 * and runs discard once the Dataframe has been created again or replaced, 
+	 * so that the holder of the Records supplied by reload can free them.
+	 * 
+	 * @param reload supplies the Records of this Instance
+	 * @param discard frees the Records supplied by reload, or null
+	 * @return this instance
+	 * @throws IllegalArgumentException if reload is null
+	 * @throws IllegalStateException if this Instance has already been released or has not yet been decoded
+	 */
+	public MsdxInstance release(Supplier<Stream<MsdxContainer<Object>>> reload, Runnable discard) {
+		if(reload==null)
+			throw new IllegalArgumentException("Null reload");
+		if(this.isReleased())
+			throw new IllegalStateException("Instance has already been released");
+		if(this.isDeferred())
+			throw new IllegalStateException("Instance has not been decoded");
+		this.reloadFactory= this.dataframe.getFactory();
+		this.reloadSchema= this.dataframe.getSchema();
+		this.reload= reload;
+		this.discard= discard;
+		this.dataframe= null;
+		return this;
+	}//release
+
+	/**Runs the discard callback of a released Instance, if any, once.*/
+	private void discard() {
+		Runnable discard= this.discard;
+		this.discard= null;
+		if(discard!=null)
+			discard.run();
+	}//discard
+	
+	/**
+	 * Leaves this Instance released without a Dataframe, 
+	 * after its Records have been handed to the model by an MsdxInstanceStream and not kept. 
+	 * 
+	 * @param tableName
+	 * @param dataframeFactory
+	 * @param recordSchema the Schema of the Records that were streamed
+	 */
+	void streamed(String tableName, MsdxDataframe.Factory dataframeFactory, MsdxContainer<Class<?>> recordSchema) {
+		this.dataframe= null;
+		this.reloadFactory= dataframeFactory;
+		this.reloadSchema= recordSchema;
+		this.reload= () -> {
+			throw new IllegalStateException("The Instance of " + tableName + " was streamed to the model and not kept");
+		};
+	}//streamed
+	
+	/**@return true if the Dataframe of this Instance has been released and not yet created again*/
+	public boolean isReleased() {
+		return this.reload!=null;
+	}
+	
+	/**
+	 * Leaves this Instance without a Dataframe until it is first read, 
+	 * after its File was indexed rather than decoded (see MsdxObject.Factory.withLazyInstances).
+	 * 
+	 * @param fileOffset byte offset of the Instance array in its File
+	 * @param recordSchema the Schema of the Records that will be decoded
+	 * @param loader decodes the Instance from its File
+	 */
+	void defer(long fileOffset, MsdxContainer<Class<?>> recordSchema, Supplier<MsdxInstance> loader) {
+		this.dataframe= null;
+		this.fileOffset= fileOffset;
+		this.reloadSchema= recordSchema;
+		this.loader= loader;
+	}//defer
+	
+	/**
+	 * Decodes this Instance from its File, if it is deferred. 
+	 * Called when the Instance is first read, or by MsdxQuery.Resolver.loadDependenciesOf before a Query reads it. 
+	 * Synchronized, so that an Instance read by several threads at once is decoded only once.
+	 * 
+	 * @return this instance
+	 */
+	public synchronized MsdxInstance load() {
+		if(this.isDeferred()) {
+			this.dataframe= this.loader.get().dataframe;
+			this.loader= null;
+			this.reloadSchema= null;
+		}
+		return this;
+	}//load
+	
+	/**@return true if this Instance was indexed when its File was read and has not yet been decoded*/
+	public boolean isDeferred() {
+		return this.loader!=null;
+	}
+	
+	/**
+	 * @return the byte offset of the Instance array in its File, 
+	 * if the Instance was indexed rather than decoded when the File was read; otherwise -1
+	 */
+	public long getFileOffset() {
+		return fileOffset;
+	}
 
 	/**@return the Schema of this Instance*/
 	public MsdxSchema getSchema() {
 		return tableSchema;
 	}
 	
+	/**
+	 * Returns the Schema of the Records of this Instance. 
+	 * This is the Table's Schema unless some of its fields were pruned when the Instance was read 
+	 * (see MsdxObject.Factory.withRequiredFields), in which case it has only the fields that were read.
+	 * 
+	 * @return the Schema of the Records of this Instance
+	 */
+	public MsdxContainer<Class<?>> getRecordSchema() {
+		if(this.isReleased() || this.isDeferred())
+			return this.reloadSchema;
+		if(this.dataframe==null)
+			return this.tableSchema.asContainer();
+		return this.dataframe.getSchema();
+	}//getRecordSchema
+	
+	/**@return the fields of the Table's Schema that are not available in the Records of this Instance*/
+	public Set<String> getPrunedFields() {
+		Set<String> pruned= new LinkedHashSet<String>(this.tableSchema.asContainer().itemNames());
+		pruned.removeAll(this.getRecordSchema().itemNames());
+		return pruned;
+	}//getPrunedFields
+	
 	/**
 	 * Writes an Instance as a JSON Object.
 	 * Generally conforms to MOSDEX conventions.
@@ -166,7 +354,7 @@ public class MsdxInstance extends MsdxObject {
 					objectFactory.writeRecords(
 						MsdxInstance.this.asContainers() 
 							.limit(limit!=null ? limit : Long.MAX_VALUE),
-							MsdxInstance.this.getSchema().asContainer(), 
+							MsdxInstance.this.getRecordSchema(), 
 						generator);
 					return true;
 				}
@@ -0,0 +1,330 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.objectModel;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+
+/**
+ * Hands the Records of a Table's Instance from the thread that parses a MOSDEX File
+ * to the thread that builds the model from them, as they are decoded.
+ * <p>
+ * The parser opens the stream with the Schema of its Records when it reaches the Table's Instance,
+ * puts each Record as it is read, and closes the stream at the end of the Instance.
+ * The model reads the Records once, as a Java stream whose elements wait for the parser (see stream).
+ * <p>
+ * The streams of a File are held by a Registry, which knows the order in which the model reads the Tables.
+ * The buffer of a Table is bounded by the Registry's capacity when every Table the model reads before it
+ * has been parsed, so that the parser waits for the model and no more than capacity Records are held.
+ * A Table that is parsed before a Table the model reads first
+ * (e.g. a TERM Table ahead of a VARIABLE Table in the File) is buffered in full,
+ * since the model cannot reach it until the parser has gone past it.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxInstanceStream {
+
+	/**Marks the end of the Records.*/
+	private static final Object END= new Object();
+
+	/**How long a waiting put or take sleeps before it checks whether the Registry has been cancelled, in milliseconds.*/
+	private static final long POLL_INTERVAL= 100;
+
+	private final String tableName;
+	private final Registry registry;
+
+	/**True if the model keeps the Instance after building from it (see Registry.isRetained).*/
+	private final boolean retained;
+
+	/**Released when the parser opens this stream.*/
+	private final CountDownLatch opened;
+
+	private volatile MsdxContainer<Class<?>> recordSchema;
+	private volatile BlockingQueue<Object> buffer;
+	private volatile boolean closed;
+	private boolean read;
+
+	private MsdxInstanceStream(String tableName, Registry registry, boolean retained) {
+		super();
+		this.tableName= tableName;
+		this.registry= registry;
+		this.retained= retained;
+		this.opened= new CountDownLatch(1);
+		this.recordSchema= null;
+		this.buffer= null;
+		this.closed= false;
+		this.read= false;
+	}
+
+	/**@return the name of the Table*/
+	public String getTableName() {
+		return tableName;
+	}
+
+	/**@return true if the parser also keeps the Table's Instance, for reading after the model is built*/
+	public boolean isRetained() {
+		return retained;
+	}
+
+	/**
+	 * Opens this stream; called by the parser when it reaches the Table's Instance.
+	 *
+	 * @param recordSchema the Schema of the Records
+	 * @throws IllegalStateException if this stream has already been opened
+	 */
+	void open(MsdxContainer<Class<?>> recordSchema) {
+		if(this.buffer!=null)
+			throw new IllegalStateException("Instance stream of " + tableName + " has already been opened");
+		this.recordSchema= recordSchema;
+		this.buffer= registry.isBoundable(tableName) ?
+			new LinkedBlockingQueue<Object>(registry.capacity) :
+			new LinkedBlockingQueue<Object>();
+		this.opened.countDown();
+	}//open
+
+	/**
+	 * Puts a Record, waiting while the buffer is full.
+	 *
+	 * @param record
+	 * @throws CancellationException if the Registry has been cancelled
+	 */
+	void put(MsdxContainer<Object> record) {
+		offer(record);
+	}
+
+	/**Closes this stream after its last Record.*/
+	void close() {
+		offer(END);
+		this.closed= true;
+	}
+
+	private void offer(Object element) {
+		try {
+			while(!buffer.offer(element, POLL_INTERVAL, TimeUnit.MILLISECONDS))
+				registry.checkCancelled();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while parsing " + tableName);
+		}
+	}//offer
+
+	/**@return true if the parser has put the last Record*/
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Returns the Schema of the Records, waiting until the parser reaches the Table's Instance.
+	 *
+	 * @return the Schema of the Records
+	 * @throws CancellationException if the Registry is cancelled while waiting
+	 */
+	public MsdxContainer<Class<?>> getSchema() {
+		awaitOpen();
+		return recordSchema;
+	}
+
+	/**
+	 * Returns the Records as they are parsed. Each element waits until the parser has put it.
+	 * The Records can be read only once.
+	 *
+	 * @return a sequential stream of the Records
+	 * @throws IllegalStateException if the Records have already been read
+	 * @throws CancellationException (from the stream) if the Registry is cancelled, e.g. because parsing failed
+	 */
+	public synchronized Stream<MsdxContainer<Object>> stream() {
+		if(read)
+			throw new IllegalStateException("Instance stream of " + tableName + " has already been read");
+		read= true;
+		Iterator<MsdxContainer<Object>> records= new Iterator<MsdxContainer<Object>>() {
+			Object next= null;
+
+			@Override
+			public boolean hasNext() {
+				if(next==null)
+					next= take();
+				return next!=END;
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public MsdxContainer<Object> next() {
+				if(!hasNext())
+					throw new NoSuchElementException(tableName);
+				MsdxContainer<Object> record= (MsdxContainer<Object>) next;
+				next= null;
+				return record;
+			}
+		}/*Iterator*/;
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records, Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}//stream
+
+	private Object take() {
+		awaitOpen();
+		try {
+			Object element;
+			while((element= buffer.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS))==null)
+				registry.checkCancelled();
+			return element;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while reading " + tableName);
+		}
+	}//take
+
+	private void awaitOpen() {
+		try {
+			while(!opened.await(POLL_INTERVAL, TimeUnit.MILLISECONDS))
+				registry.checkCancelled();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while waiting for " + tableName);
+		}
+	}//awaitOpen
+
+	@Override
+	public String toString() {
+		return "Instance stream of " + tableName + (closed ? " (closed)" : buffer!=null ? " (open)" : "");
+	}
+
+	/**
+	 * The Instance streams of the Tables that the model reads as they are parsed,
+	 * in the order the model reads them.
+	 * An MsdxObject.Factory given a Registry (see MsdxObject.Factory.withInstanceStreams)
+	 * puts the Records of these Tables into their streams instead of creating their Dataframes.
+	 */
+	public static class Registry {
+
+		/**Default number of Records buffered for a Table while the model is behind the parser.*/
+		public static final int DEFAULT_CAPACITY= 4_096;
+
+		private final int capacity;
+
+		/**The streams in the order the model reads them.*/
+		private final Map<String, MsdxInstanceStream> streams;
+
+		private volatile Throwable cancelled;
+
+		/**
+		 * Creates a Registry.
+		 *
+		 * @param readingOrder the names of the Tables, in the order the model reads them
+		 * @param retained the Tables whose Instances are also kept, for reading after the model is built
+		 * @param capacity the number of Records buffered for a Table while the model is behind the parser
+		 * @throws IllegalArgumentException if the capacity is not positive or a Table is named twice
+		 */
+		public Registry(List<String> readingOrder, Set<String> retained, int capacity) {
+			super();
+			if(capacity<1)
+				throw new IllegalArgumentException("Capacity must be positive");
+			this.capacity= capacity;
+			this.streams= new LinkedHashMap<String, MsdxInstanceStream>();
+			this.cancelled= null;
+			for(String tableName: readingOrder)
+				if(streams.put(tableName, new MsdxInstanceStream(tableName, this, retained.contains(tableName)))!=null)
+					throw new IllegalArgumentException("Duplicate table name " + tableName);
+		}//Registry
+
+		/**
+		 * Creates a Registry with the default capacity.
+		 *
+		 * @param readingOrder the names of the Tables, in the order the model reads them
+		 * @param retained the Tables whose Instances are also kept, for reading after the model is built
+		 */
+		public Registry(List<String> readingOrder, Set<String> retained) {
+			this(readingOrder, retained, DEFAULT_CAPACITY);
+		}
+
+		/**@return the number of Records buffered for a Table while the model is behind the parser*/
+		public int getCapacity() {
+			return capacity;
+		}
+
+		/**
+		 * @param tableName
+		 * @return true if the Table's Records are streamed
+		 */
+		public boolean contains(String tableName) {
+			return streams.containsKey(tableName);
+		}
+
+		/**
+		 * @param tableName
+		 * @return the Instance stream of the Table
+		 * @throws IllegalArgumentException if the Table's Records are not streamed
+		 */
+		public MsdxInstanceStream get(String tableName) {
+			MsdxInstanceStream stream= streams.get(tableName);
+			if(stream==null)
+				throw new IllegalArgumentException("Table " + tableName + " is not streamed");
+			return stream;
+		}
+
+		/**@return the Instance streams, in the order the model reads them*/
+		public Map<String, MsdxInstanceStream> getStreams() {
+			return Collections.unmodifiableMap(streams);
+		}
+
+		/**
+		 * Stops the parser and the model, e.g. when either of them fails.
+		 * Their waiting puts and takes then throw CancellationException.
+		 *
+		 * @param cause
+		 */
+		public void cancel(Throwable cause) {
+			if(this.cancelled==null)
+				this.cancelled= cause!=null ? cause : new CancellationException();
+		}
+
+		/**@return true if the Registry has been cancelled*/
+		public boolean isCancelled() {
+			return cancelled!=null;
+		}
+
+		/**@throws CancellationException if the Registry has been cancelled*/
+		void checkCancelled() {
+			Throwable cause= this.cancelled;
+			if(cause!=null) {
+				CancellationException e= new CancellationException("Instance streams cancelled: " + cause.getMessage());
+				e.initCause(cause);
+				throw e;
+			}
+		}//checkCancelled
+
+		/**
+		 * @return true if every Table the model reads before this one has been parsed,
+		 * so that the model will reach this Table without waiting for the parser to go past it
+		 */
+		private boolean isBoundable(String tableName) {
+			for(MsdxInstanceStream stream: streams.values()) {
+				if(stream.getTableName().equals(tableName))
+					return true;
+				if(!stream.isClosed())
+					return false;
+			}
+			return true;
+		}//isBoundable
+
+	}//class MsdxInstanceStream.Registry
+
+}//class MsdxInstanceStream
@@ -24,6 +24,7 @@ import io.github.JeremyBloom.mosdex2.IEEEDouble;
 import io.github.JeremyBloom.mosdex2.Msdx;
 import io.github.JeremyBloom.mosdex2.MsdxContainer;
 import io.github.JeremyBloom.mosdex2.MsdxFunctionCall;
+import io.github.JeremyBloom.mosdex2.MsdxIdDictionary;
 import io.github.JeremyBloom.mosdex2.MsdxOutputDestination;
 import io.github.JeremyBloom.mosdex2.json.MsdxReader;
 import io.github.JeremyBloom.mosdex2.json.MsdxWriter;
@@ -177,6 +178,8 @@ public class MsdxSchema extends MsdxObject {
 			return String.class;
 		else if(fieldType.equals("INTEGER"))
 			return Integer.class;
+		else if(fieldType.equals("ID"))
+			return MsdxIdDictionary.Id.class;
 		else if(fieldType.equals("DOUBLE"))
 			return Double.class;
 		else if(fieldType.equals("IEEEDOUBLE"))
@@ -210,6 +213,8 @@ public class MsdxSchema extends MsdxObject {
 			fieldType= schema.get(fieldName);
 			if(MsdxFunctionCall.class.isAssignableFrom(fieldType))
 				typeName= fieldType.getSimpleName().toUpperCase() + "_FUNCTION";
+			else if(fieldType.equals(MsdxIdDictionary.Id.class))
+				typeName= "STRING";		//ID items are written as their names
 			else
 				typeName= fieldType.getSimpleName().toUpperCase();			
 			typesNode.add(typeName);
@@ -249,6 +254,7 @@ public class MsdxSchema extends MsdxObject {
 			generator.writeEndObject(schema.isEmpty());
 			generator.writeEndObject(false);
 			generator.linefeed();
+			generator.flush();
 		} catch (IOException e) {
 			System.err.println(e.getMessage());
 			e.printStackTrace();
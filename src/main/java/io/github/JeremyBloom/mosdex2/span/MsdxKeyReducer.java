@@ -0,0 +1,230 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.span;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+
+/**
+ * Carries out reduceByKey for MsdxJavaSpan, splitting the accumulation of hot keys.
+ * <p>
+ * The keys of a Span are seldom equally heavy: the objective row of a model collects a term for every variable,
+ * while a constraint row collects a few. Folding all the Records of a key into one accumulation
+ * makes the heaviest key a serial chain as long as the key has Records.
+ * When the operator is splittable (see OperatorWithAccumulator.isSplittable), the reducer counts the Records of each key as they arrive. 
+ * A key becomes hot when it has hotKeyThreshold Records, or from its first Record if the operator declares it hot (see OperatorWithAccumulator.withHotKeys).
+ * The Records of a hot key are then accumulated in chunks of chunkSize Records, each in its own accumulation,
+ * and at the end the partial accumulations are combined pairwise in a balanced tree,
+ * so that no chain of accumulations is longer than a chunk and the tree is only log(chunks) deep.
+ * The other keys, and every key of an operator that is not splittable, are accumulated as before, one accumulation per key.
+ * <p>
+ * When the operator is concurrent (see OperatorWithAccumulator.isConcurrent) and the reducer has an executor,
+ * each full chunk is accumulated on the executor while the Span continues to be read,
+ * and the pairs of the tree are combined as soon as both of their partial accumulations are ready.
+ * Otherwise the chunks are accumulated and combined on the calling thread.
+ * The partial accumulations are always combined in the order of their Records, and finish is called on the calling thread.
+ * <p>
+ * The reducer used by MsdxJavaSpan is the default reducer, which can be replaced with setDefault.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxKeyReducer {
+
+	/**Default number of Records after which a key is hot.*/
+	public static final int DEFAULT_HOT_KEY_THRESHOLD= 16_384;
+
+	/**Default number of Records in each partial accumulation of a hot key.*/
+	public static final int DEFAULT_CHUNK_SIZE= 4_096;
+
+	private static volatile MsdxKeyReducer defaultReducer=
+		new MsdxKeyReducer(DEFAULT_HOT_KEY_THRESHOLD, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+
+	private final int hotKeyThreshold;
+	private final int chunkSize;
+	private final Executor executor;
+
+	/**
+	 * Creates a reducer.
+	 *
+	 * @param hotKeyThreshold number of Records after which a key is hot
+	 * @param chunkSize number of Records in each partial accumulation of a hot key
+	 * @param executor for accumulating the chunks of concurrent operators, or null to accumulate them on the calling thread
+	 * @throws IllegalArgumentException if the threshold or the chunk size is not positive
+	 */
+	public MsdxKeyReducer(int hotKeyThreshold, int chunkSize, Executor executor) {
+		super();
+		if(hotKeyThreshold<1)
+			throw new IllegalArgumentException("Hot key threshold must be positive");
+		if(chunkSize<1)
+			throw new IllegalArgumentException("Chunk size must be positive");
+		this.hotKeyThreshold= hotKeyThreshold;
+		this.chunkSize= chunkSize;
+		this.executor= executor;
+	}
+
+	/**@return the reducer used by MsdxJavaSpan*/
+	public static MsdxKeyReducer getDefault() {
+		return defaultReducer;
+	}
+
+	/**
+	 * Replaces the reducer used by MsdxJavaSpan.
+	 * @param reducer
+	 */
+	public static void setDefault(MsdxKeyReducer reducer) {
+		defaultReducer= Objects.requireNonNull(reducer);
+	}
+
+	/**@return the number of Records after which a key is hot*/
+	public int getHotKeyThreshold() {
+		return hotKeyThreshold;
+	}
+
+	/**@return the number of Records in each partial accumulation of a hot key*/
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Reduces the Records by key.
+	 * The combiner's result Schema must already be specified.
+	 *
+	 * @param <A> the type of the accumulation
+	 * @param records
+	 * @param keyFieldName
+	 * @param combiner
+	 * @return the result Container of each key, in the order the keys first occur
+	 */
+	public <A> Map<Object, MsdxContainer<Object>> reduceByKey(
+		Stream<MsdxContainer<Object>> records,
+		String keyFieldName,
+		OperatorWithAccumulator<A> combiner)
+	{
+		boolean splittable= combiner.isSplittable();
+		Executor chunkExecutor= combiner.isConcurrent() ? executor : null;
+		Set<Object> hotKeys= combiner.getHotKeys();
+		Map<Object, Group<A>> groups= new MsdxKeyMap<Group<A>>();
+
+		records.forEachOrdered(record -> {
+			Object key= record.get(keyFieldName);
+			Group<A> group= groups.get(key);
+			if(group==null) {
+				group= new Group<A>(splittable, splittable && hotKeys.contains(key));
+				groups.put(key, group);
+			}
+			group.add(record, combiner, chunkExecutor);
+		});
+
+		Map<Object, MsdxContainer<Object>> reduced= new MsdxKeyMap<MsdxContainer<Object>>(groups.size());
+		groups.forEach((key, group) -> reduced.put(key, combiner.finish(group.finish(combiner, chunkExecutor))));
+		return reduced;
+	}//reduceByKey
+
+	/**
+	 * The accumulation of one key: a single accumulation while the key is not hot,
+	 * then the partial accumulations of its chunks.
+	 * A key of an operator that is not splittable never becomes hot.
+	 */
+	private final class Group<A> {
+
+		private final boolean splittable;
+
+		/**The accumulation being filled, or null.*/
+		private A current;
+
+		/**Records in current, or in chunk.*/
+		private int count;
+
+		private boolean hot;
+
+		/**Records of the chunk being filled, when the chunks are accumulated on the executor.*/
+		private List<MsdxContainer<Object>> chunk;
+
+		/**Partial accumulations in the order of their Records.*/
+		private final List<CompletableFuture<A>> parts;
+
+		Group(boolean splittable, boolean hot) {
+			super();
+			this.splittable= splittable;
+			this.current= null;
+			this.count= 0;
+			this.hot= hot;
+			this.chunk= null;
+			this.parts= new ArrayList<CompletableFuture<A>>(1);
+		}
+
+		void add(MsdxContainer<Object> record, OperatorWithAccumulator<A> combiner, Executor chunkExecutor) {
+			if(hot && chunkExecutor!=null) {
+				if(chunk==null)
+					chunk= new ArrayList<MsdxContainer<Object>>(chunkSize);
+				chunk.add(record);
+				if(chunk.size()==chunkSize) {
+					List<MsdxContainer<Object>> full= chunk;
+					parts.add(CompletableFuture.supplyAsync(() -> accumulate(full, combiner), chunkExecutor));
+					chunk= null;
+				}
+				return;
+			}
+			if(current==null)
+				current= combiner.supply();
+			combiner.accumulate(current, record);
+			count++;
+			if(splittable && count==(hot ? chunkSize : hotKeyThreshold)) {
+				parts.add(CompletableFuture.completedFuture(current));
+				current= null;
+				count= 0;
+				hot= true;
+			}
+		}//add
+
+		A finish(OperatorWithAccumulator<A> combiner, Executor chunkExecutor) {
+			if(current!=null)
+				parts.add(CompletableFuture.completedFuture(current));
+			if(chunk!=null)
+				parts.add(CompletableFuture.completedFuture(accumulate(chunk, combiner)));
+			if(parts.isEmpty())
+				return combiner.supply();
+			List<CompletableFuture<A>> level= parts;
+			while(level.size() > 1) {
+				List<CompletableFuture<A>> next= new ArrayList<CompletableFuture<A>>((level.size() + 1) / 2);
+				for(int i= 0; i + 1 < level.size(); i+= 2)
+					next.add(chunkExecutor!=null ?
+						level.get(i).thenCombineAsync(level.get(i + 1), combiner::combine, chunkExecutor) :
+						level.get(i).thenCombine(level.get(i + 1), combiner::combine));
+				if(level.size() % 2 == 1)
+					next.add(level.get(level.size() - 1));
+				level= next;
+			}
+			try {
+				return level.get(0).join();
+			} catch (CompletionException e) {
+				if(e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				throw e;
+			}
+		}//finish
+
+		private A accumulate(List<MsdxContainer<Object>> records, OperatorWithAccumulator<A> combiner) {
+			A accumulation= combiner.supply();
+			for(MsdxContainer<Object> record: records)
+				combiner.accumulate(accumulation, record);
+			return accumulation;
+		}
+
+	}//class MsdxKeyReducer.Group
+
+}//class MsdxKeyReducer
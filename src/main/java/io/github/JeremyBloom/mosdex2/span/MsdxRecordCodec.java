@@ -0,0 +1,245 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.span;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.github.JeremyBloom.mosdex2.IEEEDouble;
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.MsdxStringPool;
+
+/**
+ * Encodes the Records of a Span in a compact binary form driven by the Span's Schema.
+ * The field names and types are taken from the Schema once, so an encoded Record holds only its values:
+ * a bitmap of the null fields, followed by each non-null value in Schema order.
+ * <ul style="list-style-type:bullet;">
+ * <li> Integer and Long values are written as zigzag variable-length integers.</li>
+ * <li> Double and IEEEDouble values are written as their raw IEEE bits, so that values round-trip exactly.</li>
+ * <li> Boolean values are written as one byte.</li>
+ * <li> String values are written as UTF-8 bytes preceded by their length; 
+ * when read, the values of the key and identifier fields are interned in the codec's MsdxStringPool, if it has one.</li>
+ * <li> Values of any other Serializable type (e.g. MsdxFunctionCall) are written with Java serialization.</li>
+ * </ul>
+ * A Schema with a field type that is not Serializable (e.g. the Variable of a Column) cannot be encoded.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxRecordCodec {
+
+	private static final byte INTEGER= 0;
+	private static final byte LONG= 1;
+	private static final byte DOUBLE= 2;
+	private static final byte IEEE_DOUBLE= 3;
+	private static final byte BOOLEAN= 4;
+	private static final byte STRING= 5;
+	private static final byte OBJECT= 6;
+
+	private final String[] fieldNames;
+	private final byte[] kinds;
+	/**Length of the bitmap of null fields.*/
+	private final int nullBytes;
+	/**Pool of the String values read, or null.*/
+	private final MsdxStringPool strings;
+
+	/**
+	 * Creates a codec for the Records of a Schema, which interns no String values.
+	 *
+	 * @param schema
+	 * @throws IllegalArgumentException if the Schema is empty or has a field type that cannot be encoded
+	 */
+	public MsdxRecordCodec(MsdxContainer<Class<?>> schema) {
+		this(schema, null);
+	}
+
+	/**
+	 * Creates a codec for the Records of a Schema.
+	 *
+	 * @param schema
+	 * @param strings the pool in which the String values of the key and identifier fields are interned when read, or null
+	 * @throws IllegalArgumentException if the Schema is empty or has a field type that cannot be encoded
+	 */
+	public MsdxRecordCodec(MsdxContainer<Class<?>> schema, MsdxStringPool strings) {
+		super();
+		if(!isSupported(schema))
+			throw new IllegalArgumentException("Cannot encode the records of schema " + schema.itemNames());
+		this.fieldNames= schema.itemNames().toArray(new String[schema.size()]);
+		this.kinds= new byte[fieldNames.length];
+		for(int i= 0; i < fieldNames.length; i++)
+			kinds[i]= kindOf(schema.get(fieldNames[i]));
+		this.nullBytes= (fieldNames.length + 7) / 8;
+		this.strings= strings;
+	}
+
+	/**
+	 * @param schema
+	 * @return true if the Schema is not empty and every field type in it is Serializable
+	 */
+	public static boolean isSupported(MsdxContainer<Class<?>> schema) {
+		return !schema.isEmpty() &&
+			schema.getContent().stream().allMatch(type -> type.isPrimitive() || Serializable.class.isAssignableFrom(type));
+	}
+
+	private static byte kindOf(Class<?> type) {
+		if(type==Integer.class || type==int.class)
+			return INTEGER;
+		if(type==Long.class || type==long.class)
+			return LONG;
+		if(type==Double.class || type==double.class)
+			return DOUBLE;
+		if(type==IEEEDouble.class)
+			return IEEE_DOUBLE;
+		if(type==Boolean.class || type==boolean.class)
+			return BOOLEAN;
+		if(type==String.class)
+			return STRING;
+		return OBJECT;
+	}//kindOf
+
+	/**
+	 * Writes a Record.
+	 *
+	 * @param out
+	 * @param record a Record conforming to the Schema of this codec
+	 * @throws IOException
+	 */
+	public void write(DataOutput out, MsdxContainer<Object> record) throws IOException {
+		Object[] values= new Object[fieldNames.length];
+		byte[] nullBits= new byte[nullBytes];
+		for(int i= 0; i < fieldNames.length; i++) {
+			values[i]= record.get(fieldNames[i]);
+			if(values[i]==null)
+				nullBits[i >>> 3] |= 1 << (i & 7);
+		}
+		out.write(nullBits);
+		for(int i= 0; i < fieldNames.length; i++) {
+			Object value= values[i];
+			if(value==null)
+				continue;
+			switch(kinds[i]) {
+				case INTEGER:
+					writeVarLong(out, ((Integer) value).intValue());
+					break;
+				case LONG:
+					writeVarLong(out, ((Long) value).longValue());
+					break;
+				case DOUBLE:
+					out.writeLong(Double.doubleToRawLongBits((Double) value));
+					break;
+				case IEEE_DOUBLE:
+					out.writeLong(Double.doubleToRawLongBits(((IEEEDouble) value).doubleValue()));
+					break;
+				case BOOLEAN:
+					out.writeBoolean((Boolean) value);
+					break;
+				case STRING:
+					writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+					break;
+				default: /*OBJECT*/
+					ByteArrayOutputStream buffer= new ByteArrayOutputStream();
+					try(ObjectOutputStream objectOut= new ObjectOutputStream(buffer)) {
+						objectOut.writeObject(value);
+					}
+					writeBytes(out, buffer.toByteArray());
+					break;
+			}//switch
+		}//for
+	}//write
+
+	/**
+	 * Reads a Record written by a codec for the same Schema.
+	 *
+	 * @param in
+	 * @return the Record
+	 * @throws IOException
+	 */
+	public MsdxContainer<Object> read(DataInput in) throws IOException {
+		byte[] nullBits= new byte[nullBytes];
+		in.readFully(nullBits);
+		Map<String, Object> items= new LinkedHashMap<String, Object>(fieldNames.length * 4 / 3 + 1);
+		for(int i= 0; i < fieldNames.length; i++) {
+			if((nullBits[i >>> 3] & (1 << (i & 7))) != 0) {
+				items.put(fieldNames[i], null);
+				continue;
+			}
+			Object value;
+			switch(kinds[i]) {
+				case INTEGER:
+					value= Integer.valueOf((int) readVarLong(in));
+					break;
+				case LONG:
+					value= Long.valueOf(readVarLong(in));
+					break;
+				case DOUBLE:
+					value= Double.valueOf(Double.longBitsToDouble(in.readLong()));
+					break;
+				case IEEE_DOUBLE:
+					value= IEEEDouble.valueOf(Double.longBitsToDouble(in.readLong()));
+					break;
+				case BOOLEAN:
+					value= Boolean.valueOf(in.readBoolean());
+					break;
+				case STRING:
+					value= new String(readBytes(in), StandardCharsets.UTF_8);
+					if(strings!=null)
+						value= strings.intern(fieldNames[i], (String) value);
+					break;
+				default: /*OBJECT*/
+					try(ObjectInputStream objectIn= new ObjectInputStream(new ByteArrayInputStream(readBytes(in)))) {
+						value= objectIn.readObject();
+					} catch (ClassNotFoundException e) {
+						throw new IOException("Cannot decode field " + fieldNames[i], e);
+					}
+					break;
+			}//switch
+			items.put(fieldNames[i], value);
+		}//for
+		return new MsdxContainer<Object>(items);
+	}//read
+
+	private static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+		writeVarLong(out, bytes.length);
+		out.write(bytes);
+	}
+
+	private static byte[] readBytes(DataInput in) throws IOException {
+		byte[] bytes= new byte[(int) readVarLong(in)];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	/**Writes a zigzag variable-length integer, 7 bits per byte.*/
+	private static void writeVarLong(DataOutput out, long value) throws IOException {
+		long zigzag= (value << 1) ^ (value >> 63);
+		while((zigzag & ~0x7FL) != 0) {
+			out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+			zigzag >>>= 7;
+		}
+		out.writeByte((int) zigzag);
+	}//writeVarLong
+
+	private static long readVarLong(DataInput in) throws IOException {
+		long zigzag= 0;
+		for(int shift= 0; ; shift+= 7) {
+			byte b= in.readByte();
+			zigzag |= (long) (b & 0x7F) << shift;
+			if((b & 0x80)==0)
+				break;
+		}
+		return (zigzag >>> 1) ^ -(zigzag & 1);
+	}//readVarLong
+
+}//class MsdxRecordCodec
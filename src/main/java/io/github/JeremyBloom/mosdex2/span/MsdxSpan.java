@@ -19,6 +19,7 @@ import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -158,6 +159,16 @@ public interface MsdxSpan extends Serializable{
 	 * @throws UnsupportedOperationException if a stream underlies the Span. 
 	 */
 	boolean isEmpty();
+
+	/**
+	 * Estimates the number of Records in the Span without consuming it.
+	 * 
+	 * @return the number of Records of a persistent Span, an estimate for a replayable Span 
+	 * (see MsdxJavaSpan.Replayable), or -1 if the size is not known (e.g. for a stream)
+	 */
+	default long estimateSize() {
+		return this.isPersistent() ? this.count() : -1;
+	}
 	
 	/**
 	 * @return the Schema of the Records in this Span;
@@ -405,6 +416,12 @@ public interface MsdxSpan extends Serializable{
 	 */
 	static OperatorWithTwoArguments merge() {	
 		return new OperatorWithTwoArguments() {
+			
+			/**Merges the Records, compiled once from the Schemas.*/
+			private MsdxContainer.Plan plan;
+			
+			/**Fields to fill with nulls when the left or the right Record is absent.*/
+			private Set<String> leftAbsentFieldNames, rightAbsentFieldNames;
 
 			@Override
 			public OperatorWithTwoArguments withResultSchema(
@@ -419,13 +436,16 @@ public interface MsdxSpan extends Serializable{
 				this.leftKeyFieldName= leftKeyFieldName;
 				this.rightInputSchema= rightInputSchema;
 				this.rightKeyFieldName= rightKeyFieldName;
-				this.resultSchema= leftInputSchema.merge(rightInputSchema.delete(this.rightKeyFieldName));
+				this.plan= MsdxContainer.Plan.merge(leftInputSchema, rightInputSchema, this.rightKeyFieldName);
+				this.leftAbsentFieldNames= leftInputSchema.delete(this.leftKeyFieldName).itemNames();
+				this.rightAbsentFieldNames= rightInputSchema.delete(this.rightKeyFieldName).itemNames();
+				this.resultSchema= this.plan.getResultSchema();
 				return this;
 			}//withResultSchema
 
 			@Override
 			protected MsdxContainer<Object> onKeyMatch(MsdxContainer<Object> left, MsdxContainer<Object> right) {
-				return (MsdxContainer<Object>) left.merge(right.delete(this.rightKeyFieldName));
+				return plan.apply(left, right);
 			}//onKeyMatch
 
 			@Override
@@ -435,14 +455,14 @@ public interface MsdxSpan extends Serializable{
 				MsdxContainer<Object> present= left.isPresent() ? 
 					left.get() : 
 					right.get();
-				MsdxContainer<Class<?>> absentSchema= left.isPresent() ? 
-					this.rightInputSchema.delete(this.rightKeyFieldName) : 
-					this.leftInputSchema.delete(this.leftKeyFieldName);
+				Set<String> absentFieldNames= left.isPresent() ? 
+					this.rightAbsentFieldNames : 
+					this.leftAbsentFieldNames;
 				//Use the MsdxRecord.Builder to assure that the built container conforms to the schema.
 				//Note: MsdxRecord is a subclass of MsdxContainer<Object>, so the returned object is a container.
 				MsdxRecord.Builder builder= MsdxRecord.builder(this.getResultSchema())
 					.copyItems(present);
-				for(String fieldName: absentSchema.itemNames())
+				for(String fieldName: absentFieldNames)
 					builder.addItemIf(!present.containsField(fieldName), fieldName, null);
 				return builder.build();
 			}//noKeyMatch
@@ -474,6 +494,26 @@ public interface MsdxSpan extends Serializable{
 	MsdxSpan reduceByKey(
 		String keyFieldName, 
 		OperatorWithTwoArguments accumulator);
+
+	/**
+	 * For each value of the key field, this method returns a Span that accumulates
+	 * the Records in this Span with that key into a single result Record, 
+	 * as the other reduceByKey does, but folds each Record into one mutable accumulation per key 
+	 * instead of building a new Record for each Record folded in.
+	 * 
+	 * @param <A> the type of the accumulation
+	 * 
+	 * @param keyFieldName defines the field in the input elements to be grouped for
+	 *                     accumulation
+	 * 
+	 * @param combiner     creates, updates and finishes the accumulation of each key
+	 * 
+	 * @return a new Span in which the Records result from finishing the accumulation
+	 *         of each group of input Records according to the key field value
+	 */
+	<A> MsdxSpan reduceByKey(
+		String keyFieldName, 
+		OperatorWithAccumulator<A> combiner);
 	
 	/**
 	 * Creates a new Span that contains all of the Records in this Span and the other Span. 
@@ -717,6 +757,17 @@ public interface MsdxSpan extends Serializable{
 		 */
 		MsdxSpan wrap(Map<Object, MsdxContainer<Object>> records, String keyFieldName, MsdxContainer<Class<?>> recordSchema);
 		
+		/**
+		 * This method creates a Span that remembers how to supply its Records, 
+		 * so that it can be consumed more than once without being realized in memory in advance.
+		 * 
+		 * @param source supplies a new stream of the Records each time it is called
+		 * @param recordSchema
+		 * @param estimatedSize number of Records the source supplies, or -1 if not known
+		 * @return a new replayable Span
+		 */
+		MsdxSpan lazy(Supplier<Stream<MsdxContainer<Object>>> source, MsdxContainer<Class<?>> recordSchema, long estimatedSize);
+		
 		/**@return an empty Span (which has no elements)*/
 		MsdxSpan empty();
 
@@ -0,0 +1,252 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.span;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+
+/**
+ * An Operator analog of Java Collector that reduces the Records with the same key
+ * into a mutable accumulation, and keeps track of the Container Schema of the result.
+ * <p>
+ * An OperatorWithTwoArguments used with reduceByKey builds a new result Container for every Record folded in.
+ * When a key has thousands of Records (e.g. the terms of a row), that is thousands of throwaway Containers per key.
+ * An Operator with an accumulator instead creates one accumulation object per key
+ * and changes it in place as the Records are folded in;
+ * it builds the result Container only once, when the accumulation is finished.
+ * <p>
+ * Defining an Operator with an accumulator requires specifying five abstract methods:
+ * <ul style="list-style-type:bullet;">
+ * <li> the withResultSchema method creates the Schema of the result Containers from the Schema of the input Containers</li>
+ * <li> the supply method creates an empty accumulation</li>
+ * <li> the accumulate method folds an input Container into an accumulation</li>
+ * <li> the combine method merges two accumulations of the same key (e.g. from parallel streams)</li>
+ * <li> the finish method creates the result Container from an accumulation</li>
+ * </ul>
+ * An OperatorWithTwoArguments can be used where an Operator with an accumulator is expected by wrapping it with
+ * the folding method.
+ * <p>
+ * An operator whose combine is associative, so that the Records of a key can be accumulated in separate parts, 
+ * can say so by overriding isSplittable; reduceByKey then splits the accumulation of a key with very many Records 
+ * into partial accumulations, which it merges with combine (see MsdxKeyReducer). 
+ * Such an operator can declare those keys in advance with withHotKeys (e.g. the objective rows of a model), 
+ * and one whose separate accumulations can be filled on different threads can say so by overriding isConcurrent. 
+ * Other operators, including those made by folding, accumulate each key in a single accumulation.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ * @param <A> the type of the accumulation
+ */
+public abstract class OperatorWithAccumulator<A> {
+
+	/**Holds the Schema of the result Containers.*/
+	protected MsdxContainer<Class<?>> resultSchema;
+
+	/**Holds the Schema of the input Containers.*/
+	protected MsdxContainer<Class<?>> inputSchema;
+
+	/**Holds the name of the key field in the input Containers.*/
+	protected String keyFieldName;
+
+	/**Holds the keys expected to have many more Records than the others.*/
+	protected Set<Object> hotKeys;
+
+	/**
+	 * Constructs a new OperatorWithAccumulator object.
+	 * <p>
+	 * Note: in usage, a concrete instance of this class is often created inline,
+	 * with the following syntax:<br>
+	 * <pre><code>
+	 * new OperatorWithAccumulator&lt;Accumulation&gt;() {
+	 * <br>
+	 * 	{@literal @Override} public OperatorWithAccumulator&lt;Accumulation&gt; withResultSchema(
+	 * 		MsdxContainer<Class<?>> inputSchema,
+	 * 		String keyFieldName)
+	 * 	{
+	 * 		...
+	 * 		return this;
+	 * 	}//withResultSchema
+	 * <br>
+	 * 	{@literal @Override} public Accumulation supply() {...}
+	 * 	{@literal @Override} public void accumulate(Accumulation accumulation, MsdxContainer<Object> record) {...}
+	 * 	{@literal @Override} public Accumulation combine(Accumulation accumulation1, Accumulation accumulation2) {...}
+	 * 	{@literal @Override} public MsdxContainer<Object> finish(Accumulation accumulation) {...}
+	 * <br>
+	 * };//OperatorWithAccumulator
+	 * </code></pre>
+	 */
+	public OperatorWithAccumulator() {
+		super();
+		this.resultSchema= null;
+		this.inputSchema= null;
+		this.keyFieldName= null;
+		this.hotKeys= Collections.emptySet();
+	}
+
+	/**
+	 * Specifies the Schema of the result Containers. This method is called
+	 * invisibly and automatically by reduceByKey.
+	 * It should include an early return if the result Schema has already been specified,
+	 * as for OperatorWithTwoArguments.
+	 *
+	 * @param inputSchema Schema of the Records to be reduced
+	 * @param keyFieldName in the inputSchema
+	 * @return this Operator
+	 */
+	public abstract OperatorWithAccumulator<A> withResultSchema(MsdxContainer<Class<?>> inputSchema, String keyFieldName);
+	// This method must include
+	//	  this.inputSchema= inputSchema;
+	//	  this.keyFieldName= keyFieldName;
+	//    this.resultSchema= ...
+	//	  return this;
+
+	/**@return the Schema of the result Containers*/
+	public MsdxContainer<Class<?>> getResultSchema() {
+		if(this.resultSchema == null)
+			throw new IllegalStateException("Result schema has not been defined");
+		return this.resultSchema;
+	}
+
+	/**
+	 * Declares the keys expected to have many more Records than the others,
+	 * so that reduceByKey splits their accumulation from their first Record if this Operator is splittable.
+	 *
+	 * @param keys
+	 * @return this Operator
+	 */
+	public OperatorWithAccumulator<A> withHotKeys(Collection<?> keys) {
+		this.hotKeys= Collections.unmodifiableSet(new LinkedHashSet<Object>(keys));
+		return this;
+	}
+
+	/**@return the keys declared by withHotKeys, or an empty set*/
+	public Set<Object> getHotKeys() {
+		return hotKeys;
+	}
+
+	/**
+	 * Tells reduceByKey whether the Records of one key can be accumulated in separate parts and the parts merged with combine, 
+	 * i.e. whether combine is associative and combining the parts gives the result of accumulating all the Records in one.
+	 * This is false by default, so that a key is accumulated in a single accumulation, 
+	 * as reduceByKey with an OperatorWithTwoArguments does.
+	 *
+	 * @return false
+	 */
+	public boolean isSplittable() {
+		return false;
+	}
+
+	/**
+	 * Tells reduceByKey whether separate accumulations of this Operator can be supplied, accumulated and combined
+	 * on different threads at the same time.
+	 * This is false by default; an Operator should override it only if
+	 * its accumulate and combine methods change nothing but their accumulations.
+	 *
+	 * @return false
+	 */
+	public boolean isConcurrent() {
+		return false;
+	}
+
+	/**@return a new, empty accumulation*/
+	public abstract A supply();
+
+	/**
+	 * Folds an input Container into an accumulation, changing the accumulation in place.
+	 *
+	 * @param accumulation
+	 * @param record an input Container with the same key as the Containers already in the accumulation
+	 */
+	public abstract void accumulate(A accumulation, MsdxContainer<Object> record);
+
+	/**
+	 * Merges two accumulations of the same key.
+	 *
+	 * @param accumulation1
+	 * @param accumulation2 accumulated after accumulation1
+	 * @return the merged accumulation, which may be one of the arguments changed in place
+	 */
+	public abstract A combine(A accumulation1, A accumulation2);
+
+	/**
+	 * Creates the result Container from an accumulation.
+	 *
+	 * @param accumulation
+	 * @return the result Container
+	 */
+	public abstract MsdxContainer<Object> finish(A accumulation);
+
+	/**
+	 * Wraps an OperatorWithTwoArguments as an Operator with an accumulator.
+	 * The accumulation holds the result Container, which the operator replaces for each Record folded in,
+	 * as reduceByKey with the OperatorWithTwoArguments does. 
+	 * The OperatorWithTwoArguments need not be associative, so the wrapper is not splittable.
+	 *
+	 * @param accumulator
+	 * @return an Operator with an accumulator
+	 */
+	public static OperatorWithAccumulator<Folding> folding(OperatorWithTwoArguments accumulator) {
+		return new OperatorWithAccumulator<Folding>() {
+
+			/**Selects the result fields of each input Container, compiled once from the Schemas.*/
+			private MsdxContainer.Plan select;
+
+			@Override
+			public OperatorWithAccumulator<Folding> withResultSchema(MsdxContainer<Class<?>> inputSchema, String keyFieldName) {
+				this.inputSchema= inputSchema;
+				this.keyFieldName= keyFieldName;
+				accumulator.withResultSchema(MsdxContainer.<Class<?>>empty(), keyFieldName, inputSchema, keyFieldName);
+				this.resultSchema= accumulator.getResultSchema();
+				this.select= MsdxContainer.Plan.select(inputSchema, this.resultSchema.itemNames());
+				return this;
+			}//withResultSchema
+
+			@Override
+			public Folding supply() {
+				return new Folding();
+			}
+
+			@Override
+			public void accumulate(Folding accumulation, MsdxContainer<Object> record) {
+				MsdxContainer<Object> value= select.apply(record);
+				accumulation.result= accumulation.result==null ?
+					value :
+					accumulator.apply(Optional.of(accumulation.result), Optional.of(value));
+			}//accumulate
+
+			@Override
+			public Folding combine(Folding accumulation1, Folding accumulation2) {
+				if(accumulation1.result==null)
+					return accumulation2;
+				if(accumulation2.result!=null)
+					accumulation1.result= accumulator.apply(Optional.of(accumulation1.result), Optional.of(accumulation2.result));
+				return accumulation1;
+			}//combine
+
+			@Override
+			public MsdxContainer<Object> finish(Folding accumulation) {
+				return accumulation.result;
+			}
+
+		}/*OperatorWithAccumulator*/;//return
+	}//folding
+
+	/**
+	 * The accumulation of an OperatorWithTwoArguments wrapped by the folding method.
+	 */
+	public static final class Folding {
+
+		/**The result Container so far, or null if no Record has been folded in.*/
+		MsdxContainer<Object> result;
+
+	}//class OperatorWithAccumulator.Folding
+
+}//class OperatorWithAccumulator
@@ -155,6 +155,10 @@ public abstract class OperatorWithTwoArguments {
 	 * 	return this;
 	 * }//withResultSchema
  	 * </code></pre>
+	 * <p>
+	 * Since the Schemas of the arguments are known here, this is also the place to compile an MsdxContainer.Plan 
+	 * for an operator that selects, deletes, renames or merges items, so that apply only copies the items of each Record 
+	 * (see MsdxSpan.merge).
  	 * 
 	 * @param leftInputSchema   used to copy fields from the input; this is an
 	 *                              optional parameter and can be set as empty or
@@ -0,0 +1,76 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the report the application's Checker writes to the solver results 
+ * when the output is compared against the expected output.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class CheckerTest {
+	
+	static final String EXPECTED= 
+		"{\"MODULES\": [{\"NAME\": \"m\", \"TABLES\": [{\"NAME\": \"t\", \"SCHEMA\": {\"KEYS\": [\"a\", \"b\"]}, \"INSTANCE\": [[1], [2]]}]}]}";
+	
+	ByteArrayOutputStream results;
+	MsdxOutputDestination dst;
+	MsdxApplication application;
+	
+	@Before
+	public void setUp() {
+		results= new ByteArrayOutputStream();
+		dst= MsdxOutputDestination.toStream(new PrintStream(new ByteArrayOutputStream(), true));
+		application= new MsdxApplication("checker")
+			.addFile(MsdxInputSource.fromString("{}"), dst, EXPECTED)
+			.addSolverResults(MsdxOutputDestination.toStream(new PrintStream(results, true)), false);
+	}
+	
+	String check(String actual) {
+		MsdxApplication.Checker checker= application.new Checker();
+		new PrintStream(checker.getRedirect(dst).getStream(), true).print(actual);
+		checker.test(dst, EXPECTED);
+		return results.toString().trim();
+	}
+
+	@Test
+	public void reordersTablesKeysAndRecords() {
+		String actual= 
+			"{\"MODULES\": [{\"NAME\": \"m\", \"TABLES\": [{\"NAME\": \"t\", \"SCHEMA\": {\"KEYS\": [\"b\", \"a\"]}, \"INSTANCE\": [[2], [1]]}]}]}";
+		assertEquals("MOSDEX output matches expected", check(actual));
+	}
+
+	@Test
+	public void reportsEachDifference() {
+		String actual= 
+			"{\"MODULES\": [{\"NAME\": \"m\", \"TABLES\": [{\"NAME\": \"t\", \"SCHEMA\": {\"KEYS\": [\"b\", \"c\"]}, \"INSTANCE\": [[2], [3]]}]}]}";
+		String[] report= check(actual).split("\\R");
+		assertEquals("MOSDEX output does not match expected", report[0]);
+		assertEquals(4, report.length);
+		assertTrue(report[1].contains("KEYS"));
+	}
+
+	@Test
+	public void matchesNumbersWithinTheApplicationTolerance() {
+		String actual= 
+			"{\"MODULES\": [{\"NAME\": \"m\", \"TABLES\": [{\"NAME\": \"t\", \"SCHEMA\": {\"KEYS\": [\"a\", \"b\"]}, \"INSTANCE\": [[1.001], [2]]}]}]}";
+		assertEquals("MOSDEX output does not match expected", check(actual).split("\\R")[0]);
+		results.reset();
+		application.withTolerance(0.01);
+		assertEquals("MOSDEX output matches expected", check(actual));
+	}
+
+}//class CheckerTest
@@ -0,0 +1,59 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks that canonical Schemas are shared while they are in use and dropped when there are too many,
+ * and that compiled plans give the same Records as the container methods.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxContainerTest {
+
+	static MsdxContainer<Class<?>> schema(String... fieldNames) {
+		MsdxContainer.Builder<Class<?>> builder= MsdxContainer.builder();
+		for(String fieldName: fieldNames)
+			builder.addItem(fieldName, String.class);
+		return builder.build();
+	}
+
+	@Test
+	public void canonicalSchemasAreBounded() {
+		MsdxContainer<Class<?>> first= MsdxContainer.canonicalSchema(schema("Row", "Column"));
+		assertSame(first, MsdxContainer.canonicalSchema(schema("Row", "Column")));
+
+		for(int i= 0; i < MsdxContainer.MAX_CANONICAL_SCHEMAS; i++)
+			MsdxContainer.canonicalSchema(schema("Row", "Column" + i));
+		MsdxContainer<Class<?>> again= MsdxContainer.canonicalSchema(schema("Row", "Column"));
+		assertNotSame(first, again);			//dropped as the least recently used
+		assertTrue(MsdxContainer.sameSchema(first, again));
+	}
+
+	@Test
+	public void plansMatchTheContainerMethods() {
+		MsdxContainer<Class<?>> left= schema("Row", "Column", "Name");
+		MsdxContainer<Class<?>> right= schema("Column", "Variable");
+		MsdxContainer<Object> term= MsdxContainer.builder().addItem("Row", "r").addItem("Column", "c").addItem("Name", "t").build();
+		MsdxContainer<Object> variable= MsdxContainer.builder().addItem("Column", "c").addItem("Variable", "x").build();
+
+		assertEquals(term.select(List.of("Column", "Row")), MsdxContainer.Plan.select(left, List.of("Column", "Row")).apply(term));
+		assertEquals(term.delete("Name"), MsdxContainer.Plan.delete(left, List.of("Name")).apply(term));
+		MsdxContainer.Plan merge= MsdxContainer.Plan.merge(left, right, "Column");
+		assertEquals(term.merge(variable.delete("Column")), merge.apply(term, variable));
+		assertSame(merge.getResultSchema(), MsdxContainer.canonicalSchema(left.merge(right)));
+	}
+
+}//class MsdxContainerTest
@@ -0,0 +1,128 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.DisplayWindow.ExtendedPrintStream;
+
+/**
+ * Checks that the console Display modes deliver everything written to them, in order:
+ * CONSOLE as soon as it is written, and ASYNC once it has been flushed,
+ * including when the ring buffer of the AsyncOutputStream wraps around many times
+ * and when several threads print at once.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxDisplayTest {
+
+	static final int LINES= 5_000;
+
+	static String lines(String prefix, int count) {
+		StringBuilder text= new StringBuilder();
+		for(int i= 0; i < count; i++)
+			text.append(prefix).append(i).append(System.lineSeparator());
+		return text.toString();
+	}
+
+	static void print(PrintStream out, String prefix, int count) {
+		for(int i= 0; i < count; i++)
+			out.println(prefix + i);
+	}
+
+	/**Waits for the writer thread of an AsyncOutputStream to deliver the expected text, without draining it.*/
+	static String awaitDelivery(ByteArrayOutputStream console, String expected) throws InterruptedException {
+		long deadline= System.currentTimeMillis() + 10_000;
+		while(console.size() < expected.length() && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		return console.toString();
+	}
+
+	@Test
+	public void consoleWritesAsItIsPrinted() {
+		ByteArrayOutputStream console= new ByteArrayOutputStream();
+		ExtendedPrintStream out= Msdx.consoleStream(Msdx.Display.CONSOLE, console);
+		out.print("partial");
+		assertEquals("partial", console.toString());
+		print(out, "line", LINES);
+		assertEquals("partial" + lines("line", LINES), console.toString());
+	}
+
+	@Test
+	public void asyncDeliversEverythingInOrderAfterAFlush() throws Exception {
+		ByteArrayOutputStream console= new ByteArrayOutputStream();
+		ExtendedPrintStream out= Msdx.consoleStream(Msdx.Display.ASYNC, console);
+		print(out, "line", LINES);
+		out.print("no line separator");
+		out.flush();
+		String expected= lines("line", LINES) + "no line separator";
+		assertEquals(expected, awaitDelivery(console, expected));
+
+		print(out, "more", 10);
+		out.close();		//drains
+		assertEquals(expected + lines("more", 10), console.toString());
+	}
+
+	@Test
+	public void asyncKeepsTheOrderWhenTheRingWraps() throws Exception {
+		ByteArrayOutputStream console= new ByteArrayOutputStream();
+		AsyncOutputStream async= new AsyncOutputStream(console, 16);
+		byte[] expected= new byte[100_000];
+		for(int i= 0; i < expected.length; i++)
+			expected[i]= (byte) (i * 31);
+		for(int off= 0; off < expected.length; off+= 37) {
+			int length= Math.min(37, expected.length - off);
+			if(off % 2 == 0)
+				async.write(expected, off, length);
+			else
+				for(int i= off; i < off + length; i++)
+					async.write(expected[i]);
+		}
+		async.drain();
+		assertTrue(Arrays.equals(expected, console.toByteArray()));
+
+		async.close();
+		assertThrows(IOException.class, () -> async.write(1));
+		async.close();		//closing again does nothing
+	}
+
+	@Test
+	public void asyncKeepsTheLinesOfEachThreadInOrder() throws Exception {
+		ByteArrayOutputStream console= new ByteArrayOutputStream();
+		ExtendedPrintStream out= new ExtendedPrintStream(new AsyncOutputStream(console, 64), true);
+		List<Thread> threads= new ArrayList<Thread>();
+		for(int t= 0; t < 4; t++) {
+			String prefix= "thread" + t + ":";
+			threads.add(new Thread(() -> print(out, prefix, LINES)));
+		}
+		for(Thread thread: threads)
+			thread.start();
+		for(Thread thread: threads)
+			thread.join();
+		out.close();
+
+		String[] delivered= console.toString().split(System.lineSeparator());
+		assertEquals(4 * LINES, delivered.length);
+		int[] next= new int[4];
+		for(String line: delivered) {
+			int t= line.charAt("thread".length()) - '0';
+			assertEquals("thread" + t + ":" + next[t]++, line);		//whole lines, each thread's in order
+		}
+	}
+
+}//class MsdxDisplayTest
@@ -0,0 +1,68 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.dataframe.MsdxJavaDataframe;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
+
+/**
+ * Checks that Function Calls are shared within the Templates of one dataframe factory only,
+ * and that a binding checks its call against the function table and the schema.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxFunctionCallTest {
+
+	static final MsdxContainer<Class<?>> SCHEMA= MsdxContainer.<Class<?>>builder()
+		.addItem("Column", String.class)
+		.addItem("Value", MsdxFunctionCall.DOUBLE.class)
+		.build();
+
+	@Test
+	public void templatesShareCallsWithinAFactory() {
+		MsdxJavaDataframe.Factory factory= new MsdxJavaDataframe.Factory();
+		MsdxRecord first= MsdxRecord.fromNode(MsdxIdDictionaryTest.readTree("[\"x\", \"primalValue(Column)\"]"), SCHEMA, factory);
+		MsdxRecord second= MsdxRecord.fromNode(MsdxIdDictionaryTest.readTree("[\"y\", \"primalValue<Column>\"]"), SCHEMA, factory);
+		MsdxRecord other= MsdxRecord.fromNode(
+			MsdxIdDictionaryTest.readTree("[\"x\", \"primalValue(Column)\"]"), SCHEMA, new MsdxJavaDataframe.Factory());
+
+		assertSame(first.get("Value"), second.get("Value"));		//same call, another spelling
+		assertNotSame(first.get("Value"), other.get("Value"));
+		assertEquals(first.get("Value"), other.get("Value"));
+		assertEquals("primalValue(Column)", first.get("Value").toString());
+		assertEquals(2, factory.getFunctionCalls().size());
+
+		factory.getFunctionCalls().clear();
+		assertEquals(0, factory.getFunctionCalls().size());
+		assertNotSame(first.get("Value"), factory.getFunctionCalls().create("primalValue(Column)", Double.class));
+	}
+
+	@Test
+	public void bindingChecksTheCall() {
+		Map<String, String> functionTable= Map.of("primalValue", "getValue", "reducedCost", "getReducedCost");
+		MsdxFunctionCall call= MsdxFunctionCall.create("reducedCost(Column)", Double.class);
+
+		MsdxFunctionCall.Binding<String> binding= call.bind(functionTable, SCHEMA);
+		assertSame(call, binding.getFunctionCall());
+		assertEquals("getReducedCost", binding.getFunction());
+		assertThrows(IllegalArgumentException.class,
+			() -> MsdxFunctionCall.create("dualValue(Column)", Double.class).bind(functionTable, SCHEMA));
+		assertThrows(IllegalArgumentException.class,
+			() -> MsdxFunctionCall.create("primalValue(Row)", Double.class).validate(Set.of("primalValue"), SCHEMA));
+	}
+
+}//class MsdxFunctionCallTest
@@ -0,0 +1,115 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxSchema;
+
+/**
+ * Checks that dictionary ids are kept apart from the items of ordinary INTEGER fields,
+ * and that a dictionary forgets its ids when it is closed.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxIdDictionaryTest {
+
+	MsdxIdDictionary dictionary;
+
+	@Before
+	public void setUp() {
+		dictionary= new MsdxIdDictionary();
+		dictionary.idOf("ship", "PITT", "NE");
+		dictionary.idOf("ship", "PITT", "SE");
+	}
+
+	@After
+	public void tearDown() {
+		dictionary.close();
+	}
+
+	@Test
+	public void assignsDenseIdsByName() {
+		assertEquals(0, dictionary.idOf("ship_PITT_NE").intValue());
+		assertEquals(1, dictionary.idOf("ship", "PITT", "SE").intValue());
+		assertEquals(2, dictionary.idOf("ship_PITT_SW").intValue());
+		assertEquals("ship_PITT_SE", dictionary.nameOf(1));
+		assertSame(dictionary.idOf("ship_PITT_NE"), dictionary.id(0));
+		assertEquals(3, dictionary.size());
+	}
+
+	@Test
+	public void integerKeysAreNotDictionaryIds() {
+		MsdxContainer<Class<?>> schema= MsdxContainer.<Class<?>>builder()
+			.addItem("Row", Integer.class)
+			.addItem("Column", Integer.class)
+			.addItem("Coefficient", Double.class)
+			.build();
+		MsdxRecord record= MsdxRecord.fromNode(readTree("[1, 7, 2.5]"), schema);
+
+		assertEquals("1", MsdxIdDictionary.name(record.get("Row")));
+		assertEquals("7", MsdxIdDictionary.name(record.get("Column")));	//no name has id 7
+		assertNotEquals(dictionary.id(1), record.get("Row"));
+		assertEquals("ship_PITT_SE", MsdxIdDictionary.name(dictionary.id(1)));
+	}
+
+	@Test
+	public void idFieldsAreWrittenAsNames() {
+		MsdxContainer<Class<?>> schema= MsdxContainer.<Class<?>>builder()
+			.addItem("Row", MsdxIdDictionary.Id.class)
+			.addItem("Coefficient", Double.class)
+			.build();
+		MsdxRecord record= MsdxRecord.create(schema, dictionary.id(1), Double.valueOf(2.5));
+		assertEquals("[\"ship_PITT_SE\",2.5]", MsdxRecord.toNode(record, schema).toString());
+		assertEquals("[\"STRING\",\"DOUBLE\"]", MsdxSchema.toNode(schema).get("TYPES").toString());
+		assertThrows(IllegalArgumentException.class,
+			() -> MsdxRecord.readItem(readTree("\"ship_PITT_SE\""), MsdxIdDictionary.Id.class));
+	}
+
+	@Test
+	public void dictionariesDoNotShareIds() {
+		try(MsdxIdDictionary other= new MsdxIdDictionary()) {
+			MsdxIdDictionary.Id id= other.idOf("ship_PITT_SE");
+			assertEquals(0, id.intValue());
+			assertNotEquals(dictionary.id(0), id);
+			assertSame(other, MsdxIdDictionary.forKey(other.getKey()));
+		}
+	}
+
+	@Test
+	public void closingForgetsTheIds() {
+		MsdxIdDictionary.Id id= dictionary.id(0);
+		dictionary.close();
+		assertTrue(dictionary.isClosed());
+		assertEquals(0, dictionary.size());
+		assertFalse(dictionary.contains("ship_PITT_NE"));
+		assertEquals("ship_PITT_NE", id.getName());	//handed-out Ids keep their names
+		assertThrows(IllegalStateException.class, () -> MsdxIdDictionary.forKey(dictionary.getKey()));
+		assertThrows(IllegalStateException.class, () -> dictionary.idOf("ship_PITT_NE"));
+	}
+
+	static JsonNode readTree(String json) {
+		try {
+			return Msdx.GLOBAL.mapper.readTree(json);
+		} catch (Exception e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+}//class MsdxIdDictionaryTest
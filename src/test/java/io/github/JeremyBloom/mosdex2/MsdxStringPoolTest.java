@@ -0,0 +1,88 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.dataframe.MsdxJavaDataframe;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
+import io.github.JeremyBloom.mosdex2.span.MsdxRecordCodec;
+
+/**
+ * Checks that a string pool shares the items of the key and identifier fields only,
+ * and that it forgets them when it is cleared.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxStringPoolTest {
+
+	static final MsdxContainer<Class<?>> SCHEMA= MsdxContainer.<Class<?>>builder()
+		.addItem("Row", String.class)
+		.addItem("location", String.class)
+		.addItem("Sense", String.class)
+		.build();
+
+	@Test
+	public void poolsOnlyKeyAndIdentifierFields() {
+		MsdxJavaDataframe.Factory factory= new MsdxJavaDataframe.Factory();
+		MsdxStringPool pool= factory.getStringPool().withKeyFields("location");
+		MsdxRecord first= MsdxRecord.fromNode(MsdxIdDictionaryTest.readTree("[\"supply_PITT\", \"PITT\", \"LE\"]"), SCHEMA, factory);
+		MsdxRecord second= MsdxRecord.fromNode(MsdxIdDictionaryTest.readTree("[\"supply_PITT\", \"PITT\", \"LE\"]"), SCHEMA, factory);
+
+		assertSame(first.get("Row"), second.get("Row"));
+		assertSame(first.get("location"), second.get("location"));
+		assertNotSame(first.get("Sense"), second.get("Sense"));
+		assertEquals(first.get("Sense"), second.get("Sense"));
+		assertEquals(2, pool.size());
+		assertEquals(2, pool.getHits());
+	}
+
+	@Test
+	public void codecInternsInItsPool() throws IOException {
+		MsdxStringPool pool= new MsdxStringPool();
+		MsdxRecordCodec codec= new MsdxRecordCodec(SCHEMA, pool);
+		MsdxContainer<Object> record= MsdxRecord.create(SCHEMA, "supply_PITT", "PITT", "LE");
+		ByteArrayOutputStream bytes= new ByteArrayOutputStream();
+		try(DataOutputStream out= new DataOutputStream(bytes)) {
+			codec.write(out, record);
+			codec.write(out, record);
+		}
+		DataInputStream in= new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		MsdxContainer<Object> first= codec.read(in);
+		MsdxContainer<Object> second= codec.read(in);
+
+		assertEquals(record.get("location"), second.get("location"));
+		assertSame(first.get("Row"), second.get("Row"));
+		assertNotSame(first.get("location"), second.get("location"));	//not a key field of this pool
+		assertEquals(1, pool.size());
+	}
+
+	@Test
+	public void clearingReleasesThePool() {
+		MsdxJavaDataframe.Factory factory= new MsdxJavaDataframe.Factory();
+		MsdxStringPool pool= factory.getStringPool();
+		String name= pool.intern("Name", new String("ship_PITT_NE"));
+		pool.clear();
+
+		assertEquals(0, pool.size());
+		assertEquals(0, pool.getLookups());
+		assertNotSame(name, pool.intern("Name", new String("ship_PITT_NE")));
+		assertEquals(1, pool.size());
+		assertEquals("ship_PITT_NE", name);
+	}
+
+}//class MsdxStringPoolTest
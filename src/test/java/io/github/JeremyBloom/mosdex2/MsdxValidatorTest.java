@@ -0,0 +1,141 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOError;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.github.JeremyBloom.mosdex2.dataframe.MsdxJavaDataframe;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxFile;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxObject;
+
+/**
+ * Checks that validators of the same syntax share its compiled schemas,
+ * that a File is validated section by section as it is read,
+ * and that only the sampled records of an Instance are validated against the schema.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxValidatorTest {
+
+	static final int SIZE= 20;
+
+	static final String TABLE= "{\"NAME\": \"cities\", \"CLASS\": \"DATA\", \"KIND\": \"INPUT\", "
+		+ "\"SCHEMA\": {\"FIELDS\": [\"Key\", \"Count\"], \"TYPES\": [\"STRING\", \"INTEGER\"]}, \"INSTANCE\": [[\"city0\", 0]]}";
+
+	/**
+	 * @param bad index of the record whose Key is a String rather than a number, or -1 for none
+	 * @return a File with one Table of SIZE records
+	 */
+	static String mosdex(int bad) {
+		String records= Stream.iterate(0, i -> i + 1).limit(SIZE)
+			.map(i -> "[" + (i==bad ? "\"city" + i + "\"" : String.valueOf(i)) + ", " + i + "]")
+			.collect(Collectors.joining(", "));
+		return "{\"SYNTAX\": \"MOSDEXSchemaV2-0.json\", \"MODULES\": [{\"NAME\": \"m\", \"CLASS\": \"MODULE\", \"KIND\": \"DATA\", "
+			+ "\"HEADING\": {\"DESCRIPTION\": [\"validator test\"]}, \"TABLES\": [{\"NAME\": \"cities\", \"CLASS\": \"DATA\", \"KIND\": \"INPUT\", "
+			+ "\"SCHEMA\": {\"FIELDS\": [\"Key\", \"Count\"], \"TYPES\": [\"STRING\", \"INTEGER\"]}, "
+			+ "\"INSTANCE\": [" + records + "]}]}]}";
+	}
+
+	/**@return the MOSDEX syntax, changed so that the items of a Record must be numbers*/
+	static JsonNode numbersOnly() {
+		JsonNode syntax= MsdxValidator.getDefault().getSyntaxTree().deepCopy();
+		((ObjectNode) syntax.at("/definitions/Record/items")).put("type", "number");
+		return syntax;
+	}
+
+	static MsdxFile read(MsdxValidator validator, String mosdex) {
+		return new MsdxObject.Factory(new MsdxJavaDataframe.Factory(), Msdx.GLOBAL.mapper, validator)
+			.readFile(MsdxInputSource.fromString(mosdex));
+	}
+
+	static JsonNode tree(String json) throws Exception {
+		return Msdx.GLOBAL.mapper.readTree(json);
+	}
+
+	@Test
+	public void compilesEachSyntaxOnce() {
+		MsdxValidator validator= MsdxValidator.getDefault();
+		assertSame(validator, MsdxValidator.getDefault());
+		assertEquals("MOSDEXFile", validator.getSyntaxTree().get("title").asText());
+
+		MsdxValidator copy= new MsdxValidator(validator.getSyntaxTree().deepCopy());		//an equal tree
+		assertNotSame(validator, copy);
+		assertSame(validator.compiled, copy.compiled);
+		MsdxValidator strict= new MsdxValidator(numbersOnly());
+		assertNotSame(validator.compiled, strict.compiled);
+		assertSame(strict.compiled, new MsdxValidator(numbersOnly()).compiled);
+	}
+
+	@Test
+	public void samplesTheFirstRecordAndPowersOfTwo() {
+		for(long index: new long[] {0, 1, 2, 4, 8, 16, 1_024, 1L << 40})
+			assertTrue(Long.toString(index), MsdxValidator.isSampled(index));
+		for(long index: new long[] {3, 5, 6, 7, 9, 12, 1_000, (1L << 40) + 1})
+			assertFalse(Long.toString(index), MsdxValidator.isSampled(index));
+	}
+
+	@Test
+	public void validatesTheSectionsOfAFile() throws Exception {
+		MsdxValidator validator= MsdxValidator.getDefault();
+		assertTrue(validator.validate(tree(mosdex(-1))));
+
+		//modules and tables are checked on their own, so here they need only be objects
+		assertTrue(validator.validateFile(tree("{\"SYNTAX\": \"MOSDEXSchemaV2-0.json\", \"MODULES\": [{}]}")));
+		assertTrue(validator.validateModule(tree("{\"NAME\": \"m\", \"CLASS\": \"MODULE\", "
+			+ "\"HEADING\": {\"DESCRIPTION\": [\"validator test\"]}, \"TABLES\": [{}]}")));
+		assertTrue(validator.validateTable(tree(TABLE)));
+
+		assertThrows(IOError.class, () -> validator.validateFile(tree("{\"MODULES\": [{}]}")));		//no SYNTAX
+		assertThrows(IOError.class, () -> validator.validateModule(tree("{\"NAME\": \"m\", \"CLASS\": \"MODULE\", \"TABLES\": [{}]}")));		//no HEADING
+		assertThrows(IOError.class, () -> validator.validateTable(tree(TABLE.replace("\"KIND\": \"INPUT\", ", ""))));
+	}
+
+	@Test
+	public void checksTheTypesOfEveryRecord() throws Exception {
+		MsdxValidator validator= new MsdxValidator(numbersOnly());
+		MsdxContainer<Class<?>> schema= MsdxContainer.<Class<?>>builder()
+			.addItem("Key", String.class)
+			.addItem("Count", Integer.class)
+			.build();
+		assertTrue(validator.validateRecord(3, tree("[\"city3\", 3]"), schema));		//not sampled
+		assertThrows(IOError.class, () -> validator.validateRecord(4, tree("[\"city4\", 4]"), schema));
+		assertThrows(IllegalArgumentException.class, () -> validator.validateRecord(3, tree("[\"city3\", 3.5]"), schema));
+		assertThrows(IllegalArgumentException.class, () -> validator.validateRecord(5, tree("[\"city5\"]"), schema));
+	}
+
+	@Test
+	public void readsAGoodFile() {
+		MsdxFile file= read(MsdxValidator.getDefault(), mosdex(-1));
+		assertEquals(SIZE, file.getTable("cities").getInstance().getDataframe().size());
+		assertEquals(SIZE, read(new MsdxValidator(numbersOnly()), mosdex(-1)).getTable("cities").getInstance().getDataframe().size());
+	}
+
+	@Test
+	public void rejectsABadRecordOnlyAtASampledIndex() {
+		MsdxValidator validator= new MsdxValidator(numbersOnly());
+		assertThrows(IOError.class, () -> read(validator, mosdex(0)));
+		assertThrows(IOError.class, () -> read(validator, mosdex(8)));
+		assertThrows(IOError.class, () -> read(validator, mosdex(16)));
+		assertEquals(SIZE, read(validator, mosdex(9)).getTable("cities").getInstance().getDataframe().size());		//not sampled
+		assertEquals(SIZE, read(MsdxValidator.getDefault(), mosdex(8)).getTable("cities").getInstance().getDataframe().size());
+	}
+
+}//class MsdxValidatorTest
@@ -0,0 +1,101 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.dataframe;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.stream.Stream;
+
+import org.apache.spark.sql.SparkSession;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.Msdx;
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
+
+/**
+ * Checks that a Spark Factory starts Spark only when it is first used,
+ * that Factories share Spark but not their temporary views,
+ * and that closing a Factory drops its views and leaves Spark running.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxSparkFactoryTest {
+
+	static final MsdxContainer<Class<?>> SCHEMA= MsdxContainer.<Class<?>>builder()
+		.addItem("Row", String.class)
+		.addItem("Coefficient", Double.class)
+		.build();
+
+	static MsdxSparkDataframe.Factory factory() {
+		return new MsdxSparkDataframe.Factory(Msdx.GLOBAL.sparkConfiguration);
+	}
+
+	static void createShip(MsdxSparkDataframe.Factory factory) {
+		factory.create("ship", Stream.of(
+			MsdxRecord.create(SCHEMA, "row1", Double.valueOf(1.0)),
+			MsdxRecord.create(SCHEMA, "row2", Double.valueOf(-2.5))), SCHEMA);
+	}
+
+	@AfterClass
+	public static void stopSpark() {
+		MsdxSparkDataframe.Sessions.stop();
+	}
+
+	@SuppressWarnings("deprecation")
+	@Test
+	public void startsSparkOnFirstUse() {
+		MsdxSparkDataframe.Sessions.stop();
+		MsdxSparkDataframe.Factory factory= factory();
+		factory.getStringPool();
+		factory.close();
+		assertFalse(MsdxSparkDataframe.Sessions.isStarted());
+
+		SparkSession session= factory.getSession();
+		assertTrue(MsdxSparkDataframe.Sessions.isStarted());
+		assertSame(session, factory.getSession());
+		assertSame(session, factory.session());
+		assertSame(factory.getContext(), factory.context());
+		factory.close();
+	}
+
+	@Test
+	public void factoriesShareSparkButNotTheirTables() {
+		MsdxSparkDataframe.Factory factory1= factory(), factory2= factory();
+		try {
+			createShip(factory1);
+			assertNotSame(factory1.getSession(), factory2.getSession());
+			assertSame(factory1.getSession().sparkContext(), factory2.getSession().sparkContext());
+			assertSame(factory1.getContext(), factory2.getContext());
+			assertTrue(factory1.getSession().catalog().tableExists("ship"));
+			assertFalse(factory2.getSession().catalog().tableExists("ship"));
+		} finally {
+			factory1.close();
+			factory2.close();
+		}
+	}
+
+	@Test
+	public void closingDropsTheTemporaryViews() {
+		MsdxSparkDataframe.Factory factory= factory();
+		createShip(factory);
+		SparkSession session= factory.getSession();
+		assertTrue(session.catalog().tableExists("ship"));
+
+		factory.close();
+		assertFalse(session.catalog().tableExists("ship"));
+		assertTrue(MsdxSparkDataframe.Sessions.isStarted());
+		assertNotSame(session, factory.getSession());		//a fresh namespace
+		assertFalse(factory.getSession().catalog().tableExists("ship"));
+		factory.close();
+	}
+
+}//class MsdxSparkFactoryTest
@@ -0,0 +1,95 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks that MsdxComparator keeps the leniency of the JSON comparison it replaced: 
+ * arrays match in any order and extra actual fields are ignored, 
+ * while missing and different elements are still reported.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxComparatorTest {
+
+	static final String TABLE= 
+		"{\"NAME\": \"cost\", \"SCHEMA\": {\"NAME\": [\"plant\", \"cost\"], \"TYPE\": [\"STRING\", \"DOUBLE\"], \"KEYS\": %s}," + 
+		" \"INSTANCE\": [%s]}";
+	
+	static String file(String keys, String instance) {
+		return "{\"SYNTAX\": \"MOSDEX/v2-0\", \"MODULES\": [{\"NAME\": \"m\", \"TABLES\": [" + 
+			String.format(TABLE, keys, instance) + "]}]}";
+	}
+
+	@Test
+	public void identicalDocumentsMatch() {
+		String document= file("[\"plant\"]", "[\"A\", 1.5], [\"B\", 2.0]");
+		assertTrue(new MsdxComparator().compare(document, document));
+	}
+
+	@Test
+	public void instanceRecordsMatchInAnyOrder() {
+		assertTrue(new MsdxComparator().compare(
+			file("[\"plant\"]", "[\"A\", 1.5], [\"B\", 2.0]"), 
+			file("[\"plant\"]", "[\"B\", 2.0], [\"A\", 1.5]")));
+	}
+
+	@Test
+	public void otherArraysMatchInAnyOrder() {
+		assertTrue(new MsdxComparator().compare(
+			file("[\"plant\", \"cost\"]", "[\"A\", 1.5]"), 
+			file("[\"cost\", \"plant\"]", "[\"A\", 1.5]")));
+		assertTrue(new MsdxComparator().compare(
+			"{\"A\": [[1, 2], [3, 4], {\"B\": [\"x\", \"y\"]}]}", 
+			"{\"A\": [{\"B\": [\"y\", \"x\"]}, [4, 3], [2, 1]]}"));
+	}
+
+	@Test
+	public void repeatedElementsMustMatchAsOften() {
+		MsdxComparator comparator= new MsdxComparator();
+		assertFalse(comparator.compare("{\"A\": [1, 1, 2]}", "{\"A\": [1, 2, 2]}"));
+		assertEquals(1, comparator.getDifferences().size());
+		assertEquals("Failure on A[1]: expected= 1 actual= 2", comparator.getDifferences().get(0));
+	}
+
+	@Test
+	public void missingAndUnexpectedElementsAreReported() {
+		MsdxComparator comparator= new MsdxComparator();
+		assertFalse(comparator.compare("{\"A\": [1, 2, 3]}", "{\"A\": [3, 1]}"));
+		assertEquals("Missing A[1]", comparator.getDifferences().get(0));
+		assertFalse(comparator.compare("{\"A\": [1]}", "{\"A\": [3, 1]}"));
+		assertEquals("Unexpected A[0]", comparator.getDifferences().get(0));
+	}
+
+	@Test
+	public void numbersMatchWithinTheTolerance() {
+		MsdxComparator comparator= new MsdxComparator(1.0e-6, MsdxComparator.DEFAULT_LIMIT);
+		assertTrue(comparator.compare("{\"A\": [1.0, 2.0]}", "{\"A\": [2.0000000001, 1.0]}"));
+		assertFalse(comparator.compare("{\"A\": [1.0, 2.0]}", "{\"A\": [2.1, 1.0]}"));
+	}
+
+	@Test
+	public void extraActualFieldsAreIgnored() {
+		assertTrue(new MsdxComparator().compare("{\"A\": 1}", "{\"A\": 1, \"B\": 2}"));
+		assertFalse(new MsdxComparator().compare("{\"A\": 1, \"B\": 2}", "{\"A\": 1}"));
+	}
+
+	@Test
+	public void differentRecordsAreReported() {
+		MsdxComparator comparator= new MsdxComparator();
+		assertFalse(comparator.compare(
+			file("[\"plant\"]", "[\"A\", 1.5], [\"B\", 2.0]"), 
+			file("[\"plant\"]", "[\"B\", 2.0], [\"A\", 1.6]")));
+		assertEquals(2, comparator.getDifferences().size());
+	}
+
+}//class MsdxComparatorTest
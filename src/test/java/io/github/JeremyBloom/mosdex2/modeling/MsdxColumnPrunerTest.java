@@ -0,0 +1,155 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.modeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.Msdx;
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.MsdxInputSource;
+import io.github.JeremyBloom.mosdex2.dataframe.MsdxDataframe;
+import io.github.JeremyBloom.mosdex2.dataframe.MsdxJavaDataframe;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxFile;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxInstance;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxObject;
+
+/**
+ * Checks that MsdxColumnPruner finds the fields that the Queries and the modeling factory read,
+ * keeps in full the Tables it cannot prune,
+ * and that a File read with the required fields holds the same values in those fields as a File read in full.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxColumnPrunerTest {
+
+	static final int SIZE= 200;
+
+	static final MsdxJavaDataframe.Factory DATAFRAMES= new MsdxJavaDataframe.Factory();
+
+	static final MsdxColumnPruner PRUNER= new MsdxColumnPruner(modelingFactory(), Map.of("pruning", Set.of("cities")));
+
+	/**
+	 * The pruner needs only the creationOrder and parameterFields of the modeling factory;
+	 * Java dataframes cannot register the solution function calls.
+	 */
+	static MsdxSolverModelingFactory modelingFactory() {
+		return new MsdxLpTextModelingFactory(DATAFRAMES) {
+			@Override
+			public Map<String, Function<MsdxContainer<Object>, ?>> initializeFunctionTable(MsdxDataframe.Factory dataframeFactory) {
+				return new LinkedHashMap<String, Function<MsdxContainer<Object>, ?>>();
+			}
+		};
+	}
+
+	/**
+	 * ship reads three fields of routes, supply is read by the modeling factory,
+	 * copy reads every field of everything, unused is read by nothing, solved has a function call field,
+	 * and cities is shown.
+	 */
+	static String mosdex() {
+		return "{\"SYNTAX\": \"\", \"MODULES\": [{\"NAME\": \"pruning\", \"CLASS\": \"MODULE\", \"KIND\": \"MODEL\", \"TABLES\": ["
+			+ table("routes", "DATA", "INPUT", List.of("origin", "destination", "capacity", "cost", "note"),
+				i -> "\"o" + i % 7 + "\", \"d" + i + "\", " + (i * 1.5) + ", " + (i % 11) + ", " + (i % 2 == 0 ? "null" : "\"by sea\"")) + ", "
+			+ query("ship", "VARIABLE", "CONTINUOUS", List.of("'ship' AS Name -- STRING",
+				"CONCAT(routes.origin, '_', routes.destination) AS Column -- STRING",
+				"CAST(0.0 AS DOUBLE) AS LowerBound -- DOUBLE", "routes.capacity AS UpperBound -- DOUBLE"), "routes") + ", "
+			+ table("supply", "TERM", "LINEAR", List.of("Row", "Column", "Coefficient", "Comment"),
+				i -> "\"r" + i % 5 + "\", \"x" + i + "\", " + (i - 100.25) + ", \"term " + i + "\"") + ", "
+			+ table("everything", "DATA", "INPUT", List.of("a", "b"), i -> "\"a" + i + "\", " + i) + ", "
+			+ query("copy", "DATA", "INPUT", List.of("* -- STRING"), "everything") + ", "
+			+ table("unused", "DATA", "INPUT", List.of("a", "b"), i -> "\"a" + i + "\", " + i) + ", "
+			+ table("solved", "VARIABLE", "CONTINUOUS", List.of("Name", "Column", "LowerBound", "UpperBound", "Value"),
+				i -> "\"solved\", \"y" + i + "\", 0.0, \"Infinity\", \"PrimalValue(Column)\"") + ", "
+			+ table("cities", "DATA", "INPUT", List.of("city", "supply", "demand"), i -> "\"c" + i + "\", " + i + ", " + (SIZE - i)) + ", "
+			+ query("balance", "CONSTRAINT", "LINEAR", List.of("'balance' AS Name -- STRING", "cities.city AS Row -- STRING",
+				"'EQ' AS Sense -- STRING", "cities.supply AS RHS -- DOUBLE"), "cities")
+			+ "]}]}";
+	}
+
+	static String table(String name, String tableClass, String kind, List<String> fields, IntFunction<String> record) {
+		String types= fields.stream()
+			.map(field -> field.equals("Value") ? "DOUBLE_FUNCTION"
+				: Set.of("capacity", "Coefficient", "LowerBound", "UpperBound").contains(field) ? "DOUBLE"
+				: Set.of("cost", "b", "supply", "demand").contains(field) ? "INTEGER" : "STRING")
+			.map(type -> "\"" + type + "\"")
+			.collect(Collectors.joining(", "));
+		String records= Stream.iterate(0, i -> i + 1).limit(SIZE)
+			.map(i -> "[" + record.apply(i) + "]")
+			.collect(Collectors.joining(", "));
+		return "{\"NAME\": \"" + name + "\", \"CLASS\": \"" + tableClass + "\", \"KIND\": \"" + kind + "\", "
+			+ "\"SCHEMA\": {\"FIELDS\": [" + fields.stream().map(field -> "\"" + field + "\"").collect(Collectors.joining(", ")) + "], "
+			+ "\"TYPES\": [" + types + "]}, \"INSTANCE\": [" + records + "]}";
+	}
+
+	static String query(String name, String tableClass, String kind, List<String> select, String from) {
+		return "{\"NAME\": \"" + name + "\", \"CLASS\": \"" + tableClass + "\", \"KIND\": \"" + kind + "\", "
+			+ "\"QUERY\": {\"SELECT\": [" + select.stream().map(item -> "\"" + item + "\"").collect(Collectors.joining(", ")) + "], "
+			+ "\"FROM\": \"" + from + "\"}}";
+	}
+
+	static MsdxObject.Factory factory() {
+		return new MsdxObject.Factory(DATAFRAMES, Msdx.GLOBAL.mapper, false);
+	}
+
+	static Map<String, Set<String>> requiredFields(MsdxColumnPruner pruner) {
+		MsdxFile scanned= factory().readSchemas(MsdxInputSource.fromString(mosdex()));
+		assertTrue(scanned.getTables().values().stream().allMatch(table -> table.getInstance()==null));
+		return pruner.requiredFields(List.of(scanned));
+	}
+
+	@Test
+	public void findsTheFieldsThatAreRead() {
+		Map<String, Set<String>> required= requiredFields(PRUNER);
+		assertEquals(Set.of("routes", "supply"), required.keySet());
+		assertEquals(Set.of("origin", "destination", "capacity"), required.get("routes"));
+		assertEquals(Set.of("Row", "Column", "Coefficient"), required.get("supply"));
+	}
+
+	@Test
+	public void prunesNothingWhenEveryTableIsShown() {
+		assertEquals(Map.of(), requiredFields(new MsdxColumnPruner(modelingFactory(), Map.of())));
+	}
+
+	@Test
+	public void prunedInstancesMatchTheFullInstances() {
+		Map<String, Set<String>> required= requiredFields(PRUNER);
+		MsdxFile full= factory().readFile(MsdxInputSource.fromString(mosdex()));
+		MsdxFile pruned= factory().withRequiredFields(required).readFile(MsdxInputSource.fromString(mosdex()));
+
+		for(String tableName: full.getTables().keySet()) {
+			MsdxInstance fullInstance= full.getTable(tableName).getInstance();
+			MsdxInstance prunedInstance= pruned.getTable(tableName).getInstance();
+			if(fullInstance==null)
+				continue;
+			Set<String> fields= required.getOrDefault(tableName, Set.copyOf(fullInstance.getRecordSchema().itemNames()));
+			List<MsdxContainer<Object>> expected= fullInstance.asContainers()
+				.map(record -> record.select(fields))
+				.collect(Collectors.toList());
+
+			assertEquals(tableName, fullInstance.getSchema().asContainer(), prunedInstance.getSchema().asContainer());
+			assertEquals(tableName, fullInstance.getRecordSchema().select(fields), prunedInstance.getRecordSchema());
+			assertEquals(tableName, expected, prunedInstance.asContainers().collect(Collectors.toList()));
+			assertEquals(tableName, SIZE, prunedInstance.getDataframe().size());
+		}
+		assertEquals(Set.of("cost", "note"), pruned.getTable("routes").getInstance().getPrunedFields());
+		assertEquals(Set.of("Comment"), pruned.getTable("supply").getInstance().getPrunedFields());
+		assertEquals(Set.of(), pruned.getTable("cities").getInstance().getPrunedFields());
+	}
+
+}//class MsdxColumnPrunerTest
@@ -0,0 +1,157 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.modeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.MsdxIdDictionary;
+
+/**
+ * Checks that the ids of sparse expressions are given by name, so that String, Integer and dictionary Id
+ * keys in the same model never share an id unless they have the same name,
+ * that the rendered text matches the terms that were added,
+ * and that rendering an expression does not change it.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxSparseExpressionTest {
+
+	@Test
+	public void mixedKeysGetDistinctIds() {
+		MsdxSparseExpression.Names names= new MsdxSparseExpression.Names();
+		try(MsdxIdDictionary dictionary= new MsdxIdDictionary()) {
+			MsdxIdDictionary.Id flow= dictionary.idOf("flow_PITT_NE");	//number 0 in its dictionary
+			int x= names.idOf("x");
+			int zero= names.idOf(Integer.valueOf(0));
+			int id= names.idOf(flow);
+			int seven= names.idOf(Integer.valueOf(7));
+
+			assertEquals(4, names.size());
+			assertNotEquals(x, zero);
+			assertNotEquals(zero, id);
+			assertEquals("x", names.nameOf(x));
+			assertEquals("0", names.nameOf(zero));
+			assertEquals("flow_PITT_NE", names.nameOf(id));
+			assertEquals("7", names.nameOf(seven));
+			assertEquals(seven, names.idOf("7"));		//same name, same column in the text
+			assertEquals(id, names.idOf(dictionary.id(0)));
+		}
+	}
+
+	@Test
+	public void lpTextUsesTheNamesOfTheKeys() {
+		MsdxSparseExpression.Names names= new MsdxSparseExpression.Names();
+		MsdxLpTextModelingFactory.Variable x= new MsdxLpTextModelingFactory.Variable("x", "", names);
+		MsdxLpTextModelingFactory.Variable one= new MsdxLpTextModelingFactory.Variable(Integer.valueOf(1), "", names);
+		MsdxLpTextModelingFactory.Variable zero= new MsdxLpTextModelingFactory.Variable(Integer.valueOf(0), "", names);
+
+		MsdxLpTextModelingFactory.Expression expression= MsdxLpTextModelingFactory.Expression.empty()
+			.add(MsdxLpTextModelingFactory.Expression.multiply(Double.valueOf(2.0), zero))
+			.add(MsdxLpTextModelingFactory.Expression.multiply("-3.5", one))
+			.add(MsdxLpTextModelingFactory.Expression.multiply(Integer.valueOf(1), x))
+			.add(MsdxLpTextModelingFactory.Expression.multiply(Double.valueOf(-2.0), zero))
+			.add(MsdxLpTextModelingFactory.Expression.multiply(Double.valueOf(1.0), x, x));
+
+		assertSame(names, expression.getNames());
+		assertEquals("1*x + 1*(x)^2 - 3.5*1", expression.render());
+	}
+
+	@Test
+	public void mpsTextUsesTheNamesOfTheKeys() {
+		MsdxSparseExpression.Names names= new MsdxSparseExpression.Names();
+		MsdxMpsTextModelingFactory.Constraint integerRow= new MsdxMpsTextModelingFactory.Constraint(Integer.valueOf(0), names);
+		MsdxMpsTextModelingFactory.Constraint stringRow= new MsdxMpsTextModelingFactory.Constraint("supply_PITT", names);
+		MsdxMpsTextModelingFactory.Objective objective= new MsdxMpsTextModelingFactory.Objective("cost", names);
+
+		MsdxMpsTextModelingFactory.Expression column= MsdxMpsTextModelingFactory.Expression.empty()
+			.add(MsdxMpsTextModelingFactory.Expression.multiply(Double.valueOf(4.0), null, objective))
+			.add(MsdxMpsTextModelingFactory.Expression.multiply(Integer.valueOf(1), stringRow, null))
+			.add(MsdxMpsTextModelingFactory.Expression.multiply(Integer.valueOf(-1), integerRow, null));
+
+		assertEquals("[0 -1, supply_PITT 1, cost 4]", column.compact().toString());
+	}
+
+	@Test
+	public void lpTextOfAnEmptyExpressionIsAZeroTerm() {
+		MsdxSparseExpression.Names names= new MsdxSparseExpression.Names();
+		assertEquals("0", new MsdxLpTextModelingFactory.Expression(names).render());	//no columns yet
+
+		MsdxLpTextModelingFactory.Variable x= new MsdxLpTextModelingFactory.Variable("x", "", names);
+		MsdxLpTextModelingFactory.Variable y= new MsdxLpTextModelingFactory.Variable("y", "", names);
+		assertEquals("0*x", new MsdxLpTextModelingFactory.Expression(names).render());
+
+		MsdxLpTextModelingFactory.Expression cancelled= new MsdxLpTextModelingFactory.Expression(names)
+			.add(MsdxLpTextModelingFactory.Expression.multiply(Integer.valueOf(2), y))
+			.add(MsdxLpTextModelingFactory.Expression.multiply(Integer.valueOf(-2), y));
+		assertEquals("0*x", cancelled.render());
+		assertEquals("c1: 0*x >= 3", MsdxLpTextModelingFactory.Constraint.format(MsdxContainer.<Object>builder()
+			.addItem("Row", "c1")
+			.addItem("Constraint", new MsdxLpTextModelingFactory.Constraint("c1", ">= 3"))
+			.addItem("Expression", cancelled)
+			.build()));
+		assertEquals(2, cancelled.size());		//the terms are still there
+		assertEquals("empty", MsdxLpTextModelingFactory.Expression.empty().toString());
+		assertEquals("0*x", cancelled.toString());
+		assertEquals(0, x.getColumn());		//the first column of the model
+	}
+
+	@Test
+	public void renderingDoesNotChangeTheExpression() {
+		MsdxSparseExpression.Names names= new MsdxSparseExpression.Names();
+		MsdxLpTextModelingFactory.Variable x= new MsdxLpTextModelingFactory.Variable("x", "", names);
+		MsdxLpTextModelingFactory.Variable y= new MsdxLpTextModelingFactory.Variable("y", "", names);
+		MsdxLpTextModelingFactory.Expression lp= MsdxLpTextModelingFactory.Expression.empty()
+			.add(MsdxLpTextModelingFactory.Expression.multiply(Integer.valueOf(1), y))
+			.add(MsdxLpTextModelingFactory.Expression.multiply(Integer.valueOf(2), x))
+			.add(MsdxLpTextModelingFactory.Expression.multiply(Integer.valueOf(3), y));
+
+		assertEquals("2*x + 4*y", lp.toString());
+		assertEquals("2*x + 4*y", lp.render());
+		assertEquals(3, lp.size());
+		assertEquals(names.idOf("y"), lp.getId(0));		//still in the order added
+		assertEquals(3.0, lp.getCoefficient(2), 0.0);
+		assertNotSame(lp, lp.compacted());
+		assertSame(lp, lp.compact().compacted());
+
+		MsdxMpsTextModelingFactory.Constraint row= new MsdxMpsTextModelingFactory.Constraint("r", names);
+		MsdxMpsTextModelingFactory.Expression mps= MsdxMpsTextModelingFactory.Expression.empty()
+			.add(MsdxMpsTextModelingFactory.Expression.multiply(Integer.valueOf(1), row, null))
+			.add(MsdxMpsTextModelingFactory.Expression.multiply(Integer.valueOf(1), row, null));
+		assertEquals("r 2", mps.twoAtATime().next());
+		assertEquals(2, mps.size());
+	}
+
+	@Test
+	public void expressionsOfDifferentModelsCannotBeAdded() {
+		MsdxSparseExpression first= new MsdxSparseExpression(new MsdxSparseExpression.Names()).addTerm(1.0, 0);
+		MsdxSparseExpression second= new MsdxSparseExpression(new MsdxSparseExpression.Names()).addTerm(1.0, 0);
+		assertThrows(IllegalArgumentException.class, () -> first.add(second));
+	}
+
+	@Test
+	public void compactMergesAndDropsTerms() {
+		MsdxSparseExpression.Names names= new MsdxSparseExpression.Names();
+		int b= names.idOf("b");
+		int a= names.idOf("a");
+		MsdxSparseExpression expression= new MsdxSparseExpression(names)
+			.addTerm(1.0, b)
+			.addTerm(2.0, a)
+			.addTerm(-1.0, b)
+			.addTerm(3.0, a, b)
+			.compact();
+		assertEquals(2, expression.size());
+		assertEquals("[2*a, 3*a*b]", expression.toString());
+	}
+
+}//class MsdxSparseExpressionTest
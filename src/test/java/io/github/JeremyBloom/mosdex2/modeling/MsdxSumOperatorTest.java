@@ -0,0 +1,189 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.modeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.dataframe.MsdxDataframe;
+import io.github.JeremyBloom.mosdex2.dataframe.MsdxJavaDataframe;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
+import io.github.JeremyBloom.mosdex2.span.MsdxKeyReducer;
+import io.github.JeremyBloom.mosdex2.span.OperatorWithAccumulator;
+
+/**
+ * Checks that reducing the terms of a model with the sum operators of the .lp and .mps factories
+ * gives the same expressions, term for term and in the same key order, as folding them with the add operators,
+ * including when the terms of a hot row or column are summed in chunks on an executor.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxSumOperatorTest {
+
+	static final int TERMS= 20_000;
+
+	static final MsdxJavaDataframe.Factory DATAFRAMES= new MsdxJavaDataframe.Factory();
+
+	static final MsdxContainer<Class<?>> LP_SCHEMA= MsdxContainer.<Class<?>>builder()
+		.addItem("Row", String.class)
+		.addItem("Expression", MsdxLpTextModelingFactory.Expression.class)
+		.build();
+
+	static final MsdxContainer<Class<?>> MPS_SCHEMA= MsdxContainer.<Class<?>>builder()
+		.addItem("Column", String.class)
+		.addItem("Expression", MsdxMpsTextModelingFactory.Expression.class)
+		.build();
+
+	/**
+	 * @return the row (or column) of term i: most terms are in the hot key "cost", the rest spread over 50 keys
+	 */
+	static String keyOf(int i) {
+		return i % 4 == 0 ? "key_" + (i / 4 % 50) : "cost";
+	}
+
+	/**
+	 * The terms are made afresh for each reduction, since the add operators add to the expression of the first term of a key in place.
+	 * Some terms cancel, so that compacting them drops them.
+	 */
+	static Supplier<List<MsdxContainer<Object>>> lpTerms(boolean quadratic) {
+		MsdxSparseExpression.Names names= new MsdxSparseExpression.Names();
+		List<MsdxLpTextModelingFactory.Variable> variables= new ArrayList<MsdxLpTextModelingFactory.Variable>();
+		for(int j= 0; j < 200; j++)
+			variables.add(new MsdxLpTextModelingFactory.Variable("x" + j, "", names));
+		return () -> {
+			Random random= new Random(37);
+			List<MsdxContainer<Object>> terms= new ArrayList<MsdxContainer<Object>>();
+			for(int i= 0; i < TERMS; i++) {
+				MsdxLpTextModelingFactory.Variable variable= variables.get(random.nextInt(variables.size()));
+				Object coefficient= i % 7 == 0 ? Double.valueOf(random.nextInt(9) - 4) : Double.valueOf(random.nextGaussian());
+				MsdxLpTextModelingFactory.Expression term= quadratic && i % 3 == 0 ?
+					MsdxLpTextModelingFactory.Expression.multiply(coefficient, variable, variables.get(random.nextInt(variables.size()))) :
+					MsdxLpTextModelingFactory.Expression.multiply(coefficient, variable);
+				terms.add(MsdxRecord.create(LP_SCHEMA, keyOf(i), term));
+			}
+			return terms;
+		};
+	}
+
+	static Supplier<List<MsdxContainer<Object>>> mpsTerms() {
+		MsdxSparseExpression.Names names= new MsdxSparseExpression.Names();
+		List<MsdxMpsTextModelingFactory.Constraint> rows= new ArrayList<MsdxMpsTextModelingFactory.Constraint>();
+		for(int j= 0; j < 200; j++)
+			rows.add(new MsdxMpsTextModelingFactory.Constraint("r" + j, names));
+		MsdxMpsTextModelingFactory.Objective objective= new MsdxMpsTextModelingFactory.Objective("cost", names);
+		return () -> {
+			Random random= new Random(41);
+			List<MsdxContainer<Object>> terms= new ArrayList<MsdxContainer<Object>>();
+			for(int i= 0; i < TERMS; i++) {
+				Object coefficient= i % 7 == 0 ? Integer.valueOf(random.nextInt(9) - 4) : Double.valueOf(random.nextGaussian());
+				MsdxMpsTextModelingFactory.Expression term= i % 11 == 0 ?
+					MsdxMpsTextModelingFactory.Expression.multiply(coefficient, null, objective) :
+					MsdxMpsTextModelingFactory.Expression.multiply(coefficient, rows.get(random.nextInt(rows.size())), null);
+				terms.add(MsdxRecord.create(MPS_SCHEMA, keyOf(i), term));
+			}
+			return terms;
+		};
+	}
+
+	/**@return the terms of an expression in the order they were added, before they are compacted*/
+	static List<String> termsOf(MsdxSparseExpression expression) {
+		List<String> terms= new ArrayList<String>();
+		for(int i= 0; i < expression.size(); i++)
+			terms.add(expression.getId(i) + "*" + expression.getId2(i) + "=" + expression.getCoefficient(i));
+		return terms;
+	}
+
+	static <A> Map<Object, MsdxContainer<Object>> reduce(MsdxKeyReducer reducer, List<MsdxContainer<Object>> terms,
+		MsdxContainer<Class<?>> schema, OperatorWithAccumulator<A> combiner)
+	{
+		String keyFieldName= schema.itemNames().iterator().next();
+		combiner.withResultSchema(schema, keyFieldName);
+		return reducer.reduceByKey(terms.stream(), keyFieldName, combiner);
+	}
+
+	/**
+	 * Reduces fresh terms, keyed by the first field of their schema, with sum and with the folded add operator, on the default reducer and on one that splits hot keys into small chunks,
+	 * and checks that the results are the same.
+	 *
+	 * @return the number of keys
+	 */
+	static int assertSumIsFoldedAdd(Supplier<List<MsdxContainer<Object>>> terms, MsdxContainer<Class<?>> schema,
+		Supplier<OperatorWithAccumulator<?>> sum, Supplier<OperatorWithAccumulator<?>> add)
+	{
+		String keyFieldName= schema.itemNames().iterator().next();
+		Map<Object, MsdxContainer<Object>> expected= reduce(MsdxKeyReducer.getDefault(), terms.get(), schema, add.get());
+		ExecutorService executor= Executors.newFixedThreadPool(4);
+		try {
+			MsdxKeyReducer splitting= new MsdxKeyReducer(64, 16, executor);
+			List<Map<Object, MsdxContainer<Object>>> sums= List.of(
+				reduce(MsdxKeyReducer.getDefault(), terms.get(), schema, sum.get()),
+				reduce(splitting, terms.get(), schema, sum.get()),
+				reduce(splitting, terms.get(), schema, sum.get().withHotKeys(Set.of("cost"))));
+			for(Map<Object, MsdxContainer<Object>> actual: sums) {
+				assertEquals(new ArrayList<Object>(expected.keySet()), new ArrayList<Object>(actual.keySet()));
+				for(Object key: expected.keySet()) {
+					MsdxSparseExpression expectedExpression= (MsdxSparseExpression) expected.get(key).get("Expression");
+					MsdxSparseExpression actualExpression= (MsdxSparseExpression) actual.get(key).get("Expression");
+					assertEquals(key, actual.get(key).get(keyFieldName));
+					assertEquals(key.toString(), termsOf(expectedExpression), termsOf(actualExpression));
+					assertEquals(key.toString(), termsOf(expectedExpression.compacted()), termsOf(actualExpression.compacted()));
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+		return expected.size();
+	}
+
+	@Test
+	public void lpSumIsTheFoldedAdd() {
+		//Java dataframes cannot register the solution function calls, which summing does not need
+		MsdxLpTextModelingFactory factory= new MsdxLpTextModelingFactory(DATAFRAMES) {
+			@Override
+			public Map<String, Function<MsdxContainer<Object>, ?>> initializeFunctionTable(MsdxDataframe.Factory dataframeFactory) {
+				return new LinkedHashMap<String, Function<MsdxContainer<Object>, ?>>();
+			}
+		};
+		for(String tableType: new String[] {"LINEAR", "QUADRATIC"}) {
+			int keys= assertSumIsFoldedAdd(lpTerms(tableType.equals("QUADRATIC")), LP_SCHEMA,
+				() -> factory.sum("TERM", tableType),
+				() -> OperatorWithAccumulator.folding(factory.add("TERM", tableType)));
+			assertEquals(51, keys);
+		}
+		assertTrue(factory.sum("TERM", "LINEAR").isSplittable());
+	}
+
+	@Test
+	public void mpsSumIsTheFoldedAdd() {
+		MsdxMpsTextModelingFactory factory= new MsdxMpsTextModelingFactory(DATAFRAMES) {
+			@Override
+			public Map<String, Function<MsdxContainer<Object>, ?>> initializeFunctionTable(MsdxDataframe.Factory dataframeFactory) {
+				return new LinkedHashMap<String, Function<MsdxContainer<Object>, ?>>();
+			}
+		};
+		int keys= assertSumIsFoldedAdd(mpsTerms(), MPS_SCHEMA,
+			() -> factory.sum("TERM", "LINEAR"),
+			() -> OperatorWithAccumulator.folding(factory.add("TERM", "LINEAR")));
+		assertEquals(51, keys);
+		assertTrue(factory.sum("TERM", "LINEAR").isSplittable());
+	}
+
+}//class MsdxSumOperatorTest
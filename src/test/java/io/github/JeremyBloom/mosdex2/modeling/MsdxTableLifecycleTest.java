@@ -0,0 +1,209 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.modeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.Msdx;
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.MsdxInputSource;
+import io.github.JeremyBloom.mosdex2.dataframe.MsdxDataframe;
+import io.github.JeremyBloom.mosdex2.dataframe.MsdxJavaDataframe;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxFile;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxInstance;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxObject;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxQuery;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxTable;
+
+/**
+ * Checks that MsdxTableLifecycle counts the consumers of each Table from the Resolver's dependencies and the creationOrder,
+ * releases an Instance once its last consumer has run, keeps pinned and small Instances,
+ * that a released Instance reads back the same Records it held before it was released,
+ * and that its spill files are deleted once it is reloaded or the lifecycle is closed.
+ * <p>
+ * Java dataframes cannot run Queries, so the Queries are not run; the test records that they have, as MsdxModel does.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxTableLifecycleTest {
+
+	static final int SIZE= 3_000;
+
+	static final Set<String> CREATION_ORDER= Set.of("VARIABLE", "CONSTRAINT", "TERM");
+
+	Path spillDirectory;
+	Map<String, MsdxTable> collector;
+	Map<String, List<MsdxContainer<Object>>> loaded;
+
+	/**
+	 * routes and cities are read by the Queries of ship and balance; cities is also read by the output Table flows;
+	 * costs is read by no Query, and sizes has too few Records to be released.
+	 */
+	static String mosdex() {
+		return "{\"SYNTAX\": \"\", \"MODULES\": [{\"NAME\": \"lifecycle\", \"CLASS\": \"MODULE\", \"KIND\": \"MODEL\", \"TABLES\": ["
+			+ input("routes", SIZE) + ", " + input("cities", SIZE) + ", " + input("costs", SIZE) + ", " + input("sizes", 10) + ", "
+			+ query("ship", "VARIABLE", "CONTINUOUS", "routes") + ", "
+			+ query("balance", "CONSTRAINT", "LINEAR", "cities") + ", "
+			+ query("balance_ship", "TERM", "LINEAR", "balance\", \"JOIN\": \"ship\", \"ON\": \"balance.Key = ship.Key") + ", "
+			+ query("flows", "DATA", "OUTPUT", "cities")
+			+ "]}]}";
+	}
+
+	static String input(String name, int size) {
+		String records= Stream.iterate(0, i -> i + 1).limit(size)
+			.map(i -> "[\"" + name + i + "\", " + i + ", " + (i / 4.0) + ", " + (i % 3 == 0 ? "null" : "\"LE\"") + "]")
+			.collect(Collectors.joining(", "));
+		return "{\"NAME\": \"" + name + "\", \"CLASS\": \"DATA\", \"KIND\": \"INPUT\", "
+			+ "\"SCHEMA\": {\"FIELDS\": [\"Key\", \"Count\", \"Value\", \"Sense\"], \"TYPES\": [\"STRING\", \"INTEGER\", \"DOUBLE\", \"STRING\"]}, "
+			+ "\"INSTANCE\": [" + records + "]}";
+	}
+
+	static String query(String name, String tableClass, String kind, String from) {
+		return "{\"NAME\": \"" + name + "\", \"CLASS\": \"" + tableClass + "\", \"KIND\": \"" + kind + "\", "
+			+ "\"QUERY\": {\"SELECT\": [\"Key AS Key -- STRING\"], \"FROM\": \"" + from + "\"}}";
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		spillDirectory= Files.createTempDirectory("lifecycle");
+		MsdxObject.Factory factory= new MsdxObject.Factory(new MsdxJavaDataframe.Factory(), Msdx.GLOBAL.mapper, false);
+		MsdxFile file= factory.readFile(MsdxInputSource.fromString(mosdex()));
+		collector= new LinkedHashMap<String, MsdxTable>(file.getTables());
+		loaded= new LinkedHashMap<String, List<MsdxContainer<Object>>>();
+		for(MsdxTable table: collector.values())
+			if(table.getInstance()!=null)
+				loaded.put(table.getName(), table.getInstance().asContainers().collect(Collectors.toList()));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try(Stream<Path> files= Files.walk(spillDirectory)) {
+			for(Path path: files.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+				Files.deleteIfExists(path);
+		}
+	}
+
+	MsdxTableLifecycle lifecycle() {
+		MsdxQuery.Resolver resolver= new MsdxQuery.Resolver(collector).findDependencies();
+		resolver.resolveDependencies();
+		return new MsdxTableLifecycle(collector, resolver, CREATION_ORDER, 100, spillDirectory);
+	}
+
+	MsdxInstance instance(String tableName) {
+		return collector.get(tableName).getInstance();
+	}
+
+	@Test
+	public void countsTheConsumersOfEachTable() {
+		MsdxTableLifecycle lifecycle= lifecycle();
+		assertEquals(1, lifecycle.getReferenceCount("routes"));
+		assertEquals(1, lifecycle.getReferenceCount("cities"));		//the output Table pins it instead
+		assertEquals(0, lifecycle.getReferenceCount("costs"));
+		assertEquals(2, lifecycle.getReferenceCount("ship"));		//balance_ship and its solver objects
+		assertEquals(1, lifecycle.getReferenceCount("balance_ship"));
+		assertTrue(lifecycle.isPinned("cities"));
+		assertFalse(lifecycle.isPinned("routes"));
+		assertThrows(IllegalArgumentException.class, () -> lifecycle.getReferenceCount("nowhere"));
+	}
+
+	@Test
+	public void releasesOnceTheLastConsumerHasRun() {
+		MsdxTableLifecycle lifecycle= lifecycle();
+		lifecycle.releaseUnused();
+		assertEquals(Set.of("costs"), lifecycle.getReleased());
+		assertTrue(instance("costs").isReleased());
+		assertFalse(instance("sizes").isReleased());		//too small
+
+		lifecycle.instantiated("ship");
+		lifecycle.instantiated("balance");
+		assertEquals(Set.of("costs", "routes"), lifecycle.getReleased());
+		assertTrue(instance("routes").isReleased());
+		assertFalse(instance("cities").isReleased());		//pinned
+		assertEquals(0, lifecycle.getReferenceCount("cities"));
+
+		assertThrows(IllegalStateException.class, () -> lifecycle.instantiated("ship"));
+		lifecycle.modeled("ship");
+		lifecycle.instantiated("balance_ship");
+		assertEquals(0, lifecycle.getReferenceCount("ship"));
+	}
+
+	@Test
+	public void releasedInstancesReadBackTheirRecords() {
+		MsdxTableLifecycle lifecycle= lifecycle();
+		MsdxDataframe held= instance("costs").getDataframe();
+		lifecycle.releaseUnused();
+		lifecycle.instantiated("ship");
+
+		for(String tableName: List.of("costs", "routes")) {
+			MsdxInstance instance= instance(tableName);
+			assertTrue(instance.isReleased());
+			assertEquals(loaded.get(tableName).get(0).itemNames(), instance.getRecordSchema().itemNames());
+			assertEquals(loaded.get(tableName), instance.asContainers().collect(Collectors.toList()));
+			assertEquals(loaded.get(tableName), instance.asContainers().collect(Collectors.toList()));		//read again
+			assertTrue(instance.isReleased());
+		}
+
+		MsdxDataframe reloaded= instance("costs").getDataframe();
+		assertFalse(instance("costs").isReleased());
+		assertNotSame(held, reloaded);
+		assertTrue(reloaded instanceof MsdxJavaDataframe);
+		assertEquals(loaded.get("costs"), instance("costs").asContainers().collect(Collectors.toList()));
+		assertEquals(loaded.get("costs"), reloaded.toStream().collect(Collectors.toList()));
+	}
+
+	long countSpillDirectories() {
+		try(Stream<Path> directories= Files.list(spillDirectory)) {
+			return directories.count();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Test
+	public void deletesTheSpillFilesOnceTheyAreNotNeeded() {
+		MsdxTableLifecycle lifecycle= lifecycle();
+		lifecycle.releaseUnused();
+		lifecycle.instantiated("ship");
+		assertEquals(Set.of("costs", "routes"), lifecycle.getReleased());
+		assertEquals(2, countSpillDirectories());
+
+		instance("costs").getDataframe();
+		assertEquals(1, countSpillDirectories());
+		assertEquals(loaded.get("costs"), instance("costs").asContainers().collect(Collectors.toList()));
+
+		lifecycle.close();
+		assertEquals(0, countSpillDirectories());
+		lifecycle.close();		//again
+	}
+
+	@Test
+	public void rejectsADependencyOnAnUnknownTable() {
+		collector.remove("routes");
+		MsdxQuery.Resolver resolver= new MsdxQuery.Resolver(collector).findDependencies();
+		assertThrows(IllegalArgumentException.class, () -> new MsdxTableLifecycle(collector, resolver, CREATION_ORDER));
+	}
+
+}//class MsdxTableLifecycleTest
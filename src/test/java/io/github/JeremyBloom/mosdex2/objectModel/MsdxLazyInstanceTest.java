@@ -0,0 +1,149 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.objectModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.Msdx;
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.MsdxInputSource;
+import io.github.JeremyBloom.mosdex2.MsdxOutputDestination;
+import io.github.JeremyBloom.mosdex2.dataframe.MsdxDataframe;
+import io.github.JeremyBloom.mosdex2.dataframe.MsdxJavaDataframe;
+
+/**
+ * Checks that a File read with lazy Instances is written as a File read in full is,
+ * that the Instances no one reads stay deferred,
+ * and that an Instance read by several threads at once is decoded once.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxLazyInstanceTest {
+
+	static final int SIZE= 500;
+
+	/**cities is read by the Query of balance; routes and costs are read by no Query.*/
+	static String mosdex() {
+		return "{\"SYNTAX\": \"\", \"MODULES\": [{\"NAME\": \"lazy\", \"CLASS\": \"MODULE\", \"KIND\": \"MODEL\", \"TABLES\": ["
+			+ input("cities") + ", " + input("routes") + ", " + input("costs") + ", "
+			+ "{\"NAME\": \"balance\", \"CLASS\": \"CONSTRAINT\", \"KIND\": \"LINEAR\", "
+			+ "\"QUERY\": {\"SELECT\": [\"cities.Key AS Row -- STRING\"], \"FROM\": \"cities\"}}, "
+			+ "{\"NAME\": \"ship\", \"CLASS\": \"VARIABLE\", \"KIND\": \"CONTINUOUS\", "
+			+ "\"SCHEMA\": {\"FIELDS\": [\"Name\", \"Column\", \"LowerBound\", \"UpperBound\", \"Value\"], "
+			+ "\"TYPES\": [\"STRING\", \"STRING\", \"DOUBLE\", \"DOUBLE\", \"DOUBLE_FUNCTION\"]}, "
+			+ "\"INSTANCE\": [[\"ship\", \"x1\", 0.0, \"Infinity\", \"PrimalValue(Column)\"], [\"ship\", \"x2\", -1.5, 2.0, \"PrimalValue(Column)\"]]}"
+			+ "]}]}";
+	}
+
+	static String input(String name) {
+		String records= Stream.iterate(0, i -> i + 1).limit(SIZE)
+			.map(i -> "[\"" + name + i + "\", " + i + ", " + (i / 3.0) + ", " + (i % 4 == 0 ? "null" : "\"LE\"") + "]")
+			.collect(Collectors.joining(", "));
+		return "{\"NAME\": \"" + name + "\", \"CLASS\": \"DATA\", \"KIND\": \"INPUT\", "
+			+ "\"SCHEMA\": {\"FIELDS\": [\"Key\", \"Count\", \"Value\", \"Sense\"], \"TYPES\": [\"STRING\", \"INTEGER\", \"DOUBLE\", \"STRING\"]}, "
+			+ "\"INSTANCE\": [" + records + "]}";
+	}
+
+	static MsdxObject.Factory factory(boolean lazyInstances) {
+		return new MsdxObject.Factory(new MsdxJavaDataframe.Factory(), Msdx.GLOBAL.mapper, false).withLazyInstances(lazyInstances);
+	}
+
+	static String write(MsdxObject.Factory factory, MsdxFile file, Map<String, Set<String>> objectsToShow) {
+		ByteArrayOutputStream dst= new ByteArrayOutputStream();
+		factory.writeFile(file, objectsToShow, MsdxOutputDestination.toStream(dst));
+		return dst.toString();
+	}
+
+	static Set<String> deferred(MsdxFile file) {
+		return file.getTables().values().stream()
+			.filter(table -> table.getInstance()!=null && table.getInstance().isDeferred())
+			.map(MsdxTable::getName)
+			.collect(Collectors.toSet());
+	}
+
+	@Test
+	public void writesTheSameFileAsAnEagerRead() {
+		MsdxObject.Factory eager= factory(false), lazy= factory(true);
+		MsdxFile eagerFile= eager.readFile(MsdxInputSource.fromString(mosdex()));
+		MsdxFile lazyFile= lazy.readFile(MsdxInputSource.fromString(mosdex()));
+
+		assertEquals(Set.of(), deferred(eagerFile));
+		assertEquals(Set.of("cities", "routes", "costs", "ship"), deferred(lazyFile));
+		assertTrue(lazyFile.getTable("routes").getInstance().getFileOffset() > 0);
+		assertEquals(eagerFile.getTable("routes").getInstance().getRecordSchema(), lazyFile.getTable("routes").getInstance().getRecordSchema());
+
+		Map<String, Set<String>> some= Map.of("lazy", Set.of("routes", "ship"));
+		assertEquals(write(eager, eagerFile, some), write(lazy, lazyFile, some));
+		assertEquals(Set.of("cities", "costs"), deferred(lazyFile));		//not shown, so not read
+		assertEquals(write(eager, eagerFile, Map.of()), write(lazy, lazyFile, Map.of()));
+		assertEquals(Set.of(), deferred(lazyFile));
+	}
+
+	@Test
+	public void queriesLoadOnlyTheirDependencies() {
+		MsdxFile file= factory(true).readFile(MsdxInputSource.fromString(mosdex()));
+		Map<String, MsdxTable> collector= file.getTables();
+		MsdxQuery.Resolver resolver= new MsdxQuery.Resolver(collector).findDependencies();
+		resolver.resolveDependencies();
+		assertSame(collector, resolver.getCollector());
+
+		resolver.loadDependenciesOf(file.getTable("balance"));
+		assertEquals(Set.of("routes", "costs", "ship"), deferred(file));
+		assertEquals(SIZE, file.getTable("cities").getInstance().getDataframe().size());
+
+		//a Resolver over the Schemas alone loads nothing in the File
+		MsdxFile scanned= factory(true).readSchemas(MsdxInputSource.fromString(mosdex()));
+		new MsdxQuery.Resolver(scanned.getTables()).findDependencies().loadDependenciesOf(scanned.getTable("balance"));
+		assertEquals(Set.of("routes", "costs", "ship"), deferred(file));
+	}
+
+	@Test
+	public void decodesOnceWhenReadByManyThreads() throws Exception {
+		MsdxFile eagerFile= factory(false).readFile(MsdxInputSource.fromString(mosdex()));
+		MsdxFile lazyFile= factory(true).readFile(MsdxInputSource.fromString(mosdex()));
+		MsdxInstance instance= lazyFile.getTable("costs").getInstance();
+		assertTrue(instance.isDeferred());
+
+		ExecutorService readers= Executors.newFixedThreadPool(8);
+		try {
+			CountDownLatch start= new CountDownLatch(1);
+			List<Future<MsdxDataframe>> reads= new ArrayList<Future<MsdxDataframe>>();
+			for(int i= 0; i < 8; i++)
+				reads.add(readers.submit(() -> {
+					start.await();
+					return instance.getDataframe();
+				}));
+			start.countDown();
+			MsdxDataframe first= reads.get(0).get();
+			for(Future<MsdxDataframe> read: reads)
+				assertSame(first, read.get());
+		} finally {
+			readers.shutdown();
+		}
+		assertFalse(instance.isDeferred());
+		List<MsdxContainer<Object>> expected= eagerFile.getTable("costs").getInstance().asContainers().collect(Collectors.toList());
+		assertEquals(expected, instance.asContainers().collect(Collectors.toList()));
+	}
+
+}//class MsdxLazyInstanceTest
@@ -0,0 +1,283 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.span;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
+
+/**
+ * Checks that the stages of a Flow Span return the same Records as the same operators of a Java Span,
+ * that a slow consumer holds back the source to within the buffers of the stages,
+ * and that closing the Records, or a failing stage, stops every stage before it.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxFlowSpanTest {
+
+	static final MsdxContainer<Class<?>> SCHEMA= MsdxContainer.<Class<?>>builder()
+		.addItem("Row", String.class)
+		.addItem("Column", String.class)
+		.addItem("Coefficient", Double.class)
+		.build();
+
+	static final MsdxContainer<Class<?>> ROW_SCHEMA= MsdxContainer.<Class<?>>builder()
+		.addItem("Row", String.class)
+		.addItem("Sense", String.class)
+		.build();
+
+	static final int SIZE= 2_000;
+
+	/**A power of two, which SubmissionPublisher does not round.*/
+	static final int BUFFER_SIZE= 8;
+
+	static final Predicate<MsdxContainer<Object>> POSITIVE= record -> (Double) record.get("Coefficient") > 0;
+
+	ThreadPoolExecutor executor;
+	MsdxFlowSpan.Factory factory;
+	List<MsdxContainer<Object>> records;
+	List<MsdxContainer<Object>> rows;
+
+	@Before
+	public void setUp() {
+		executor= (ThreadPoolExecutor) Executors.newFixedThreadPool(8);
+		factory= new MsdxFlowSpan.Factory(executor, BUFFER_SIZE);
+		records= new ArrayList<MsdxContainer<Object>>();
+		for(int i= 0; i < SIZE; i++)
+			records.add(MsdxRecord.create(SCHEMA, "row" + i % 37, "x" + i, Double.valueOf(i % 11 - 5)));
+		rows= new ArrayList<MsdxContainer<Object>>();
+		for(int i= 0; i < 30; i++)
+			rows.add(MsdxRecord.create(ROW_SCHEMA, "row" + i, i % 2 == 0 ? "LE" : "GE"));
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	MsdxSpan eager() {
+		return new MsdxJavaSpan.Persistent(records, SCHEMA);
+	}
+
+	/**Publishes the Records, counting those the source has read.*/
+	MsdxFlowSpan counted(AtomicInteger read) {
+		return factory.create(() -> new Iterator<MsdxContainer<Object>>() {
+			final Iterator<MsdxContainer<Object>> iterator= records.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public MsdxContainer<Object> next() {
+				read.incrementAndGet();
+				return iterator.next();
+			}
+		}, SCHEMA);
+	}
+
+	/**Doubles the Coefficient of each Record.*/
+	static OperatorWithOneArgument doubling() {
+		return new OperatorWithOneArgument() {
+
+			@Override
+			public OperatorWithOneArgument withResultSchema(MsdxContainer<Class<?>> inputSchema) {
+				this.resultSchema= inputSchema;
+				return this;
+			}
+
+			@Override
+			public MsdxContainer<Object> apply(MsdxContainer<Object> input) {
+				return MsdxRecord.create(this.resultSchema, input.get("Row"), input.get("Column"),
+					Double.valueOf(2 * (Double) input.get("Coefficient")));
+			}
+		}/*OperatorWithOneArgument*/;
+	}
+
+	/**Sums the Coefficients of each Row.*/
+	static class Summing extends OperatorWithAccumulator<double[]> {
+
+		@Override
+		public OperatorWithAccumulator<double[]> withResultSchema(MsdxContainer<Class<?>> inputSchema, String keyFieldName) {
+			this.inputSchema= inputSchema;
+			this.keyFieldName= keyFieldName;
+			this.resultSchema= inputSchema.select("Row", "Coefficient");
+			return this;
+		}
+
+		@Override
+		public double[] supply() {
+			return new double[] {Double.NaN, 0.0};
+		}
+
+		@Override
+		public void accumulate(double[] accumulation, MsdxContainer<Object> record) {
+			accumulation[0]= Double.parseDouble(((String) record.get("Row")).substring(3));
+			accumulation[1]+= (Double) record.get("Coefficient");
+		}
+
+		@Override
+		public double[] combine(double[] accumulation1, double[] accumulation2) {
+			accumulation1[1]+= accumulation2[1];
+			return accumulation1;
+		}
+
+		@Override
+		public MsdxContainer<Object> finish(double[] accumulation) {
+			return MsdxRecord.create(resultSchema, "row" + (int) accumulation[0], Double.valueOf(accumulation[1]));
+		}
+
+	}//class MsdxFlowSpanTest.Summing
+
+	static List<MsdxContainer<Object>> read(MsdxFlowSpan span) {
+		List<MsdxContainer<Object>> read= new ArrayList<MsdxContainer<Object>>();
+		span.iterator().forEachRemaining(read::add);
+		return read;
+	}
+
+	static List<MsdxContainer<Object>> sorted(List<MsdxContainer<Object>> records) {
+		List<MsdxContainer<Object>> sorted= new ArrayList<MsdxContainer<Object>>(records);
+		sorted.sort(Comparator.comparing(MsdxContainer::toString));
+		return sorted;
+	}
+
+	static Map<Object, MsdxContainer<Object>> byRow(List<MsdxContainer<Object>> records) {
+		return records.stream().collect(Collectors.toMap(record -> record.get("Row"), record -> record));
+	}
+
+	/**Waits until the executor has no tasks running, i.e. no stage is waiting to publish.*/
+	void awaitIdle() {
+		long deadline= System.currentTimeMillis() + 10_000;
+		while(executor.getActiveCount() > 0 && System.currentTimeMillis() < deadline)
+			sleep(10);
+		assertEquals("stages still running", 0, executor.getActiveCount());
+	}
+
+	@Test
+	public void stagesMatchTheJavaSpan() {
+		MsdxFlowSpan span= factory.create(records, SCHEMA);
+		assertEquals(records, read(span));
+		assertEquals(records, read(span));		//each subscription reads the source again
+		assertEquals(eager().map(doubling()).toList(), read(span.map(doubling())));
+		assertEquals(eager().filter(POSITIVE).toList(), read(span.filter(POSITIVE)));
+		assertEquals(eager().filter(POSITIVE).map(doubling()).toList(), read(span.filter(POSITIVE).map(doubling())));
+
+		MsdxSpan rowSpan= new MsdxJavaSpan.Persistent(rows, ROW_SCHEMA);
+		assertEquals(eager().leftJoin(rowSpan, "Row", MsdxSpan.merge()).toList(),
+			read(span.leftJoin(rowSpan, "Row", MsdxSpan.merge())));
+		assertEquals(byRow(eager().reduceByKey("Row", new Summing()).toList()), byRow(read(span.reduceByKey("Row", new Summing()))));
+		assertEquals(sorted(eager().union(eager().map(doubling())).toList()), sorted(read(span.union(span.map(doubling())))));
+
+		assertEquals(eager().map(doubling()).toList(), span.map(doubling()).toSpan(new MsdxJavaSpan.Factory()).toList());
+		assertSame(executor, span.getExecutor());
+		awaitIdle();
+	}
+
+	@Test
+	public void aSlowConsumerHoldsBackTheSource() {
+		AtomicInteger read= new AtomicInteger();
+		MsdxFlowSpan.Records iterator= counted(read).map(doubling()).filter(record -> true).iterator();
+		List<MsdxContainer<Object>> consumed= new ArrayList<MsdxContainer<Object>>();
+		for(int taken= 1; iterator.hasNext(); taken++) {
+			consumed.add(iterator.next());
+			if(taken % 250 == 0) {
+				sleep(100);		//let the stages fill their buffers
+				//a buffer in the source, in each of the two stages and in the iterator, and a Record in hand in each stage
+				assertTrue(read.get() + " read, " + taken + " taken", read.get() <= taken + 4 * BUFFER_SIZE + 3);
+			}
+		}
+		assertEquals(eager().map(doubling()).toList(), consumed);
+		assertEquals(SIZE, read.get());
+		awaitIdle();
+	}
+
+	@Test
+	public void theBufferSizeBoundsTheStagesAfterIt() {
+		AtomicInteger read= new AtomicInteger();
+		MsdxFlowSpan span= counted(read).withBufferSize(2 * BUFFER_SIZE);
+		assertEquals(2 * BUFFER_SIZE, span.getBufferSize());
+		try(MsdxFlowSpan.Records iterator= span.map(doubling()).iterator()) {
+			iterator.next();
+			sleep(200);
+			assertTrue(read.get() + " read", read.get() <= 1 + BUFFER_SIZE + 2 * 2 * BUFFER_SIZE + 2);
+		}
+		assertThrows(IllegalArgumentException.class, () -> span.withBufferSize(0));
+		assertThrows(IllegalArgumentException.class, () -> new MsdxFlowSpan.Factory(null, BUFFER_SIZE));
+		assertThrows(IllegalArgumentException.class, () -> new MsdxFlowSpan.Factory(executor, 0));
+		awaitIdle();
+	}
+
+	@Test
+	public void closingTheRecordsStopsTheStages() {
+		AtomicInteger read= new AtomicInteger();
+		MsdxFlowSpan.Records iterator= counted(read).map(doubling()).filter(record -> true).iterator();
+		for(int i= 0; i < 10; i++)
+			iterator.next();
+		sleep(100);
+		iterator.close();
+		assertFalse(iterator.hasNext());
+		awaitIdle();
+		assertTrue(read.get() < SIZE);
+		iterator.close();		//again
+
+		MsdxFlowSpan.Records unread= counted(new AtomicInteger()).map(doubling()).iterator();
+		unread.close();		//possibly before it is subscribed
+		assertFalse(unread.hasNext());
+		awaitIdle();
+	}
+
+	@Test
+	public void aFailingStageStopsTheStagesBeforeIt() {
+		AtomicInteger read= new AtomicInteger();
+		MsdxFlowSpan failing= counted(read).filter(record -> {
+			if("x500".equals(record.get("Column")))
+				throw new IllegalStateException("Bad record");
+			return true;
+		}).map(doubling());
+		Iterator<MsdxContainer<Object>> iterator= failing.iterator();
+		List<MsdxContainer<Object>> taken= new ArrayList<MsdxContainer<Object>>();
+		IllegalStateException e= assertThrows(IllegalStateException.class, () -> iterator.forEachRemaining(taken::add));
+		assertEquals("Bad record", e.getMessage());
+		//SubmissionPublisher.closeExceptionally may drop the Records still buffered after the failing stage
+		assertEquals(eager().map(doubling()).toList().subList(0, taken.size()), taken);
+		assertTrue(taken.size() <= 500);
+		awaitIdle();
+		assertTrue(read.get() < SIZE);
+		assertThrows(IllegalStateException.class, () -> failing.toSpan(new MsdxJavaSpan.Factory()));
+		awaitIdle();
+	}
+
+	static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}//class MsdxFlowSpanTest
@@ -0,0 +1,163 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.span;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
+
+/**
+ * Checks that a replayable Span returns the same Records as the persistent Span of the same source,
+ * through chains of map, filter, select, delete and joins,
+ * that it evaluates its lineage only until it is memoized on its second use,
+ * and that it answers count and isEmpty from the size of the source when it can.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxJavaSpanReplayableTest {
+
+	static final MsdxContainer<Class<?>> SCHEMA= MsdxContainer.<Class<?>>builder()
+		.addItem("Row", String.class)
+		.addItem("Column", String.class)
+		.addItem("Coefficient", Double.class)
+		.build();
+
+	static final MsdxJavaSpan.Factory FACTORY= new MsdxJavaSpan.Factory();
+
+	final List<MsdxContainer<Object>> records= new ArrayList<MsdxContainer<Object>>();
+	final AtomicInteger evaluations= new AtomicInteger();
+
+	public MsdxJavaSpanReplayableTest() {
+		for(int i= 0; i < 100; i++)
+			records.add(MsdxRecord.create(SCHEMA, "row" + i % 7, "x" + i, Double.valueOf(i - 50)));
+	}
+
+	MsdxJavaSpan.Replayable lazy() {
+		return (MsdxJavaSpan.Replayable) FACTORY.lazy(
+			() -> {
+				evaluations.incrementAndGet();
+				return records.stream();
+			},
+			SCHEMA, records.size());
+	}
+
+	MsdxSpan eager() {
+		return FACTORY.create(records, SCHEMA);
+	}
+
+	/**Doubles the Coefficient of each Record.*/
+	static OperatorWithOneArgument doubling() {
+		return new OperatorWithOneArgument() {
+
+			@Override
+			public OperatorWithOneArgument withResultSchema(MsdxContainer<Class<?>> inputSchema) {
+				this.resultSchema= inputSchema;
+				return this;
+			}
+
+			@Override
+			public MsdxContainer<Object> apply(MsdxContainer<Object> input) {
+				return MsdxRecord.create(this.resultSchema, input.get("Row"), input.get("Column"),
+					Double.valueOf(2 * (Double) input.get("Coefficient")));
+			}
+		}/*OperatorWithOneArgument*/;
+	}
+
+	static final Predicate<MsdxContainer<Object>> POSITIVE= record -> (Double) record.get("Coefficient") > 0;
+
+	@Test
+	public void memoizesOnTheSecondUse() {
+		MsdxJavaSpan.Replayable span= lazy();
+		assertEquals(0, evaluations.get());
+		assertEquals(records, span.toList());
+		assertFalse(span.isMemoized());
+		assertEquals(records, span.toList());
+		assertTrue(span.isMemoized());
+		assertEquals(records, span.toList());
+		assertEquals(2, evaluations.get());
+		assertEquals(3, span.getUses());
+	}
+
+	@Test
+	public void chainsReplayTheLineageAsThePersistentSpanDoes() {
+		List<Function<MsdxSpan, MsdxSpan>> chains= List.of(
+			span -> span.map(doubling()),
+			span -> span.filter(POSITIVE),
+			span -> span.select(Set.of("Row", "Coefficient")),
+			span -> span.delete(Set.of("Column")),
+			span -> span.filter(POSITIVE).map(doubling()).select(Set.of("Column", "Coefficient")));
+		for(Function<MsdxSpan, MsdxSpan> chain: chains) {
+			evaluations.set(0);
+			MsdxJavaSpan.Replayable span= lazy();
+			MsdxSpan derived= chain.apply(span);
+			List<MsdxContainer<Object>> expected= chain.apply(eager()).toList();
+
+			assertTrue(derived instanceof MsdxJavaSpan.Replayable);
+			assertEquals(expected, derived.toList());
+			assertEquals(expected, derived.toList());
+			assertEquals(expected, derived.toList());
+			assertEquals(2, evaluations.get());		//the derived Span is memoized, its source is not
+			assertEquals(0, span.getUses());
+		}
+	}
+
+	@Test
+	public void derivedSpansReadAMemoizedSource() {
+		MsdxJavaSpan.Replayable span= lazy();
+		span.toList();
+		span.toList();
+		MsdxSpan derived= span.map(doubling());
+		assertEquals(eager().map(doubling()).toList(), derived.toList());
+		assertEquals(2, evaluations.get());
+	}
+
+	@Test
+	public void countsFromTheSizeOfTheSource() {
+		MsdxJavaSpan.Replayable span= lazy();
+		assertEquals(100, span.count());
+		assertEquals(100, span.map(doubling()).count());
+		assertEquals(100, span.select(Set.of("Row")).count());
+		assertFalse(span.isEmpty());
+		assertEquals(0, evaluations.get());
+
+		MsdxSpan filtered= span.filter(POSITIVE);
+		assertEquals(100, filtered.estimateSize());		//an upper bound
+		assertEquals(eager().filter(POSITIVE).toList().size(), filtered.count());
+		assertEquals(1, evaluations.get());
+	}
+
+	@Test
+	public void joinsMatchThePersistentSpan() {
+		MsdxContainer<Class<?>> rowSchema= MsdxContainer.<Class<?>>builder()
+			.addItem("Row", String.class)
+			.addItem("Sense", String.class)
+			.build();
+		List<MsdxContainer<Object>> rows= new ArrayList<MsdxContainer<Object>>();
+		for(int i= 0; i < 5; i++)
+			rows.add(MsdxRecord.create(rowSchema, "row" + i, i % 2 == 0 ? "LE" : "GE"));
+
+		MsdxSpan lazyRows= FACTORY.lazy(() -> rows.stream(), rowSchema, rows.size());
+		MsdxSpan eagerRows= FACTORY.create(rows, rowSchema);
+		assertEquals(eager().leftJoin(eagerRows, "Row", MsdxSpan.merge()).toList(),
+			lazy().leftJoin(lazyRows, "Row", MsdxSpan.merge()).toList());
+		assertEquals(eager().innerJoin(eagerRows, "Row", MsdxSpan.merge()).toList(),
+			lazy().innerJoin(lazyRows, "Row", MsdxSpan.merge()).toList());
+	}
+
+}//class MsdxJavaSpanReplayableTest
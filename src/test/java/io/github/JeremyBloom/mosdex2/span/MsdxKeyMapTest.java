@@ -0,0 +1,133 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.span;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.MsdxIdDictionary;
+
+/**
+ * Checks that MsdxKeyMap behaves as a LinkedHashMap without removal:
+ * through the switch from int keys to object keys, through resizing, and through serialization,
+ * and that it rejects null values.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxKeyMapTest {
+
+	/**Puts the same entries into an MsdxKeyMap and a LinkedHashMap, and checks that they agree.*/
+	static void putBoth(MsdxKeyMap<String> map, Map<Object, String> expected, Object key, String value) {
+		assertEquals(expected.put(key, value), map.put(key, value));
+		assertEquals(expected.size(), map.size());
+	}
+
+	static void assertSameEntries(Map<Object, String> expected, MsdxKeyMap<String> map) {
+		assertEquals(expected, map);
+		assertEquals(new ArrayList<Object>(expected.keySet()), new ArrayList<Object>(map.keySet()));
+		assertEquals(new ArrayList<String>(expected.values()), new ArrayList<String>(map.values()));
+		for(Map.Entry<Object, String> entry: expected.entrySet())
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+	}
+
+	@SuppressWarnings("unchecked")
+	static MsdxKeyMap<String> roundTrip(MsdxKeyMap<String> map) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream bytes= new ByteArrayOutputStream();
+		try(ObjectOutputStream out= new ObjectOutputStream(bytes)) {
+			out.writeObject(map);
+		}
+		try(ObjectInputStream in= new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			return (MsdxKeyMap<String>) in.readObject();
+		}
+	}
+
+	@Test
+	public void keepsTheInsertionOrderThroughResizing() {
+		MsdxKeyMap<String> map= new MsdxKeyMap<String>();
+		Map<Object, String> expected= new LinkedHashMap<Object, String>();
+		for(int i= 0; i < 5_000; i++)
+			putBoth(map, expected, Integer.valueOf((i * 7919) % 5_000 - 2_500), "v" + i);
+		putBoth(map, expected, Integer.valueOf(-2_500), "replaced");		//keeps its position
+		assertSameEntries(expected, map);
+		assertEquals("replaced", map.get(-2_500));
+		assertNull(map.get(5_000));
+		assertNull(map.get("5000"));
+	}
+
+	@Test
+	public void switchesFromIntToObjectKeys() {
+		MsdxKeyMap<String> map= new MsdxKeyMap<String>(4);
+		Map<Object, String> expected= new LinkedHashMap<Object, String>();
+		for(int i= 0; i < 100; i++)
+			putBoth(map, expected, Integer.valueOf(i), "int" + i);
+		putBoth(map, expected, "row0", "string");		//converts the map
+		putBoth(map, expected, null, "null key");
+		putBoth(map, expected, Long.valueOf(7), "long");		//not equal to Integer 7
+		MsdxIdDictionary ids= new MsdxIdDictionary();
+		for(int i= 0; i < 1_000; i++)
+			putBoth(map, expected, ids.idOf("x" + i), "id" + i);
+		putBoth(map, expected, Integer.valueOf(42), "int again");
+
+		assertSameEntries(expected, map);
+		assertEquals("int again", map.get(42));
+		assertEquals("id7", map.get(ids.idOf("x7")));
+		assertEquals("int7", map.get(Integer.valueOf(7)));
+		assertEquals("null key", map.get(null));
+		assertTrue(map.containsKey(null));
+		ids.close();
+	}
+
+	@Test
+	public void rejectsNullValuesAndRemoval() {
+		MsdxKeyMap<String> map= new MsdxKeyMap<String>();
+		assertThrows(NullPointerException.class, () -> map.put(1, null));
+		assertThrows(NullPointerException.class, () -> map.merge("a", null, (v1, v2) -> v1));
+		map.put("a", "b");
+		assertThrows(UnsupportedOperationException.class, () -> map.merge("a", "c", (v1, v2) -> null));
+		assertThrows(UnsupportedOperationException.class, () -> map.remove("a"));
+		assertEquals("b", map.get("a"));
+		map.clear();
+		assertTrue(map.isEmpty());
+		map.put(1, "one");
+		assertEquals("one", map.get(1));
+	}
+
+	@Test
+	public void serializesItsEntriesInOrder() throws Exception {
+		for(int size: new int[] {0, 10, 3_000}) {
+			MsdxKeyMap<String> ints= new MsdxKeyMap<String>();
+			MsdxKeyMap<String> objects= new MsdxKeyMap<String>();
+			Map<Object, String> expectedInts= new LinkedHashMap<Object, String>();
+			Map<Object, String> expectedObjects= new LinkedHashMap<Object, String>();
+			for(int i= 0; i < size; i++) {
+				putBoth(ints, expectedInts, Integer.valueOf(size - i), "v" + i);
+				putBoth(objects, expectedObjects, i % 3 == 0 ? (Object) Thread.State.values()[i % 6] : "row" + i, "v" + i);
+			}
+			putBoth(objects, expectedObjects, null, "null key");
+			assertSameEntries(expectedInts, roundTrip(ints));
+			assertSameEntries(expectedObjects, roundTrip(objects));
+
+			MsdxKeyMap<String> read= roundTrip(objects);
+			putBoth(read, expectedObjects, "after", "read");		//the table is rebuilt, so the map is usable
+			assertSameEntries(expectedObjects, read);
+		}
+	}
+
+}//class MsdxKeyMapTest
@@ -0,0 +1,127 @@
+/*
+ * This code is made available under the terms of the Eclipse Public License - v 2.0.<br>
+ *
+ * Copyright 2022 by Dr. Jeremy A. Bloom (<a>jeremyblmca@gmail.com</a>)
+ */
+package io.github.JeremyBloom.mosdex2.span;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import io.github.JeremyBloom.mosdex2.MsdxContainer;
+import io.github.JeremyBloom.mosdex2.objectModel.MsdxRecord;
+
+/**
+ * Checks that a spill store returns the Records it was filled with, in arrival order or by key,
+ * that a stream of the store can be closed before it is read to the end,
+ * and that a Span over a store deletes its files when it is closed.
+ *
+ * @author Dr. Jeremy A. Bloom (jeremyblmca@gmail.com) ©2019 Jeremy A. Bloom
+ *
+ */
+public class MsdxSpillStoreTest {
+
+	static final MsdxContainer<Class<?>> SCHEMA= MsdxContainer.<Class<?>>builder()
+		.addItem("Row", String.class)
+		.addItem("Coefficient", Double.class)
+		.addItem("Sense", String.class)
+		.build();
+
+	static List<MsdxContainer<Object>> records(int size) {
+		List<MsdxContainer<Object>> records= new ArrayList<MsdxContainer<Object>>();
+		for(int i= 0; i < size; i++)
+			records.add(MsdxRecord.create(SCHEMA, String.format("row%05d", (i * 7919) % size), Double.valueOf(i / 3.0), i % 4 == 0 ? null : "LE"));
+		return records;
+	}
+
+	static long countFiles(Path directory) throws IOException {
+		try(Stream<Path> files= Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	@Test
+	public void keepsTheArrivalOrderWithoutAKey() {
+		List<MsdxContainer<Object>> records= records(500);
+		MsdxSpillStore store= new MsdxSpillStore(records.stream(), SCHEMA, "", 64, null);
+		try {
+			assertTrue(store.isSpilled());
+			assertEquals(500, store.size());
+			assertEquals(records, store.stream().collect(Collectors.toList()));
+		} finally {
+			store.delete();
+		}
+	}
+
+	@Test
+	public void looksUpAndIteratesByKey() {
+		List<MsdxContainer<Object>> records= records(500);
+		MsdxSpillStore store= new MsdxSpillStore(Stream.concat(records.stream(), records.stream()), SCHEMA, "Row", 64, null);
+		try {
+			assertTrue(store.isSpilled());
+			assertEquals(500, store.size());
+			for(MsdxContainer<Object> record: records)
+				assertEquals(record, store.get(record.get("Row")));
+			assertNull(store.get("row99999"));
+			List<Object> keys= store.stream().map(record -> record.get("Row")).collect(Collectors.toList());
+			assertEquals(records.stream().map(record -> record.get("Row")).sorted().collect(Collectors.toList()), keys);
+		} finally {
+			store.delete();
+		}
+	}
+
+	@Test
+	public void closesAStreamReadInPart() {
+		List<MsdxContainer<Object>> records= records(500);
+		MsdxSpillStore store= new MsdxSpillStore(records.stream(), SCHEMA, "", 64, null);
+		try {
+			try(Stream<MsdxContainer<Object>> stream= store.stream()) {
+				assertEquals(records.subList(0, 100), stream.limit(100).collect(Collectors.toList()));
+			}
+			assertEquals(records, new ArrayList<MsdxContainer<Object>>(store));
+		} finally {
+			store.delete();
+		}
+	}
+
+	@Test
+	public void spilledSpansDeleteTheirFilesWhenClosed() throws IOException {
+		List<MsdxContainer<Object>> records= records(500);
+		Path directory= Files.createTempDirectory("spill");
+		try {
+			try(MsdxJavaSpan.Keyed keyed= new MsdxJavaSpan.Keyed(
+				new MsdxSpillStore(records.stream(), SCHEMA, "Row", 64, directory), "Row", SCHEMA))
+			{
+				for(MsdxContainer<Object> record: records)		//a lookup reads one block, and does not keep its file open
+					assertEquals(record, keyed.getAsMap().get(record.get("Row")));
+				assertEquals(1, countFiles(directory));
+			}
+			assertEquals(0, countFiles(directory));
+
+			MsdxJavaSpan.Persistent persistent= new MsdxJavaSpan.Persistent(new MsdxSpillStore(records.stream(), SCHEMA, "", 64, directory), SCHEMA);
+			assertEquals(records, persistent.toList());
+			persistent.close();
+			assertEquals(0, countFiles(directory));
+			persistent.close();		//again
+		} finally {
+			Files.delete(directory);
+		}
+
+		try(MsdxJavaSpan.Keyed spilled= new MsdxJavaSpan.Persistent(records, SCHEMA).spill("Row", 64)) {
+			assertEquals(records.get(7), spilled.getAsMap().get(records.get(7).get("Row")));
+			assertEquals(500, spilled.count());
+		}
+	}
+
+}//class MsdxSpillStoreTest